@@ -0,0 +1,350 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.configurations.CheckpointProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+
+/**
+ * A journal of indexing progress, stored on local disk so that an interrupted run can be resumed.
+ * <p>
+ * The journal records the (repository, language) units that have been committed to Elasticsearch, and the
+ * files that were parsed to produce them. If the files of a repository change after a unit has been committed,
+ * the progress of that repository is discarded and the repository is indexed again. The journal is written
+ * atomically when a run starts and after every committed unit, and is removed once an indexing run completes, so
+ * its presence shows that the last run was interrupted.
+ * <p>
+ * The parser version of the last completed run is also stored, so that records are mapped again after the parser
+ * has changed rather than being skipped as unchanged.
+ * <p>
+ * If no checkpoint directory is configured, the journal is disabled and all methods report that no work has been completed.
+ */
+@Component
+@Slf4j
+public class CheckpointJournal {
+
+    private static final String JOURNAL_FILE_NAME = "checkpoint.json";
+    private static final String PARSER_VERSION_FILE_NAME = "parser-version";
+
+    private final Path journalFile;
+    private final CheckpointProperties checkpointProperties;
+    private final ObjectMapper objectMapper;
+
+    private Journal journal = null;
+
+    @Autowired
+    public CheckpointJournal(CheckpointProperties checkpointProperties, ObjectMapper objectMapper) {
+        this.checkpointProperties = checkpointProperties;
+        this.objectMapper = objectMapper;
+        if (checkpointProperties.directory() != null) {
+            this.journalFile = checkpointProperties.directory().resolve(JOURNAL_FILE_NAME);
+        } else {
+            this.journalFile = null;
+        }
+    }
+
+    /**
+     * Constructs a disabled checkpoint journal.
+     */
+    static CheckpointJournal disabled() {
+        return new CheckpointJournal(new CheckpointProperties(null, null), new ObjectMapper());
+    }
+
+    /**
+     * Returns {@code true} if a checkpoint directory has been configured.
+     */
+    public boolean isEnabled() {
+        return journalFile != null;
+    }
+
+    /**
+     * Loads the journal from disk, starting a new journal if one doesn't exist, can't be read or has expired.
+     */
+    public synchronized void load() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (Files.exists(journalFile)) {
+            try (var inputStream = Files.newInputStream(journalFile)) {
+                var loadedJournal = objectMapper.readValue(inputStream, Journal.class);
+                var age = Instant.now().toEpochMilli() - loadedJournal.startedAt();
+                if (age <= checkpointProperties.maxAge().toMillis()) {
+                    this.journal = loadedJournal;
+                    log.info("Resuming from checkpoint created at [{}], {} repositories have progress recorded",
+                        Instant.ofEpochMilli(loadedJournal.startedAt()),
+                        value("checkpointed_repositories", loadedJournal.repositories().size())
+                    );
+                    return;
+                }
+                log.info("Discarding checkpoint created at [{}] as it has expired", Instant.ofEpochMilli(loadedJournal.startedAt()));
+            } catch (IOException e) {
+                log.warn("Couldn't load checkpoint from [{}], starting a new run: {}", journalFile, e.toString());
+            }
+        }
+
+        // Written immediately, so that the run is known to have been interrupted even if no progress was recorded
+        this.journal = new Journal(Instant.now().toEpochMilli(), new HashMap<>());
+        write();
+    }
+
+    /**
+     * Returns {@code true} if the journal of a run exists on disk, meaning that the last run was interrupted before
+     * it completed. This is the case even if the journal has expired.
+     */
+    public boolean hasInterruptedRun() {
+        return isEnabled() && Files.exists(journalFile);
+    }
+
+    /**
+     * Records the start of processing for a repository. If the files of the repository have changed since progress
+     * was last recorded, the previous progress is discarded.
+     *
+     * @param repo  the repository.
+     * @param files the state of the files that are about to be parsed, from {@link #getFileStates(Repo)}.
+     */
+    public synchronized void beginRepository(Repo repo, Map<String, FileState> files) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        var progress = getJournal().repositories().get(repo.code());
+        if (progress != null && !progress.acknowledgedFiles().equals(files)) {
+            log.info("[{}] Files have changed since the last checkpoint, discarding progress",
+                value(LoggingConstants.REPO_NAME, repo.code())
+            );
+            progress = null;
+        }
+
+        if (progress == null) {
+            getJournal().repositories().put(repo.code(), new RepositoryProgress(new HashSet<>(), new HashMap<>(files), false));
+        }
+    }
+
+    /**
+     * Returns {@code true} if the repository was completely indexed and its files haven't changed since.
+     *
+     * @param repo the repository.
+     */
+    public synchronized boolean isRepositoryComplete(Repo repo) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        var progress = getJournal().repositories().get(repo.code());
+        return progress != null && progress.complete() && progress.acknowledgedFiles().equals(getFileStates(repo));
+    }
+
+    /**
+     * Returns {@code true} if the given language of the repository has been indexed.
+     *
+     * @param repo     the repository.
+     * @param language the language.
+     */
+    public synchronized boolean isLanguageComplete(Repo repo, String language) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        var progress = getJournal().repositories().get(repo.code());
+        return progress != null && progress.completedLanguages().contains(language);
+    }
+
+    /**
+     * Records that a language of the repository has been committed to Elasticsearch.
+     *
+     * @param repo     the repository.
+     * @param language the language.
+     */
+    public synchronized void markLanguageComplete(Repo repo, String language) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        var progress = getJournal().repositories().get(repo.code());
+        if (progress != null) {
+            progress.completedLanguages().add(language);
+            write();
+        }
+    }
+
+    /**
+     * Records that all languages of the repository have been committed to Elasticsearch.
+     *
+     * @param repo the repository.
+     */
+    public synchronized void markRepositoryComplete(Repo repo) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        getJournal().repositories().computeIfPresent(repo.code(), (code, progress) ->
+            new RepositoryProgress(progress.completedLanguages(), progress.acknowledgedFiles(), true)
+        );
+        write();
+    }
+
+    /**
+     * Removes the journal. This should be called once an indexing run has completed.
+     */
+    public synchronized void clear() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        journal = null;
+        try {
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            log.warn("Couldn't remove checkpoint [{}]: {}", journalFile, e.toString());
+        }
+    }
+
+    /**
+     * Returns {@code true} if the parser version is the version recorded by the last completed run. If checkpointing
+     * is disabled, the version cannot be checked and {@code true} is returned.
+     *
+     * @param parserVersion the current parser version.
+     */
+    public synchronized boolean isParserVersionCurrent(String parserVersion) {
+        if (!isEnabled()) {
+            return true;
+        }
+
+        var parserVersionFile = journalFile.resolveSibling(PARSER_VERSION_FILE_NAME);
+        try {
+            return Files.exists(parserVersionFile) && Files.readString(parserVersionFile).equals(parserVersion);
+        } catch (IOException e) {
+            log.warn("Couldn't read parser version from [{}]: {}", parserVersionFile, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Records the parser version used by a completed run.
+     *
+     * @param parserVersion the parser version.
+     */
+    public synchronized void recordParserVersion(String parserVersion) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        var parserVersionFile = journalFile.resolveSibling(PARSER_VERSION_FILE_NAME);
+        try {
+            Files.createDirectories(parserVersionFile.getParent());
+            var temporaryFile = parserVersionFile.resolveSibling(PARSER_VERSION_FILE_NAME + ".tmp");
+            Files.writeString(temporaryFile, parserVersion);
+            Files.move(temporaryFile, parserVersionFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Couldn't write parser version to [{}]: {}", parserVersionFile, e.toString());
+        }
+    }
+
+    /**
+     * Gets the size and modification time of each record file in a repository. An empty map is returned if
+     * checkpointing is disabled.
+     *
+     * @param repo the repository.
+     */
+    public Map<String, FileState> getFileStates(Repo repo) {
+        if (!isEnabled() || repo.path() == null) {
+            return Collections.emptyMap();
+        }
+
+        var fileStates = new HashMap<String, FileState>();
+        try (var stream = Files.find(repo.path(), 1, IndexerConsumerService::isRecordFile)) {
+            for (var path : (Iterable<Path>) stream::iterator) {
+                fileStates.put(path.getFileName().toString(), new FileState(
+                    Files.size(path),
+                    Files.getLastModifiedTime(path).toMillis()
+                ));
+            }
+        } catch (IOException e) {
+            log.warn("[{}] Couldn't read file states: {}", value(LoggingConstants.REPO_NAME, repo.code()), e.toString());
+        }
+        return fileStates;
+    }
+
+    private Journal getJournal() {
+        if (journal == null) {
+            load();
+        }
+        return journal;
+    }
+
+    /**
+     * Writes the journal to a temporary file, then moves it over the existing journal.
+     * This ensures the journal on disk is always complete, even if the process is killed.
+     */
+    private void write() {
+        try {
+            Files.createDirectories(journalFile.getParent());
+            var temporaryFile = journalFile.resolveSibling(JOURNAL_FILE_NAME + ".tmp");
+            try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(objectMapper.writeValueAsBytes(journal)));
+                channel.force(true);
+            }
+            Files.move(temporaryFile, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Couldn't write checkpoint to [{}]: {}", journalFile, e.toString());
+        }
+    }
+
+    /**
+     * The state of a file when it was parsed.
+     *
+     * @param size         the size of the file in bytes.
+     * @param lastModified the modification time of the file, in milliseconds since the epoch.
+     */
+    public record FileState(long size, long lastModified) {
+    }
+
+    /**
+     * The progress of a repository.
+     *
+     * @param completedLanguages the languages that have been committed to Elasticsearch.
+     * @param acknowledgedFiles  the files that were parsed to produce the committed languages.
+     * @param complete           whether all languages of the repository have been committed.
+     */
+    record RepositoryProgress(Set<String> completedLanguages, Map<String, FileState> acknowledgedFiles, boolean complete) {
+    }
+
+    /**
+     * The journal stored on disk.
+     *
+     * @param startedAt    the time the run started, in milliseconds since the epoch.
+     * @param repositories the progress of each repository, keyed by repository code.
+     */
+    record Journal(long startedAt, Map<String, RepositoryProgress> repositories) {
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Splits work on the items of a single document into batches that run in parallel.
+ * <p>
+ * Batches are forked onto the {@link ForkJoinPool} that is running the calling task, rather than onto a separate
+ * executor. This bounds the number of threads used for parsing, and lets idle workers steal batches while other
+ * workers are busy with file level tasks. The calling task works through batches itself while it waits, so a
+ * single large document no longer occupies one worker while the others are idle.
+ */
+@UtilityClass
+public class ForkJoinBatches {
+
+    /**
+     * Applies the mapping function to each item, in batches of the given size.
+     * <p>
+     * The items are mapped sequentially on the calling thread if the batch size is not positive, if there is only
+     * one batch, or if the caller is not running in a {@link ForkJoinPool}.
+     *
+     * @param items     the items to map.
+     * @param batchSize the number of items in each batch.
+     * @param mapper    the mapping function, which must be safe to call from several threads.
+     * @return the mapped items, in the same order as the source items.
+     */
+    public static <T, R> List<R> map(List<T> items, int batchSize, Function<? super T, ? extends R> mapper) {
+        if (batchSize <= 0 || items.size() <= batchSize || !ForkJoinTask.inForkJoinPool()) {
+            var results = new ArrayList<R>(items.size());
+            for (var item : items) {
+                results.add(mapper.apply(item));
+            }
+            return results;
+        }
+
+        var results = new Object[items.size()];
+        var batches = new ArrayList<ForkJoinTask<?>>((items.size() + batchSize - 1) / batchSize);
+        for (int start = 0; start < items.size(); start += batchSize) {
+            int from = start;
+            int to = Math.min(start + batchSize, items.size());
+            batches.add(ForkJoinTask.adapt(() -> {
+                for (int i = from; i < to; i++) {
+                    results[i] = mapper.apply(items.get(i));
+                }
+            }));
+        }
+
+        // Forks all batches but the first, runs the first and then waits for the rest
+        ForkJoinTask.invokeAll(batches);
+
+        @SuppressWarnings("unchecked")
+        var resultList = (List<R>) Arrays.asList(results);
+        return resultList;
+    }
+}
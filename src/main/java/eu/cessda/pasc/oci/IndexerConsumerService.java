@@ -15,27 +15,34 @@
  */
 package eu.cessda.pasc.oci;
 
+import eu.cessda.pasc.oci.configurations.ParserProperties;
 import eu.cessda.pasc.oci.configurations.Repo;
 import eu.cessda.pasc.oci.exception.XMLParseException;
+import eu.cessda.pasc.oci.models.RecordHeader;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudy;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import eu.cessda.pasc.oci.parser.ParseResultCache;
+import eu.cessda.pasc.oci.parser.RecordFileReader;
 import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import eu.cessda.pasc.oci.parser.ValueInterner;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
-import static com.google.common.io.Files.getFileExtension;
 import static java.lang.Math.max;
 import static net.logstash.logback.argument.StructuredArguments.value;
 
@@ -53,11 +60,39 @@ public class IndexerConsumerService {
 
     private final RecordXMLParser recordXMLParser;
     private final LanguageExtractor languageExtractor;
+    private final ParseResultCache parseResultCache;
+    private final int recordBatchSize;
+    private final RecordFileReader recordFileReader;
 
-    @Autowired
     public IndexerConsumerService(LanguageExtractor languageExtractor, RecordXMLParser recordXMLParser) {
+        this(languageExtractor, recordXMLParser, ParseResultCache.disabled());
+    }
+
+    public IndexerConsumerService(LanguageExtractor languageExtractor, RecordXMLParser recordXMLParser, ParseResultCache parseResultCache) {
+        this(languageExtractor, recordXMLParser, parseResultCache, new ParserProperties(null, null, 0, false, null), RecordFileReader.defaults());
+    }
+
+    @Autowired
+    public IndexerConsumerService(
+        LanguageExtractor languageExtractor,
+        RecordXMLParser recordXMLParser,
+        ParseResultCache parseResultCache,
+        ParserProperties parserProperties,
+        RecordFileReader recordFileReader
+    ) {
         this.languageExtractor = languageExtractor;
         this.recordXMLParser = recordXMLParser;
+        this.parseResultCache = parseResultCache;
+        this.recordBatchSize = parserProperties.recordBatchSize();
+        this.recordFileReader = recordFileReader;
+    }
+
+    /**
+     * Gets a version that changes whenever the studies produced from an unchanged record could change, such as
+     * when the parser, the configuration of the mapper or the configured languages change.
+     */
+    public String getParserVersion() {
+        return DigestUtils.sha256Hex(recordXMLParser.getParserVersion() + "\n" + languageExtractor.getVersion());
     }
 
     /**
@@ -66,8 +101,32 @@ public class IndexerConsumerService {
      * @param repo             the repository to query.
      * @return a map of records retrieved from the remote repository.
      */
-    @SuppressWarnings("UnstableApiUsage")
     public Map<String, List<CMMStudyOfLanguage>> getRecords(Repo repo) {
+        return getRecords(repo, null, FileStudiesListener.NONE);
+    }
+
+    /**
+     * Queries the remote repository for records, skipping records that don't need to be mapped.
+     *
+     * @param repo       the repository to query.
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped.
+     * @return a map of records retrieved from the remote repository.
+     */
+    public Map<String, List<CMMStudyOfLanguage>> getRecords(Repo repo, Predicate<RecordHeader> skipRecord) {
+        return getRecords(repo, skipRecord, FileStudiesListener.NONE);
+    }
+
+    /**
+     * Queries the remote repository for records, reporting the studies extracted from each file to the listener.
+     * Files that cannot be parsed are not reported.
+     *
+     * @param repo       the repository to query.
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped,
+     *                   or {@code null} to map all records.
+     * @param listener   the listener to report the studies of each file to, this is called from multiple threads.
+     * @return a map of records retrieved from the remote repository.
+     */
+    public Map<String, List<CMMStudyOfLanguage>> getRecords(Repo repo, Predicate<RecordHeader> skipRecord, FileStudiesListener listener) {
         /*
          * Repositories are indexed from their path. Because previous versions of the indexer supported
          * harvesting using URLs, we still need to check that a path is defined.
@@ -76,44 +135,90 @@ public class IndexerConsumerService {
 
         log.debug("[{}] Parsing records.", "Repo " + repo.code() + " has no path defined");
 
-        try (var stream = Files.find(repo.path(), 1, (path, attributes) ->
-            // Find XML files in the source directory.
-            attributes.isRegularFile() && getFileExtension(path.toString()).equals("xml")
-        )) {
+        try (var stream = Files.find(repo.path(), 1, IndexerConsumerService::isRecordFile)) {
             var studies = new AtomicInteger();
+            var initialCacheStatistics = parseResultCache.getStatistics();
+            var initialInternerStatistics = ValueInterner.getStatistics();
+            var initialInputStatistics = recordFileReader.getStatistics();
 
             var studiesByLanguage = new ConcurrentHashMap<String, List<CMMStudyOfLanguage>>();
 
-            // Parse the XML asynchronously
-            stream.map(path -> CompletableFuture.runAsync(() -> {
-                // Extract the individual studies from the parsed XML
-                var records = getRecord(repo, path);
+            var paths = stream.toList();
+            try (var ignored = recordFileReader.readAhead(paths)) {
+                // Parse the XML asynchronously
+                paths.stream().map(path -> CompletableFuture.runAsync(() -> {
+                    // Extract the individual studies from the parsed XML
+                    var skippedRecords = ConcurrentHashMap.<String>newKeySet();
+                    var records = parseRecord(repo, path, skipRecord == null ? null : header -> {
+                        if (skipRecord.test(header)) {
+                            skippedRecords.add(header.identifier());
+                            return true;
+                        }
+                        return false;
+                    });
+                    if (records == null) {
+                        return;
+                    }
+
+                    // Documents with many records are split into batches, see ForkJoinBatches
+                    var extractedRecords = ForkJoinBatches.map(records, recordBatchSize, cmmStudy -> languageExtractor.extractFromStudy(cmmStudy, repo));
 
-                // Collect all study entries into a list
-                for (var cmmStudy : records) {
-                    var extractedStudies = languageExtractor.extractFromStudy(cmmStudy, repo);
-                    if (!extractedStudies.isEmpty()) {
-                        studies.getAndIncrement();
+                    // Collect all study entries into a list
+                    var fileStudies = new HashMap<String, List<CMMStudyOfLanguage>>();
+                    for (var extractedStudies : extractedRecords) {
+                        if (!extractedStudies.isEmpty()) {
+                            studies.getAndIncrement();
+                        }
+                        extractedStudies.forEach((lang, study) -> {
+                            studiesByLanguage.computeIfAbsent(
+                                // Ensure the list is only modified by one thread
+                                lang, k -> Collections.synchronizedList(new ArrayList<>())
+                            ).add(study);
+                            fileStudies.computeIfAbsent(lang, k -> new ArrayList<>()).add(study);
+                        });
                     }
-                    extractedStudies.forEach((lang, study) ->
-                        studiesByLanguage.computeIfAbsent(
-                            // Ensure the list is only modified by one thread
-                            lang, k -> Collections.synchronizedList(new ArrayList<>())
-                        ).add(study)
-                    );
-                }
-            }, executor).exceptionally(
-                    e -> { log.warn("[{}] Couldn't parse {}", repo.code(), path, e); return null; }
-                ))
-                .toList()
-                // Wait for the XML to be parsed
-                .forEach(CompletableFuture::join);
+                    listener.parsed(path, fileStudies, skippedRecords);
+                }, executor).exceptionally(
+                        e -> { log.warn("[{}] Couldn't parse {}", repo.code(), path, e); return null; }
+                    ))
+                    .toList()
+                    // Wait for the XML to be parsed
+                    .forEach(CompletableFuture::join);
+            }
 
             log.info("[{}] Retrieved {} studies.",
                 value(LoggingConstants.REPO_NAME, repo.code()),
                 value("present_cmm_record", studies.get())
             );
 
+            var internerStatistics = ValueInterner.getStatistics().since(initialInternerStatistics);
+            log.info("[{}] Deduplicated {} of {} repeated values, saving approximately {} KiB.",
+                value(LoggingConstants.REPO_NAME, repo.code()),
+                value("deduplicated_values", internerStatistics.duplicates()),
+                value("interned_values", internerStatistics.lookups()),
+                value("deduplicated_kib", internerStatistics.bytesSaved() / 1024)
+            );
+
+            var inputStatistics = recordFileReader.getStatistics().since(initialInputStatistics);
+            log.info("[{}] Read {} files ({} read in advance, {} KiB), waiting {} ms for I/O and using {} ms of CPU time parsing.",
+                value(LoggingConstants.REPO_NAME, repo.code()),
+                value("files_read", inputStatistics.files()),
+                value("files_read_ahead", inputStatistics.prefetchedFiles()),
+                value("read_kib", inputStatistics.bytes() / 1024),
+                value("io_wait_ms", inputStatistics.ioNanos() / 1_000_000),
+                value("parse_cpu_ms", inputStatistics.cpuNanos() / 1_000_000)
+            );
+
+            if (parseResultCache.isEnabled()) {
+                var cacheStatistics = parseResultCache.getStatistics().since(initialCacheStatistics);
+                log.info("[{}] Parse result cache: {} hits, {} misses, {} evictions.",
+                    value(LoggingConstants.REPO_NAME, repo.code()),
+                    value("parse_cache_hits", cacheStatistics.hits()),
+                    value("parse_cache_misses", cacheStatistics.misses()),
+                    value("parse_cache_evictions", cacheStatistics.evictions())
+                );
+            }
+
             return studiesByLanguage;
         } catch (IOException e) {
             log.error(LIST_RECORD_HEADERS_FAILED_WITH_MESSAGE,
@@ -125,6 +230,66 @@ public class IndexerConsumerService {
         return Collections.emptyMap();
     }
 
+    /**
+     * Returns {@code true} if the path is a record file that should be parsed, i.e. it is a regular file that is
+     * an XML document, a compressed XML document or a zip archive of XML documents.
+     *
+     * @param path       the path to check.
+     * @param attributes the attributes of the file.
+     */
+    static boolean isRecordFile(Path path, BasicFileAttributes attributes) {
+        return attributes.isRegularFile() && hasRecordExtension(path);
+    }
+
+    /**
+     * Returns {@code true} if the path has the extension of a record file. Unlike {@link #isRecordFile(Path, BasicFileAttributes)},
+     * this can be used for paths that no longer exist.
+     *
+     * @param path the path to check.
+     * @see RecordFileReader#hasRecordExtension(Path)
+     */
+    static boolean hasRecordExtension(Path path) {
+        return RecordFileReader.hasRecordExtension(path);
+    }
+
+    /**
+     * Parses the given files of a repository, keeping the studies of each file separate.
+     * <p>
+     * Files that cannot be parsed are omitted from the result, so that a file that is still being written
+     * is not mistaken for a file without any studies.
+     *
+     * @param repo  the repository that the files belong to.
+     * @param paths the files to parse.
+     * @return a map of the studies extracted from each file, by language.
+     */
+    public Map<Path, Map<String, List<CMMStudyOfLanguage>>> getRecordsByFile(Repo repo, Collection<Path> paths) {
+        var studiesByFile = new ConcurrentHashMap<Path, Map<String, List<CMMStudyOfLanguage>>>();
+
+        try (var ignored = recordFileReader.readAhead(List.copyOf(paths))) {
+            paths.stream().map(path -> CompletableFuture.runAsync(() -> {
+                try {
+                    var studiesByLanguage = new HashMap<String, List<CMMStudyOfLanguage>>();
+                    var records = recordXMLParser.getRecord(repo, path);
+                    for (var extractedStudies : ForkJoinBatches.map(records, recordBatchSize, cmmStudy -> languageExtractor.extractFromStudy(cmmStudy, repo))) {
+                        extractedStudies.forEach((lang, study) ->
+                            studiesByLanguage.computeIfAbsent(lang, k -> new ArrayList<>()).add(study)
+                        );
+                    }
+                    studiesByFile.put(path, studiesByLanguage);
+                } catch (XMLParseException e) {
+                    logParseFailure(repo, path, e);
+                }
+            }, executor).exceptionally(
+                    e -> { log.warn("[{}] Couldn't parse {}", repo.code(), path, e); return null; }
+                ))
+                .toList()
+                // Wait for the XML to be parsed
+                .forEach(CompletableFuture::join);
+        }
+
+        return studiesByFile;
+    }
+
     /**
      * Retrieve records from a path.
      *
@@ -133,21 +298,66 @@ public class IndexerConsumerService {
      * @return a {@link List} of records.
      */
     List<CMMStudy> getRecord(Repo repo, Path path) {
+        return Objects.requireNonNullElse(parseRecord(repo, path, null), Collections.emptyList());
+    }
+
+    /**
+     * Retrieve records from a path, skipping records that don't need to be mapped.
+     *
+     * @param repo       the repository that the record originated from.
+     * @param path       the path to the record.
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped.
+     * @return a {@link List} of records.
+     */
+    List<CMMStudy> getRecord(Repo repo, Path path, Predicate<RecordHeader> skipRecord) {
+        return Objects.requireNonNullElse(parseRecord(repo, path, skipRecord), Collections.emptyList());
+    }
+
+    /**
+     * Parses the records of a file.
+     *
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped,
+     *                   or {@code null} to map all records.
+     * @return the records, or {@code null} if the file couldn't be parsed.
+     */
+    private List<CMMStudy> parseRecord(Repo repo, Path path, Predicate<RecordHeader> skipRecord) {
         try {
-            return recordXMLParser.getRecord(repo, path);
+            return skipRecord != null ? recordXMLParser.getRecord(repo, path, skipRecord) : recordXMLParser.getRecord(repo, path);
         } catch (XMLParseException e) {
-            log.warn(FAILED_TO_GET_STUDY_ID_WITH_MESSAGE,
-                value(LoggingConstants.REPO_NAME, repo.code()),
-                value(LoggingConstants.STUDY_ID, path),
-                value(LoggingConstants.EXCEPTION_NAME, e.getClass().getName()),
-                value(LoggingConstants.REASON, e.getMessage())
-            );
+            logParseFailure(repo, path, e);
+            return null;
         }
-        return Collections.emptyList();
+    }
+
+    private static void logParseFailure(Repo repo, Path path, XMLParseException e) {
+        log.warn(FAILED_TO_GET_STUDY_ID_WITH_MESSAGE,
+            value(LoggingConstants.REPO_NAME, repo.code()),
+            value(LoggingConstants.STUDY_ID, path),
+            value(LoggingConstants.EXCEPTION_NAME, e.getClass().getName()),
+            value(LoggingConstants.REASON, e.getMessage())
+        );
     }
 
     @PreDestroy
     private void shutdown() {
         executor.shutdownNow();
     }
+
+    /**
+     * Receives the studies extracted from each file of a repository.
+     */
+    @FunctionalInterface
+    public interface FileStudiesListener {
+        FileStudiesListener NONE = (file, studies, skippedRecords) -> {
+        };
+
+        /**
+         * Called once a file has been parsed.
+         *
+         * @param file           the file.
+         * @param studies        the studies extracted from the file, by language.
+         * @param skippedRecords the identifiers of the records of the file that were skipped, and so are not included in the studies.
+         */
+        void parsed(Path file, Map<String, List<CMMStudyOfLanguage>> studies, Set<String> skippedRecords);
+    }
 }
@@ -17,24 +17,26 @@ package eu.cessda.pasc.oci;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
 import eu.cessda.pasc.oci.configurations.Repo;
 import eu.cessda.pasc.oci.elasticsearch.IndexingException;
 import eu.cessda.pasc.oci.elasticsearch.IngestService;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import eu.cessda.pasc.oci.parser.ValueInterner;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.stream.Stream;
 
 import static net.logstash.logback.argument.StructuredArguments.keyValue;
@@ -48,58 +50,123 @@ public class IndexerRunner {
     private final IndexerConsumerService indexer;
     private final PipelineUtilities pipelineUtilities;
     private final IngestService ingestService;
+    private final CheckpointJournal checkpointJournal;
+    private final RepositoryLeaseManager leaseManager;
+    private final IndexingProperties indexingProperties;
 
     private final AtomicBoolean indexerRunning = new AtomicBoolean(false);
+    /**
+     * Whether records whose datestamp matches the stored studies are skipped during the current run.
+     */
+    private volatile boolean skipUnchangedRecords = false;
+    /**
+     * Receives the IDs of the studies produced by each harvested file, or {@code null} if they are not needed.
+     */
+    private volatile BiConsumer<Path, Map<String, Set<String>>> fileStudiesListener = null;
 
     public IndexerRunner(AppConfigurationProperties configurationProperties,
                          IndexerConsumerService localHarvesterConsumerService,
                          PipelineUtilities pipelineUtilities,
                          IngestService ingestService) {
+        this(configurationProperties, localHarvesterConsumerService, pipelineUtilities, ingestService,
+            CheckpointJournal.disabled(), RepositoryLeaseManager.disabled(), new IndexingProperties(false, false));
+    }
+
+    @Autowired
+    public IndexerRunner(AppConfigurationProperties configurationProperties,
+                         IndexerConsumerService localHarvesterConsumerService,
+                         PipelineUtilities pipelineUtilities,
+                         IngestService ingestService,
+                         CheckpointJournal checkpointJournal,
+                         RepositoryLeaseManager leaseManager,
+                         IndexingProperties indexingProperties) {
         this.configurationProperties = configurationProperties;
         this.indexer = localHarvesterConsumerService;
         this.pipelineUtilities = pipelineUtilities;
         this.ingestService = ingestService;
+        this.checkpointJournal = checkpointJournal;
+        this.leaseManager = leaseManager;
+        this.indexingProperties = indexingProperties;
     }
 
 
+    /**
+     * Sets the listener that receives the IDs of the studies produced by each harvested file, by language. This allows
+     * the studies of each file to be tracked without parsing the files again. The listener is called from multiple threads.
+     *
+     * @param listener the listener, or {@code null} to remove the listener.
+     */
+    void setFileStudiesListener(BiConsumer<Path, Map<String, Set<String>>> listener) {
+        this.fileStudiesListener = listener;
+    }
+
     /**
      * Starts the harvest.
      *
      * @throws IllegalStateException if a harvest is already running.
      */
-    @SuppressWarnings("OverlyBroadCatchBlock")
     public void executeHarvestAndIngest() {
         if (!indexerRunning.getAndSet(true)) {
-            // Load explicitly configured repositories
-            var repos = configurationProperties.repos();
+            var repoStream = getRepositories();
 
-            // Discover repositories by attempting to find pipeline.json instances if a base directory is configured
-            Stream<Repo> repoStream;
-            if (configurationProperties.baseDirectory() != null) {
-                var discoverRepositories = pipelineUtilities.discoverRepositories(configurationProperties.baseDirectory());
-                repoStream = Stream.concat(discoverRepositories, repos.stream());
-            } else {
-                repoStream = repos.stream();
-            }
+            // Values only need to be deduplicated within a run
+            ValueInterner.reset();
+            var bulkStatisticsAtStart = ingestService.getBulkStatistics();
 
+            // Load progress from an interrupted run
+            checkpointJournal.load();
+            var parserVersion = checkpointJournal.isEnabled() ? indexer.getParserVersion() : null;
+            skipUnchangedRecords = shouldSkipUnchangedRecords(parserVersion);
+
+            var bulkLoadEnded = false;
             try (repoStream) {
-                repoStream.forEach(repo -> {
-                    try {
-                        // Index the repository
-                        indexRepository(repo);
-                    } catch (Exception e) {
-                        // Handle exceptional completion here, this allows failures to be logged as soon as possible
-                        log.error("[{}]: Unexpected error occurred when harvesting!", value(LoggingConstants.REPO_NAME, repo.code()), e);
-                    }
-                });
+                var repos = repoStream.toList();
+                ingestService.beginBulkLoad();
+
+                if (leaseManager.isEnabled()) {
+                    // Share the repositories with other indexer instances
+                    indexPartition(repos);
+                } else {
+                    repos.forEach(this::harvestRepository);
+                }
 
+                // Only one instance optimises the indices, once every repository has been indexed
+                if (leaseManager.shouldRunReindexing()) {
+                    ingestService.endBulkLoad();
+                }
+                bulkLoadEnded = true;
+
+                // The run has finished, so the next run should start from the beginning
+                if (indexerRunning.get()) {
+                    checkpointJournal.clear();
+                    checkpointJournal.recordParserVersion(parserVersion);
+                }
 
-                log.info("Indexing finished. Summary of the current state:\nTotal number of records: {}",
-                    value("total_cmm_studies", ingestService.getTotalHitCount("*"))
+                // Logged before the total number of records, which may fail
+                ingestService.getBulkStatistics().ifPresent(current -> {
+                    var bulkStatistics = bulkStatisticsAtStart.map(current::since).orElse(current);
+                    log.info("Sent {} bulk requests: {} KiB encoded, {} KiB sent, compression ratio {}",
+                        value("bulk_requests", bulkStatistics.requests()),
+                        value("bulk_encoded_kib", bulkStatistics.encodedBytes() / 1024),
+                        value("bulk_wire_kib", bulkStatistics.wireBytes() / 1024),
+                        value("bulk_compression_ratio", String.format("%.2f", bulkStatistics.compressionRatio()))
+                    );
+                });
+
+                var internerStatistics = ValueInterner.getStatistics();
+                log.info("Indexing finished. Summary of the current state:\nTotal number of records: {}\nDeduplicated values: {}, saving approximately {} KiB",
+                    value("total_cmm_studies", ingestService.getTotalHitCount("*")),
+                    value("deduplicated_values", internerStatistics.duplicates()),
+                    value("deduplicated_kib", internerStatistics.bytesSaved() / 1024)
                 );
             } catch (IOException e) {
                 log.warn("Indexing finished. An IO error occurred when getting the total number of records: {}", e.toString());
             } finally {
+                // The indices must not be left in the bulk load state if the run failed
+                if (!bulkLoadEnded) {
+                    ingestService.abortBulkLoad();
+                }
+
                 // Ensure that the running state is always set to false even if an exception is thrown
                 indexerRunning.set(false);
             }
@@ -108,6 +175,133 @@ public class IndexerRunner {
         }
     }
 
+    /**
+     * Gets the repositories to index. These are the explicitly configured repositories, and the repositories discovered
+     * by finding pipeline.json instances if a base directory is configured.
+     *
+     * @return a stream of repositories, which must be closed after use.
+     */
+    Stream<Repo> getRepositories() {
+        // Load explicitly configured repositories
+        var repos = configurationProperties.repos();
+
+        // Discover repositories by attempting to find pipeline.json instances if a base directory is configured
+        if (configurationProperties.baseDirectory() != null) {
+            var discoverRepositories = pipelineUtilities.discoverRepositories(configurationProperties.baseDirectory());
+            return Stream.concat(discoverRepositories, repos.stream());
+        } else {
+            return repos.stream();
+        }
+    }
+
+    /**
+     * Harvests a single repository, comparing all of its files against Elasticsearch.
+     *
+     * @param repo the repository to harvest.
+     * @throws IllegalStateException if a harvest is already running.
+     */
+    void executeRepositoryHarvest(Repo repo) {
+        if (!indexerRunning.getAndSet(true)) {
+            try {
+                skipUnchangedRecords = shouldSkipUnchangedRecords(checkpointJournal.isEnabled() ? indexer.getParserVersion() : null);
+                harvestRepository(repo);
+            } finally {
+                indexerRunning.set(false);
+            }
+        } else {
+            throw new IllegalStateException("Indexer is already running");
+        }
+    }
+
+    /**
+     * Returns {@code true} if unchanged records should be skipped. Records are only skipped if incremental indexing
+     * is enabled and the parser hasn't changed since the last completed run, as otherwise unchanged records could
+     * be mapped to different studies.
+     *
+     * @param parserVersion the current parser version, or {@code null} if checkpointing is disabled.
+     */
+    private boolean shouldSkipUnchangedRecords(String parserVersion) {
+        if (!indexingProperties.incremental()) {
+            return false;
+        }
+        if (!checkpointJournal.isParserVersionCurrent(parserVersion)) {
+            log.info("The parser has changed since the last completed run, all records will be mapped");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Harvest a repository, unless it was completed before the last run was interrupted.
+     * Any exceptions thrown are logged.
+     *
+     * @param repo the repository to harvest.
+     */
+    @SuppressWarnings("OverlyBroadCatchBlock")
+    private void harvestRepository(Repo repo) {
+        try {
+            if (checkpointJournal.isRepositoryComplete(repo)) {
+                log.info("[{}] Repository was indexed before the last run was interrupted, skipping",
+                    value(LoggingConstants.REPO_NAME, repo.code())
+                );
+                return;
+            }
+
+            // Index the repository
+            indexRepository(repo);
+        } catch (Exception e) {
+            // Handle exceptional completion here, this allows failures to be logged as soon as possible
+            log.error("[{}]: Unexpected error occurred when harvesting!", value(LoggingConstants.REPO_NAME, repo.code()), e);
+        }
+    }
+
+    /**
+     * Harvest the repositories that this instance can claim, continuing until every repository has been
+     * indexed by one of the instances taking part in the run. Once all repositories are complete, this
+     * instance attempts to claim theme reindexing. A new run is started if the previous run has finished.
+     *
+     * @param repos all repositories taking part in the run.
+     */
+    private void indexPartition(List<Repo> repos) {
+        var pending = leaseManager.preferredOrder(repos);
+        try {
+            leaseManager.beginRun();
+
+            while (indexerRunning.get() && !pending.isEmpty()) {
+                var claimedRepository = false;
+                for (var iterator = pending.iterator(); iterator.hasNext() && indexerRunning.get(); ) {
+                    var repo = iterator.next();
+                    if (leaseManager.isComplete(repo)) {
+                        iterator.remove();
+                    } else if (leaseManager.tryAcquire(repo)) {
+                        claimedRepository = true;
+                        harvestRepository(repo);
+                        if (indexerRunning.get()) {
+                            leaseManager.complete(repo);
+                            iterator.remove();
+                        } else {
+                            leaseManager.release(repo);
+                        }
+                    }
+                }
+
+                if (!claimedRepository && !pending.isEmpty()) {
+                    log.info("Waiting for other instances to index {} repositories", value("pending_repositories", pending.size()));
+                    leaseManager.awaitOtherInstances();
+                }
+            }
+
+            if (pending.isEmpty() && leaseManager.tryClaimReindexing()) {
+                log.info("All repositories have been indexed, this instance will run theme reindexing");
+            }
+        } catch (IOException e) {
+            log.error("Error coordinating with other instances: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted whilst waiting for other instances");
+        }
+    }
+
     /**
      * Harvest an individual repository.
      *
@@ -117,12 +311,68 @@ public class IndexerRunner {
     private void indexRepository(Repo repo) {
         var startTime = Instant.now();
         log.info("Processing Repo [{}]{}", repo, keyValue(LoggingConstants.REPO_NAME, repo.code(), ""));
-        var langStudies = indexer.getRecords(repo);
+
+        // Record the state of the files before parsing, so that changes made during parsing are detected on resumption
+        checkpointJournal.beginRepository(repo, checkpointJournal.getFileStates(repo));
+
+        // The study numbers of records that haven't changed since they were indexed
+        var unchangedStudies = Collections.synchronizedSet(new HashSet<String>());
+
+        Map<String, List<CMMStudyOfLanguage>> langStudies;
+        var listener = fileStudiesListener;
+        if (skipUnchangedRecords) {
+            langStudies = getChangedRecords(repo, unchangedStudies, listener);
+        } else if (listener != null) {
+            langStudies = indexer.getRecords(repo, null, (file, studies, skippedRecords) -> listener.accept(file, getStudyIds(studies)));
+        } else {
+            langStudies = indexer.getRecords(repo);
+        }
+
+        boolean allLanguagesIndexed;
+        if (indexingProperties.sharedBulkRequests()) {
+            allLanguagesIndexed = indexLanguagesTogether(repo, langStudies, unchangedStudies);
+        } else {
+            allLanguagesIndexed = indexLanguagesSeparately(repo, langStudies, unchangedStudies);
+        }
+
+        if (allLanguagesIndexed && indexerRunning.get()) {
+            checkpointJournal.markRepositoryComplete(repo);
+        }
+
+        log.info("[{}] Repo finished, took {} seconds",
+            value(LoggingConstants.REPO_NAME, repo.code()),
+            value("repository_duration", Duration.between(startTime, Instant.now()).toSeconds())
+        );
+    }
+
+    /**
+     * Index each language of a repository in turn.
+     *
+     * @param repo             the repository.
+     * @param langStudies      the studies of the repository, by language.
+     * @param unchangedStudies the study numbers of records that were skipped as they haven't changed.
+     * @return {@code true} if all languages were indexed.
+     */
+    private boolean indexLanguagesSeparately(Repo repo, Map<String, List<CMMStudyOfLanguage>> langStudies, Set<String> unchangedStudies) {
+        var allLanguagesIndexed = true;
         for (var entry : langStudies.entrySet()) {
             var lang = entry.getKey();
+            if (checkpointJournal.isLanguageComplete(repo, lang)) {
+                log.info("[{}({})] Language was indexed before the last run was interrupted, skipping",
+                    value(LoggingConstants.REPO_NAME, repo.code()),
+                    value(LoggingConstants.LANG_CODE, lang)
+                );
+                continue;
+            }
+
             try {
-                indexRecords(repo, lang, entry.getValue());
+                if (indexRecords(repo, lang, entry.getValue(), unchangedStudies)) {
+                    checkpointJournal.markLanguageComplete(repo, lang);
+                } else {
+                    allLanguagesIndexed = false;
+                }
             } catch (IndexingException e) {
+                allLanguagesIndexed = false;
                 log.error("[{}({})] Indexing failed: {}: {}",
                     value(LoggingConstants.REPO_NAME, repo.code()),
                     value(LoggingConstants.LANG_CODE, lang),
@@ -130,43 +380,279 @@ public class IndexerRunner {
                     value(LoggingConstants.REASON, e.getMessage())
                 );
             } catch (ElasticsearchException e) {
+                allLanguagesIndexed = false;
                 log.error("[{}({})] Error communicating with Elasticsearch!",
                     value(LoggingConstants.REPO_NAME, repo.code()),
                     value(LoggingConstants.LANG_CODE, lang), e
                 );
             }
         }
-        log.info("[{}] Repo finished, took {} seconds",
+        return allLanguagesIndexed;
+    }
+
+    /**
+     * Index all languages of a repository as a single stream of bulk requests, shared between the language indices.
+     * The changes to each language are still calculated and logged separately.
+     *
+     * @param repo             the repository.
+     * @param langStudies      the studies of the repository, by language.
+     * @param unchangedStudies the study numbers of records that were skipped as they haven't changed.
+     * @return {@code true} if all languages were indexed.
+     */
+    private boolean indexLanguagesTogether(Repo repo, Map<String, List<CMMStudyOfLanguage>> langStudies, Set<String> unchangedStudies) {
+        if (!indexerRunning.get()) {
+            return false;
+        }
+
+        var pendingLanguages = new ArrayList<String>(langStudies.size());
+        var changes = new HashMap<String, LanguageChanges>();
+        for (var entry : langStudies.entrySet()) {
+            var lang = entry.getKey();
+            if (checkpointJournal.isLanguageComplete(repo, lang)) {
+                log.info("[{}({})] Language was indexed before the last run was interrupted, skipping",
+                    value(LoggingConstants.REPO_NAME, repo.code()),
+                    value(LoggingConstants.LANG_CODE, lang)
+                );
+                continue;
+            }
+
+            pendingLanguages.add(lang);
+            var languageChanges = getLanguageChanges(repo, lang, entry.getValue(), unchangedStudies);
+            if (languageChanges != null) {
+                changes.put(lang, languageChanges);
+            }
+        }
+
+        var studiesToIndex = new HashMap<String, List<CMMStudyOfLanguage>>();
+        var studiesToDelete = new HashMap<String, List<CMMStudyOfLanguage>>();
+        var storedStudies = new HashMap<String, Map<String, CMMStudyOfLanguage>>();
+        changes.forEach((lang, languageChanges) -> {
+            studiesToIndex.put(lang, languageChanges.studiesToIndex());
+            studiesToDelete.put(lang, languageChanges.studiesToDelete());
+            storedStudies.put(lang, languageChanges.storedStudies());
+        });
+
+        try {
+            ingestService.bulkIndex(studiesToIndex, studiesToDelete, storedStudies);
+        } catch (IndexingException e) {
+            log.error("[{}] Indexing failed: {}: {}",
+                value(LoggingConstants.REPO_NAME, repo.code()),
+                value(LoggingConstants.EXCEPTION_NAME, e.getClass().getName()),
+                value(LoggingConstants.REASON, e.getMessage())
+            );
+            return false;
+        } catch (ElasticsearchException e) {
+            log.error("[{}] Error communicating with Elasticsearch!",
+                value(LoggingConstants.REPO_NAME, repo.code()), e
+            );
+            return false;
+        }
+
+        for (var lang : pendingLanguages) {
+            var languageChanges = changes.get(lang);
+            if (languageChanges != null) {
+                logLanguageChanges(repo, lang, languageChanges);
+            }
+            checkpointJournal.markLanguageComplete(repo, lang);
+        }
+        return true;
+    }
+
+
+    /**
+     * Parse the records of a repository, skipping records whose datestamp matches the study stored in Elasticsearch.
+     *
+     * @param repo             the repository to parse.
+     * @param unchangedStudies a set that the study numbers of skipped records are added to.
+     * @param listener         the listener to report the study IDs of each file to, or {@code null}.
+     * @return the studies of the changed records, by language. Languages of studies already stored in Elasticsearch
+     * are always present, so that deleted studies are detected.
+     */
+    private Map<String, List<CMMStudyOfLanguage>> getChangedRecords(
+        Repo repo,
+        Set<String> unchangedStudies,
+        BiConsumer<Path, Map<String, Set<String>>> listener
+    ) {
+        var storedStudies = getStoredStudies(repo);
+
+        IndexerConsumerService.FileStudiesListener fileStudiesListener = IndexerConsumerService.FileStudiesListener.NONE;
+        if (listener != null) {
+            fileStudiesListener = (file, studies, skippedRecords) -> {
+                var studyIds = getStudyIds(studies);
+
+                // Skipped records are unchanged, so they still produce the stored studies
+                for (var studyNumber : skippedRecords) {
+                    var id = storedStudies.ids().get(studyNumber);
+                    for (var lang : storedStudies.studyLanguages().getOrDefault(studyNumber, Collections.emptySet())) {
+                        studyIds.computeIfAbsent(lang, k -> new HashSet<>()).add(id);
+                    }
+                }
+
+                listener.accept(file, studyIds);
+            };
+        }
+
+        var langStudies = new HashMap<>(indexer.getRecords(repo, header -> {
+            if (header.lastModified() != null && header.lastModified().equals(storedStudies.lastModified().get(header.identifier()))) {
+                unchangedStudies.add(header.identifier());
+                return true;
+            }
+            return false;
+        }, fileStudiesListener));
+        for (var lang : storedStudies.languages()) {
+            langStudies.putIfAbsent(lang, Collections.emptyList());
+        }
+
+        log.info("[{}] {} records are unchanged since they were indexed",
             value(LoggingConstants.REPO_NAME, repo.code()),
-            value("repository_duration", Duration.between(startTime, Instant.now()).toSeconds())
+            value("unchanged_cmm_records", unchangedStudies.size())
         );
+
+        return langStudies;
+    }
+
+    /**
+     * Gets the datestamps of the studies of a repository stored in Elasticsearch. Studies whose languages have
+     * different datestamps, or that aren't stored in every language they are available in, are omitted. This
+     * happens, for instance, when indexing of a language failed.
+     *
+     * @param repo the repository.
+     */
+    private StoredStudies getStoredStudies(Repo repo) {
+        var lastModified = new HashMap<String, String>();
+        var ids = new HashMap<String, String>();
+        var inconsistentStudies = new HashSet<String>();
+        var languages = new HashSet<String>();
+        var storedLanguageCounts = new HashMap<String, Integer>();
+        var availableLanguages = new HashMap<String, Set<String>>();
+
+        try {
+            for (var study : ingestService.getStudiesByRepository(repo.code(), "*")) {
+                if (study.langAvailableIn() != null) {
+                    languages.addAll(study.langAvailableIn());
+                    availableLanguages.computeIfAbsent(study.studyNumber(), k -> new HashSet<>()).addAll(study.langAvailableIn());
+                }
+                // Each language of a study is stored in a separate index
+                storedLanguageCounts.merge(study.studyNumber(), 1, Integer::sum);
+                ids.putIfAbsent(study.studyNumber(), study.id());
+                var previous = lastModified.putIfAbsent(study.studyNumber(), study.lastModified());
+                if (previous != null && !previous.equals(study.lastModified())) {
+                    inconsistentStudies.add(study.studyNumber());
+                }
+            }
+        } catch (ElasticsearchException | UncheckedIOException e) {
+            if (!(e instanceof ElasticsearchException) || !e.getMessage().contains("index_not_found_exception")) {
+                log.warn("[{}] Couldn't retrieve existing studies, all records will be mapped: {}",
+                    value(LoggingConstants.REPO_NAME, repo.code()),
+                    e.toString()
+                );
+            }
+            return new StoredStudies(Collections.emptyMap(), Collections.emptySet(), Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        availableLanguages.forEach((studyNumber, studyLanguages) -> {
+            if (storedLanguageCounts.get(studyNumber) < studyLanguages.size()) {
+                inconsistentStudies.add(studyNumber);
+            }
+        });
+
+        lastModified.keySet().removeAll(inconsistentStudies);
+        return new StoredStudies(lastModified, languages, ids, availableLanguages);
+    }
+
+    /**
+     * The state of the studies of a repository stored in Elasticsearch.
+     *
+     * @param lastModified   the datestamp of each study, keyed by study number.
+     * @param languages      the languages that the studies are available in.
+     * @param ids            the ID of each study, keyed by study number.
+     * @param studyLanguages the languages that each study is available in, keyed by study number.
+     */
+    private record StoredStudies(
+        Map<String, String> lastModified,
+        Set<String> languages,
+        Map<String, String> ids,
+        Map<String, Set<String>> studyLanguages
+    ) {
     }
 
+    /**
+     * Gets the IDs of the given studies, by language.
+     */
+    static Map<String, Set<String>> getStudyIds(Map<String, List<CMMStudyOfLanguage>> studiesByLanguage) {
+        var studyIds = new HashMap<String, Set<String>>();
+        studiesByLanguage.forEach((lang, studies) -> {
+            var ids = studyIds.computeIfAbsent(lang, k -> new HashSet<>());
+            studies.forEach(study -> ids.add(study.id()));
+        });
+        return studyIds;
+    }
 
     /**
      * Index the given CMMStudies into the Elasticsearch index.
      *
-     * @param repo        the source repository.
-     * @param langIsoCode the language code.
-     * @param cmmStudies  the studies to index.
+     * @param repo             the source repository.
+     * @param langIsoCode      the language code.
+     * @param cmmStudies       the studies to index.
+     * @param unchangedStudies the study numbers of records that were skipped as they haven't changed, these are not deleted.
+     * @return {@code true} if the studies were indexed, or {@code false} if indexing was cancelled.
      */
-    private void indexRecords(Repo repo, String langIsoCode, List<CMMStudyOfLanguage> cmmStudies) throws IndexingException {
-        if (indexerRunning.get() && !cmmStudies.isEmpty()) {
-            log.info("[{}({})] Indexing...", repo.code(), langIsoCode);
+    private boolean indexRecords(Repo repo, String langIsoCode, List<CMMStudyOfLanguage> cmmStudies, Set<String> unchangedStudies) throws IndexingException {
+        if (!indexerRunning.get()) {
+            return false;
+        }
+
+        var changes = getLanguageChanges(repo, langIsoCode, cmmStudies, unchangedStudies);
+        if (changes != null) {
+            // Perform indexing and deletions
+            if (!cmmStudies.isEmpty()) {
+                ingestService.bulkIndex(cmmStudies, changes.storedStudies(), langIsoCode);
+            }
+            ingestService.bulkDelete(changes.studiesToDelete(), langIsoCode);
+
+            logLanguageChanges(repo, langIsoCode, changes);
+        }
+
+        return true;
+    }
 
-            // Calculate the amount of changed studies
-            var studiesUpdated = getUpdatedStudies(cmmStudies, langIsoCode);
+    /**
+     * Calculate the changes needed to bring a language index up to date with the harvested studies.
+     *
+     * @param repo             the source repository.
+     * @param langIsoCode      the language code.
+     * @param cmmStudies       the studies to index.
+     * @param unchangedStudies the study numbers of records that were skipped as they haven't changed, these are not deleted.
+     * @return the changes, or {@code null} if there are no studies to index and no studies could need deleting.
+     */
+    private LanguageChanges getLanguageChanges(Repo repo, String langIsoCode, List<CMMStudyOfLanguage> cmmStudies, Set<String> unchangedStudies) {
+        if (!cmmStudies.isEmpty() || !unchangedStudies.isEmpty()) {
+            log.info("[{}({})] Indexing...", repo.code(), langIsoCode);
 
-            // Discover studies to delete, we do this by creating a HashSet of ids and then comparing what's in the database
-            var studyIds = HashSet.<String>newHashSet(cmmStudies.size());
+            // Discover studies to delete, we do this by indexing the harvested studies by ID and then comparing what's in the database.
+            // The harvested studies are compared with their stored versions whilst streaming, to count the changed studies.
+            // The stored versions are only kept if the ingest service uses them, so that they don't need to be retrieved again.
+            var harvestedStudies = HashMap.<String, CMMStudyOfLanguage>newHashMap(cmmStudies.size());
             for (var study : cmmStudies) {
-                studyIds.add(study.id());
+                harvestedStudies.put(study.id(), study);
             }
 
             var studiesToDelete = new ArrayList<CMMStudyOfLanguage>(cmmStudies.size());
+            Map<String, CMMStudyOfLanguage> storedStudies = ingestService.usesStoredStudies() ? HashMap.newHashMap(cmmStudies.size()) : null;
+            var presentStudyIds = HashSet.<String>newHashSet(cmmStudies.size());
+            var studiesUpdated = 0;
             try {
                 for (var presentStudy : ingestService.getStudiesByRepository(repo.code(), langIsoCode)) {
-                    if (!studyIds.contains(presentStudy.id())) {
+                    var harvestedStudy = harvestedStudies.get(presentStudy.id());
+                    if (harvestedStudy != null) {
+                        presentStudyIds.add(presentStudy.id());
+                        if (!harvestedStudy.equals(presentStudy)) {
+                            studiesUpdated++;
+                        }
+                        if (storedStudies != null) {
+                            storedStudies.put(presentStudy.id(), presentStudy);
+                        }
+                    } else if (!unchangedStudies.contains(presentStudy.studyNumber())) {
                         studiesToDelete.add(presentStudy);
                     }
                 }
@@ -177,50 +663,57 @@ public class IndexerRunner {
                         value(LoggingConstants.LANG_CODE, langIsoCode),
                         e.toString()
                     );
+                    // The stored studies are incomplete, so they are left to the ingest service to retrieve
+                    storedStudies = null;
+                    presentStudyIds.clear();
+                    studiesUpdated = 0;
                 }
             }
 
-            // Perform indexing and deletions
-            ingestService.bulkIndex(cmmStudies, langIsoCode);
-            ingestService.bulkDelete(studiesToDelete, langIsoCode);
+            // Studies without a stored version will be created
+            var studiesCreated = 0;
+            for (var study : cmmStudies) {
+                if (!presentStudyIds.contains(study.id())) {
+                    studiesCreated++;
+                }
+            }
 
-            log.info("[{}({})] Indexing succeeded: {} studies created, {} studies deleted, {} studies updated.",
-                value(LoggingConstants.REPO_NAME, repo.code()),
-                value(LoggingConstants.LANG_CODE, langIsoCode),
-                value("created_cmm_studies", studiesUpdated.studiesCreated),
-                value("deleted_cmm_studies", studiesToDelete.size()),
-                value("updated_cmm_studies", studiesUpdated.studiesUpdated)
-            );
+            return new LanguageChanges(cmmStudies, studiesToDelete, storedStudies, new UpdatedStudies(studiesCreated, studiesUpdated));
         }
+
+        return null;
+    }
+
+    private static void logLanguageChanges(Repo repo, String langIsoCode, LanguageChanges changes) {
+        log.info("[{}({})] Indexing succeeded: {} studies created, {} studies deleted, {} studies updated.",
+            value(LoggingConstants.REPO_NAME, repo.code()),
+            value(LoggingConstants.LANG_CODE, langIsoCode),
+            value("created_cmm_studies", changes.studiesUpdated().studiesCreated()),
+            value("deleted_cmm_studies", changes.studiesToDelete().size()),
+            value("updated_cmm_studies", changes.studiesUpdated().studiesUpdated())
+        );
     }
 
     /**
-     * Compares the collection of studies retrieved from remote repositories to the studies stored in Elasticsearch.
+     * The changes to a language index.
      *
-     * @param cmmStudies the list of studies, harvested from remote repositories, to compare
-     * @param language   the language of the studies
-     * @return a {@link UpdatedStudies} describing the amount of created, deleted and updated studies
+     * @param studiesToIndex  the studies to index.
+     * @param studiesToDelete the studies to delete.
+     * @param storedStudies   the stored versions of the studies to index keyed by study ID, or {@code null} if not known
+     *                        or not used by the ingest service.
+     * @param studiesUpdated  the amount of studies that will be created and updated.
      */
-    private UpdatedStudies getUpdatedStudies(Collection<CMMStudyOfLanguage> cmmStudies, String language) {
-
-        var studiesCreated = new AtomicInteger(0);
-        var studiesUpdated = new AtomicInteger(0);
-
-        for (CMMStudyOfLanguage localStudy : cmmStudies) {
-            ingestService.getStudy(localStudy.id(), language).ifPresentOrElse(study -> {
-                    if (!localStudy.equals(study)) {
-                        // The study has been updated
-                        studiesUpdated.getAndIncrement();
-                    }
-                },
-                // If empty then the study didn't exist in Elasticsearch, and will be created
-                studiesCreated::getAndIncrement
-            );
-        }
-
-        return new UpdatedStudies(studiesCreated.get(), studiesUpdated.get());
+    private record LanguageChanges(
+        List<CMMStudyOfLanguage> studiesToIndex,
+        List<CMMStudyOfLanguage> studiesToDelete,
+        Map<String, CMMStudyOfLanguage> storedStudies,
+        UpdatedStudies studiesUpdated
+    ) {
     }
 
+    /**
+     * The amount of created and updated studies in a language index.
+     */
     private record UpdatedStudies(
         int studiesCreated,
         int studiesUpdated
@@ -233,6 +726,11 @@ public class IndexerRunner {
      * @throws IllegalStateException if reindexing is already running.
      */
     public void executeReindexing() {
+        if (!leaseManager.shouldRunReindexing()) {
+            log.info("Theme reindexing is handled by another instance");
+            return;
+        }
+
         try {
             log.info("Starting reindexing process...");
 
@@ -244,6 +742,18 @@ public class IndexerRunner {
         }
     }
 
+    /**
+     * Restores the indices if the last run was interrupted, for instance because the indexer was killed, as the
+     * settings changed for its bulk load would otherwise remain until the next full run completes.
+     */
+    @PostConstruct
+    void restoreInterruptedBulkLoad() {
+        if (checkpointJournal.hasInterruptedRun()) {
+            log.info("The last run was interrupted, restoring the indices");
+            ingestService.abortBulkLoad();
+        }
+    }
+
     @PreDestroy
     private void shutdown() {
         if (indexerRunning.getAndSet(false)) {
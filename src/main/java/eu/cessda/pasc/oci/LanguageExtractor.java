@@ -22,15 +22,18 @@ import eu.cessda.pasc.oci.models.cmmstudy.CMMStudy;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
 import eu.cessda.pasc.oci.models.cmmstudy.Country;
 import eu.cessda.pasc.oci.models.cmmstudy.Publisher;
+import eu.cessda.pasc.oci.parser.LanguageMap;
+import eu.cessda.pasc.oci.parser.ParseResultCache;
+import eu.cessda.pasc.oci.parser.ValueInterner;
 import eu.cessda.pasc.oci.parser.XMLMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 
@@ -45,6 +48,8 @@ import static net.logstash.logback.argument.StructuredArguments.value;
 @Slf4j
 public class LanguageExtractor {
 
+    private static final String EXTRACTOR_VERSION = ParseResultCache.computeVersion(List.of(LanguageExtractor.class));
+
     private final Set<String> languages;
 
     @Autowired
@@ -52,6 +57,13 @@ public class LanguageExtractor {
         this.languages = appConfigurationProperties.languages();
     }
 
+    /**
+     * Gets a version that changes whenever the extractor or the configured languages change.
+     */
+    public String getVersion() {
+        return DigestUtils.sha256Hex(EXTRACTOR_VERSION + "\n" + new TreeSet<>(languages));
+    }
+
     /**
      * Extracts the language specific variants of a given CMMStudy
      * @param cmmStudy the study to extract
@@ -67,10 +79,13 @@ public class LanguageExtractor {
         }
 
         if (!validLanguages.isEmpty()) {
-            return validLanguages.stream().collect(Collectors.toMap(
-                langCode -> langCode,
-                langCode -> getCmmStudyOfLanguage(cmmStudy, langCode, Set.copyOf(validLanguages), repository)
-            ));
+            // Compute the language neutral fields once, and then project each language from them
+            var languageNeutralFields = LanguageNeutralFields.of(cmmStudy, ValueInterner.intern(Set.copyOf(validLanguages)), repository);
+            var studies = new LanguageMap<CMMStudyOfLanguage>();
+            for (var langCode : validLanguages) {
+                studies.put(langCode, getCmmStudyOfLanguage(cmmStudy, langCode, languageNeutralFields, repository));
+            }
+            return Collections.unmodifiableMap(studies);
         } else {
             log.debug("[{}] No valid languages for study [{}]",  value(LoggingConstants.REPO_NAME, repository.code()), value(LoggingConstants.STUDY_ID,cmmStudy.studyNumber()));
             return Collections.emptyMap();
@@ -95,7 +110,7 @@ public class LanguageExtractor {
             (cmmStudy.publisher() != null) && (cmmStudy.publisher().get(languageIsoCode) != null);
     }
 
-    private CMMStudyOfLanguage getCmmStudyOfLanguage(CMMStudy cmmStudy, String lang, Set<String> availableLanguages, Repo repository) {
+    private CMMStudyOfLanguage getCmmStudyOfLanguage(CMMStudy cmmStudy, String lang, LanguageNeutralFields languageNeutralFields, Repo repository) {
 
         log.trace("[{}] Extracting CMMStudyOfLanguage for study [{}], language [{}]",
             value(LoggingConstants.REPO_NAME, repository.code()),
@@ -103,15 +118,10 @@ public class LanguageExtractor {
             value(LoggingConstants.LANG_CODE, lang)
         );
 
-        CMMStudyOfLanguage.CMMStudyOfLanguageBuilder builder = CMMStudyOfLanguage.builder();
-
-        // Identifier generation -
-        var id = cmmStudy.repositoryUrl() + "-" + cmmStudy.studyNumber();
-        var hashedId = DigestUtils.sha256Hex(id.getBytes(StandardCharsets.UTF_8));
-
         // Language neutral specific field extraction
         // UK Data Service = UK-Data-Service__
-        builder.id(hashedId)
+        var builder = CMMStudyOfLanguage.builder()
+            .id(languageNeutralFields.id())
             .code(repository.code())
             .studyNumber(cmmStudy.studyNumber())
             .lastModified(cmmStudy.lastModified())
@@ -121,64 +131,74 @@ public class LanguageExtractor {
             .dataCollectionPeriodEnddate(cmmStudy.dataCollectionPeriodEnddate())
             .dataCollectionYear(cmmStudy.dataCollectionYear())
             .dataAccess(cmmStudy.dataAccess())
-            .langAvailableIn(availableLanguages);
-        Optional.ofNullable(cmmStudy.studyXmlSourceUrl()).ifPresent(url -> builder.studyXmlSourceUrl(url.toString()));
-
-
-        // #430: Set the publisher filter based on the source repository.
-        builder.publisherFilter(new Publisher(repository.code(), repository.name()));
+            .langAvailableIn(languageNeutralFields.availableLanguages())
+            .studyXmlSourceUrl(languageNeutralFields.studyXmlSourceUrl())
+            .publisherFilter(languageNeutralFields.publisherFilter());
 
         // Language specific field extraction
-        Optional.ofNullable(cmmStudy.titleStudy()).map(map -> map.get(lang)).ifPresent(builder::titleStudy);
-        Optional.ofNullable(cmmStudy.abstractField()).map(map -> map.get(lang)).ifPresent(builder::abstractField);
-        Optional.ofNullable(cmmStudy.keywords()).map(map -> map.get(lang)).ifPresent(builder::keywords);
-        Optional.ofNullable(cmmStudy.classifications()).map(map -> map.get(lang)).ifPresent(builder::classifications);
-        Optional.ofNullable(cmmStudy.typeOfTimeMethods()).map(map -> map.get(lang)).ifPresent(builder::typeOfTimeMethods);
-        var countries = Optional.ofNullable(cmmStudy.studyAreaCountries())
-            .map(map -> map.get(lang)).stream().flatMap(Collection::stream)
-            // If the ISO code is not valid, then the optional will be empty
-            .map(country -> Optional.ofNullable(CountryCode.getByCode(country.isoCode()))
-                .map(CountryCode::getName)
-                .map(countryName -> new Country(country.isoCode(), country.elementText(), countryName))
-                .orElse(country)
-            ).toList();
-        builder.studyAreaCountries(countries);
-        Optional.ofNullable(cmmStudy.unitTypes()).map(map -> map.get(lang)).ifPresent(builder::unitTypes);
-        Optional.ofNullable(cmmStudy.pidStudies()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::pidStudies);
-        Optional.ofNullable(cmmStudy.creators()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::creators);
-        Optional.ofNullable(cmmStudy.typeOfSamplingProcedures()).map(map -> map.get(lang)).ifPresent(builder::typeOfSamplingProcedures);
-        Optional.ofNullable(cmmStudy.typeOfModeOfCollections()).map(map -> map.get(lang)).ifPresent(builder::typeOfModeOfCollections);
-        Optional.ofNullable(cmmStudy.titleStudy()).map(map -> map.get(lang)).ifPresent(builder::titleStudy);
-        Optional.ofNullable(cmmStudy.dataCollectionFreeTexts()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::dataCollectionFreeTexts);
-        Optional.ofNullable(cmmStudy.dataAccessFreeTexts()).map(map -> map.get(lang)).ifPresent(builder::dataAccessFreeTexts);
-        Optional.ofNullable(cmmStudy.publisher()).map(map -> map.get(lang)).ifPresent(builder::publisher);
-        Optional.ofNullable(cmmStudy.universe()).map(map -> map.get(lang)).ifPresent(builder::universe);
-        Optional.ofNullable(cmmStudy.funding()).map(map -> map.get(lang)).ifPresent(builder::funding);
-        Optional.ofNullable(cmmStudy.relatedPublications()).map(map -> map.get(lang)).ifPresent(builder::relatedPublications);
-        Optional.ofNullable(cmmStudy.dataKindFreeTexts()).map(map -> map.get(lang)).ifPresent(builder::dataKindFreeTexts);
-        Optional.ofNullable(cmmStudy.generalDataFormats()).map(map -> map.get(lang)).ifPresent(builder::generalDataFormats);
-        Optional.ofNullable(cmmStudy.series()).map(map -> map.get(lang)).ifPresent(builder::series);
-
-        // #142 - Use any language to set the study url and data access url field
-        Optional.ofNullable(cmmStudy.studyUrl()).flatMap(map -> map.values().stream().filter(Objects::nonNull).findAny()).ifPresent(builder::studyUrl);
-        Optional.ofNullable(cmmStudy.dataAccessUrl()).flatMap(map -> map.values().stream().filter(Objects::nonNull).findAny()).ifPresent(builder::studyUrl);
-
-        // Override with the language specific variant
-        Optional.ofNullable(cmmStudy.studyUrl()).map(map -> map.get(lang)).ifPresent(builder::studyUrl);
-        Optional.ofNullable(cmmStudy.dataAccessUrl()).map(map -> map.get(lang)).ifPresent(builder::dataAccessUrl);
+        builder.titleStudy(get(cmmStudy.titleStudy(), lang))
+            .abstractField(get(cmmStudy.abstractField(), lang))
+            .keywords(get(cmmStudy.keywords(), lang))
+            .classifications(get(cmmStudy.classifications(), lang))
+            .typeOfTimeMethods(get(cmmStudy.typeOfTimeMethods(), lang))
+            .studyAreaCountries(languageNeutralFields.resolveCountries(get(cmmStudy.studyAreaCountries(), lang)))
+            .unitTypes(get(cmmStudy.unitTypes(), lang))
+            .pidStudies(mergeLanguages(cmmStudy.pidStudies(), lang))
+            .creators(mergeLanguages(cmmStudy.creators(), lang))
+            .typeOfSamplingProcedures(get(cmmStudy.typeOfSamplingProcedures(), lang))
+            .typeOfModeOfCollections(get(cmmStudy.typeOfModeOfCollections(), lang))
+            .dataCollectionFreeTexts(mergeLanguages(cmmStudy.dataCollectionFreeTexts(), lang))
+            .dataAccessFreeTexts(get(cmmStudy.dataAccessFreeTexts(), lang))
+            .publisher(get(cmmStudy.publisher(), lang))
+            .universe(get(cmmStudy.universe(), lang))
+            .funding(get(cmmStudy.funding(), lang))
+            .relatedPublications(get(cmmStudy.relatedPublications(), lang))
+            .dataKindFreeTexts(get(cmmStudy.dataKindFreeTexts(), lang))
+            .generalDataFormats(get(cmmStudy.generalDataFormats(), lang))
+            .series(get(cmmStudy.series(), lang))
+            .dataAccessUrl(get(cmmStudy.dataAccessUrl(), lang));
+
+        // #142 - Use any language to set the study url, overridden by the language specific variant
+        var studyUrl = get(cmmStudy.studyUrl(), lang);
+        builder.studyUrl(studyUrl != null ? studyUrl : languageNeutralFields.studyUrl());
 
         return builder.build();
     }
 
+    /**
+     * Gets the value for the given language, or {@code null} if the map is {@code null}.
+     */
+    private static <T> T get(Map<String, T> map, String lang) {
+        return map != null ? map.get(lang) : null;
+    }
+
+    /**
+     * Gets any non-null value of the map.
+     */
+    private static <T> T getAny(Map<String, T> map) {
+        if (map != null) {
+            for (var value : map.values()) {
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Merge language specific content with all languages content.
      *
-     * @param map a map with a list of content for each language
+     * @param map a map with a list of content for each language, can be {@code null}
      * @param lang the language to merge
-     * @return a merged list
+     * @return a merged list, or {@code null} if no content is present
      * @param <T> the type of elements
      */
     private static <T> List<T> mergeLanguages(Map<String, List<T>> map, String lang) {
+        if (map == null) {
+            return null;
+        }
+
         // Get language specific elements, and then language nonspecific elements
         var languageSpecificList = map.get(lang);
         var nonLanguageSpecificList = map.get(XMLMapper.EMPTY_LANGUAGE);
@@ -194,4 +214,78 @@ public class LanguageExtractor {
             return nonLanguageSpecificList;
         }
     }
+
+    /**
+     * The fields of a {@link CMMStudyOfLanguage} that are the same for every language of a study.
+     *
+     * @param id                 the hashed study identifier.
+     * @param availableLanguages the languages the study is available in.
+     * @param publisherFilter    the publisher filter, based on the source repository.
+     * @param studyXmlSourceUrl  the URL of the source record.
+     * @param studyUrl           the study URL to use if a language doesn't have a specific URL.
+     * @param countryNames       the name of each country ISO code in the study, {@code null} if the code is invalid.
+     */
+    private record LanguageNeutralFields(
+        String id,
+        Set<String> availableLanguages,
+        Publisher publisherFilter,
+        String studyXmlSourceUrl,
+        URI studyUrl,
+        Map<String, String> countryNames
+    ) {
+        static LanguageNeutralFields of(CMMStudy cmmStudy, Set<String> availableLanguages, Repo repository) {
+            // Identifier generation
+            var id = cmmStudy.repositoryUrl() + "-" + cmmStudy.studyNumber();
+            var hashedId = DigestUtils.sha256Hex(id.getBytes(StandardCharsets.UTF_8));
+
+            // #430: Set the publisher filter based on the source repository.
+            var publisherFilter = ValueInterner.intern(new Publisher(repository.code(), repository.name()));
+
+            var studyXmlSourceUrl = cmmStudy.studyXmlSourceUrl() != null ? cmmStudy.studyXmlSourceUrl().toString() : null;
+
+            // #142 - Any data access URL takes precedence over any study URL
+            var studyUrl = getAny(cmmStudy.dataAccessUrl());
+            if (studyUrl == null) {
+                studyUrl = getAny(cmmStudy.studyUrl());
+            }
+
+            // Look up the name of each country once, rather than once per language
+            var countryNames = new HashMap<String, String>();
+            if (cmmStudy.studyAreaCountries() != null) {
+                for (var countries : cmmStudy.studyAreaCountries().values()) {
+                    for (var country : countries) {
+                        if (!countryNames.containsKey(country.isoCode())) {
+                            var countryCode = CountryCode.getByCode(country.isoCode());
+                            countryNames.put(country.isoCode(), countryCode != null ? countryCode.getName() : null);
+                        }
+                    }
+                }
+            }
+
+            return new LanguageNeutralFields(hashedId, availableLanguages, publisherFilter, studyXmlSourceUrl, studyUrl, countryNames);
+        }
+
+        /**
+         * Sets the country name of each country. If the ISO code is not valid, then the country is returned unchanged.
+         *
+         * @param countries the countries, can be {@code null}.
+         * @return a list of countries, empty if no countries were given.
+         */
+        List<Country> resolveCountries(List<Country> countries) {
+            if (countries == null || countries.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            var resolvedCountries = new ArrayList<Country>(countries.size());
+            for (var country : countries) {
+                var countryName = countryNames.get(country.isoCode());
+                if (countryName != null) {
+                    resolvedCountries.add(ValueInterner.intern(new Country(country.isoCode(), country.elementText(), countryName)));
+                } else {
+                    resolvedCountries.add(country);
+                }
+            }
+            return Collections.unmodifiableList(resolvedCountries);
+        }
+    }
 }
@@ -16,7 +16,13 @@
 package eu.cessda.pasc.oci;
 
 import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.CheckpointProperties;
+import eu.cessda.pasc.oci.configurations.DistributedProperties;
 import eu.cessda.pasc.oci.configurations.ESConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import eu.cessda.pasc.oci.configurations.ThrottleProperties;
+import eu.cessda.pasc.oci.configurations.WatchProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -25,7 +31,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-@EnableConfigurationProperties({AppConfigurationProperties.class, ESConfigurationProperties.class})
+@EnableConfigurationProperties({AppConfigurationProperties.class, CheckpointProperties.class, DistributedProperties.class, ESConfigurationProperties.class, IndexingProperties.class, ParserProperties.class, ThrottleProperties.class, WatchProperties.class})
 @SpringBootApplication
 @Slf4j
 public class OCIApplication {
@@ -46,13 +52,16 @@ public class OCIApplication {
     @SuppressWarnings({"java:S3985", "EffectivelyPrivate", "UnusedNestedClass"})
     private static class Runner implements CommandLineRunner {
         private final ConsumerScheduler consumerScheduler;
+        private final RepositoryWatcher repositoryWatcher;
 
-        public Runner(ConsumerScheduler consumerScheduler) {
+        public Runner(ConsumerScheduler consumerScheduler, RepositoryWatcher repositoryWatcher) {
             this.consumerScheduler = consumerScheduler;
+            this.repositoryWatcher = repositoryWatcher;
         }
 
         /**
-         * Run the indexer. If an exception is thrown, the exit code of the indexer is set to -1.
+         * Run the indexer. If daemon mode is enabled, the indexer then watches the repositories for changes until it is stopped.
+         * If an exception is thrown, the exit code of the indexer is set to -1.
          * @param args unused.
          */
         @Override
@@ -60,6 +69,9 @@ public class OCIApplication {
         public void run(String... args) {
             try {
                 consumerScheduler.runIndexer();
+                if (repositoryWatcher.isEnabled()) {
+                    repositoryWatcher.watch();
+                }
             } catch (Throwable e) {
                 // Log all application errors, then exit with a non-zero exit code
                 log.error("Fatal exception thrown!", e);
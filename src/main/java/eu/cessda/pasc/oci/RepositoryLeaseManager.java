@@ -0,0 +1,445 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.DistributedProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+
+/**
+ * Coordinates several indexer instances so that each repository is indexed by exactly one instance.
+ * <p>
+ * Instances claim repositories by creating lease files in a shared directory. Leases are renewed while a
+ * repository is being indexed, and expire if the instance holding them stops, allowing another instance to
+ * claim the repository. Once a repository is indexed, a completion marker is written. When every repository
+ * has a completion marker, the first instance to claim the reindexing marker runs theme reindexing, which
+ * finishes the run.
+ * <p>
+ * The markers of a run are kept in a run directory. Unless a run ID is configured, runs are numbered, and
+ * each indexing run joins the newest run if it hasn't finished, or starts the next run otherwise. The
+ * directories of finished runs, and of runs that have been abandoned for longer than the lease duration,
+ * are removed when a run is started.
+ * <p>
+ * Each instance attempts repositories in a different order, determined by rendezvous hashing of the
+ * repository code and the worker ID, which keeps contention for the same lease low.
+ * The shared filesystem must support atomic file creation and atomic renames.
+ */
+@Component
+@Slf4j
+public class RepositoryLeaseManager {
+
+    private static final String LEASE_SUFFIX = ".lease";
+    private static final String COMPLETE_SUFFIX = ".done";
+    private static final String REINDEX_MARKER = "reindex.claimed";
+    private static final String RUN_PREFIX = "run-";
+
+    private final DistributedProperties distributedProperties;
+    private final Path leaseDirectory;
+    private volatile Path runDirectory;
+
+    /**
+     * The leases held by this instance, renewed periodically.
+     */
+    private final Set<Path> heldLeases = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService renewalExecutor = null;
+
+    private volatile boolean reindexingClaimed = false;
+
+    @Autowired
+    public RepositoryLeaseManager(DistributedProperties distributedProperties, AppConfigurationProperties appConfigurationProperties) {
+        this.distributedProperties = distributedProperties;
+
+        if (distributedProperties.enabled()) {
+            var leaseDirectory = distributedProperties.leaseDirectory();
+            if (leaseDirectory == null) {
+                if (appConfigurationProperties.baseDirectory() == null) {
+                    throw new IllegalStateException("distributed.leaseDirectory or baseDirectory must be set when distributed harvesting is enabled");
+                }
+                leaseDirectory = appConfigurationProperties.baseDirectory().resolve(".leases");
+            }
+            this.leaseDirectory = leaseDirectory;
+        } else {
+            this.leaseDirectory = null;
+        }
+
+        if (this.leaseDirectory != null && distributedProperties.runId() != null) {
+            this.runDirectory = this.leaseDirectory.resolve(distributedProperties.runId());
+        }
+    }
+
+    /**
+     * Constructs a disabled lease manager. All repositories are indexed by this instance.
+     */
+    static RepositoryLeaseManager disabled() {
+        return new RepositoryLeaseManager(
+            new DistributedProperties(false, null, null, null, null, null),
+            new AppConfigurationProperties(null, null, null, null)
+        );
+    }
+
+    /**
+     * Returns {@code true} if distributed harvesting is enabled.
+     */
+    public boolean isEnabled() {
+        return leaseDirectory != null;
+    }
+
+    /**
+     * Joins the current run, or starts a new run if the previous run has finished. This must be called at the
+     * start of each indexing run. The directories of other runs that have finished or been abandoned are removed.
+     *
+     * @throws IOException if an IO error occurs.
+     */
+    public void beginRun() throws IOException {
+        reindexingClaimed = false;
+
+        Files.createDirectories(leaseDirectory);
+        if (distributedProperties.runId() == null) {
+            runDirectory = getCurrentRun();
+        }
+        Files.createDirectories(runDirectory);
+        log.info("Taking part in run [{}] as [{}]", value("run_id", runDirectory.getFileName().toString()), distributedProperties.workerId());
+
+        removeExpiredRuns();
+    }
+
+    /**
+     * Gets the newest run if it hasn't finished, otherwise the run after it. If several instances start
+     * the next run at the same time, they all resolve to the same directory.
+     */
+    private Path getCurrentRun() throws IOException {
+        long newestRun = 0;
+        try (var runs = Files.list(leaseDirectory)) {
+            for (var run : (Iterable<Path>) runs::iterator) {
+                newestRun = Math.max(newestRun, getRunNumber(run));
+            }
+        }
+
+        if (newestRun > 0) {
+            var newestRunDirectory = leaseDirectory.resolve(RUN_PREFIX + newestRun);
+            if (!isFinished(newestRunDirectory)) {
+                return newestRunDirectory;
+            }
+        }
+        return leaseDirectory.resolve(RUN_PREFIX + (newestRun + 1));
+    }
+
+    /**
+     * Parses the number of a run directory, returning 0 if the path isn't a run directory.
+     */
+    private static long getRunNumber(Path path) {
+        var fileName = path.getFileName().toString();
+        if (fileName.startsWith(RUN_PREFIX) && Files.isDirectory(path)) {
+            try {
+                return Long.parseLong(fileName.substring(RUN_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns {@code true} if the run has finished. A run has finished once an instance has claimed theme
+     * reindexing, or when its directory has been removed.
+     */
+    private static boolean isFinished(Path runDirectory) {
+        return Files.exists(runDirectory.resolve(REINDEX_MARKER)) || !Files.isDirectory(runDirectory);
+    }
+
+    /**
+     * Returns {@code true} if the current run has finished, after which no more repositories can be claimed.
+     */
+    public boolean isRunFinished() {
+        return isFinished(runDirectory);
+    }
+
+    /**
+     * Removes the directories of runs other than the current run that have either finished, or have had
+     * no activity for longer than the lease duration.
+     */
+    private void removeExpiredRuns() throws IOException {
+        try (var runs = Files.list(leaseDirectory)) {
+            for (var run : (Iterable<Path>) runs::iterator) {
+                if (Files.isDirectory(run) && !run.equals(runDirectory) && (isFinished(run) || isExpired(run))) {
+                    deleteRun(run);
+                }
+            }
+        }
+    }
+
+    private void deleteRun(Path run) {
+        try (var files = Files.list(run)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(run);
+            log.debug("Removed run [{}]", run.getFileName());
+        } catch (IOException e) {
+            // Another instance may be removing the same run
+            log.debug("Couldn't remove run [{}]: {}", run.getFileName(), e.toString());
+        }
+    }
+
+    /**
+     * Orders the repositories in the order this instance should attempt to claim them.
+     *
+     * @param repos the repositories to order.
+     * @return a mutable list of the repositories.
+     */
+    public List<Repo> preferredOrder(Collection<Repo> repos) {
+        var ordered = new ArrayList<>(repos);
+        ordered.sort(Comparator.comparing(repo -> DigestUtils.sha256Hex(distributedProperties.workerId() + "/" + repo.code())));
+        return ordered;
+    }
+
+    /**
+     * Returns {@code true} if the repository has been indexed by any instance in this run.
+     *
+     * @param repo the repository.
+     */
+    public boolean isComplete(Repo repo) {
+        return Files.exists(runDirectory.resolve(repo.code() + COMPLETE_SUFFIX)) || isRunFinished();
+    }
+
+    /**
+     * Attempts to claim a repository. A repository can be claimed if it hasn't been indexed,
+     * and if no other instance holds an unexpired lease on it.
+     *
+     * @param repo the repository to claim.
+     * @return {@code true} if this instance now holds the lease.
+     * @throws IOException if an IO error occurs.
+     */
+    public boolean tryAcquire(Repo repo) throws IOException {
+        if (isComplete(repo)) {
+            return false;
+        }
+
+        var leaseFile = runDirectory.resolve(repo.code() + LEASE_SUFFIX);
+
+        if (Files.exists(leaseFile) && !takeOverExpiredLease(repo, leaseFile)) {
+            return false;
+        }
+
+        try {
+            Files.writeString(leaseFile, distributedProperties.workerId(), StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException e) {
+            // Another instance claimed the lease first
+            return false;
+        } catch (NoSuchFileException e) {
+            // The run has finished and its directory was removed
+            return false;
+        }
+
+        // Check that the repository wasn't completed between the first check and creating the lease
+        if (isComplete(repo)) {
+            Files.deleteIfExists(leaseFile);
+            return false;
+        }
+
+        heldLeases.add(leaseFile);
+        startRenewal();
+
+        log.info("[{}] Claimed repository as [{}]", value(LoggingConstants.REPO_NAME, repo.code()), distributedProperties.workerId());
+        return true;
+    }
+
+    /**
+     * Removes an expired lease so that it can be claimed. The lease is moved aside first, so that only one
+     * instance can remove it. If the lease turns out to have been renewed, it is restored.
+     *
+     * @return {@code true} if the lease was removed.
+     */
+    private boolean takeOverExpiredLease(Repo repo, Path leaseFile) throws IOException {
+        if (!isExpired(leaseFile)) {
+            return false;
+        }
+
+        var tombstone = runDirectory.resolve(repo.code() + LEASE_SUFFIX + "." + UUID.randomUUID());
+        try {
+            Files.move(leaseFile, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Another instance moved the lease first
+            return false;
+        }
+
+        if (!isExpired(tombstone)) {
+            // The lease was renewed or replaced after it was checked, put it back
+            try {
+                Files.move(tombstone, leaseFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(tombstone);
+            }
+            return false;
+        }
+
+        log.info("[{}] Lease held by [{}] has expired, reclaiming",
+            value(LoggingConstants.REPO_NAME, repo.code()),
+            Files.readString(tombstone, StandardCharsets.UTF_8)
+        );
+        Files.deleteIfExists(tombstone);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the lease, or the newest file in the run directory, was last modified longer ago than the lease duration.
+     */
+    private boolean isExpired(Path path) throws IOException {
+        try {
+            var lastModified = Files.getLastModifiedTime(path).toInstant();
+            if (Files.isDirectory(path)) {
+                try (var files = Files.list(path)) {
+                    for (var file : (Iterable<Path>) files::iterator) {
+                        var fileModified = Files.getLastModifiedTime(file).toInstant();
+                        if (fileModified.isAfter(lastModified)) {
+                            lastModified = fileModified;
+                        }
+                    }
+                }
+            }
+            return lastModified.plus(distributedProperties.leaseDuration()).isBefore(Instant.now());
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks a repository as indexed and releases its lease.
+     *
+     * @param repo the repository.
+     * @throws IOException if an IO error occurs.
+     */
+    public void complete(Repo repo) throws IOException {
+        var completeFile = runDirectory.resolve(repo.code() + COMPLETE_SUFFIX);
+        try {
+            Files.writeString(completeFile, distributedProperties.workerId(), StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException e) {
+            log.warn("[{}] Repository was already marked as complete", value(LoggingConstants.REPO_NAME, repo.code()));
+        } catch (NoSuchFileException e) {
+            log.warn("[{}] Run finished before the repository was marked as complete", value(LoggingConstants.REPO_NAME, repo.code()));
+        }
+        release(repo);
+    }
+
+    /**
+     * Releases the lease on a repository without marking it as indexed, allowing another instance to claim it.
+     *
+     * @param repo the repository.
+     * @throws IOException if an IO error occurs.
+     */
+    public void release(Repo repo) throws IOException {
+        var leaseFile = runDirectory.resolve(repo.code() + LEASE_SUFFIX);
+        if (heldLeases.remove(leaseFile) && isHeldByThisInstance(leaseFile)) {
+            Files.deleteIfExists(leaseFile);
+        }
+    }
+
+    private boolean isHeldByThisInstance(Path leaseFile) throws IOException {
+        try {
+            return distributedProperties.workerId().equals(Files.readString(leaseFile, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits before checking for expired leases again.
+     *
+     * @throws InterruptedException if interrupted whilst waiting.
+     */
+    public void awaitOtherInstances() throws InterruptedException {
+        Thread.sleep(distributedProperties.pollInterval());
+    }
+
+    /**
+     * Attempts to claim theme reindexing for this run, which finishes the run. This should only be called once all repositories are complete.
+     *
+     * @return {@code true} if this instance should run theme reindexing.
+     * @throws IOException if an IO error occurs.
+     */
+    public boolean tryClaimReindexing() throws IOException {
+        try {
+            Files.writeString(runDirectory.resolve(REINDEX_MARKER), distributedProperties.workerId(), StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            reindexingClaimed = true;
+        } catch (FileAlreadyExistsException | NoSuchFileException e) {
+            reindexingClaimed = false;
+        }
+        return reindexingClaimed;
+    }
+
+    /**
+     * Returns {@code true} if this instance should run theme reindexing. This is always the case if
+     * distributed harvesting is disabled, otherwise this instance must have claimed reindexing.
+     */
+    public boolean shouldRunReindexing() {
+        return !isEnabled() || reindexingClaimed;
+    }
+
+    private synchronized void startRenewal() {
+        if (renewalExecutor == null) {
+            renewalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "lease-renewal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            var renewalPeriod = Math.max(1, distributedProperties.leaseDuration().toMillis() / 3);
+            renewalExecutor.scheduleAtFixedRate(this::renewLeases, renewalPeriod, renewalPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Renews the leases held by this instance by updating their modification time.
+     */
+    void renewLeases() {
+        for (var leaseFile : heldLeases) {
+            try {
+                if (isHeldByThisInstance(leaseFile)) {
+                    Files.setLastModifiedTime(leaseFile, FileTime.from(Instant.now()));
+                } else {
+                    log.warn("Lease [{}] has been claimed by another instance", leaseFile);
+                    heldLeases.remove(leaseFile);
+                }
+            } catch (IOException e) {
+                log.warn("Couldn't renew lease [{}]: {}", leaseFile, e.toString());
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (renewalExecutor != null) {
+            renewalExecutor.shutdownNow();
+        }
+    }
+}
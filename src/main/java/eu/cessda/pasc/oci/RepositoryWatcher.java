@@ -0,0 +1,492 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import eu.cessda.pasc.oci.CheckpointJournal.FileState;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.configurations.WatchProperties;
+import eu.cessda.pasc.oci.elasticsearch.IndexingException;
+import eu.cessda.pasc.oci.elasticsearch.IngestService;
+import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static net.logstash.logback.argument.StructuredArguments.value;
+
+/**
+ * Keeps the indexer running after the initial run, indexing changes to the repository directories as they happen.
+ * <p>
+ * Directories are watched using a {@link WatchService}, or by periodically comparing the size and modification
+ * time of their files if notifications are not available, as is the case for many network filesystems. Changes are
+ * collected until a directory has been quiet for the configured debounce period, then only the affected files are
+ * parsed and indexed.
+ * <p>
+ * The studies produced by each file are remembered, so that the studies of a file can be deleted when the file is
+ * removed, or when they disappear from a modified file. The studies of each file are reported by the indexer as it
+ * harvests the repositories, so the files are not parsed again. If a file with unknown studies is removed, or if
+ * change notifications were lost, the whole repository is compared against Elasticsearch instead.
+ * A full indexing run, including theme reindexing, is also run on a schedule to correct anything that was missed.
+ * <p>
+ * Watching can't be combined with distributed harvesting, as every instance would index every repository.
+ */
+@Component
+@Slf4j
+public class RepositoryWatcher {
+
+    private final WatchProperties watchProperties;
+    private final ConsumerScheduler consumerScheduler;
+    private final IndexerRunner indexerRunner;
+    private final IndexerConsumerService indexerConsumerService;
+    private final IngestService ingestService;
+
+    /*
+     * The following fields are only accessed by the thread running watch()
+     */
+    private final Map<Path, Repo> repositories = new HashMap<>();
+    private final Map<Path, PendingChanges> pendingChanges = new HashMap<>();
+    private final Map<Path, Map<Path, FileState>> polledDirectories = new HashMap<>();
+
+    /**
+     * The study IDs produced by each file of the watched repositories, by language.
+     * This is updated by the indexer whilst it parses files, and is otherwise only accessed by the indexing thread.
+     */
+    private final Map<Path, Map<String, Set<String>>> fileStudies = new ConcurrentHashMap<>();
+
+    /**
+     * All indexing is performed on a single thread, so that incremental changes and reconciliation never overlap.
+     */
+    private final ScheduledExecutorService indexingExecutor = Executors.newSingleThreadScheduledExecutor(
+        runnable -> new Thread(runnable, "repository-indexer")
+    );
+
+    private volatile boolean running = false;
+    private volatile boolean rediscoverRepositories = false;
+    private WatchService watchService = null;
+
+    @Autowired
+    public RepositoryWatcher(WatchProperties watchProperties,
+                             ConsumerScheduler consumerScheduler,
+                             IndexerRunner indexerRunner,
+                             IndexerConsumerService indexerConsumerService,
+                             IngestService ingestService,
+                             RepositoryLeaseManager leaseManager) {
+        if (watchProperties.enabled() && leaseManager.isEnabled()) {
+            throw new IllegalStateException("watch.enabled can't be combined with distributed.enabled, " +
+                "as every instance would watch and index every repository");
+        }
+
+        this.watchProperties = watchProperties;
+        this.consumerScheduler = consumerScheduler;
+        this.indexerRunner = indexerRunner;
+        this.indexerConsumerService = indexerConsumerService;
+        this.ingestService = ingestService;
+
+        if (watchProperties.enabled()) {
+            // Record the studies of each file as they are harvested, including by the initial indexing run
+            indexerRunner.setFileStudiesListener(this::recordFileStudies);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the indexer should keep running and watch the repository directories.
+     */
+    public boolean isEnabled() {
+        return watchProperties.enabled();
+    }
+
+    /**
+     * Watches the repository directories, indexing changes as they happen. This method blocks until the application is stopped.
+     *
+     * @throws IOException if the watch service could not be created.
+     */
+    public void watch() throws IOException {
+        synchronized (this) {
+            if (running) {
+                throw new IllegalStateException("Watcher is already running");
+            }
+            watchService = FileSystems.getDefault().newWatchService();
+            running = true;
+        }
+
+        try {
+            registerRepositories();
+
+            var reconciliationInterval = watchProperties.reconciliationInterval().toMillis();
+            indexingExecutor.scheduleWithFixedDelay(this::reconcile, reconciliationInterval, reconciliationInterval, TimeUnit.MILLISECONDS);
+
+            log.info("Watching {} repositories for changes, next full reconciliation in {}",
+                value("watched_repositories", repositories.size()),
+                watchProperties.reconciliationInterval()
+            );
+
+            var nextPoll = Instant.now().plus(watchProperties.pollInterval());
+            while (running) {
+                var key = watchService.poll(getTimeout(nextPoll).toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                }
+
+                var now = Instant.now();
+                if (!now.isBefore(nextPoll)) {
+                    pollDirectories(now);
+                    nextPoll = now.plus(watchProperties.pollInterval());
+                }
+
+                if (rediscoverRepositories) {
+                    rediscoverRepositories = false;
+                    registerRepositories();
+                }
+
+                flushQuietDirectories(now);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // The application is stopping
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            shutdown();
+        }
+
+        log.info("Stopped watching repositories");
+    }
+
+    /**
+     * Registers the directories of any repositories that are not yet watched.
+     */
+    private void registerRepositories() {
+        try (var repoStream = indexerRunner.getRepositories()) {
+            repoStream.filter(repo -> repo.path() != null).forEach(repo -> {
+                var directory = repo.path().toAbsolutePath().normalize();
+                if (repositories.putIfAbsent(directory, repo) != null) {
+                    return;
+                }
+
+                if (!watchProperties.polling()) {
+                    try {
+                        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                        return;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        log.info("[{}] Change notifications are not available, polling for changes instead: {}",
+                            value(LoggingConstants.REPO_NAME, repo.code()),
+                            e.toString()
+                        );
+                    }
+                }
+                polledDirectories.put(directory, scanDirectory(directory));
+            });
+        }
+    }
+
+    /**
+     * Calculates how long to wait for events before the next poll or debounced flush is due.
+     */
+    private Duration getTimeout(Instant nextPoll) {
+        var wakeUp = nextPoll;
+        for (var changes : pendingChanges.values()) {
+            var flushTime = changes.lastEvent.plus(watchProperties.debounce());
+            if (flushTime.isBefore(wakeUp)) {
+                wakeUp = flushTime;
+            }
+        }
+        var timeout = Duration.between(Instant.now(), wakeUp);
+        return timeout.isNegative() ? Duration.ZERO : timeout;
+    }
+
+    private void handleEvents(WatchKey key) {
+        var directory = (Path) key.watchable();
+        var now = Instant.now();
+
+        for (var event : key.pollEvents()) {
+            var changes = pendingChanges.computeIfAbsent(directory, k -> new PendingChanges());
+            changes.lastEvent = now;
+
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, so the whole repository must be compared
+                changes.reconcileRepository = true;
+                continue;
+            }
+
+            var file = directory.resolve((Path) event.context());
+            if (IndexerConsumerService.hasRecordExtension(file)) {
+                if (event.kind() == ENTRY_DELETE) {
+                    changes.deleted(file);
+                } else {
+                    changes.changed(file);
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            log.warn("[{}] Directory can no longer be watched", directory);
+            var repo = repositories.remove(directory);
+            pendingChanges.remove(directory);
+            if (repo != null) {
+                // The directory may be recreated, reconcile the repository and register it again
+                indexingExecutor.execute(() -> reconcileRepository(repo));
+                rediscoverRepositories = true;
+            }
+        }
+    }
+
+    /**
+     * Compares the polled directories with their previous state.
+     */
+    void pollDirectories(Instant now) {
+        for (var entry : polledDirectories.entrySet()) {
+            var directory = entry.getKey();
+            var previousState = entry.getValue();
+            var currentState = scanDirectory(directory);
+
+            for (var file : currentState.entrySet()) {
+                if (!file.getValue().equals(previousState.get(file.getKey()))) {
+                    var changes = pendingChanges.computeIfAbsent(directory, k -> new PendingChanges());
+                    changes.lastEvent = now;
+                    changes.changed(file.getKey());
+                }
+            }
+            for (var file : previousState.keySet()) {
+                if (!currentState.containsKey(file)) {
+                    var changes = pendingChanges.computeIfAbsent(directory, k -> new PendingChanges());
+                    changes.lastEvent = now;
+                    changes.deleted(file);
+                }
+            }
+
+            entry.setValue(currentState);
+        }
+    }
+
+    private static Map<Path, FileState> scanDirectory(Path directory) {
+        var fileStates = new HashMap<Path, FileState>();
+        try (var stream = Files.find(directory, 1, IndexerConsumerService::isRecordFile)) {
+            for (var path : (Iterable<Path>) stream::iterator) {
+                try {
+                    fileStates.put(path, new FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                } catch (NoSuchFileException e) {
+                    // The file was removed whilst the directory was being scanned
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't scan [{}] for changes: {}", directory, e.toString());
+        }
+        return fileStates;
+    }
+
+    /**
+     * Submits the changes of directories that have been quiet for the debounce period for indexing.
+     *
+     * @return the number of directories submitted.
+     */
+    int flushQuietDirectories(Instant now) {
+        var flushed = 0;
+        for (var iterator = pendingChanges.entrySet().iterator(); iterator.hasNext(); ) {
+            var entry = iterator.next();
+            var changes = entry.getValue();
+            if (changes.lastEvent.plus(watchProperties.debounce()).isAfter(now)) {
+                continue;
+            }
+
+            iterator.remove();
+            var repo = repositories.get(entry.getKey());
+            if (repo != null) {
+                indexingExecutor.execute(() -> indexChanges(repo, changes));
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Indexes the changed files of a repository, and deletes the studies of removed files.
+     */
+    @SuppressWarnings("OverlyBroadCatchBlock")
+    void indexChanges(Repo repo, PendingChanges changes) {
+        try {
+            // Files that were removed before the changes were indexed are treated as deleted
+            var changedFiles = new HashSet<Path>();
+            var deletedFiles = new HashSet<>(changes.deletedFiles);
+            for (var file : changes.changedFiles) {
+                if (Files.exists(file)) {
+                    changedFiles.add(file);
+                } else {
+                    deletedFiles.add(file);
+                }
+            }
+
+            if (changes.reconcileRepository || !fileStudies.keySet().containsAll(deletedFiles)) {
+                // The studies of at least one of the deleted files are unknown
+                reconcileRepository(repo);
+                return;
+            }
+
+            var studiesToIndex = new HashMap<String, List<CMMStudyOfLanguage>>();
+            var removedStudies = new HashMap<String, Set<String>>();
+
+            var parsedFiles = indexerConsumerService.getRecordsByFile(repo, changedFiles);
+            for (var parsedFile : parsedFiles.entrySet()) {
+                parsedFile.getValue().forEach((lang, studies) -> studiesToIndex.computeIfAbsent(lang, k -> new ArrayList<>()).addAll(studies));
+                var studyIds = IndexerRunner.getStudyIds(parsedFile.getValue());
+
+                // Studies that are no longer present in the file
+                var previousStudyIds = fileStudies.put(parsedFile.getKey(), studyIds);
+                if (previousStudyIds != null) {
+                    previousStudyIds.forEach((lang, ids) -> {
+                        var removed = new HashSet<>(ids);
+                        removed.removeAll(studyIds.getOrDefault(lang, Collections.emptySet()));
+                        removedStudies.computeIfAbsent(lang, k -> new HashSet<>()).addAll(removed);
+                    });
+                }
+            }
+
+            for (var file : deletedFiles) {
+                var previousStudyIds = fileStudies.remove(file);
+                previousStudyIds.forEach((lang, ids) -> removedStudies.computeIfAbsent(lang, k -> new HashSet<>()).addAll(ids));
+            }
+
+            // A study may have moved to a different file, don't delete studies that are still present
+            for (var studyIds : fileStudies.values()) {
+                studyIds.forEach((lang, ids) -> {
+                    var removed = removedStudies.get(lang);
+                    if (removed != null) {
+                        removed.removeAll(ids);
+                    }
+                });
+            }
+
+            var languages = new HashSet<>(studiesToIndex.keySet());
+            languages.addAll(removedStudies.keySet());
+            for (var lang : languages) {
+                var studies = studiesToIndex.getOrDefault(lang, Collections.emptyList());
+                var studiesToDelete = removedStudies.getOrDefault(lang, Collections.emptySet()).stream()
+                    // The repository is needed to route the deletion when studies are routed by repository
+                    .map(id -> CMMStudyOfLanguage.builder().id(id).code(repo.code()).build())
+                    .toList();
+
+                if (!studies.isEmpty()) {
+                    ingestService.bulkIndex(studies, lang);
+                }
+                if (!studiesToDelete.isEmpty()) {
+                    ingestService.bulkDelete(studiesToDelete, lang);
+                }
+
+                log.info("[{}({})] Indexed changes from {} files: {} studies indexed, {} studies deleted.",
+                    value(LoggingConstants.REPO_NAME, repo.code()),
+                    value(LoggingConstants.LANG_CODE, lang),
+                    value("changed_files", changedFiles.size() + deletedFiles.size()),
+                    value("indexed_cmm_studies", studies.size()),
+                    value("deleted_cmm_studies", studiesToDelete.size())
+                );
+            }
+        } catch (IndexingException | ElasticsearchException e) {
+            log.error("[{}] Couldn't index changes, comparing the repository instead: {}",
+                value(LoggingConstants.REPO_NAME, repo.code()),
+                e.toString()
+            );
+            reconcileRepository(repo);
+        } catch (Exception e) {
+            log.error("[{}]: Unexpected error occurred when indexing changes!", value(LoggingConstants.REPO_NAME, repo.code()), e);
+        }
+    }
+
+    /**
+     * Compares all files of a repository against Elasticsearch.
+     */
+    private void reconcileRepository(Repo repo) {
+        log.info("[{}] Comparing the repository against Elasticsearch", value(LoggingConstants.REPO_NAME, repo.code()));
+        forgetRepository(repo);
+        indexerRunner.executeRepositoryHarvest(repo);
+    }
+
+    /**
+     * Records the studies produced by a file, as reported by the indexer whilst harvesting. This allows the studies
+     * removed from a file that existed before the watcher started to be deleted when the file is modified.
+     */
+    void recordFileStudies(Path file, Map<String, Set<String>> studyIds) {
+        fileStudies.put(file.toAbsolutePath().normalize(), studyIds);
+    }
+
+    /**
+     * Runs a full indexing run, including theme reindexing.
+     */
+    @SuppressWarnings("java:S1181") // This is a top level error handler, an exception would stop future reconciliations
+    private void reconcile() {
+        try {
+            log.info("Starting scheduled reconciliation");
+            fileStudies.clear();
+            consumerScheduler.runIndexer();
+        } catch (Throwable e) {
+            log.error("Scheduled reconciliation failed!", e);
+        } finally {
+            // Pick up any repositories that were added since the last reconciliation
+            rediscoverRepositories = true;
+        }
+    }
+
+    /**
+     * Forgets the studies of the files of a repository, as they are about to be compared against Elasticsearch.
+     */
+    private void forgetRepository(Repo repo) {
+        var directory = repo.path().toAbsolutePath().normalize();
+        fileStudies.keySet().removeIf(file -> directory.equals(file.getParent()));
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        running = false;
+        indexingExecutor.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Couldn't close watch service: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Changes to a repository directory that are waiting for the directory to become quiet.
+     */
+    static class PendingChanges {
+        private final Set<Path> changedFiles = new HashSet<>();
+        private final Set<Path> deletedFiles = new HashSet<>();
+        private boolean reconcileRepository = false;
+        private Instant lastEvent = Instant.now();
+
+        void changed(Path file) {
+            deletedFiles.remove(file);
+            changedFiles.add(file);
+        }
+
+        void deleted(Path file) {
+            changedFiles.remove(file);
+            deletedFiles.add(file);
+        }
+    }
+}
@@ -18,12 +18,15 @@ package eu.cessda.pasc.oci;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.*;
+import java.time.chrono.IsoChronology;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.time.format.SignStyle;
-import java.time.temporal.ChronoField;
-import java.time.temporal.TemporalAccessor;
+import java.time.temporal.*;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Slf4j
@@ -45,6 +48,18 @@ public class TimeUtility {
         .appendOffset("+HHMM", "")
         .toFormatter();
 
+    /**
+     * The maximum number of date strings to cache. Record datestamps and data collection dates
+     * repeat heavily within a repository, so a small cache has a high hit rate.
+     */
+    private static final int MAX_CACHE_SIZE = 8192;
+
+    /**
+     * Cache of parsed date strings, strings that could not be parsed are mapped to {@link #UNPARSEABLE}.
+     */
+    private static final ConcurrentHashMap<String, Object> PARSE_CACHE = new ConcurrentHashMap<>();
+    private static final Object UNPARSEABLE = new Object();
+
     /**
      * Attempts to parse the date string into an instance of {@link T} using multiple expected date formats.
      * <p>
@@ -55,22 +70,362 @@ public class TimeUtility {
      * @return the time format.
      * @throws DateTimeParseException if unable to parse the date string.
      */
-    @SuppressWarnings("ThrowInsideCatchBlockWhichIgnoresCaughtException")
     public static <T> T getTimeFormat(String dateString, Function<TemporalAccessor, T> formatExtractor) {
-        TemporalAccessor temporalAccessor;
+        var temporalAccessor = parse(dateString);
+        if (temporalAccessor == null) {
+            // Use the formatters to report the error
+            temporalAccessor = parseWithFormatters(dateString);
+        }
+        return formatExtractor.apply(temporalAccessor);
+    }
+
+    /**
+     * Attempts to parse the date string into an instance of {@link T}, without throwing an exception if
+     * the date string cannot be parsed. The same date formats as {@link #getTimeFormat(String, Function)} are accepted.
+     *
+     * @param dateString the date string to parse.
+     * @param formatExtractor a function to convert the {@link TemporalAccessor} into {@link T}.
+     * @return the time format, or an empty {@link Optional} if unable to parse the date string
+     * or if the date string cannot be converted into {@link T}.
+     */
+    public static <T> Optional<T> tryGetTimeFormat(String dateString, Function<TemporalAccessor, T> formatExtractor) {
+        var temporalAccessor = parse(dateString);
+        if (temporalAccessor == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(formatExtractor.apply(temporalAccessor));
+        } catch (DateTimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the date string is in one of the accepted date formats.
+     *
+     * @param dateString the date string to check.
+     */
+    public static boolean isValidDate(String dateString) {
+        return parse(dateString) != null;
+    }
+
+    /**
+     * Parses the date string using the date formatters, throwing if the date string cannot be parsed.
+     */
+    @SuppressWarnings("ThrowInsideCatchBlockWhichIgnoresCaughtException")
+    static TemporalAccessor parseWithFormatters(String dateString) {
         try {
             // Parse using the standard ISO formats
-            temporalAccessor = DATE_TIME_FORMATTER.parse(dateString);
+            return DATE_TIME_FORMATTER.parse(dateString);
         } catch (DateTimeParseException e) {
             try {
                 // Try parsing using the NESSTAR date format
-                temporalAccessor = NESSTAR_DATE_TIME_FORMATTER.parse(dateString);
+                return NESSTAR_DATE_TIME_FORMATTER.parse(dateString);
             } catch (DateTimeParseException ne) {
                 // Suppress the exception thrown by the NESSTAR formatter
                 e.addSuppressed(ne);
                 throw e;
             }
         }
-        return formatExtractor.apply(temporalAccessor);
+    }
+
+    /**
+     * Parses the date string, consulting the cache first.
+     *
+     * @return the parsed date, or {@code null} if the date string could not be parsed.
+     */
+    static TemporalAccessor parse(String dateString) {
+        var cached = PARSE_CACHE.get(dateString);
+        if (cached == null) {
+            var parsed = new DateParser(dateString).parse();
+            cached = parsed != null ? parsed : UNPARSEABLE;
+            if (PARSE_CACHE.size() >= MAX_CACHE_SIZE) {
+                PARSE_CACHE.clear();
+            }
+            PARSE_CACHE.put(dateString, cached);
+        }
+        return cached != UNPARSEABLE ? (TemporalAccessor) cached : null;
+    }
+
+    /**
+     * A parser for the formats accepted by {@link #DATE_TIME_FORMATTER} and {@link #NESSTAR_DATE_TIME_FORMATTER},
+     * that reports failure by returning {@code null} rather than by throwing exceptions.
+     * <p>
+     * The parser follows the semantics of the formatters, including the {@link java.time.format.ResolverStyle#SMART}
+     * resolution of out of range days and of the {@code 24:00} end of day time.
+     */
+    private static final class DateParser {
+        private final String text;
+        private int position = 0;
+
+        private DateParser(String text) {
+            this.text = text;
+        }
+
+        TemporalAccessor parse() {
+            // Year, this can have between 4 and 10 digits. More than 4 digits requires a sign.
+            var sign = peek();
+            if (sign == '+' || sign == '-') {
+                position++;
+            }
+            int yearStart = position;
+            var year = parseNumber(10);
+            int yearDigits = position - yearStart;
+            if (year == null || yearDigits < 4
+                || (sign == '+' && yearDigits == 4)
+                || (sign != '+' && sign != '-' && yearDigits > 4)
+                || (sign == '-' && year == 0)) {
+                return null;
+            }
+            if (sign == '-') {
+                year = -year;
+            }
+            if (isAtEnd()) {
+                return new PartialDate(year, null);
+            }
+
+            // Month, the month is not validated unless a day is present
+            if (!consume('-')) {
+                return null;
+            }
+            var month = parseSignedNumber();
+            if (month == null) {
+                return null;
+            }
+            if (isAtEnd()) {
+                return new PartialDate(year, month);
+            }
+
+            // Day
+            if (!consume('-')) {
+                return null;
+            }
+            var day = parseSignedNumber();
+            if (day == null) {
+                return null;
+            }
+            var date = resolveDate(year, month, day);
+            if (date == null || isAtEnd()) {
+                return date;
+            }
+
+            // Time
+            if (!consume('T')) {
+                return null;
+            }
+            return parseDateTime(date);
+        }
+
+        private TemporalAccessor parseDateTime(LocalDate date) {
+            var hour = parseFixedWidthNumber();
+            if (hour == -1 || !consume(':')) {
+                return null;
+            }
+            var minute = parseFixedWidthNumber();
+            if (minute == -1) {
+                return null;
+            }
+            int second = 0;
+            int nano = 0;
+            if (peek() == ':') {
+                position++;
+                second = parseFixedWidthNumber();
+                if (second == -1) {
+                    return null;
+                }
+                if (peek() == '.') {
+                    position++;
+                    nano = parseFraction();
+                }
+            }
+
+            // Validate the time, 24:00 is resolved to the start of the next day
+            if (minute > 59 || second > 59) {
+                return null;
+            }
+            if (hour == 24 && minute == 0 && second == 0 && nano == 0) {
+                hour = 0;
+                date = date.plusDays(1);
+            } else if (hour > 23) {
+                return null;
+            }
+            var dateTime = LocalDateTime.of(date, LocalTime.of(hour, minute, second, nano));
+
+            if (isAtEnd()) {
+                return dateTime;
+            }
+
+            var offset = parseOffset();
+            if (offset == null || !isAtEnd()) {
+                return null;
+            }
+            return OffsetDateTime.of(dateTime, offset);
+        }
+
+        /**
+         * Parses an ISO offset ({@code Z}, {@code +HH:MM} or {@code +HH:MM:SS}) or a NESSTAR offset ({@code +HHMM}).
+         */
+        private ZoneOffset parseOffset() {
+            var sign = peek();
+            if (sign == 'Z' || sign == 'z') {
+                position++;
+                return ZoneOffset.UTC;
+            }
+            if (sign != '+' && sign != '-') {
+                return null;
+            }
+            position++;
+
+            int hours = parseFixedWidthNumber();
+            if (hours == -1) {
+                return null;
+            }
+            int minutes;
+            int seconds = 0;
+            if (consume(':')) {
+                minutes = parseFixedWidthNumber();
+                if (peek() == ':') {
+                    position++;
+                    seconds = parseFixedWidthNumber();
+                }
+            } else {
+                minutes = parseFixedWidthNumber();
+            }
+            if (minutes == -1 || seconds == -1 || minutes > 59 || seconds > 59) {
+                return null;
+            }
+
+            int totalSeconds = hours * 3600 + minutes * 60 + seconds;
+            if (totalSeconds > 18 * 3600) {
+                return null;
+            }
+            return ZoneOffset.ofTotalSeconds(sign == '-' ? -totalSeconds : totalSeconds);
+        }
+
+        /**
+         * Resolves a date using the same rules as {@link IsoChronology} in smart mode,
+         * where days past the end of the month are moved to the last day of the month.
+         */
+        private static LocalDate resolveDate(long year, long month, long day) {
+            if (year < Year.MIN_VALUE || year > Year.MAX_VALUE || month < 1 || month > 12 || day < 1 || day > 31) {
+                return null;
+            }
+            var yearMonth = YearMonth.of((int) year, (int) month);
+            return yearMonth.atDay((int) Math.min(day, yearMonth.lengthOfMonth()));
+        }
+
+        private char peek() {
+            return position < text.length() ? text.charAt(position) : '\0';
+        }
+
+        private boolean isAtEnd() {
+            return position == text.length();
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        /**
+         * Parses an unsigned number of up to {@code maxDigits} digits.
+         *
+         * @return the number, or {@code null} if no digits were present or the number overflowed.
+         */
+        private Long parseNumber(int maxDigits) {
+            int start = position;
+            long value = 0;
+            while (position - start < maxDigits && isDigit(peek())) {
+                int digit = text.charAt(position) - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    return null;
+                }
+                value = value * 10 + digit;
+                position++;
+            }
+            return position > start ? value : null;
+        }
+
+        /**
+         * Parses a number of up to 19 digits with an optional negative sign. Negative zero is rejected.
+         */
+        private Long parseSignedNumber() {
+            boolean negative = consume('-');
+            var value = parseNumber(19);
+            if (value == null || (negative && value == 0)) {
+                return null;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a two digit number.
+         *
+         * @return the number, or {@code -1} if two digits were not present.
+         */
+        private int parseFixedWidthNumber() {
+            if (position + 2 > text.length() || !isDigit(text.charAt(position)) || !isDigit(text.charAt(position + 1))) {
+                return -1;
+            }
+            int value = (text.charAt(position) - '0') * 10 + (text.charAt(position + 1) - '0');
+            position += 2;
+            return value;
+        }
+
+        /**
+         * Parses up to 9 fractional digits as nanoseconds.
+         */
+        private int parseFraction() {
+            int start = position;
+            int value = 0;
+            while (position - start < 9 && isDigit(peek())) {
+                value = value * 10 + (text.charAt(position) - '0');
+                position++;
+            }
+            for (int i = position - start; i < 9; i++) {
+                value *= 10;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * A date consisting of a year, and optionally a month. The month is not validated,
+     * matching the behaviour of the formatters when a day is not present.
+     *
+     * @param year  the year.
+     * @param month the month, or {@code null} if not present.
+     */
+    private record PartialDate(long year, Long month) implements TemporalAccessor {
+        @Override
+        public boolean isSupported(TemporalField field) {
+            return field == ChronoField.YEAR || (field == ChronoField.MONTH_OF_YEAR && month != null);
+        }
+
+        @Override
+        public long getLong(TemporalField field) {
+            if (field == ChronoField.YEAR) {
+                return year;
+            } else if (field == ChronoField.MONTH_OF_YEAR && month != null) {
+                return month;
+            }
+            throw new UnsupportedTemporalTypeException("Unsupported field: " + field);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> R query(TemporalQuery<R> query) {
+            if (query == TemporalQueries.chronology()) {
+                return (R) IsoChronology.INSTANCE;
+            }
+            return TemporalAccessor.super.query(query);
+        }
     }
 }
@@ -35,7 +35,10 @@ public record AppConfigurationProperties(
     List<Repo> repos
 ) {
 
-    private static final Set<String> SUPPORTED_LANGUAGES = new LinkedHashSet<>(List.of("cs", "da", "de", "el", "en", "et", "fi", "fr", "hu", "is", "it", "nl", "no", "pt", "sk", "sl", "sr", "sv"));
+    /**
+     * The languages that have an Elasticsearch settings configuration.
+     */
+    public static final Set<String> SUPPORTED_LANGUAGES = Collections.unmodifiableSet(new LinkedHashSet<>(List.of("cs", "da", "de", "el", "en", "et", "fi", "fr", "hu", "is", "it", "nl", "no", "pt", "sk", "sl", "sr", "sv")));
 
     public AppConfigurationProperties(Path baseDirectory, Set<String> languages, OaiPmh oaiPmh, List<Repo> repos) {
         this.repos = Objects.requireNonNullElseGet(repos, Collections::emptyList);
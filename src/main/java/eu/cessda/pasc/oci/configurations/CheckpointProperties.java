@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration for the checkpoint journal, used to resume an interrupted indexing run.
+ *
+ * @param directory the directory to store the journal in, checkpointing is disabled if {@code null}.
+ * @param maxAge    the maximum age of a journal before it is discarded and a new run is started.
+ */
+@ConfigurationProperties(prefix = "checkpoint")
+public record CheckpointProperties(
+    Path directory,
+    Duration maxAge
+) {
+    public CheckpointProperties {
+        maxAge = Objects.requireNonNullElse(maxAge, Duration.ofDays(1));
+    }
+}
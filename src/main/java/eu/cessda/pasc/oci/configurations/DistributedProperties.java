@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration for distributed harvesting, where several indexer instances share the repositories to index.
+ *
+ * @param enabled        whether distributed harvesting is enabled.
+ * @param leaseDirectory the shared directory to store leases in, defaults to {@code .leases} in the base directory.
+ * @param workerId       the identifier of this instance, defaults to the host name and process ID.
+ * @param runId          the identifier of the run, all instances taking part in a run must use the same value, and each
+ *                       run must use a new value. If unset, a new run is started whenever the previous run has finished.
+ * @param leaseDuration  the time after which a lease that hasn't been renewed expires and can be claimed by another instance.
+ * @param pollInterval   how often to check for expired leases when waiting for other instances to finish.
+ */
+@ConfigurationProperties(prefix = "distributed")
+public record DistributedProperties(
+    boolean enabled,
+    Path leaseDirectory,
+    String workerId,
+    String runId,
+    Duration leaseDuration,
+    Duration pollInterval
+) {
+    public DistributedProperties {
+        workerId = Objects.requireNonNullElseGet(workerId, DistributedProperties::defaultWorkerId);
+        leaseDuration = Objects.requireNonNullElse(leaseDuration, Duration.ofMinutes(10));
+        pollInterval = Objects.requireNonNullElse(pollInterval, Duration.ofSeconds(30));
+    }
+
+    private static String defaultWorkerId() {
+        var hostName = Objects.requireNonNullElse(System.getenv("HOSTNAME"), "localhost");
+        return hostName + "-" + ProcessHandle.current().pid();
+    }
+}
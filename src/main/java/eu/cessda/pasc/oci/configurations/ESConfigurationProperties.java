@@ -19,6 +19,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Loads Configurations from application*.yml specifically for elasticsearch
  *
@@ -32,4 +36,93 @@ public class ESConfigurationProperties {
     private String port;
     private int numberOfShards = 1;
     private int numberOfReplicas = 1;
+
+    /**
+     * The URLs of the nodes to connect to, i.e. {@code http://es-1:9200}. Requests are sent to each node in turn,
+     * and nodes that fail are retried with an increasing backoff. If empty, {@code host} and {@code httpPort} are used.
+     */
+    private List<String> hosts = new ArrayList<>();
+    /**
+     * Whether to discover the data nodes of the cluster, and send requests to them instead of the configured hosts.
+     */
+    private boolean sniff = false;
+    /**
+     * How often to discover the nodes of the cluster.
+     */
+    private Duration sniffInterval = Duration.ofMinutes(5);
+    /**
+     * The maximum number of connections to all nodes.
+     */
+    private int maxConnections = 30;
+    /**
+     * The maximum number of connections to each node.
+     */
+    private int maxConnectionsPerNode = 10;
+    /**
+     * How long idle connections are kept open for reuse. If {@code null}, the keep-alive sent by Elasticsearch is used.
+     */
+    private Duration keepAlive = null;
+    /**
+     * Whether to compress request bodies with gzip, and to request compressed responses.
+     */
+    private boolean compression = false;
+    /**
+     * The format used to encode the body of bulk requests.
+     */
+    private BulkFormat bulkFormat = BulkFormat.JSON;
+    /**
+     * Whether to route studies to shards by their repository, and sort indices by repository. This allows the studies
+     * of a repository to be read and deleted from a single shard. Existing indices are migrated when first indexed to.
+     */
+    private boolean routing = false;
+    /**
+     * Whether to compare changed studies with the stored version, and only send the fields that have changed.
+     * New studies, and studies where the changed fields are large, are indexed in full.
+     */
+    private boolean partialUpdates = false;
+    /**
+     * The size of a partial update, relative to the size of the full document, above which the full document is sent.
+     */
+    private double maxPartialUpdateRatio = 0.5;
+    /**
+     * The number of studies each primary shard of a new index is sized for, based on the number of studies the index
+     * held when the full indexing run began.
+     * If {@code 0}, new indices are created with {@code numberOfShards} primary shards.
+     */
+    private long studiesPerShard = 0;
+    /**
+     * The largest number of primary shards a new index is created with when shards are sized automatically.
+     */
+    private int maxNumberOfShards = 5;
+    /**
+     * The refresh interval of the indices while a full indexing run loads studies, i.e. {@code 30s}. A value of
+     * {@code -1} disables refreshes. The refresh interval is reset once the run finishes. If {@code null}, it is unchanged.
+     */
+    private String bulkRefreshInterval = null;
+    /**
+     * Whether to force-merge indices after a full indexing run if they contain many deleted or replaced studies.
+     */
+    private boolean forceMerge = false;
+    /**
+     * The proportion of deleted documents in an index above which it is force-merged.
+     */
+    private double forceMergeThreshold = 0.1;
+    /**
+     * The number of segments to force-merge each shard into.
+     */
+    private int forceMergeSegments = 1;
+
+    /**
+     * The formats that bulk request bodies can be encoded in.
+     */
+    public enum BulkFormat {
+        /**
+         * Newline delimited JSON.
+         */
+        JSON,
+        /**
+         * Smile, a binary encoding of JSON.
+         */
+        SMILE
+    }
 }
@@ -25,10 +25,15 @@ import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Extra Util configuration
  *
@@ -43,38 +48,107 @@ public class ElasticsearchConfiguration {
     private final String esUsername;
     private final String esPassword;
 
+    private final ESConfigurationProperties esConfigurationProperties;
     private final ObjectMapper objectMapper;
 
+    public ElasticsearchConfiguration(String esHost, int esHttpPort, String esUsername, String esPassword, ObjectMapper objectMapper) {
+        this(esHost, esHttpPort, esUsername, esPassword, new ESConfigurationProperties(), objectMapper);
+    }
+
     @Autowired
     public ElasticsearchConfiguration(
         @Value("${elasticsearch.host:localhost}") String esHost,
         @Value("${elasticsearch.httpPort:9200}") int esHttpPort,
         @Value("${elasticsearch.username:#{null}}") String esUsername,
         @Value("${elasticsearch.password:#{null}}") String esPassword,
+        ESConfigurationProperties esConfigurationProperties,
         ObjectMapper objectMapper
     ) {
         this.esHost = esHost;
         this.esHttpPort = esHttpPort;
         this.esUsername = esUsername;
         this.esPassword = esPassword;
+        this.esConfigurationProperties = esConfigurationProperties;
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Gets the nodes to connect to. These are the nodes configured in {@code elasticsearch.hosts}, or
+     * {@code elasticsearch.host} and {@code elasticsearch.httpPort} if no nodes are configured.
+     *
+     * @throws IllegalArgumentException if a configured host is not a valid URL.
+     */
+    List<HttpHost> getHosts() {
+        if (esConfigurationProperties.getHosts().isEmpty()) {
+            return List.of(new HttpHost("http", esHost, esHttpPort));
+        }
+
+        var hosts = new ArrayList<HttpHost>(esConfigurationProperties.getHosts().size());
+        for (var host : esConfigurationProperties.getHosts()) {
+            try {
+                hosts.add(HttpHost.create(host));
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException("Invalid Elasticsearch host " + host, e);
+            }
+        }
+        return hosts;
+    }
+
     public Rest5ClientTransport elasticsearchTransport() {
-        var esHosts = new HttpHost("http", esHost, esHttpPort);
-        final var restClientBuilder = Rest5Client.builder(esHosts);
+        var restClient = buildRestClient(esConfigurationProperties.isCompression());
+        return new Rest5ClientTransport(restClient, new JacksonJsonpMapper(objectMapper));
+    }
+
+    /**
+     * Builds a REST client that doesn't compress request bodies. This is used to send bulk requests
+     * that have been compressed in advance, so that the number of bytes sent can be measured.
+     */
+    public Rest5Client bulkRestClient() {
+        return buildRestClient(false);
+    }
+
+    private Rest5Client buildRestClient(boolean compressionEnabled) {
+        var esHosts = getHosts();
+        final var restClientBuilder = Rest5Client.builder(esHosts.toArray(HttpHost[]::new));
+        restClientBuilder.setCompressionEnabled(compressionEnabled);
 
+        BasicCredentialsProvider credentialsProvider = null;
         if (esUsername != null && esPassword != null) {
             // Set HTTP credentials
-            var credentialsProvider = new BasicCredentialsProvider();
-            credentialsProvider.setCredentials(new AuthScope(esHosts), new UsernamePasswordCredentials(esUsername, esPassword.toCharArray()));
-            restClientBuilder.setHttpClientConfigCallback(httpClientBuilder ->
-                httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider)
-            );
+            credentialsProvider = new BasicCredentialsProvider();
+            var credentials = new UsernamePasswordCredentials(esUsername, esPassword.toCharArray());
+            if (esConfigurationProperties.isSniff()) {
+                // Discovered nodes use the same credentials
+                credentialsProvider.setCredentials(new AuthScope(null, -1), credentials);
+            } else {
+                for (var host : esHosts) {
+                    credentialsProvider.setCredentials(new AuthScope(host), credentials);
+                }
+            }
         }
 
+        var defaultCredentialsProvider = credentialsProvider;
+        var keepAlive = esConfigurationProperties.getKeepAlive();
+        restClientBuilder.setHttpClientConfigCallback(httpClientBuilder -> {
+            if (defaultCredentialsProvider != null) {
+                httpClientBuilder.setDefaultCredentialsProvider(defaultCredentialsProvider);
+            }
+            if (keepAlive != null) {
+                httpClientBuilder.setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAlive.toMillis()));
+            }
+        });
+
+        // Size the connection pool so that bulk requests can be sent to several nodes at once
+        restClientBuilder.setConnectionManagerCallback(connectionManagerBuilder -> connectionManagerBuilder
+            .setMaxConnTotal(esConfigurationProperties.getMaxConnections())
+            .setMaxConnPerRoute(esConfigurationProperties.getMaxConnectionsPerNode())
+        );
+
         var restClient = restClientBuilder.build();
-        return new Rest5ClientTransport(restClient, new JacksonJsonpMapper(objectMapper));
+        if (esConfigurationProperties.isSniff()) {
+            ElasticsearchNodeSniffer.start(restClient, objectMapper, esConfigurationProperties.getSniffInterval());
+        }
+        return restClient;
     }
 
     public ElasticsearchClient elasticsearchClient() {
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import co.elastic.clients.transport.rest5_client.low_level.Node;
+import co.elastic.clients.transport.rest5_client.low_level.Request;
+import co.elastic.clients.transport.rest5_client.low_level.Rest5Client;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.HttpHost;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+
+/**
+ * Periodically discovers the data nodes of an Elasticsearch cluster using the nodes info API, and updates the nodes
+ * that a client sends requests to. Master-only and coordinating-only nodes are not used. If no data nodes are
+ * discovered, the client keeps using its current nodes.
+ * <p>
+ * Discovery stops once the client is closed.
+ */
+@Slf4j
+final class ElasticsearchNodeSniffer implements Runnable {
+
+    private static final ScheduledExecutorService SNIFFER_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "elasticsearch-sniffer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Rest5Client restClient;
+    private final ObjectMapper objectMapper;
+    private final String scheme;
+
+    private Set<HttpHost> currentHosts = Set.of();
+    private volatile ScheduledFuture<?> future = null;
+
+    private ElasticsearchNodeSniffer(Rest5Client restClient, ObjectMapper objectMapper) {
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        // Discovered nodes are assumed to use the same scheme as the configured nodes
+        this.scheme = restClient.getNodes().getFirst().getHost().getSchemeName();
+    }
+
+    /**
+     * Starts discovering the nodes of the cluster the client is connected to.
+     *
+     * @param restClient   the client to update.
+     * @param objectMapper the object mapper to parse responses with.
+     * @param interval     how often to discover nodes.
+     */
+    static void start(Rest5Client restClient, ObjectMapper objectMapper, Duration interval) {
+        var sniffer = new ElasticsearchNodeSniffer(restClient, objectMapper);
+        sniffer.future = SNIFFER_EXECUTOR.scheduleWithFixedDelay(sniffer, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run() {
+        if (!restClient.isRunning()) {
+            // The client has been closed
+            if (future != null) {
+                future.cancel(false);
+            }
+            return;
+        }
+
+        try {
+            var response = restClient.performRequest(new Request("GET", "/_nodes/http"));
+            JsonNode nodesInfo;
+            try (var content = response.getEntity().getContent()) {
+                nodesInfo = objectMapper.readTree(content);
+            }
+
+            var hosts = parseDataNodes(nodesInfo, scheme);
+            if (hosts.isEmpty()) {
+                log.warn("No Elasticsearch data nodes were discovered, using {}", currentHosts.isEmpty() ? restClient.getNodes() : currentHosts);
+                return;
+            }
+
+            if (!hosts.equals(currentHosts)) {
+                restClient.setNodes(hosts.stream().map(Node::new).toList());
+                currentHosts = hosts;
+                log.info("Discovered {} Elasticsearch data nodes: {}", value("elasticsearch_nodes", hosts.size()), hosts);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Couldn't discover Elasticsearch nodes: {}", e.toString());
+        }
+    }
+
+    /**
+     * Parses the HTTP addresses of data nodes from a response of the nodes info API. Nodes without roles are
+     * assumed to be data nodes.
+     *
+     * @param nodesInfo the response of {@code GET /_nodes/http}.
+     * @param scheme    the scheme to use to connect to the nodes.
+     * @return the addresses of the data nodes, in the order they were present.
+     */
+    static Set<HttpHost> parseDataNodes(JsonNode nodesInfo, String scheme) {
+        var hosts = new LinkedHashSet<HttpHost>();
+        for (var node : nodesInfo.path("nodes")) {
+            var roles = node.path("roles");
+            if (roles.isArray() && !hasDataRole(roles)) {
+                continue;
+            }
+
+            var publishAddress = node.path("http").path("publish_address").asText(null);
+            if (publishAddress != null) {
+                hosts.add(parsePublishAddress(publishAddress, scheme));
+            }
+        }
+        return hosts;
+    }
+
+    private static boolean hasDataRole(JsonNode roles) {
+        for (var role : roles) {
+            // Includes tiered roles such as data_hot and data_content
+            if (role.asText().startsWith("data")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a publish address in the form {@code host:port}, {@code hostname/ip:port} or {@code [ipv6]:port}.
+     * If both a hostname and an IP address are present, the hostname is used so that TLS certificates can be verified.
+     */
+    static HttpHost parsePublishAddress(String publishAddress, String scheme) {
+        var portIndex = publishAddress.lastIndexOf(':');
+        var port = Integer.parseInt(publishAddress.substring(portIndex + 1));
+
+        var host = publishAddress.substring(0, portIndex);
+        var slashIndex = host.indexOf('/');
+        if (slashIndex > 0) {
+            host = host.substring(0, slashIndex);
+        } else if (slashIndex == 0) {
+            host = host.substring(1);
+        }
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+
+        return new HttpHost(scheme, host, port);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of how harvested studies are indexed.
+ *
+ * @param incremental whether to skip records whose OAI-PMH datestamp matches the study already stored in Elasticsearch.
+ *                    Skipped records are not mapped, but are still considered present when detecting deleted studies.
+ * @param sharedBulkRequests whether to send the changes to all language indices of a repository as a single stream
+ *                           of bulk requests, rather than sending separate requests for each language.
+ */
+@ConfigurationProperties(prefix = "indexing")
+public record IndexingProperties(
+    boolean incremental,
+    boolean sharedBulkRequests
+) {
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Configuration of the XML parser.
+ *
+ * @param cache              the configuration of the parse result cache.
+ * @param dataAccessMappings a JSON file to load the data access mappings from, in the format of the bundled
+ *                           {@code data_access_mappings.json}. The bundled mappings are used if this is not set.
+ * @param recordBatchSize    the number of records of a document to map in each parallel task. Documents with more
+ *                           records than this are split into tasks that run on the same thread pool as the tasks
+ *                           for each file. Documents are mapped by a single task if this is {@code 0}.
+ * @param pruneDocuments     skip the sections of DDI Codebook documents that no field is extracted from, such as
+ *                           variable descriptions, while parsing. This reduces the memory and time needed to parse
+ *                           large codebooks.
+ * @param input              the configuration of how record files are read.
+ */
+@ConfigurationProperties(prefix = "parser")
+public record ParserProperties(
+    Cache cache,
+    Path dataAccessMappings,
+    int recordBatchSize,
+    boolean pruneDocuments,
+    Input input
+) {
+    public ParserProperties {
+        cache = Objects.requireNonNullElseGet(cache, () -> new Cache(null, null));
+        input = Objects.requireNonNullElseGet(input, () -> new Input(null, null, 0));
+    }
+
+    /**
+     * Configuration of the parse result cache, which stores the studies parsed from each file.
+     *
+     * @param directory the directory to store parsed studies in. The cache is disabled if this is not set.
+     * @param maxSize   the size the cache can grow to before the least recently used entries are removed.
+     */
+    public record Cache(
+        Path directory,
+        DataSize maxSize
+    ) {
+        public Cache {
+            maxSize = Objects.requireNonNullElse(maxSize, DataSize.ofGigabytes(1));
+        }
+    }
+
+    /**
+     * Configuration of how record files are read.
+     *
+     * @param strategy   how record files are read, {@link Strategy#CHANNEL} by default.
+     * @param bufferSize the size of each read when using {@link Strategy#BUFFERED}.
+     * @param readAhead  the number of files to read in advance of the files being parsed. Disabled if {@code 0}.
+     */
+    public record Input(
+        Strategy strategy,
+        DataSize bufferSize,
+        int readAhead
+    ) {
+        public Input {
+            strategy = Objects.requireNonNullElse(strategy, Strategy.CHANNEL);
+            bufferSize = Objects.requireNonNullElse(bufferSize, DataSize.ofMegabytes(1));
+        }
+
+        /**
+         * Strategies for reading record files.
+         */
+        public enum Strategy {
+            /**
+             * Stream the file to the parser as it is read.
+             */
+            CHANNEL,
+            /**
+             * Read the file into memory using large reads, then parse it. Suited to network attached storage.
+             */
+            BUFFERED,
+            /**
+             * Memory map the file and parse the mapping. Suited to local disks.
+             */
+            MAPPED
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration of the adaptive throttling of bulk requests, which slows indexing down when the cluster is busy.
+ *
+ * @param enabled        whether bulk requests are throttled. If disabled, bulk requests are sent as fast as possible
+ *                       using the maximum batch size.
+ * @param latencyTarget  the 95th percentile bulk request latency to stay under.
+ * @param minBatchSize   the smallest number of studies to send in a bulk request.
+ * @param maxBatchSize   the largest number of studies to send in a bulk request.
+ * @param maxPause       the longest pause between bulk requests.
+ * @param queueThreshold the write thread pool queue depth, on the busiest node, above which indexing is slowed down.
+ * @param statsInterval  how often to check the write thread pool queues of the cluster.
+ */
+@ConfigurationProperties(prefix = "throttle")
+public record ThrottleProperties(
+    boolean enabled,
+    Duration latencyTarget,
+    Integer minBatchSize,
+    Integer maxBatchSize,
+    Duration maxPause,
+    Integer queueThreshold,
+    Duration statsInterval
+) {
+    public ThrottleProperties {
+        latencyTarget = Objects.requireNonNullElse(latencyTarget, Duration.ofSeconds(2));
+        minBatchSize = Objects.requireNonNullElse(minBatchSize, 50);
+        maxBatchSize = Objects.requireNonNullElse(maxBatchSize, 500);
+        maxPause = Objects.requireNonNullElse(maxPause, Duration.ofSeconds(30));
+        queueThreshold = Objects.requireNonNullElse(queueThreshold, 100);
+        statsInterval = Objects.requireNonNullElse(statsInterval, Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration for daemon mode, where the indexer keeps running after the initial run and indexes changes
+ * to the repository directories as they happen.
+ *
+ * @param enabled                whether the repository directories should be watched after the initial run.
+ * @param polling                whether to detect changes by polling the directories rather than using filesystem
+ *                               notifications. Polling is always used for directories that don't support notifications.
+ * @param pollInterval           how often to scan the directories when polling.
+ * @param debounce               how long a directory must be quiet before its changes are indexed.
+ * @param reconciliationInterval how often to run a full indexing run, correcting any changes that were missed.
+ */
+@ConfigurationProperties(prefix = "watch")
+public record WatchProperties(
+    boolean enabled,
+    boolean polling,
+    Duration pollInterval,
+    Duration debounce,
+    Duration reconciliationInterval
+) {
+    public WatchProperties {
+        pollInterval = Objects.requireNonNullElse(pollInterval, Duration.ofSeconds(30));
+        debounce = Objects.requireNonNullElse(debounce, Duration.ofSeconds(10));
+        reconciliationInterval = Objects.requireNonNullElse(reconciliationInterval, Duration.ofHours(24));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest5_client.low_level.Request;
+import co.elastic.clients.transport.rest5_client.low_level.RequestOptions;
+import co.elastic.clients.transport.rest5_client.low_level.Rest5Client;
+import co.elastic.clients.util.BinaryData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.cessda.pasc.oci.configurations.ESConfigurationProperties.BulkFormat;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sends bulk requests using the low-level REST client, so that the request body can be encoded as Smile
+ * and compressed before it is sent. The size of each request body is recorded before and after compression.
+ * <p>
+ * Each action and document is written as a separate value followed by the stream separator of the format,
+ * a newline for JSON and {@code 0xFF} for Smile. Documents that are already serialised as {@link BinaryData} are
+ * written as is, so they must be in the same format as the request. Responses are always requested as JSON.
+ */
+class BulkRequestSender {
+
+    private static final RequestOptions ACCEPT_JSON = RequestOptions.DEFAULT.toBuilder()
+        .addHeader("Accept", ContentType.APPLICATION_JSON.getMimeType())
+        .build();
+
+    private final Supplier<Rest5Client> restClient;
+    private final JsonpMapper jsonpMapper;
+    private final ObjectWriter writer;
+    private final ContentType contentType;
+    private final byte separator;
+    private final boolean compression;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+
+    /**
+     * Constructs a new bulk request sender.
+     *
+     * @param restClient   supplies the client to send requests with. The client must not compress request bodies.
+     * @param objectMapper the object mapper used to serialise documents.
+     * @param format       the format to encode request bodies in.
+     * @param compression  whether to compress request bodies with gzip.
+     */
+    BulkRequestSender(Supplier<Rest5Client> restClient, ObjectMapper objectMapper, BulkFormat format, boolean compression) {
+        this.restClient = restClient;
+        this.jsonpMapper = new JacksonJsonpMapper(objectMapper);
+        this.compression = compression;
+        switch (format) {
+            case JSON -> {
+                this.writer = objectMapper.writer();
+                this.contentType = ContentType.APPLICATION_JSON;
+                this.separator = '\n';
+            }
+            case SMILE -> {
+                this.writer = objectMapper.copyWith(new SmileFactory()).writer();
+                this.contentType = ContentType.create("application/smile");
+                this.separator = (byte) 0xFF;
+            }
+            default -> throw new IllegalArgumentException("Unsupported bulk format " + format);
+        }
+    }
+
+    /**
+     * Sends a bulk request to Elasticsearch.
+     *
+     * @param bulkRequest the request to send.
+     * @return the response from Elasticsearch.
+     * @throws IOException if the request could not be encoded, or if an error occurs sending the request.
+     */
+    BulkResponse bulk(BulkRequest bulkRequest) throws IOException {
+        var body = encode(bulkRequest);
+        var wireBody = compression ? compress(body) : body;
+
+        var request = new Request("POST", "/_bulk");
+        request.setEntity(new ByteArrayEntity(wireBody, contentType, compression ? "gzip" : null));
+        request.setOptions(ACCEPT_JSON);
+
+        requests.increment();
+        encodedBytes.add(body.length);
+        wireBytes.add(wireBody.length);
+
+        var response = restClient.get().performRequest(request);
+        try (var content = response.getEntity().getContent();
+             var parser = jsonpMapper.jsonProvider().createParser(content)) {
+            return BulkResponse._DESERIALIZER.deserialize(parser, jsonpMapper);
+        }
+    }
+
+    /**
+     * Encodes the operations of a bulk request.
+     *
+     * @throws IllegalArgumentException if the request contains an operation other than index, update or delete.
+     */
+    byte[] encode(BulkRequest bulkRequest) throws IOException {
+        var body = new ByteArrayOutputStream();
+        for (var operation : bulkRequest.operations()) {
+            if (operation.isIndex()) {
+                var index = operation.index();
+                writer.writeValue(body, Map.of("index", actionMetadata(index.index(), index.id(), index.routing())));
+                body.write(separator);
+                if (index.document() instanceof BinaryData binaryData) {
+                    // Documents serialised in advance by DocumentSerializer
+                    binaryData.writeTo(body);
+                } else {
+                    writer.writeValue(body, index.document());
+                }
+            } else if (operation.isUpdate()) {
+                var update = operation.update();
+                writer.writeValue(body, Map.of("update", actionMetadata(update.index(), update.id(), update.routing())));
+                body.write(separator);
+                writer.writeValue(body, Map.of("doc", update.action().doc()));
+            } else if (operation.isDelete()) {
+                var delete = operation.delete();
+                writer.writeValue(body, Map.of("delete", actionMetadata(delete.index(), delete.id(), delete.routing())));
+            } else {
+                throw new IllegalArgumentException("Unsupported bulk operation " + operation._kind());
+            }
+            body.write(separator);
+        }
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> actionMetadata(String index, String id, String routing) {
+        if (routing == null) {
+            return Map.of("_index", index, "_id", id);
+        }
+        return Map.of("_index", index, "_id", id, "routing", routing);
+    }
+
+    private static byte[] compress(byte[] body) throws IOException {
+        var compressed = new ByteArrayOutputStream(body.length / 4);
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Gets the statistics of the requests sent since this sender was constructed.
+     */
+    BulkStatistics getStatistics() {
+        return new BulkStatistics(requests.sum(), encodedBytes.sum(), wireBytes.sum());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+/**
+ * Statistics about the bulk requests sent to Elasticsearch.
+ *
+ * @param requests     the number of bulk requests sent.
+ * @param encodedBytes the size of the request bodies before compression.
+ * @param wireBytes    the size of the request bodies as sent to Elasticsearch.
+ */
+public record BulkStatistics(long requests, long encodedBytes, long wireBytes) {
+
+    /**
+     * Returns the statistics accumulated since the given statistics were taken.
+     */
+    public BulkStatistics since(BulkStatistics previous) {
+        return new BulkStatistics(
+            requests - previous.requests,
+            encodedBytes - previous.encodedBytes,
+            wireBytes - previous.wireBytes
+        );
+    }
+
+    /**
+     * Returns the size of the request bodies before compression divided by the size sent to Elasticsearch,
+     * or {@code 1} if nothing has been sent.
+     */
+    public double compressionRatio() {
+        if (wireBytes == 0) {
+            return 1;
+        }
+        return (double) encodedBytes / wireBytes;
+    }
+}
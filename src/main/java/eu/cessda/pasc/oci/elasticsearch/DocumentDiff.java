@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashSet;
+
+/**
+ * Calculates the partial document that updates a stored document to match a new version of the document.
+ * <p>
+ * Only top-level fields are compared. A field that differs is copied from the new version in its entirety, as
+ * Elasticsearch replaces arrays and values in partial updates. Objects are merged by Elasticsearch, so keys that
+ * were removed from an object are set to {@code null}. Fields that were removed are also set to {@code null}, and a
+ * {@code null} field is considered equal to a missing field.
+ */
+class DocumentDiff {
+
+    private DocumentDiff() {
+    }
+
+    /**
+     * Calculates the partial document that updates the stored document to the new version.
+     *
+     * @param stored  the document stored in Elasticsearch.
+     * @param updated the new version of the document.
+     * @return the fields that have changed, this is empty if the documents are equal.
+     */
+    static ObjectNode diff(ObjectNode stored, ObjectNode updated) {
+        var partialDocument = JsonNodeFactory.instance.objectNode();
+
+        var fieldNames = new HashSet<String>();
+        stored.fieldNames().forEachRemaining(fieldNames::add);
+        updated.fieldNames().forEachRemaining(fieldNames::add);
+
+        for (var fieldName : fieldNames) {
+            var storedValue = stored.get(fieldName);
+            var updatedValue = updated.get(fieldName);
+            if (isNull(updatedValue)) {
+                if (!isNull(storedValue)) {
+                    partialDocument.putNull(fieldName);
+                }
+            } else if (!updatedValue.equals(storedValue)) {
+                partialDocument.set(fieldName, replacement(storedValue, updatedValue));
+            }
+        }
+
+        return partialDocument;
+    }
+
+    /**
+     * Gets the value that replaces the stored value when merged by Elasticsearch.
+     */
+    private static JsonNode replacement(JsonNode storedValue, JsonNode updatedValue) {
+        if (storedValue instanceof ObjectNode storedObject && updatedValue instanceof ObjectNode updatedObject) {
+            var replacement = updatedObject.deepCopy();
+            for (var entry : storedObject.properties()) {
+                var updatedEntry = updatedObject.get(entry.getKey());
+                if (isNull(updatedEntry)) {
+                    if (!isNull(entry.getValue())) {
+                        replacement.putNull(entry.getKey());
+                    }
+                } else {
+                    replacement.set(entry.getKey(), replacement(entry.getValue(), updatedEntry));
+                }
+            }
+            return replacement;
+        }
+        return updatedValue;
+    }
+
+    private static boolean isNull(JsonNode node) {
+        return node == null || node.isNull();
+    }
+}
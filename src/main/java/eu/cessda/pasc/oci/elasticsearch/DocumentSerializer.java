@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import co.elastic.clients.util.BinaryData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.cessda.pasc.oci.ForkJoinBatches;
+import eu.cessda.pasc.oci.configurations.ESConfigurationProperties.BulkFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Serialises documents ahead of a bulk request, so that serialisation runs in parallel on a {@link ForkJoinPool}
+ * rather than on the thread sending the request. The serialised documents are passed to the bulk request as
+ * {@link BinaryData}, which is written to the request body as is.
+ * <p>
+ * Documents are written into scratch buffers taken from a pool, then copied into an array of the exact size.
+ * This avoids growing a new buffer for every document.
+ */
+class DocumentSerializer {
+
+    /**
+     * The number of documents serialised by each fork-join task.
+     */
+    private static final int BATCH_SIZE = 50;
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    /**
+     * Scratch buffers that have grown beyond this size are discarded rather than returned to the pool.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    private final ObjectWriter writer;
+    private final String contentType;
+    private final ForkJoinPool pool;
+    private final Queue<ScratchBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new document serialiser.
+     *
+     * @param objectMapper the object mapper used to serialise documents.
+     * @param format       the format to serialise documents in, this must match the format of the bulk request.
+     * @param pool         the pool to serialise documents on.
+     */
+    DocumentSerializer(ObjectMapper objectMapper, BulkFormat format, ForkJoinPool pool) {
+        this.pool = pool;
+        switch (format) {
+            case JSON -> {
+                this.writer = objectMapper.writer();
+                this.contentType = "application/json";
+            }
+            case SMILE -> {
+                this.writer = objectMapper.copyWith(new SmileFactory()).writer();
+                this.contentType = "application/smile";
+            }
+            default -> throw new IllegalArgumentException("Unsupported bulk format " + format);
+        }
+    }
+
+    /**
+     * Serialises the documents on the pool.
+     *
+     * @param documents the documents to serialise.
+     * @return a future that completes with the serialised documents, in the same order as the source documents.
+     * If a document cannot be serialised, the future completes exceptionally with an {@link UncheckedIOException}.
+     */
+    CompletableFuture<List<BinaryData>> serializeAsync(List<?> documents) {
+        return CompletableFuture.supplyAsync(() -> ForkJoinBatches.map(documents, BATCH_SIZE, this::serialize), pool);
+    }
+
+    /**
+     * Serialises a single document.
+     *
+     * @throws UncheckedIOException if the document cannot be serialised.
+     */
+    BinaryData serialize(Object document) {
+        var buffer = Objects.requireNonNullElseGet(buffers.poll(), ScratchBuffer::new);
+        try {
+            writer.writeValue(buffer, document);
+            return BinaryData.of(buffer.toByteArray(), contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of scratch buffers available for reuse.
+     */
+    int getPooledBufferCount() {
+        return buffers.size();
+    }
+
+    private static final class ScratchBuffer extends ByteArrayOutputStream {
+        private ScratchBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+}
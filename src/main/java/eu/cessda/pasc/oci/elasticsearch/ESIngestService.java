@@ -18,6 +18,7 @@ package eu.cessda.pasc.oci.elasticsearch;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.*;
 import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.IdsQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.MatchAllQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
@@ -26,10 +27,19 @@ import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.core.bulk.DeleteOperation;
 import co.elastic.clients.elasticsearch.core.bulk.IndexOperation;
+import co.elastic.clients.elasticsearch.core.bulk.UpdateOperation;
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.indices.*;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.nodes.ThreadCount;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.rest5_client.Rest5ClientTransport;
+import co.elastic.clients.transport.rest5_client.low_level.Request;
+import co.elastic.clients.transport.rest5_client.low_level.ResponseException;
+import co.elastic.clients.transport.rest5_client.low_level.Rest5Client;
+import co.elastic.clients.util.BinaryData;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import eu.cessda.pasc.oci.ResourceHandler;
 import eu.cessda.pasc.oci.TimeUtility;
 import eu.cessda.pasc.oci.configurations.ESConfigurationProperties;
@@ -47,11 +57,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static net.logstash.logback.argument.StructuredArguments.value;
+
 /**
  * Service responsible for triggering harvesting and Metadata ingestion to the search engine
  *
@@ -70,9 +88,20 @@ public class ESIngestService implements IngestService {
     private static final String REINDEXED_DOCUMENT = "Reindexed document [{}] from [{}] to [{}].";
 
     /**
-     * The amount of studies to BulkIndex at once
+     * The number of times bulk items rejected with 429 Too Many Requests are retried
+     */
+    private static final int MAX_REJECTION_RETRIES = 3;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The suffix of indices that are routed by repository, which are accessed through an alias without the suffix
+     */
+    private static final String ROUTED_INDEX_SUFFIX = "_routed";
+
+    /**
+     * How often the status of reindex tasks is polled
      */
-    private static final int INDEX_COMMIT_SIZE = 500;
+    private static final Duration TASK_POLL_INTERVAL = Duration.ofSeconds(1);
 
     private final ESConfigurationProperties esConfigProps;
     private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
@@ -80,13 +109,45 @@ public class ESIngestService implements IngestService {
     private ElasticsearchClient client = null;
     private final Supplier<ElasticsearchClient> esClient;
 
+    private Rest5Client bulkClient = null;
+    /**
+     * Sends bulk requests if they are compressed or encoded as Smile, otherwise {@code null}.
+     */
+    private final BulkRequestSender bulkRequestSender;
+    private final DocumentSerializer documentSerializer;
+    /**
+     * Converts studies to a tree, so that they can be compared with stored studies.
+     */
+    private final ObjectMapper objectMapper;
+    /**
+     * Controls the size and rate of bulk requests.
+     */
+    private final IngestThrottle ingestThrottle;
+    /**
+     * The indices known to use repository routing.
+     */
+    private final Set<String> routedIndices = ConcurrentHashMap.newKeySet();
+    /**
+     * The number of studies each study index held when the bulk load began, keyed by the name of the index.
+     * Used to size indices created during the bulk load.
+     */
+    private volatile Map<String, Long> previousStudyCounts = Map.of();
+    /**
+     * Whether a bulk load is in progress, new indices are created with the bulk refresh interval if so.
+     */
+    private volatile boolean bulkLoading = false;
+
     @Autowired
     public ESIngestService(
         ElasticsearchConfiguration elasticsearchConfiguration,
         ESConfigurationProperties esConfigProps,
-        ObjectMapper objectMapper
+        ObjectMapper objectMapper,
+        IngestThrottle ingestThrottle
     ) {
         this.esConfigProps = esConfigProps;
+        this.ingestThrottle = ingestThrottle;
+        this.objectMapper = objectMapper;
+        this.documentSerializer = new DocumentSerializer(objectMapper, esConfigProps.getBulkFormat(), ForkJoinPool.commonPool());
         this.esClient = () -> {
             if (this.client == null
                 // Reset the client if the underlying HTTPClient is not running
@@ -96,12 +157,33 @@ public class ESIngestService implements IngestService {
             }
             return this.client;
         };
+
+        if (esConfigProps.isCompression() || esConfigProps.getBulkFormat() != ESConfigurationProperties.BulkFormat.JSON) {
+            Supplier<Rest5Client> bulkClientSupplier = () -> {
+                if (this.bulkClient == null || !this.bulkClient.isRunning()) {
+                    this.bulkClient = elasticsearchConfiguration.bulkRestClient();
+                }
+                return this.bulkClient;
+            };
+            this.bulkRequestSender = new BulkRequestSender(bulkClientSupplier, objectMapper, esConfigProps.getBulkFormat(), esConfigProps.isCompression());
+        } else {
+            this.bulkRequestSender = null;
+        }
     }
 
     public ESIngestService(ElasticsearchClient esClient, ESConfigurationProperties esConfigProps) {
         this.esConfigProps = esConfigProps;
         this.client = esClient;
         this.esClient = () -> this.client;
+        this.bulkRequestSender = null;
+        this.ingestThrottle = IngestThrottle.disabled();
+
+        // Serialise documents using the same object mapper as the client
+        var objectMapper = esClient._jsonpMapper() instanceof JacksonJsonpMapper jacksonJsonpMapper
+            ? jacksonJsonpMapper.objectMapper()
+            : new ObjectMapper();
+        this.objectMapper = objectMapper;
+        this.documentSerializer = new DocumentSerializer(objectMapper, ESConfigurationProperties.BulkFormat.JSON, ForkJoinPool.commonPool());
     }
 
     private ElasticsearchClient esClient() {
@@ -115,67 +197,312 @@ public class ESIngestService implements IngestService {
 
     @Override
     public void bulkIndex(Collection<CMMStudyOfLanguage> languageCMMStudiesMap, String languageIsoCode) throws IndexingException {
+        bulkIndex(languageCMMStudiesMap, null, languageIsoCode);
+    }
+
+    /**
+     * Indexes the studies, using the given stored studies to compute partial updates rather than retrieving them from
+     * Elasticsearch.
+     */
+    @Override
+    public void bulkIndex(
+        Collection<CMMStudyOfLanguage> studies,
+        Map<String, CMMStudyOfLanguage> storedStudies,
+        String languageIsoCode
+    ) throws IndexingException {
         var indexName = String.format(INDEX_NAME_TEMPLATE, languageIsoCode);
 
         createIndex(indexName, languageIsoCode);
 
-        log.debug("[{}] Indexing {} studies", indexName, languageCMMStudiesMap.size());
+        log.debug("[{}] Indexing {} studies", indexName, studies.size());
+
+        bulkIndexInternal(studies, storedStudies, indexName);
+
+        log.debug("[{}] Indexing completed.", indexName);
+    }
+
+    /**
+     * Indexes and deletes the studies of all languages as a single stream of bulk requests. Operations on different
+     * language indices share bulk requests, so a repository with studies in several languages needs fewer requests.
+     */
+    @Override
+    public void bulkIndex(
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToIndex,
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToDelete,
+        Map<String, ? extends Map<String, CMMStudyOfLanguage>> storedStudies
+    ) throws IndexingException {
+        var indexOperations = new ArrayList<StudyOperation>();
+        for (var entry : studiesToIndex.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+
+            var indexName = String.format(INDEX_NAME_TEMPLATE, entry.getKey());
+            createIndex(indexName, entry.getKey());
+            var storedStudiesOfLanguage = storedStudies.get(entry.getKey());
+            for (var study : entry.getValue()) {
+                indexOperations.add(new StudyOperation(indexName, study, storedStudiesOfLanguage));
+            }
+        }
+
+        var deleteOperations = new ArrayList<StudyOperation>();
+        for (var entry : studiesToDelete.entrySet()) {
+            var indexName = String.format(INDEX_NAME_TEMPLATE, entry.getKey());
+            for (var study : entry.getValue()) {
+                deleteOperations.add(new StudyOperation(indexName, study));
+            }
+        }
+
+        var logName = String.format(INDEX_NAME_TEMPLATE, "*");
+        log.debug("[{}] Indexing {} studies, deleting {} studies", logName, indexOperations.size(), deleteOperations.size());
 
-        var operationList = new ArrayList<BulkOperation>();
+        bulkIndexOperations(indexOperations, logName);
+        bulkDeleteOperations(deleteOperations, logName);
 
+        log.debug("[{}] Indexing completed.", logName);
+    }
+
+    /**
+     * Indexes the studies into the given index, which must already exist.
+     *
+     * @param languageCMMStudiesMap the studies to index.
+     * @param storedStudies         the stored versions of the studies keyed by study ID, or {@code null} if not known.
+     * @param indexName             the index to index the studies into.
+     * @throws IndexingException if an error occurs when indexing the studies to Elasticsearch.
+     */
+    private void bulkIndexInternal(
+        Collection<CMMStudyOfLanguage> languageCMMStudiesMap,
+        Map<String, CMMStudyOfLanguage> storedStudies,
+        String indexName
+    ) throws IndexingException {
+        var operations = new ArrayList<StudyOperation>(languageCMMStudiesMap.size());
         for (var study : languageCMMStudiesMap) {
-            var indexRequest = new IndexOperation.Builder<CMMStudyOfLanguage>()
-                .index(indexName)
-                .id(study.id())
-                .document(study)
-                .build();
+            operations.add(new StudyOperation(indexName, study, storedStudies));
+        }
+        bulkIndexOperations(operations, indexName);
+    }
 
-            operationList.add(new BulkOperation(indexRequest));
+    /**
+     * Indexes the studies into their target indices, which must already exist.
+     *
+     * @param operations the studies to index, with the index each study is to be indexed into.
+     * @param logName    the name used to identify the request in log messages.
+     * @throws IndexingException if an error occurs when indexing the studies to Elasticsearch.
+     */
+    private void bulkIndexOperations(List<StudyOperation> operations, String logName) throws IndexingException {
+        var studies = new ArrayList<CMMStudyOfLanguage>(operations.size());
+        for (var operation : operations) {
+            studies.add(operation.study());
+        }
+
+        // Serialise the next batch of studies while the current batch is being sent
+        var batchSize = ingestThrottle.getBatchSize();
+        var nextDocuments = serializeBatch(studies, 0, batchSize);
+        var unchangedStudies = 0;
+        var partiallyUpdatedStudies = 0;
+        var start = 0;
+        while (start < studies.size()) {
+            var end = Math.min(start + batchSize, studies.size());
+            var batch = operations.subList(start, end);
+            var documents = awaitDocuments(nextDocuments);
+
+            // The throttle may have changed the batch size since the current batch was started
+            batchSize = ingestThrottle.getBatchSize();
+            nextDocuments = serializeBatch(studies, end, batchSize);
+
+            var storedDocuments = esConfigProps.isPartialUpdates() ? getStoredDocuments(batch, logName) : null;
+
+            var operationList = new ArrayList<BulkOperation>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                var study = batch.get(i).study();
+
+                if (storedDocuments != null && storedDocuments.get(i) != null) {
+                    var partialDocument = DocumentDiff.diff(storedDocuments.get(i), objectMapper.valueToTree(study));
+                    if (partialDocument.isEmpty()) {
+                        // The stored study is already up to date
+                        unchangedStudies++;
+                        continue;
+                    }
+                    if (isPartialUpdateSmaller(partialDocument, documents.get(i))) {
+                        var updateRequest = new UpdateOperation.Builder<CMMStudyOfLanguage, ObjectNode>()
+                            .index(batch.get(i).indexName())
+                            .id(study.id())
+                            .routing(getRouting(study))
+                            .action(action -> action.doc(partialDocument))
+                            .build();
+
+                        operationList.add(new BulkOperation(updateRequest));
+                        partiallyUpdatedStudies++;
+                        continue;
+                    }
+                }
+
+                var indexRequest = new IndexOperation.Builder<BinaryData>()
+                    .index(batch.get(i).indexName())
+                    .id(study.id())
+                    .routing(getRouting(study))
+                    .document(documents.get(i))
+                    .build();
+
+                operationList.add(new BulkOperation(indexRequest));
+            }
 
-            if (operationList.size() == INDEX_COMMIT_SIZE) {
-                log.trace("[{}] Bulk Indexing {} studies", indexName, INDEX_COMMIT_SIZE);
+            if (!operationList.isEmpty()) {
+                log.trace("[{}] Bulk Indexing {} studies", logName, operationList.size());
                 var bulkRequest = new BulkRequest.Builder().operations(operationList).build();
-                indexBulkRequest(indexName, bulkRequest);
+                indexBulkRequest(logName, bulkRequest);
+            }
+            start = end;
+        }
 
-                // Clear the bulk request
-                operationList.clear();
+        if (esConfigProps.isPartialUpdates()) {
+            log.debug("[{}] {} studies unchanged, {} studies partially updated, {} studies indexed in full",
+                logName, unchangedStudies, partiallyUpdatedStudies, studies.size() - unchangedStudies - partiallyUpdatedStudies);
+        }
+    }
+
+    /**
+     * Gets the stored versions of a batch of studies, so that only the fields that have changed are sent. Stored
+     * studies already known to the caller are used as is, the remaining studies are retrieved with a multi-get.
+     *
+     * @return the stored documents, in the same order as the batch. Studies that are not stored, or that couldn't be
+     * retrieved, are {@code null} and are indexed in full.
+     */
+    private List<ObjectNode> getStoredDocuments(List<StudyOperation> batch, String logName) {
+        var storedDocuments = new ArrayList<ObjectNode>(batch.size());
+        var unknownOperations = new ArrayList<Integer>();
+        for (int i = 0; i < batch.size(); i++) {
+            var operation = batch.get(i);
+            if (operation.storedStudies() != null) {
+                var storedStudy = operation.storedStudies().get(operation.study().id());
+                storedDocuments.add(storedStudy != null ? objectMapper.valueToTree(storedStudy) : null);
+            } else {
+                storedDocuments.add(null);
+                unknownOperations.add(i);
             }
         }
 
-        // Commit all remaining studies
-        if (!operationList.isEmpty()) {
-            log.trace("[{}] Bulk Indexing {} studies", indexName, operationList.size());
-            var bulkRequest = new BulkRequest.Builder().operations(operationList).build();
-            indexBulkRequest(indexName, bulkRequest);
+        if (unknownOperations.isEmpty()) {
+            return storedDocuments;
         }
 
-        log.debug("[{}] Indexing completed.", indexName);
+        try {
+            var response = esClient().mget(request -> {
+                for (var i : unknownOperations) {
+                    var operation = batch.get(i);
+                    request.docs(doc -> doc
+                        .index(operation.indexName())
+                        .id(operation.study().id())
+                        .routing(getRouting(operation.study()))
+                    );
+                }
+                return request;
+            }, ObjectNode.class);
+
+            var docs = response.docs();
+            for (int i = 0; i < docs.size(); i++) {
+                var item = docs.get(i);
+                if (item.isResult() && item.result().found()) {
+                    storedDocuments.set(unknownOperations.get(i), item.result().source());
+                }
+            }
+        } catch (ElasticsearchException | IOException e) {
+            log.warn("[{}] Couldn't retrieve stored studies, indexing studies in full: {}", logName, e.toString());
+        }
+        return storedDocuments;
     }
 
+    /**
+     * Returns {@code true} if the partial document is small enough, relative to the full document, to be sent instead.
+     */
+    private boolean isPartialUpdateSmaller(ObjectNode partialDocument, BinaryData document) {
+        var partialDocumentSize = documentSerializer.serialize(partialDocument).size();
+        return partialDocumentSize <= document.size() * esConfigProps.getMaxPartialUpdateRatio();
+    }
+
+    /**
+     * A study, and the index that an operation on the study targets.
+     *
+     * @param storedStudies the studies already stored in the index keyed by study ID, or {@code null} if not known.
+     */
+    private record StudyOperation(String indexName, CMMStudyOfLanguage study, Map<String, CMMStudyOfLanguage> storedStudies) {
+        private StudyOperation(String indexName, CMMStudyOfLanguage study) {
+            this(indexName, study, null);
+        }
+    }
+
+    /**
+     * Gets the routing value of a study. Studies are routed by their repository if repository routing is enabled,
+     * otherwise {@code null} is returned and studies are routed by their ID.
+     */
+    private String getRouting(CMMStudyOfLanguage study) {
+        return esConfigProps.isRouting() ? study.code() : null;
+    }
+
+    /**
+     * Starts serialising the batch of studies beginning at the given index.
+     */
+    private CompletableFuture<List<BinaryData>> serializeBatch(List<CMMStudyOfLanguage> studies, int start, int batchSize) {
+        if (start >= studies.size()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return documentSerializer.serializeAsync(studies.subList(start, Math.min(start + batchSize, studies.size())));
+    }
+
+    private static List<BinaryData> awaitDocuments(CompletableFuture<List<BinaryData>> documents) throws IndexingException {
+        try {
+            return documents.join();
+        } catch (CompletionException e) {
+            throw new IndexingException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends a bulk request, updating field mappings and retrying rejected operations if needed.
+     *
+     * @param indexName the name used to identify the request in log messages.
+     * @param request   the bulk request, the operations of which may target several indices.
+     */
     private void indexBulkRequest(String indexName, BulkRequest request) throws IndexingException {
         try {
-            var response = this.esClient().bulk(request);
+            var response = bulk(request);
             if (response.errors()) {
+                // Find the indices with outdated field mappings
+                var outdatedIndices = new LinkedHashSet<String>();
                 for (var item : response.items()) {
                     if (item.error() != null && "strict_dynamic_mapping_exception".equals(item.error().type())) {
-                        // Attempt updating field mappings
+                        outdatedIndices.add(item.index());
+                    }
+                }
+
+                if (!outdatedIndices.isEmpty()) {
+                    // Attempt updating field mappings
+                    for (var outdatedIndex : outdatedIndices) {
                         var updateMappingRequest = new PutMappingRequest.Builder()
                             .withJson(ResourceHandler.getResourceAsStream(MAPPINGS_JSON))
-                            .index(indexName)
+                            .index(outdatedIndex)
                             .build();
 
                         esClient().indices().putMapping(updateMappingRequest);
-
-                        // Retry indexing with updated mappings.
-                        response = esClient().bulk(request);
-                        break;
                     }
+
+                    // Retry indexing with updated mappings.
+                    response = bulk(request);
                 }
 
-                if (response.errors()) {
-                    log.warn("[{}] {}", indexName, response.items().stream()
-                        .map(BulkResponseItem::error)
-                        .filter(Objects::nonNull)
+                // Retry items rejected because the cluster was overloaded, the throttle will have slowed down
+                var errors = new ArrayList<ErrorCause>();
+                for (int attempt = 0; attempt < MAX_REJECTION_RETRIES && countRejectedItems(response) > 0; attempt++) {
+                    // Only the rejected operations are retried, so the other errors must be kept
+                    addErrors(response, errors, item -> item.status() != TOO_MANY_REQUESTS);
+                    request = getRejectedOperations(request, response);
+                    log.debug("[{}] Retrying {} rejected operations", indexName, request.operations().size());
+                    response = bulk(request);
+                }
+                addErrors(response, errors, item -> true);
+
+                if (!errors.isEmpty()) {
+                    log.warn("[{}] {}", indexName, errors.stream()
                         .map(ErrorCause::toString)
                         .collect(Collectors.joining(", ")));
                 }
@@ -185,6 +512,98 @@ public class ESIngestService implements IngestService {
         }
     }
 
+    /**
+     * Sends a bulk request once the throttle allows it, recording the latency and rejections of the request.
+     */
+    private BulkResponse bulk(BulkRequest request) throws IOException {
+        ingestThrottle.awaitPermit(this::getWriteQueueDepth);
+
+        var startTime = System.nanoTime();
+        BulkResponse response;
+        try {
+            if (bulkRequestSender != null) {
+                response = bulkRequestSender.bulk(request);
+            } else {
+                response = esClient().bulk(request);
+            }
+        } catch (ElasticsearchException e) {
+            if (e.status() == TOO_MANY_REQUESTS) {
+                ingestThrottle.onRejected();
+            }
+            throw e;
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusCode() == TOO_MANY_REQUESTS) {
+                ingestThrottle.onRejected();
+            }
+            throw e;
+        }
+
+        ingestThrottle.onResponse(Duration.ofNanos(System.nanoTime() - startTime), countRejectedItems(response));
+        return response;
+    }
+
+    /**
+     * Adds the errors of the items of a bulk response that match the filter.
+     */
+    private static void addErrors(BulkResponse response, List<ErrorCause> errors, Predicate<BulkResponseItem> filter) {
+        if (response.errors()) {
+            for (var item : response.items()) {
+                if (item.error() != null && filter.test(item)) {
+                    errors.add(item.error());
+                }
+            }
+        }
+    }
+
+    private static int countRejectedItems(BulkResponse response) {
+        if (!response.errors()) {
+            return 0;
+        }
+        return (int) response.items().stream().filter(item -> item.status() == TOO_MANY_REQUESTS).count();
+    }
+
+    /**
+     * Gets the operations of a bulk request that were rejected with 429 Too Many Requests.
+     * The items of a bulk response are in the same order as the operations of the request.
+     */
+    private static BulkRequest getRejectedOperations(BulkRequest request, BulkResponse response) {
+        var rejected = new ArrayList<BulkOperation>();
+        for (int i = 0; i < response.items().size(); i++) {
+            if (response.items().get(i).status() == TOO_MANY_REQUESTS) {
+                rejected.add(request.operations().get(i));
+            }
+        }
+        return new BulkRequest.Builder().operations(rejected).build();
+    }
+
+    /**
+     * Gets the depth of the deepest write thread pool queue in the cluster.
+     */
+    private long getWriteQueueDepth() throws IOException {
+        var nodesStats = esClient().nodes().stats(request -> request.metric("thread_pool"));
+        return nodesStats.nodes().values().stream()
+            .map(stats -> stats.threadPool() != null ? stats.threadPool().get("write") : null)
+            .filter(Objects::nonNull)
+            .map(ThreadCount::queue)
+            .filter(Objects::nonNull)
+            .mapToLong(Long::longValue)
+            .max()
+            .orElse(0);
+    }
+
+    @Override
+    public Optional<BulkStatistics> getBulkStatistics() {
+        return Optional.ofNullable(bulkRequestSender).map(BulkRequestSender::getStatistics);
+    }
+
+    /**
+     * The stored versions of studies are used to send partial updates, so they are only used if partial updates are enabled.
+     */
+    @Override
+    public boolean usesStoredStudies() {
+        return esConfigProps.isPartialUpdates();
+    }
+
     @Override
     public void bulkDelete(Collection<CMMStudyOfLanguage> cmmStudiesToDelete, String languageIsoCode) throws IndexingException {
         bulkDeleteInternal(cmmStudiesToDelete, String.format(INDEX_NAME_TEMPLATE, languageIsoCode));
@@ -201,17 +620,36 @@ public class ESIngestService implements IngestService {
      * @throws IndexingException if an error occurs connecting to Elasticsearch.
      */
     private void bulkDeleteInternal(Collection<CMMStudyOfLanguage> cmmStudiesToDelete, String indexName) throws IndexingException {
+        var operations = new ArrayList<StudyOperation>(cmmStudiesToDelete.size());
+        for (var study : cmmStudiesToDelete) {
+            operations.add(new StudyOperation(indexName, study));
+        }
+        bulkDeleteOperations(operations, indexName);
+    }
+
+    /**
+     * Delete the specified studies from their indices.
+     *
+     * @param operations the studies to delete, with the index each study is to be deleted from.
+     * @param logName    the name used to identify the request in log messages.
+     * @throws IndexingException if an error occurs connecting to Elasticsearch.
+     */
+    private void bulkDeleteOperations(List<StudyOperation> operations, String logName) throws IndexingException {
         // Extract the ids from the studies, and add them to the delete query
-        var deleteRequests = cmmStudiesToDelete.stream()
-            .map(CMMStudyOfLanguage::id)
-            .map(id -> new DeleteOperation.Builder().index(indexName).id(id).build())
+        var deleteRequests = operations.stream()
+            .map(operation -> new DeleteOperation.Builder()
+                .index(operation.indexName())
+                .id(operation.study().id())
+                .routing(getRouting(operation.study()))
+                .build()
+            )
             .map(BulkOperation::new)
             .toList();
 
         // Perform the deletion
         if (!deleteRequests.isEmpty()) {
             var deleteBulkRequest = new BulkRequest.Builder().operations(deleteRequests).build();
-            indexBulkRequest(indexName, deleteBulkRequest);
+            indexBulkRequest(logName, deleteBulkRequest);
         }
     }
 
@@ -238,16 +676,39 @@ public class ESIngestService implements IngestService {
         var repositorySearchRequest = getSearchRequest(language,
             new TermQuery.Builder().field("code").value(repository).build()._toQuery()
         );
+        if (esConfigProps.isRouting()) {
+            // Only search the shard holding the studies of the repository
+            repositorySearchRequest.routing(repository);
+        }
         return new ElasticsearchSet<>(repositorySearchRequest, esClient(), CMMStudyOfLanguage.class);
     }
 
     @Override
     public Optional<CMMStudyOfLanguage> getStudy(String id, String language) {
+        return getStudy(id, null, language);
+    }
+
+    @Override
+    public Optional<CMMStudyOfLanguage> getStudy(String id, String repository, String language) {
         log.trace("Retrieving study [{}], language [{}]", id, language);
 
         try {
+            if (esConfigProps.isRouting() && repository == null) {
+                // The repository of the study is not known, so the study must be searched for on all shards
+                var request = new SearchRequest.Builder()
+                    .index(String.format(INDEX_NAME_TEMPLATE, language))
+                    .query(new IdsQuery.Builder().values(id).build()._toQuery())
+                    .build();
+                var hits = esClient().search(request, CMMStudyOfLanguage.class).hits().hits();
+                return hits.stream().findFirst().map(Hit::source);
+            }
+
+            // Gets are real-time, so studies indexed since the last refresh are found
             var request = new co.elastic.clients.elasticsearch.core.GetRequest.Builder()
-                .index(String.format(INDEX_NAME_TEMPLATE, language)).id(id).build();
+                .index(String.format(INDEX_NAME_TEMPLATE, language))
+                .id(id)
+                .routing(esConfigProps.isRouting() ? repository : null)
+                .build();
             var response = esClient().get(request, CMMStudyOfLanguage.class);
 
             var source = response.source();
@@ -318,6 +779,10 @@ public class ESIngestService implements IngestService {
 
     /**
      * Creates an index with the given name. If the index already exists, then no operation is performed.
+     * <p>
+     * If repository routing is enabled, the index is created as an alias of an index with the
+     * {@value #ROUTED_INDEX_SUFFIX} suffix, which is sorted by repository. Existing indices that aren't
+     * aliases are migrated to this layout.
      *
      * @param indexName the name of the index to create.
      * @param langCode the language code to use for the index.
@@ -327,6 +792,13 @@ public class ESIngestService implements IngestService {
 
         try {
             if (esClient().indices().exists(ExistsRequest.of(r -> r.index(indexName))).value()) {
+                if (esConfigProps.isRouting() && !routedIndices.contains(indexName)) {
+                    if (esClient().indices().existsAlias(r -> r.name(indexName)).value()) {
+                        routedIndices.add(indexName);
+                    } else {
+                        migrateToRoutedLayout(indexName, langCode);
+                    }
+                }
                 log.debug("[{}] index name already exists, Skipping creation.", indexName);
                 return;
             }
@@ -336,14 +808,168 @@ public class ESIngestService implements IngestService {
 
         log.debug("[{}] index name does not exist and will be created", indexName);
 
+        if (esConfigProps.isRouting()) {
+            createIndex(indexName + ROUTED_INDEX_SUFFIX, langCode, indexName);
+            routedIndices.add(indexName);
+        } else {
+            createIndex(indexName, langCode, null);
+        }
+    }
+
+    /**
+     * Copies the studies of an index into a new index that is routed and sorted by repository, then replaces the
+     * index with an alias of the new index. The replacement is atomic, so the studies can be searched throughout.
+     * <p>
+     * The studies are copied by Elasticsearch using the reindex API, one repository at a time so that each
+     * repository's studies can be routed by its code. The index is only replaced if every study was copied,
+     * otherwise the new index is deleted and the migration is retried when the index is next used.
+     * <p>
+     * If another instance migrates the index concurrently, the first to replace the index wins and the other
+     * uses the alias it created.
+     *
+     * @param indexName the index to migrate.
+     * @param langCode  the language code of the index.
+     * @throws IndexingException if an error occurred during the migration.
+     */
+    private void migrateToRoutedLayout(String indexName, String langCode) throws IndexingException {
+        var routedIndexName = indexName + ROUTED_INDEX_SUFFIX;
+        log.info("[{}] Migrating index to repository routing, copying studies to [{}]", indexName, routedIndexName);
+
+        try {
+            // Studies without a repository code, or in repositories that weren't aggregated, wouldn't be copied
+            var sourceStudies = esClient().count(r -> r.index(indexName)).count();
+            var repositories = getRepositories(indexName);
+            var repositoryStudies = repositories.values().stream().mapToLong(Long::longValue).sum();
+            if (repositoryStudies != sourceStudies) {
+                throw new IndexingException("Can't migrate " + indexName + ", only " + repositoryStudies + " of "
+                    + sourceStudies + " studies belong to one of " + repositories.size() + " repositories");
+            }
+
+            createIndex(routedIndexName, langCode, null);
+
+            for (var repository : repositories.keySet()) {
+                // Run the copy as a task, so that it isn't bound by the client's socket timeout
+                var response = esClient().reindex(r -> r
+                    .source(source -> source
+                        .index(indexName)
+                        .query(query -> query.term(term -> term.field("code").value(repository)))
+                    )
+                    .dest(dest -> dest.index(routedIndexName).routing("=" + repository))
+                    .waitForCompletion(false)
+                );
+                awaitTask(response.task(), routedIndexName);
+            }
+
+            esClient().indices().refresh(r -> r.index(routedIndexName));
+            var migratedStudies = esClient().count(r -> r.index(routedIndexName)).count();
+            if (migratedStudies != sourceStudies) {
+                if (isMigrated(indexName)) {
+                    return;
+                }
+                esClient().indices().delete(r -> r.index(routedIndexName));
+                throw new IndexingException("Copied " + migratedStudies + " of " + sourceStudies + " studies from "
+                    + indexName + " to " + routedIndexName + ", the index will be migrated again");
+            }
+
+            try {
+                esClient().indices().updateAliases(r -> r
+                    .actions(action -> action.removeIndex(remove -> remove.index(indexName)))
+                    .actions(action -> action.add(add -> add.index(routedIndexName).alias(indexName)))
+                );
+            } catch (ElasticsearchException e) {
+                // The index is not found if another instance replaced it first
+                if (!e.getMessage().contains("index_not_found_exception") || !isMigrated(indexName)) {
+                    throw e;
+                }
+                return;
+            }
+
+            routedIndices.add(indexName);
+            log.info("[{}] Migrated {} studies to [{}]", indexName, migratedStudies, routedIndexName);
+        } catch (ElasticsearchException | IOException e) {
+            throw new IndexingException(e);
+        }
+    }
+
+    /**
+     * Checks whether another instance has replaced an index with an alias of its routed index.
+     */
+    private boolean isMigrated(String indexName) throws IOException {
+        if (esClient().indices().existsAlias(r -> r.name(indexName)).value()) {
+            log.info("[{}] Index was migrated to repository routing by another instance", indexName);
+            routedIndices.add(indexName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Polls a task until it completes.
+     *
+     * @param taskId    the task to wait for.
+     * @param indexName the index the task writes to, used in error messages.
+     * @throws IndexingException if the task failed, or if interrupted whilst waiting.
+     */
+    private void awaitTask(String taskId, String indexName) throws IOException, IndexingException {
+        try {
+            while (true) {
+                var response = esClient().tasks().get(r -> r.taskId(taskId));
+                if (response.completed()) {
+                    if (response.error() != null) {
+                        throw new IndexingException("Task " + taskId + " writing to " + indexName + " failed: " + response.error().reason());
+                    }
+                    return;
+                }
+                Thread.sleep(TASK_POLL_INTERVAL.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException("Interrupted whilst waiting for task " + taskId + " writing to " + indexName, e);
+        }
+    }
+
+    /**
+     * Gets the codes of the repositories that have studies in an index, with the number of studies in each.
+     */
+    private Map<String, Long> getRepositories(String indexName) throws IOException {
+        var response = esClient().search(r -> r
+                .index(indexName)
+                .size(0)
+                .aggregations("repositories", aggregation -> aggregation.terms(terms -> terms.field("code").size(10_000))),
+            Void.class
+        );
+        var repositories = new HashMap<String, Long>();
+        for (var bucket : response.aggregations().get("repositories").sterms().buckets().array()) {
+            repositories.put(bucket.key().stringValue(), bucket.docCount());
+        }
+        return repositories;
+    }
+
+    /**
+     * Creates an index using the settings and mappings for the given language.
+     *
+     * @param indexName the name of the index to create.
+     * @param langCode  the language code to use for the index.
+     * @param alias     an alias to add to the index, or {@code null} to not add an alias.
+     * @throws IndexingException if an error occurred during index creation.
+     */
+    private void createIndex(String indexName, String langCode, String alias) throws IndexingException {
         final IndexSettings settings;
         final TypeMapping mappings;
 
         try {
             // Load language specific settings
             var settingsTemplate = ResourceHandler.getResourceAsString("elasticsearch/settings/settings_" + INDEX_TYPE + "_" + langCode + ".json");
-            var settingsString = String.format(settingsTemplate, esConfigProps.getNumberOfShards(), esConfigProps.getNumberOfReplicas());
-            settings = new IndexSettings.Builder().withJson(new StringReader(settingsString)).build();
+            var settingsString = String.format(settingsTemplate, getNumberOfShards(indexName), esConfigProps.getNumberOfReplicas());
+            var settingsBuilder = new IndexSettings.Builder().withJson(new StringReader(settingsString));
+            if (bulkLoading && esConfigProps.getBulkRefreshInterval() != null) {
+                settingsBuilder.refreshInterval(Time.of(time -> time.time(esConfigProps.getBulkRefreshInterval())));
+            }
+            if (esConfigProps.isRouting()) {
+                // Sort by repository, so that the studies of a repository are stored together in each segment
+                settingsBuilder.sort(sort -> sort.field("code").order(SegmentSortOrder.Asc));
+            }
+            settings = settingsBuilder.build();
 
             // Load mappings
             try (var mappingsStream = ResourceHandler.getResourceAsStream(MAPPINGS_JSON)) {
@@ -361,11 +987,13 @@ public class ESIngestService implements IngestService {
         var indexCreationRequest = new CreateIndexRequest.Builder()
             .index(indexName)
             .settings(settings)
-            .mappings(mappings)
-            .build();
+            .mappings(mappings);
+        if (alias != null) {
+            indexCreationRequest.aliases(alias, a -> a);
+        }
 
         try {
-            var response = esClient().indices().create(indexCreationRequest);
+            var response = esClient().indices().create(indexCreationRequest.build());
             if (response.acknowledged()) {
                 log.info("[{}] Index created.", indexName);
 
@@ -384,6 +1012,151 @@ public class ESIngestService implements IngestService {
         }
     }
 
+    /**
+     * Gets the number of primary shards to create an index with. If shards are sized automatically and the index
+     * held studies when the bulk load began, enough shards are used to hold that many studies, otherwise the
+     * configured number is used.
+     */
+    private int getNumberOfShards(String indexName) {
+        var expectedStudies = previousStudyCounts.getOrDefault(getStudyCountKey(indexName), 0L);
+        if (esConfigProps.getStudiesPerShard() <= 0 || expectedStudies <= 0) {
+            return esConfigProps.getNumberOfShards();
+        }
+
+        var shards = Math.clamp(Math.ceilDiv(expectedStudies, esConfigProps.getStudiesPerShard()), 1, esConfigProps.getMaxNumberOfShards());
+        log.info("[{}] Sizing index for {} studies with {} primary shards", indexName, expectedStudies, shards);
+        return shards;
+    }
+
+    /**
+     * Gets the number of studies in each study index. Routed indices are counted under the name of their alias,
+     * so that an index and the routed index replacing it share a count.
+     */
+    private Map<String, Long> getStudyCounts() {
+        try {
+            var stats = esClient().indices().stats(r -> r.index(String.format(INDEX_NAME_TEMPLATE, "*")).metric("docs"));
+            var studyCounts = new HashMap<String, Long>();
+            for (var entry : stats.indices().entrySet()) {
+                studyCounts.merge(getStudyCountKey(entry.getKey()), entry.getValue().primaries().docs().count(), Long::sum);
+            }
+            return studyCounts;
+        } catch (ElasticsearchException | IOException e) {
+            log.warn("Couldn't count the studies of the indices, new indices will have {} primary shards: {}", esConfigProps.getNumberOfShards(), e.toString());
+            return Map.of();
+        }
+    }
+
+    private static String getStudyCountKey(String indexName) {
+        return indexName.endsWith(ROUTED_INDEX_SUFFIX)
+            ? indexName.substring(0, indexName.length() - ROUTED_INDEX_SUFFIX.length())
+            : indexName;
+    }
+
+    @Override
+    public void beginBulkLoad() {
+        this.bulkLoading = true;
+
+        // The studies are only counted if they are used to size indices
+        if (esConfigProps.getStudiesPerShard() > 0) {
+            this.previousStudyCounts = getStudyCounts();
+        }
+
+        if (esConfigProps.getBulkRefreshInterval() != null) {
+            log.debug("Setting the refresh interval to [{}] for the bulk load", esConfigProps.getBulkRefreshInterval());
+            putRefreshInterval(esConfigProps.getBulkRefreshInterval());
+        }
+    }
+
+    @Override
+    public void endBulkLoad() {
+        // Indices created after the bulk load, such as theme indices, use the configured number of shards
+        previousStudyCounts = Map.of();
+
+        if (!bulkLoading) {
+            return;
+        }
+        bulkLoading = false;
+
+        if (esConfigProps.getBulkRefreshInterval() != null) {
+            // Reset the refresh interval to the default, and make the loaded studies searchable
+            putRefreshInterval(null);
+            try {
+                esClient().indices().refresh(r -> r.index(String.format(INDEX_NAME_TEMPLATE, "*")));
+            } catch (ElasticsearchException | IOException e) {
+                log.warn("Couldn't refresh indices: {}", e.toString());
+            }
+        }
+
+        if (esConfigProps.isForceMerge()) {
+            forceMergeIndices();
+        }
+    }
+
+    /**
+     * Resets the refresh interval of all study indices, even if a bulk load wasn't started by this instance, as the
+     * interval set by an interrupted run would otherwise remain until the next full run completes.
+     */
+    @Override
+    public void abortBulkLoad() {
+        previousStudyCounts = Map.of();
+        bulkLoading = false;
+
+        if (esConfigProps.getBulkRefreshInterval() != null) {
+            log.info("Resetting the refresh interval of the indices after an incomplete bulk load");
+            putRefreshInterval(null);
+        }
+    }
+
+    /**
+     * Sets the refresh interval of all study indices. The low-level client is used, as a {@code null} refresh
+     * interval must be sent explicitly to reset the interval to the default.
+     *
+     * @param refreshInterval the refresh interval, or {@code null} to reset it to the default.
+     */
+    private void putRefreshInterval(String refreshInterval) {
+        try {
+            var request = new Request("PUT", "/" + String.format(INDEX_NAME_TEMPLATE, "*") + "/_settings");
+            request.setJsonEntity(objectMapper.writeValueAsString(
+                Map.of("index", Collections.singletonMap("refresh_interval", refreshInterval))
+            ));
+            ((Rest5ClientTransport) esClient()._transport()).restClient().performRequest(request);
+        } catch (IOException e) {
+            log.warn("Couldn't set the refresh interval to [{}]: {}", refreshInterval, e.toString());
+        }
+    }
+
+    /**
+     * Force-merges the study indices whose proportion of deleted documents exceeds the configured threshold,
+     * then reports the number of segments and the size of each merged index.
+     */
+    private void forceMergeIndices() {
+        try {
+            var stats = esClient().indices().stats(r -> r.index(String.format(INDEX_NAME_TEMPLATE, "*")).metric("docs"));
+            for (var entry : stats.indices().entrySet()) {
+                var docs = entry.getValue().primaries().docs();
+                var deleted = Objects.requireNonNullElse(docs.deleted(), 0L);
+                var total = docs.count() + deleted;
+                if (total == 0 || (double) deleted / total < esConfigProps.getForceMergeThreshold()) {
+                    continue;
+                }
+
+                var indexName = entry.getKey();
+                log.info("[{}] Force-merging index with {} deleted documents", indexName, deleted);
+                esClient().indices().forcemerge(r -> r.index(indexName).maxNumSegments((long) esConfigProps.getForceMergeSegments()));
+
+                var mergedStats = esClient().indices().stats(r -> r.index(indexName).metric("segments", "store"))
+                    .indices().get(indexName).primaries();
+                log.info("[{}] Force-merge completed: {} segments, {} KiB",
+                    indexName,
+                    value("segment_count", mergedStats.segments().count()),
+                    value("index_size_kib", mergedStats.store().sizeInBytes() / 1024)
+                );
+            }
+        } catch (ElasticsearchException | IOException e) {
+            log.warn("Couldn't force-merge indices: {}", e.toString());
+        }
+    }
+
     /**
      * Performs reindexing for all themes. Searches for theme directories in
      * the resources folder and calls processing for each theme directory found.
@@ -535,7 +1308,8 @@ public class ESIngestService implements IngestService {
                         try {
                             localizedResponse = esClient().get(r -> r
                                     .index(localizedSourceIndex)
-                                    .id(source.id()), // Fetch by document ID
+                                    .id(source.id()) // Fetch by document ID
+                                    .routing(getRouting(source)),
                                 CMMStudyOfLanguage.class
                             );
                         } catch (ElasticsearchException e) {
@@ -579,6 +1353,7 @@ public class ESIngestService implements IngestService {
         IndexRequest<CMMStudyOfLanguage> indexRequest = new IndexRequest.Builder<CMMStudyOfLanguage>()
             .index(index)
             .id(source.id())
+            .routing(getRouting(source))
             .document(source)
             .build();
         esClient().index(indexRequest);
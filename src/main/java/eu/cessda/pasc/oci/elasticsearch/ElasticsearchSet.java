@@ -81,7 +81,7 @@ public class ElasticsearchSet<T> extends AbstractSet<T> {
     @Override
     public int size() {
         try {
-            var countRequest = new CountRequest.Builder().index(searchRequest.index()).query(searchRequest.query()).build();
+            var countRequest = new CountRequest.Builder().index(searchRequest.index()).query(searchRequest.query()).routing(searchRequest.routing()).build();
             long totalHits = client.count(countRequest).count();
             return totalHits < Integer.MAX_VALUE ? (int) totalHits : Integer.MAX_VALUE;
         } catch (IOException e) {
@@ -21,6 +21,7 @@ import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -40,6 +41,34 @@ public interface IngestService {
      */
     void bulkIndex(Collection<CMMStudyOfLanguage> languageCMMStudiesMap, String languageIsoCode) throws IndexingException;
 
+    /**
+     * Bulk indexes studies, given the versions of the studies that are already stored. Implementations may use the
+     * stored versions rather than retrieving them again, for instance to only send the fields that have changed.
+     * <p>
+     * The default implementation calls {@link #bulkIndex(Collection, String)}.
+     *
+     * @param studies         the studies to index.
+     * @param storedStudies   the stored versions of the studies keyed by study ID, studies without a stored version are new.
+     *                        If {@code null}, the stored versions are not known.
+     * @param languageIsoCode the language of the index.
+     * @throws IndexingException if an error occurs when indexing the studies to Elasticsearch.
+     */
+    default void bulkIndex(
+        Collection<CMMStudyOfLanguage> studies,
+        Map<String, CMMStudyOfLanguage> storedStudies,
+        String languageIsoCode
+    ) throws IndexingException {
+        bulkIndex(studies, languageIsoCode);
+    }
+
+    /**
+     * Whether the stored versions of studies passed to {@link #bulkIndex(Collection, Map, String)} are used. If not,
+     * callers don't need to keep the stored versions. The default implementation returns {@code false}.
+     */
+    default boolean usesStoredStudies() {
+        return false;
+    }
+
     /**
      * Delete the specified studies from all indices.
      * <p>
@@ -51,6 +80,55 @@ public interface IngestService {
      */
     void bulkDelete(Collection<CMMStudyOfLanguage> cmmStudiesToDelete, String languageIsoCode) throws IndexingException;
 
+    /**
+     * Prepares the indices for a full indexing run. This should be followed by a call to {@link #endBulkLoad()}.
+     * Implementations may size indices created during the run by the number of studies the index held beforehand.
+     * The default implementation does nothing.
+     */
+    default void beginBulkLoad() {
+    }
+
+    /**
+     * Optimises the indices after a full indexing run. The default implementation does nothing.
+     */
+    default void endBulkLoad() {
+    }
+
+    /**
+     * Restores the indices after a full indexing run that didn't complete, for instance because it failed or the
+     * indexer was stopped. Unlike {@link #endBulkLoad()}, the indices are not optimised. The default implementation
+     * does nothing.
+     */
+    default void abortBulkLoad() {
+    }
+
+    /**
+     * Indexes and deletes the studies of several languages. Implementations may combine the operations for all
+     * languages into shared bulk requests, rather than sending separate requests for each language.
+     * <p>
+     * The default implementation calls {@link #bulkIndex(Collection, Map, String)} and {@link #bulkDelete(Collection, String)}
+     * for each language in turn.
+     *
+     * @param studiesToIndex  the studies to index, keyed by language.
+     * @param studiesToDelete the studies to delete, keyed by language.
+     * @param storedStudies   the stored versions of the studies to index keyed by language, see {@link #bulkIndex(Collection, Map, String)}.
+     * @throws IndexingException if an error occurs when indexing the studies to Elasticsearch.
+     */
+    default void bulkIndex(
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToIndex,
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToDelete,
+        Map<String, ? extends Map<String, CMMStudyOfLanguage>> storedStudies
+    ) throws IndexingException {
+        for (var entry : studiesToIndex.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                bulkIndex(entry.getValue(), storedStudies.get(entry.getKey()), entry.getKey());
+            }
+        }
+        for (var entry : studiesToDelete.entrySet()) {
+            bulkDelete(entry.getValue(), entry.getKey());
+        }
+    }
+
     /**
      * Gets the total number of hits for the specified language. The language is in the same form as languages configured
      * in application.yml.
@@ -87,6 +165,20 @@ public interface IngestService {
      */
     Optional<CMMStudyOfLanguage> getStudy(String id, String language);
 
+    /**
+     * Gets a study with a specific ID from a repository. When studies are routed by repository, this only reads
+     * the shard holding the study, so this should be preferred when the repository is known.
+     *
+     * @param id         the id of the study to get.
+     * @param repository the code of the repository of the study.
+     * @param language   the language of the index to search in.
+     * @return an optional containing the study, or an empty optional if the study can't be found
+     * or if an error occurs retrieving the study.
+     */
+    default Optional<CMMStudyOfLanguage> getStudy(String id, String repository, String language) {
+        return getStudy(id, language);
+    }
+
     /**
      * Gets the most recent lastModified date from the cluster across all {@code cmmstudy} indices.
      *
@@ -99,4 +191,13 @@ public interface IngestService {
      * Loops through all theme directories and runs reindex queries for each one.
      */
     void reindexAllThemes() throws IndexingException;
+
+    /**
+     * Gets the statistics of the bulk requests sent since this service was constructed.
+     *
+     * @return an optional containing the statistics, or an empty optional if the size of bulk requests is not measured.
+     */
+    default Optional<BulkStatistics> getBulkStatistics() {
+        return Optional.empty();
+    }
 }
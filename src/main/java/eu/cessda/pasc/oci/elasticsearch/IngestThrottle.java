@@ -0,0 +1,258 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import eu.cessda.pasc.oci.configurations.ThrottleProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+
+/**
+ * Adapts the rate of bulk requests to the load of the cluster, so that indexing doesn't degrade search latency.
+ * <p>
+ * The controller uses additive increase, multiplicative decrease. When a bulk request has items rejected with
+ * {@code 429 Too Many Requests}, when the 95th percentile latency of recent bulk requests exceeds the latency target,
+ * or when the write thread pool queue of a node exceeds the threshold, the batch size is halved and the pause between
+ * requests is doubled. Otherwise, the pause is shortened and the batch size grows by a fixed step after each request.
+ * <p>
+ * Latency only causes one decrease per window of recent requests. Until the requests that caused a decrease have left
+ * the window, the rate is held rather than decreased again, so that a short slowdown doesn't repeatedly halve the batch size.
+ * <p>
+ * Bulk requests are sent one at a time, so the pause between requests takes the place of a limit on requests in flight.
+ * The state of the controller is exposed over JMX.
+ */
+@Component
+@ManagedResource
+@Slf4j
+public class IngestThrottle {
+
+    /**
+     * The number of recent bulk requests used to calculate latency percentiles.
+     */
+    private static final int LATENCY_WINDOW = 50;
+    /**
+     * The number of bulk requests needed before latency percentiles are acted on.
+     */
+    private static final int MIN_LATENCY_SAMPLES = 10;
+    private static final long MIN_PAUSE_MILLIS = 50;
+
+    private final ThrottleProperties properties;
+    private final int batchSizeStep;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private int latencyIndex = 0;
+    private int responsesSinceLatencyDecrease = LATENCY_WINDOW;
+
+    private int batchSize;
+    private long pauseMillis = 0;
+    private long lastStatsCheck = 0;
+    private long writeQueueDepth = 0;
+    private long rejections = 0;
+    private long decreases = 0;
+
+    @Autowired
+    public IngestThrottle(ThrottleProperties properties) {
+        this.properties = properties;
+        this.batchSize = properties.maxBatchSize();
+        this.batchSizeStep = Math.max(1, (properties.maxBatchSize() - properties.minBatchSize()) / 20);
+    }
+
+    /**
+     * Constructs a disabled throttle. Bulk requests are sent as fast as possible using the default batch size.
+     */
+    static IngestThrottle disabled() {
+        return new IngestThrottle(new ThrottleProperties(false, null, null, null, null, null, null));
+    }
+
+    /**
+     * Gets the number of studies to send in the next bulk request.
+     */
+    @ManagedAttribute(description = "The number of studies sent in each bulk request")
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Waits until the next bulk request can be sent. If the write thread pool queues haven't been checked recently,
+     * they are checked first.
+     *
+     * @param probe gets the deepest write thread pool queue in the cluster.
+     * @throws InterruptedIOException if interrupted whilst waiting.
+     */
+    void awaitPermit(WriteQueueProbe probe) throws InterruptedIOException {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        if (shouldCheckStats()) {
+            try {
+                onWriteQueueDepth(probe.getWriteQueueDepth());
+            } catch (IOException | RuntimeException e) {
+                log.debug("Couldn't get the write thread pool queue depth: {}", e.toString());
+            }
+        }
+
+        long pause;
+        synchronized (this) {
+            pause = pauseMillis;
+        }
+        if (pause > 0) {
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted whilst waiting to send a bulk request");
+            }
+        }
+    }
+
+    private synchronized boolean shouldCheckStats() {
+        var now = System.nanoTime();
+        if (lastStatsCheck == 0 || now - lastStatsCheck >= properties.statsInterval().toNanos()) {
+            lastStatsCheck = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the outcome of a bulk request.
+     *
+     * @param latency       how long the request took.
+     * @param rejectedItems the number of items rejected with {@code 429 Too Many Requests}.
+     */
+    synchronized void onResponse(Duration latency, int rejectedItems) {
+        latencies[latencyIndex] = latency.toMillis();
+        latencyIndex = (latencyIndex + 1) % LATENCY_WINDOW;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        responsesSinceLatencyDecrease = Math.min(responsesSinceLatencyDecrease + 1, LATENCY_WINDOW);
+
+        if (rejectedItems > 0) {
+            rejections += rejectedItems;
+            decrease(rejectedItems + " items were rejected");
+        } else if (latencyCount >= MIN_LATENCY_SAMPLES && getLatencyP95Millis() > properties.latencyTarget().toMillis()) {
+            // Until the requests that caused the last decrease have left the window, the current rate is held
+            if (responsesSinceLatencyDecrease >= LATENCY_WINDOW) {
+                responsesSinceLatencyDecrease = 0;
+                decrease("bulk latency is above the target of " + properties.latencyTarget().toMillis() + " ms");
+            }
+        } else {
+            increase();
+        }
+    }
+
+    /**
+     * Records that a whole bulk request was rejected with {@code 429 Too Many Requests}.
+     */
+    synchronized void onRejected() {
+        rejections++;
+        decrease("the bulk request was rejected");
+    }
+
+    /**
+     * Records the depth of the deepest write thread pool queue in the cluster.
+     */
+    synchronized void onWriteQueueDepth(long depth) {
+        writeQueueDepth = depth;
+        if (depth > properties.queueThreshold()) {
+            decrease("a write thread pool queue has " + depth + " tasks");
+        }
+    }
+
+    private void decrease(String reason) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        decreases++;
+        batchSize = Math.max(properties.minBatchSize(), batchSize / 2);
+        pauseMillis = Math.min(properties.maxPause().toMillis(), Math.max(MIN_PAUSE_MILLIS, pauseMillis * 2));
+        log.debug("Slowing down indexing to {} studies per request with a {} ms pause, as {}",
+            value("bulk_batch_size", batchSize), value("bulk_pause_ms", pauseMillis), reason
+        );
+    }
+
+    private void increase() {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        batchSize = Math.min(properties.maxBatchSize(), batchSize + batchSizeStep);
+        pauseMillis = Math.max(0, pauseMillis - MIN_PAUSE_MILLIS);
+    }
+
+    @ManagedAttribute(description = "The pause between bulk requests, in milliseconds")
+    public synchronized long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    @ManagedAttribute(description = "The median latency of recent bulk requests, in milliseconds")
+    public synchronized long getLatencyP50Millis() {
+        return latencyPercentile(0.5);
+    }
+
+    @ManagedAttribute(description = "The 95th percentile latency of recent bulk requests, in milliseconds")
+    public synchronized long getLatencyP95Millis() {
+        return latencyPercentile(0.95);
+    }
+
+    @ManagedAttribute(description = "The target 95th percentile latency of bulk requests, in milliseconds")
+    public long getLatencyTargetMillis() {
+        return properties.latencyTarget().toMillis();
+    }
+
+    @ManagedAttribute(description = "The deepest write thread pool queue when the cluster was last checked")
+    public synchronized long getWriteQueueDepth() {
+        return writeQueueDepth;
+    }
+
+    @ManagedAttribute(description = "The number of bulk requests and items rejected by the cluster")
+    public synchronized long getRejections() {
+        return rejections;
+    }
+
+    @ManagedAttribute(description = "The number of times indexing has been slowed down")
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    private long latencyPercentile(double percentile) {
+        if (latencyCount == 0) {
+            return 0;
+        }
+        var sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * latencyCount) - 1];
+    }
+
+    /**
+     * Gets the depth of the deepest write thread pool queue in the cluster.
+     */
+    @FunctionalInterface
+    interface WriteQueueProbe {
+        long getWriteQueueDepth() throws IOException;
+    }
+}
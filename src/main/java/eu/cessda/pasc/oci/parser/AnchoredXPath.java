@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.xpath.XPathFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An XPath to elements, which is evaluated relative to an anchor element if it starts with one.
+ * <p>
+ * Most XPaths in {@link XPaths} start with a descendant step to the same element, such as the first
+ * {@code StudyUnit} of a DDI Lifecycle document, which requires the whole document to be scanned for every
+ * field. The elements matched by an anchor are found once per document and stored as a property of the document.
+ * If exactly one element matches, the rest of the XPath is evaluated relative to it. Otherwise, the XPath is
+ * evaluated against the document as a whole, so that the results are always the same as the unanchored XPath.
+ */
+final class AnchoredXPath {
+
+    /**
+     * The anchors used by {@link XPaths}.
+     */
+    private static final List<String> ANCHORS = List.of(
+        "//s:StudyUnit[1]", // DDI 3.2 and 3.3
+        "//ddi:codeBook" // DDI 2.5 and NESSTAR
+    );
+
+    private static final String PROPERTY_PREFIX = AnchoredXPath.class.getName() + ":";
+
+    private final String xPath;
+    @Nullable
+    private final String anchor;
+    @Nullable
+    private final String anchorPrefix;
+    @Nullable
+    private final String relativeXPath;
+
+    /**
+     * Constructs an XPath, which is anchored if it starts with a known anchor.
+     *
+     * @param xPath the XPath.
+     */
+    AnchoredXPath(String xPath) {
+        this.xPath = xPath;
+
+        for (var knownAnchor : ANCHORS) {
+            if (xPath.startsWith(knownAnchor) && xPath.startsWith("/", knownAnchor.length())) {
+                this.anchor = knownAnchor;
+                this.anchorPrefix = knownAnchor.substring(2, knownAnchor.indexOf(':'));
+                this.relativeXPath = "." + xPath.substring(knownAnchor.length());
+                return;
+            }
+        }
+
+        this.anchor = null;
+        this.anchorPrefix = null;
+        this.relativeXPath = null;
+    }
+
+    /**
+     * Returns {@code true} if this XPath starts with an anchor.
+     */
+    boolean isAnchored() {
+        return anchor != null;
+    }
+
+    /**
+     * Evaluates the XPath.
+     *
+     * @param context   the XPath context, anchors are only used if this is a {@link Document}.
+     * @param namespace the XML namespaces to allow resolution of prefixes.
+     * @return a mutable list of the elements found.
+     */
+    List<Element> evaluate(Object context, Namespace... namespace) {
+        if (anchor != null && context instanceof Document document) {
+            var anchors = getAnchors(document, namespace);
+            if (anchors.isEmpty()) {
+                return new ArrayList<>();
+            } else if (anchors.size() == 1) {
+                return XPathFactory.instance().compile(relativeXPath, Filters.element(), null, namespace).evaluate(anchors.getFirst());
+            }
+        }
+        return XPathFactory.instance().compile(xPath, Filters.element(), null, namespace).evaluate(context);
+    }
+
+    /**
+     * Gets the elements matched by the anchor, evaluating it if it hasn't been evaluated for the document.
+     * The namespace URI of the anchor is part of the property name, as the prefix can be bound to other namespaces.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Element> getAnchors(Document document, Namespace[] namespace) {
+        String namespaceURI = null;
+        for (var ns : namespace) {
+            if (ns.getPrefix().equals(anchorPrefix)) {
+                namespaceURI = ns.getURI();
+                break;
+            }
+        }
+
+        var property = PROPERTY_PREFIX + anchor + ":" + namespaceURI;
+        var anchors = (List<Element>) document.getProperty(property);
+        if (anchors == null) {
+            anchors = List.copyOf(XPathFactory.instance().compile(anchor, Filters.element(), null, namespace).evaluate(document));
+            document.setProperty(property, anchors);
+        }
+        return anchors;
+    }
+
+    @Override
+    public String toString() {
+        return xPath;
+    }
+}
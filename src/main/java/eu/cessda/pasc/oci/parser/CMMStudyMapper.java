@@ -15,10 +15,9 @@
  */
 package eu.cessda.pasc.oci.parser;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import eu.cessda.pasc.oci.ResourceHandler;
 import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
 import eu.cessda.pasc.oci.configurations.Repo;
 import eu.cessda.pasc.oci.models.Affiliation;
 import eu.cessda.pasc.oci.models.DataAccessMapping;
@@ -27,6 +26,7 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.jdom2.Attribute;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -37,17 +37,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static eu.cessda.pasc.oci.parser.XMLMapper.extractMetadataObjectListForEachLang;
-
 /**
  * Responsible for Mapping oai-pmh fields to a CMMStudy
  *
@@ -58,7 +56,14 @@ import static eu.cessda.pasc.oci.parser.XMLMapper.extractMetadataObjectListForEa
 public class CMMStudyMapper {
 
     private final AppConfigurationProperties.OaiPmh oaiPmh;
-    private final Map<String, Map<String, List<DataAccessMapping>>> dataAccessMappings;
+    private final ObjectMapper objectMapper;
+    private final Path dataAccessMappingsFile;
+
+    /**
+     * The compiled data access mappings. This is replaced when the mappings are reloaded.
+     */
+    private volatile DataAccessMappingEngine dataAccessMappingEngine;
+    private volatile String configurationHash;
 
     public CMMStudyMapper() throws IOException {
         this.oaiPmh = new AppConfigurationProperties.OaiPmh(
@@ -68,22 +73,46 @@ public class CMMStudyMapper {
             ),
             "<br>"
         );
-        this.dataAccessMappings = loadDataMappings(new ObjectMapper());
+        this.objectMapper = new ObjectMapper();
+        this.dataAccessMappingsFile = null;
+        reloadDataAccessMappings();
     }
 
     @Autowired
-    CMMStudyMapper(AppConfigurationProperties appConfigurationProperties, ObjectMapper objectMapper) throws IOException {
+    CMMStudyMapper(AppConfigurationProperties appConfigurationProperties, ParserProperties parserProperties, ObjectMapper objectMapper) throws IOException {
         this.oaiPmh = appConfigurationProperties.oaiPmh();
+        this.objectMapper = objectMapper;
+        this.dataAccessMappingsFile = parserProperties.dataAccessMappings();
 
         // Load the Data Access mapping JSON file
-        this.dataAccessMappings = loadDataMappings(objectMapper);
+        reloadDataAccessMappings();
     }
 
-    private static Map<String, Map<String, List<DataAccessMapping>>> loadDataMappings(ObjectMapper objectMapper) throws IOException {
-        try (InputStream inputStream = ResourceHandler.getResourceAsStream("data_access_mappings.json")) {
-            return objectMapper.readValue(inputStream, new TypeReference<>() {
-            });
-        }
+    /**
+     * Reloads the data access mappings, either from {@code parser.dataAccessMappings} if set or from the bundled mappings.
+     * Studies parsed after the reload use the new mappings. If the mappings cannot be loaded, the current mappings are kept.
+     *
+     * @throws IOException if the mappings cannot be read.
+     */
+    public synchronized void reloadDataAccessMappings() throws IOException {
+        var engine = DataAccessMappingEngine.load(objectMapper, dataAccessMappingsFile);
+        this.configurationHash = hashConfiguration(oaiPmh, engine.getMappings());
+        this.dataAccessMappingEngine = engine;
+        log.info("Loaded data access mappings for {} repositories from [{}]",
+            engine.getMappings().size(),
+            Objects.requireNonNullElse(dataAccessMappingsFile, DataAccessMappingEngine.BUNDLED_MAPPINGS)
+        );
+    }
+
+    private static String hashConfiguration(AppConfigurationProperties.OaiPmh oaiPmh, Map<String, Map<String, List<DataAccessMapping>>> dataAccessMappings) {
+        return DigestUtils.sha256Hex(oaiPmh + "\n" + dataAccessMappings);
+    }
+
+    /**
+     * Gets a hash of the configuration that affects the result of mapping, such as the default language and data access mappings.
+     */
+    String getConfigurationHash() {
+        return configurationHash;
     }
 
     /**
@@ -145,7 +174,7 @@ public class CMMStudyMapper {
         var hasEmptyLangContent = langMap.containsKey(XMLMapper.EMPTY_LANGUAGE);
         if (hasEmptyLangContent && oaiPmh.metadataParsingDefaultLang().active()) {
             // Create a new map to store the result in
-            var newMap = new HashMap<>(langMap);
+            var newMap = new LanguageMap<>(langMap);
 
             // Extract the empty value and merge with the default language value
             var emptyLangContentValue = newMap.remove(XMLMapper.EMPTY_LANGUAGE);
@@ -320,7 +349,7 @@ public class CMMStudyMapper {
     @SuppressWarnings("java:S3776") // Extracting parts of the method will increase complexity
     ParseResults<Map<String, URI>, List<URISyntaxException>> parseStudyUrl(Document document, XPaths xPaths) {
 
-        var studyURLs = new HashMap<String, URI>();
+        var studyURLs = new LanguageMap<URI>();
         var parsingExceptions = new ArrayList<URISyntaxException>();
 
         // If studyURLStudyDscrXPath defined, use that XPath as well.
@@ -353,44 +382,14 @@ public class CMMStudyMapper {
         var dataAccess = xPaths.getDataAccessXPath().resolve(doc, xPaths.getNamespace());
 
         if (dataAccess == null) {
-            // Try deriving from free text - check if repository can be found in mappings file
-            var repositoryNode = dataAccessMappings.get(repository);
-            if (repositoryNode != null) {
-                for (var entry : repositoryNode.entrySet()) {
-                    // Get the key (short form of XPath) and value (values to map to Open / Restricted)
-                    String xpathKey = entry.getKey();
-
-                    // Copy data access to a map for more optimised comparisons
-                    var dataAccessMap = new HashMap<String, DataAccessMapping.AccessCategory>();
-                    for (var dataAccessMapping : entry.getValue()) {
-                        dataAccessMap.put(dataAccessMapping.content(), dataAccessMapping.accessCategory());
-                    }
-
-                    // Resolve the corresponding XPath for the repository
-                    Map<String, List<String>> resolvedMap = Collections.emptyMap();
-                    if ("dataRestrctnXPath".equals(xpathKey)) {
-                        resolvedMap = parseDataAccessFreeText(doc, xPaths, defaultLangIsoCode);
-                    } else if ("dataAccessAltXPath".equals(xpathKey)) {
-                        var dataAccessAltXPath = new SimpleXMLMapper<>("//ddi:codeBook//ddi:stdyDscr/ddi:dataAccs/ddi:useStmt/ddi:specPerm", extractMetadataObjectListForEachLang(ParsingStrategies::nullableElementValueStrategy));
-                        resolvedMap = dataAccessAltXPath.resolve(doc, xPaths.getNamespace());
-                    }
-
-                    // Check if the map has entries, and if so, iterate through the list and compare each value separately
-                    for (Map.Entry<String, List<String>> resolvedEntry : resolvedMap.entrySet()) {
-                        for (String resolvedValue : resolvedEntry.getValue()) {
-                            var match = dataAccessMap.get(resolvedValue);
-                            if (match != null) {
-                                return match.name();
-                            }
-                        }
-                    }
-                }
-            }
-            // If data access is null and no mapping is found, return Uncategorized
-            return "Uncategorized";
+            // Try deriving from free text using the mappings for the repository
+            var accessCategory = dataAccessMappingEngine.map(repository, doc, xPaths,
+                () -> parseDataAccessFreeText(doc, xPaths, defaultLangIsoCode)
+            );
+            return accessCategory.name();
         }
 
-        return dataAccess;
+        return ValueInterner.intern(dataAccess);
     }
 
     /**
@@ -447,7 +446,7 @@ public class CMMStudyMapper {
         if (universeXPath.isPresent()) {
             var extractedUniverses = mapNullLanguage(universeXPath.get().resolve(document, xPaths.getNamespace()), defaultLangIsoCode, (a, b) -> { a.addAll(b); return a; });
 
-            var universes = new HashMap<String, Universe>();
+            var universes = new LanguageMap<Universe>();
             for (var entry : extractedUniverses.entrySet()) {
                 universes.compute(entry.getKey(), (k, universe) -> {
                     if (universe == null) {
@@ -487,7 +486,7 @@ public class CMMStudyMapper {
         if (dataAccessUrlXPath.isPresent()) {
             var parsingExceptions = new ArrayList<URISyntaxException>();
             var urlStrings = mapNullLanguage(dataAccessUrlXPath.get().resolve(document, xPaths.getNamespace()), defaultLangIsoCode);
-            var parsingUri = new HashMap<String, URI>(urlStrings.size());
+            var parsingUri = new LanguageMap<URI>();
 
             for (var s : urlStrings.entrySet()) {
                 for (var u : s.getValue()) {
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.ResourceHandler;
+import eu.cessda.pasc.oci.models.DataAccessMapping;
+import eu.cessda.pasc.oci.models.DataAccessMapping.AccessCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.Text;
+import org.jdom2.filter.Filters;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static eu.cessda.pasc.oci.parser.XMLMapper.extractMetadataObjectListForEachLang;
+
+/**
+ * Maps free text data access statements to access categories, using the mappings from {@code data_access_mappings.json}.
+ * <p>
+ * The mappings are compiled once when the engine is constructed. Each repository has an ordered list of matchers,
+ * one for each XPath listed in the mappings file, holding a lookup table of whitespace normalised statements.
+ * The XPath used for {@code dataAccessAltXPath} is compiled once per thread and set of namespaces,
+ * as compiled JDOM XPath expressions are not thread-safe.
+ * <p>
+ * Instances are immutable. To reload the mappings, construct a new engine.
+ */
+@Slf4j
+final class DataAccessMappingEngine {
+
+    static final String BUNDLED_MAPPINGS = "data_access_mappings.json";
+    private static final String DATA_ACCESS_ALT_XPATH = "//ddi:codeBook//ddi:stdyDscr/ddi:dataAccs/ddi:useStmt/ddi:specPerm";
+    private static final Function<List<Element>, Map<String, List<String>>> DATA_ACCESS_ALT_MAPPER =
+        extractMetadataObjectListForEachLang(ParsingStrategies::nullableElementValueStrategy);
+
+    private static final ThreadLocal<Map<List<Namespace>, XPathExpression<Element>>> DATA_ACCESS_ALT_EXPRESSIONS =
+        ThreadLocal.withInitial(HashMap::new);
+
+    private final Map<String, Map<String, List<DataAccessMapping>>> mappings;
+    private final Map<String, List<Matcher>> matchers;
+
+    /**
+     * Compiles the given mappings.
+     *
+     * @param mappings the data access mappings, keyed by repository code and then by XPath name.
+     */
+    DataAccessMappingEngine(Map<String, Map<String, List<DataAccessMapping>>> mappings) {
+        this.mappings = mappings;
+
+        var compiledMatchers = new HashMap<String, List<Matcher>>();
+        for (var repositoryMappings : mappings.entrySet()) {
+            var repositoryMatchers = new ArrayList<Matcher>(repositoryMappings.getValue().size());
+            for (var xPathMappings : repositoryMappings.getValue().entrySet()) {
+                var source = Source.fromKey(xPathMappings.getKey());
+                if (source == null) {
+                    log.warn("[{}] Unknown data access mapping XPath [{}], ignoring", repositoryMappings.getKey(), xPathMappings.getKey());
+                    continue;
+                }
+
+                var lookup = new HashMap<String, AccessCategory>();
+                for (var dataAccessMapping : xPathMappings.getValue()) {
+                    // If a statement is listed more than once, the last mapping takes precedence
+                    lookup.put(normalize(dataAccessMapping.content()), dataAccessMapping.accessCategory());
+                }
+                repositoryMatchers.add(new Matcher(source, Map.copyOf(lookup)));
+            }
+            compiledMatchers.put(repositoryMappings.getKey(), List.copyOf(repositoryMatchers));
+        }
+        this.matchers = Map.copyOf(compiledMatchers);
+    }
+
+    /**
+     * Loads and compiles the data access mappings.
+     *
+     * @param objectMapper the {@link ObjectMapper} used to read the mappings.
+     * @param mappingsFile the file to load the mappings from, or {@code null} to load the bundled mappings.
+     * @throws IOException if the mappings cannot be read.
+     */
+    static DataAccessMappingEngine load(ObjectMapper objectMapper, Path mappingsFile) throws IOException {
+        try (InputStream inputStream = mappingsFile != null
+            ? Files.newInputStream(mappingsFile)
+            : ResourceHandler.getResourceAsStream(BUNDLED_MAPPINGS)
+        ) {
+            Map<String, Map<String, List<DataAccessMapping>>> mappings = objectMapper.readValue(inputStream, new TypeReference<>() {
+            });
+            return new DataAccessMappingEngine(mappings);
+        }
+    }
+
+    /**
+     * Gets the mappings this engine was compiled from.
+     */
+    Map<String, Map<String, List<DataAccessMapping>>> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * Maps the free text data access statements of a document to an access category.
+     * <p>
+     * The matchers of the repository are tried in the order they were defined. The first statement that matches
+     * a mapping determines the access category.
+     *
+     * @param repository       the code of the repository the document was harvested from.
+     * @param document         the document.
+     * @param xPaths           the XPaths of the document's metadata format.
+     * @param dataRestrictions supplies the statements found at {@link XPaths#getDataRestrctnXPath()},
+     *                         only called if the repository has mappings for these statements.
+     * @return the access category, or {@link AccessCategory#Uncategorized} if no mapping matched.
+     */
+    AccessCategory map(String repository, Document document, XPaths xPaths, Supplier<Map<String, List<String>>> dataRestrictions) {
+        var repositoryMatchers = matchers.get(repository);
+        if (repositoryMatchers == null) {
+            return AccessCategory.Uncategorized;
+        }
+
+        for (var matcher : repositoryMatchers) {
+            var statements = switch (matcher.source()) {
+                case DATA_RESTRICTION -> dataRestrictions.get();
+                case DATA_ACCESS_ALT -> resolveDataAccessAlt(document, xPaths.getNamespace());
+            };
+
+            for (var languageStatements : statements.values()) {
+                for (var statement : languageStatements) {
+                    var match = matcher.lookup().get(normalize(statement));
+                    if (match != null) {
+                        return match;
+                    }
+                }
+            }
+        }
+
+        return AccessCategory.Uncategorized;
+    }
+
+    private static Map<String, List<String>> resolveDataAccessAlt(Document document, Namespace[] namespaces) {
+        var expression = DATA_ACCESS_ALT_EXPRESSIONS.get().computeIfAbsent(List.of(namespaces), ns ->
+            XPathFactory.instance().compile(DATA_ACCESS_ALT_XPATH, Filters.element(), null, ns)
+        );
+        return DATA_ACCESS_ALT_MAPPER.apply(expression.evaluate(document));
+    }
+
+    /**
+     * Collapses runs of whitespace into a single space and removes leading and trailing whitespace,
+     * so that statements differing only in formatting are matched.
+     */
+    private static String normalize(String statement) {
+        return Text.normalizeString(statement);
+    }
+
+    /**
+     * The XPaths that can be used in the mappings file.
+     */
+    enum Source {
+        DATA_RESTRICTION("dataRestrctnXPath"),
+        DATA_ACCESS_ALT("dataAccessAltXPath");
+
+        private final String key;
+
+        Source(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Gets the source with the given key from the mappings file, or {@code null} if the key is unknown.
+         */
+        static Source fromKey(String key) {
+            for (var source : values()) {
+                if (source.key.equals(key)) {
+                    return source;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The compiled mappings for a single XPath.
+     *
+     * @param source the XPath the statements are found at.
+     * @param lookup the access categories, keyed by normalised statement.
+     */
+    private record Matcher(Source source, Map<String, AccessCategory> lookup) {
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+
+import java.util.*;
+
+/**
+ * A {@link Map} keyed by language code, optimised for the supported languages.
+ * <p>
+ * Values for the supported languages and the empty language {@value XMLMapper#EMPTY_LANGUAGE} are stored
+ * in a small array indexed by the ordinal of the language, avoiding the hashing and per-entry allocations
+ * of a {@link HashMap}. Any other keys are stored in an overflow map, so this map behaves the same as any
+ * other {@link Map} regardless of the languages present. Entries are iterated in ordinal order, followed by
+ * any other keys.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <V> the type of the values.
+ */
+public final class LanguageMap<V> extends AbstractMap<String, V> {
+
+    /**
+     * The language of each ordinal.
+     */
+    private static final String[] LANGUAGES;
+
+    /**
+     * The ordinal of each language.
+     */
+    private static final Map<String, Integer> ORDINALS;
+
+    /**
+     * Marker used to store {@code null} values in the array.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    static {
+        var languages = new ArrayList<String>(AppConfigurationProperties.SUPPORTED_LANGUAGES.size() + 1);
+        languages.add(XMLMapper.EMPTY_LANGUAGE);
+        languages.addAll(AppConfigurationProperties.SUPPORTED_LANGUAGES);
+        LANGUAGES = languages.toArray(String[]::new);
+
+        var ordinals = new HashMap<String, Integer>(LANGUAGES.length * 2);
+        for (int i = 0; i < LANGUAGES.length; i++) {
+            ordinals.put(LANGUAGES[i], i);
+        }
+        ORDINALS = Collections.unmodifiableMap(ordinals);
+    }
+
+    private Object[] values = null;
+    private int arraySize = 0;
+    private Map<String, V> overflow = null;
+
+    private transient Set<Entry<String, V>> entrySet = null;
+
+    /**
+     * Constructs an empty map.
+     */
+    public LanguageMap() {
+        // Storage is allocated on first use
+    }
+
+    /**
+     * Constructs a map with the same mappings as the given map.
+     *
+     * @param map the map to copy.
+     */
+    public LanguageMap(Map<String, ? extends V> map) {
+        putAll(map);
+    }
+
+    /**
+     * Gets the ordinal of the language, or {@code -1} if the language is not stored in the array.
+     */
+    private static int ordinal(Object key) {
+        var ordinal = ORDINALS.get(key);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmask(Object value) {
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+    @Override
+    public int size() {
+        return arraySize + (overflow != null ? overflow.size() : 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        var ordinal = ordinal(key);
+        if (ordinal != -1) {
+            return values != null && values[ordinal] != null;
+        }
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        var ordinal = ordinal(key);
+        if (ordinal != -1) {
+            return values != null ? unmask(values[ordinal]) : null;
+        }
+        return overflow != null ? overflow.get(key) : null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        var ordinal = ordinal(key);
+        if (ordinal != -1) {
+            if (values == null) {
+                values = new Object[LANGUAGES.length];
+            }
+            var previous = values[ordinal];
+            values[ordinal] = value != null ? value : NULL_VALUE;
+            if (previous == null) {
+                arraySize++;
+            }
+            return unmask(previous);
+        }
+
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        }
+        return overflow.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        var ordinal = ordinal(key);
+        if (ordinal != -1) {
+            return removeOrdinal(ordinal);
+        }
+        return overflow != null ? overflow.remove(key) : null;
+    }
+
+    private V removeOrdinal(int ordinal) {
+        if (values == null) {
+            return null;
+        }
+        var previous = values[ordinal];
+        if (previous != null) {
+            values[ordinal] = null;
+            arraySize--;
+        }
+        return unmask(previous);
+    }
+
+    @Override
+    public void clear() {
+        if (values != null) {
+            Arrays.fill(values, null);
+        }
+        arraySize = 0;
+        overflow = null;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return LanguageMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            LanguageMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterates over the array, then the overflow map.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, V>> {
+        private int nextOrdinal = 0;
+        private int lastOrdinal = -1;
+        private boolean canRemove = false;
+        private Iterator<Entry<String, V>> overflowIterator = null;
+
+        private void advance() {
+            while (values != null && nextOrdinal < LANGUAGES.length && values[nextOrdinal] == null) {
+                nextOrdinal++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            advance();
+            if (values != null && nextOrdinal < LANGUAGES.length) {
+                return true;
+            }
+            if (overflowIterator == null && overflow != null) {
+                overflowIterator = overflow.entrySet().iterator();
+            }
+            return overflowIterator != null && overflowIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            canRemove = true;
+            if (values != null && nextOrdinal < LANGUAGES.length) {
+                lastOrdinal = nextOrdinal++;
+                return new ArrayEntry(lastOrdinal);
+            }
+            lastOrdinal = -1;
+            return overflowIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            if (lastOrdinal != -1) {
+                removeOrdinal(lastOrdinal);
+            } else {
+                overflowIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * An entry backed by the array, writing through to the map.
+     */
+    private final class ArrayEntry implements Entry<String, V> {
+        private final int ordinal;
+
+        private ArrayEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public String getKey() {
+            return LANGUAGES[ordinal];
+        }
+
+        @Override
+        public V getValue() {
+            return unmask(values[ordinal]);
+        }
+
+        @Override
+        public V setValue(V value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
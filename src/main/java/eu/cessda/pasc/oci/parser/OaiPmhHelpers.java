@@ -36,12 +36,21 @@ import java.nio.charset.StandardCharsets;
 public class OaiPmhHelpers {
 
     @SuppressWarnings("java:S5164") // This is only used by threads that will exit.
-    private static final ThreadLocal<SAXBuilder> SAX_BUILDER_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
+    private static final ThreadLocal<SAXBuilder> SAX_BUILDER_THREAD_LOCAL = ThreadLocal.withInitial(OaiPmhHelpers::newSaxBuilder);
+
+    @SuppressWarnings("java:S5164") // This is only used by threads that will exit.
+    private static final ThreadLocal<SAXBuilder> PRUNING_SAX_BUILDER_THREAD_LOCAL = ThreadLocal.withInitial(() -> {
+        var saxBuilder = newSaxBuilder();
+        saxBuilder.setXMLFilter(new PruningXMLFilter());
+        return saxBuilder;
+    });
+
+    private static SAXBuilder newSaxBuilder() {
         var saxBuilder = new SAXBuilder();
         saxBuilder.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
         saxBuilder.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
         return saxBuilder;
-    });
+    }
 
     public static URI buildGetStudyFullUrl(@NonNull URI repoUrl, @NonNull String studyIdentifier, @NonNull String metadataPrefix) throws URISyntaxException {
         return new URI(repoUrl +
@@ -60,4 +69,12 @@ public class OaiPmhHelpers {
     static SAXBuilder getSaxBuilder() {
         return SAX_BUILDER_THREAD_LOCAL.get();
     }
+
+    /**
+     * Retrieve an instance of a {@link SAXBuilder} that skips the sections of metadata documents that are not
+     * read by any {@link XPaths}, see {@link PruningXMLFilter}.
+     */
+    static SAXBuilder getPruningSaxBuilder() {
+        return PRUNING_SAX_BUILDER_THREAD_LOCAL.get();
+    }
 }
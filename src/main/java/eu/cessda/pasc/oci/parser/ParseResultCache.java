@@ -0,0 +1,345 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import eu.cessda.pasc.oci.TimeUtility;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.models.*;
+import eu.cessda.pasc.oci.models.Record;
+import eu.cessda.pasc.oci.models.cmmstudy.*;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on-disk cache of the studies parsed from each XML file, stored in the Smile binary JSON format.
+ * <p>
+ * Entries are keyed by a hash of the file content, the repository settings used when parsing, the configuration of the
+ * {@link CMMStudyMapper} and a hash of the parser and model classes. Changing {@link XPaths}, {@link ParsingStrategies},
+ * {@link TimeUtility}, the models or any other parser class therefore invalidates all existing entries. When the cache grows beyond its maximum size, the least
+ * recently used entries are removed.
+ */
+@Component
+@Slf4j
+public class ParseResultCache {
+
+    private static final String FILE_EXTENSION = ".sml";
+
+    /**
+     * The classes that determine the result of parsing a file, and the classes of the cached studies.
+     */
+    private static final List<Class<?>> PARSER_CLASSES = List.of(
+        // Parser
+        AnchoredXPath.class,
+        CMMStudyMapper.class,
+        DataAccessMappingEngine.class,
+        LanguageMap.class,
+        OaiPmhConstants.class,
+        OaiPmhHelpers.class,
+        ParseResultCache.class,
+        ParsingStrategies.class,
+        PruningXMLFilter.class,
+        RecordXMLParser.class,
+        ResolvingXMLMapper.class,
+        SimpleXMLMapper.class,
+        TermVocabAttributeNames.class,
+        TimeUtility.class,
+        UniverseElement.class,
+        ValueInterner.class,
+        XMLMapper.class,
+        XPaths.class,
+        // Models
+        Affiliation.class,
+        CMMStudy.class,
+        Country.class,
+        Creator.class,
+        DataAccessMapping.class,
+        DataCollectionFreeText.class,
+        DataKindFreeText.class,
+        Funding.class,
+        Pid.class,
+        Publisher.class,
+        Record.class,
+        RecordHeader.class,
+        RelatedPublication.class,
+        Request.class,
+        Series.class,
+        TermVocabAttributes.class,
+        Universe.class,
+        VocabAttributes.class
+    );
+
+    static final String PARSER_VERSION = computeVersion(PARSER_CLASSES);
+
+    private final Path directory;
+    private final long maxSize;
+    private final ObjectMapper smileMapper = new SmileMapper();
+    private final JavaType studyListType = smileMapper.getTypeFactory().constructCollectionType(List.class, CMMStudy.class);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The approximate size of the cache, or -1 if the cache hasn't been measured yet.
+     */
+    private final AtomicLong currentSize = new AtomicLong(-1);
+
+    @Autowired
+    public ParseResultCache(ParserProperties parserProperties) {
+        this.directory = parserProperties.cache().directory();
+        this.maxSize = parserProperties.cache().maxSize().toBytes();
+    }
+
+    /**
+     * Constructs a disabled parse result cache.
+     */
+    public static ParseResultCache disabled() {
+        return new ParseResultCache(new ParserProperties(null, null, 0, false, null));
+    }
+
+    /**
+     * Returns {@code true} if a cache directory has been configured.
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Hashes the class files of the given classes, so that changes to the classes invalidate results produced by them.
+     * This is used to version the parser, so that changes to the parser invalidate cached results.
+     *
+     * @param classes the classes to hash, nested classes are included.
+     */
+    public static String computeVersion(List<Class<?>> classes) {
+        var digest = DigestUtils.getSha256Digest();
+        try {
+            for (var parserClass : classes) {
+                updateDigest(digest, parserClass);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // Use a version that cannot match any existing entries
+            log.warn("Couldn't determine the version of {}, previous results will not be reused: {}", classes, e.toString());
+            return UUID.randomUUID().toString();
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static void updateDigest(MessageDigest digest, Class<?> parserClass) throws IOException {
+        var className = parserClass.getName();
+        var classFileName = className.substring(className.lastIndexOf('.') + 1) + ".class";
+        try (var classFile = parserClass.getResourceAsStream(classFileName)) {
+            if (classFile != null) {
+                DigestUtils.updateDigest(digest, classFile);
+            } else {
+                digest.update(className.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        // Nested classes are stored in separate class files
+        for (var nestedClass : parserClass.getDeclaredClasses()) {
+            updateDigest(digest, nestedClass);
+        }
+    }
+
+    /**
+     * Computes the key of a file.
+     *
+     * @param repo              the repository that the file belongs to.
+     * @param content           the content of the file.
+     * @param configurationHash the hash of the configuration of the {@link CMMStudyMapper}.
+     * @return the key.
+     */
+    String getKey(Repo repo, byte[] content, String configurationHash) {
+        return DigestUtils.sha256Hex(String.join("\n",
+            PARSER_VERSION,
+            configurationHash,
+            String.valueOf(repo.url()),
+            String.valueOf(repo.preferredMetadataParam()),
+            String.valueOf(repo.defaultLanguage()),
+            DigestUtils.sha256Hex(content)
+        ));
+    }
+
+    private Path getPath(String key) {
+        // Spread entries across subdirectories to keep directory listings small
+        return directory.resolve(key.substring(0, 2)).resolve(key + FILE_EXTENSION);
+    }
+
+    /**
+     * Gets the studies stored for the given key.
+     *
+     * @param key the key, from {@link #getKey(Repo, byte[], String)}.
+     * @return the studies, or an empty {@link Optional} if the key is not present in the cache.
+     */
+    Optional<List<CMMStudy>> get(String key) {
+        var path = getPath(key);
+        try {
+            List<CMMStudy> studies;
+            try (var inputStream = Files.newInputStream(path)) {
+                studies = smileMapper.readValue(inputStream, studyListType);
+            }
+
+            // Record the use of the entry, so that recently used entries are not evicted
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            hits.incrementAndGet();
+            return Optional.of(studies);
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+        } catch (IOException e) {
+            log.debug("Removing unreadable cache entry [{}]: {}", path, e.toString());
+            misses.incrementAndGet();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                log.warn("Couldn't remove cache entry [{}]: {}", path, ex.toString());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the studies parsed from a file.
+     *
+     * @param key     the key, from {@link #getKey(Repo, byte[], String)}.
+     * @param studies the studies to store.
+     */
+    void put(String key, List<CMMStudy> studies) {
+        var path = getPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            var temporaryFile = Files.createTempFile(path.getParent(), key, ".tmp");
+            try {
+                try (var outputStream = Files.newOutputStream(temporaryFile)) {
+                    smileMapper.writerFor(studyListType).writeValue(outputStream, studies);
+                }
+                Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            if (getCurrentSize() + Files.size(path) > maxSize) {
+                evict();
+            } else {
+                currentSize.addAndGet(Files.size(path));
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't store cache entry [{}]: {}", path, e.toString());
+        }
+    }
+
+    private long getCurrentSize() throws IOException {
+        var size = currentSize.get();
+        if (size < 0) {
+            synchronized (this) {
+                size = currentSize.get();
+                if (size < 0) {
+                    size = listEntries().stream().mapToLong(CacheEntry::size).sum();
+                    currentSize.set(size);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is below 90% of its maximum size.
+     */
+    synchronized void evict() throws IOException {
+        var entries = listEntries();
+        var size = entries.stream().mapToLong(CacheEntry::size).sum();
+        var targetSize = maxSize / 10 * 9;
+
+        entries.sort(Comparator.comparing(CacheEntry::lastUsed));
+        for (var iterator = entries.iterator(); iterator.hasNext() && size > targetSize; ) {
+            var entry = iterator.next();
+            if (Files.deleteIfExists(entry.path())) {
+                size -= entry.size();
+                evictions.incrementAndGet();
+            }
+        }
+
+        currentSize.set(size);
+    }
+
+    private List<CacheEntry> listEntries() throws IOException {
+        if (!Files.exists(directory)) {
+            return new ArrayList<>();
+        }
+
+        var entries = new ArrayList<CacheEntry>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && file.toString().endsWith(FILE_EXTENSION)) {
+                    entries.add(new CacheEntry(file, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // The entry was removed whilst the cache was being listed
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Gets the hit, miss and eviction counts of the cache since the indexer started.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), evictions.get());
+    }
+
+    private record CacheEntry(Path path, long size, Instant lastUsed) {
+    }
+
+    /**
+     * Statistics of the parse result cache.
+     *
+     * @param hits      the number of files whose studies were loaded from the cache.
+     * @param misses    the number of files that had to be parsed.
+     * @param evictions the number of entries removed to keep the cache within its maximum size.
+     */
+    public record Statistics(long hits, long misses, long evictions) {
+
+        /**
+         * Returns the statistics accumulated since the given statistics were taken.
+         */
+        public Statistics since(Statistics previous) {
+            return new Statistics(hits - previous.hits, misses - previous.misses, evictions - previous.evictions);
+        }
+    }
+}
@@ -67,7 +67,7 @@ class ParsingStrategies{
             getAttributeValue(element, ABBR_ATTR).orElse(null),
             cleanCharacterReturns(element.getText())
         );
-        return Optional.of(country);
+        return Optional.of(ValueInterner.intern(country));
     }
 
     /**
@@ -171,10 +171,10 @@ class ParsingStrategies{
      * @return a {@link Publisher}.
      */
     static Publisher publisherStrategy(Element element) {
-        return new Publisher(
+        return ValueInterner.intern(new Publisher(
             getAttributeValue(element, ABBR_ATTR).orElse(PUBLISHER_NOT_AVAIL),
             cleanCharacterReturns(element.getText())
-        );
+        ));
     }
 
     /**
@@ -208,7 +208,7 @@ class ParsingStrategies{
             id,
             term
         );
-        return Optional.of(termVocab);
+        return Optional.of(ValueInterner.intern(termVocab));
     }
 
     /**
@@ -234,7 +234,7 @@ class ParsingStrategies{
             }
         }
 
-        return Optional.of(new TermVocabAttributes(vocab, vocabUri, "", term));
+        return Optional.of(ValueInterner.intern(new TermVocabAttributes(vocab, vocabUri, "", term)));
     }
 
     /**
@@ -271,9 +271,9 @@ class ParsingStrategies{
                 conceptVal.getText(),
                 term
             );
-            return Optional.of(vocabAttributes);
+            return Optional.of(ValueInterner.intern(vocabAttributes));
         } else if (!term.isEmpty()) {
-            return Optional.of(new TermVocabAttributes("", "", "", term));
+            return Optional.of(ValueInterner.intern(new TermVocabAttributes("", "", "", term)));
         } else {
             return Optional.empty();
         }
@@ -346,15 +346,9 @@ class ParsingStrategies{
             .map(d -> d.getChild("distDate", namespace))
             .map(e -> e.getAttributeValue("date"))
             .map(String::trim)
-            .flatMap(dateStr -> {
-                try {
-                    TimeUtility.getTimeFormat(dateStr, Function.identity());
-                    return Optional.of(dateStr);
-                } catch (DateTimeParseException e) {
-                    // Invalid date, ignore
-                    return Optional.empty();
-                }
-            }).orElse("");
+            // Invalid dates are ignored
+            .filter(TimeUtility::isValidDate)
+            .orElse("");
         }
 
         // Try to extract text from the relPubl element
@@ -456,7 +450,7 @@ class ParsingStrategies{
      */
     @NonNull
     static Map<String, List<UniverseElement>> universeLifecycleStrategy(List<Element> elements) {
-        var map = new HashMap<String, List<UniverseElement>>();
+        var map = new LanguageMap<List<UniverseElement>>();
 
         for (var universeElement : elements) {
             var inclusionStatus = parseInclusionStatus(universeElement);
@@ -617,7 +611,7 @@ class ParsingStrategies{
 
     @NonNull
     static Map<String, List<TermVocabAttributes>> conceptStrategy(List<Element> elementList, Function<Element, Optional<TermVocabAttributes>> mappingFunction) {
-        var map = new HashMap<String, List<TermVocabAttributes>>();
+        var map = new LanguageMap<List<TermVocabAttributes>>();
 
         for (var element : elementList) {
             mappingFunction.apply(element).ifPresent(mappedElement ->
@@ -753,9 +747,9 @@ class ParsingStrategies{
         }
 
         // Merge name and abbreviation maps
-        var publisherMap = new HashMap<String, Publisher>();
+        var publisherMap = new LanguageMap<Publisher>();
         Stream.concat(nameMap.keySet().stream(), abbrMap.keySet().stream()).distinct().forEach(key ->
-            publisherMap.put(key, new Publisher(abbrMap.getOrDefault(key, ""), nameMap.getOrDefault(key, "")))
+            publisherMap.put(key, ValueInterner.intern(new Publisher(abbrMap.getOrDefault(key, ""), nameMap.getOrDefault(key, ""))))
         );
 
         return Collections.unmodifiableMap(publisherMap);
@@ -803,7 +797,7 @@ class ParsingStrategies{
             for (var entry : nameMap.entrySet()) {
                 var lang = entry.getKey();
                 var country = new Country(code, entry.getValue());
-                countryMap.put(lang, country);
+                countryMap.put(lang, ValueInterner.intern(country));
             }
         }
 
@@ -963,7 +957,7 @@ class ParsingStrategies{
      */
     @NonNull
     static Map<String, List<Creator>> creatorsStrategy(List<Element> creatorElements, Map<String, Affiliation> affiliationMap) {
-        var creatorsMap = new HashMap<String, List<Creator>>();
+        var creatorsMap = new LanguageMap<List<Creator>>();
 
         if (creatorElements.isEmpty()) return creatorsMap;
 
@@ -1029,7 +1023,7 @@ class ParsingStrategies{
     @NonNull
     @SuppressWarnings({"java:S3776", "ExtractMethodRecommender"})
     private static Map<String, List<TermVocabAttributes>> controlledVocabularyStrategy(List<Element> elementList, String controlledVocabularyElement, TermVocabAttributeNames attrNames) {
-        var mergedMap = new HashMap<String, List<TermVocabAttributes>>();
+        var mergedMap = new LanguageMap<List<TermVocabAttributes>>();
 
         for (var element : elementList) {
             Optional<TermVocabAttributes> termVocabAttributes = Optional.empty();
@@ -1056,9 +1050,9 @@ class ParsingStrategies{
                 for (var term : entry.getValue()) {
                     if (termVocabAttributes.isPresent()) {
                         var vocabAttributes = termVocabAttributes.get();
-                        vocabAttributesList.add(new TermVocabAttributes(vocabAttributes.vocab(), vocabAttributes.vocabUri(), vocabAttributes.id(), term));
+                        vocabAttributesList.add(ValueInterner.intern(new TermVocabAttributes(vocabAttributes.vocab(), vocabAttributes.vocabUri(), vocabAttributes.id(), term)));
                     } else {
-                        vocabAttributesList.add(new TermVocabAttributes("", "", "", term));
+                        vocabAttributesList.add(ValueInterner.intern(new TermVocabAttributes("", "", "", term)));
                     }
                 }
 
@@ -1083,7 +1077,7 @@ class ParsingStrategies{
     @NonNull
     @SuppressWarnings("java:S3776")
     static Map<String, List<RelatedPublication>> relatedPublicationLifecycleStrategy(List<Element> elementList) {
-        var relPubLMap = new HashMap<String, List<RelatedPublication>>();
+        var relPubLMap = new LanguageMap<List<RelatedPublication>>();
 
         for (var element : elementList) {
 
@@ -1134,13 +1128,9 @@ class ParsingStrategies{
                         var simpleDate = child.getChild("SimpleDate", null);
                         if (simpleDate != null) {
                             var dateStr = simpleDate.getTextTrim();
-                            if (!dateStr.isBlank()) {
-                                try {
-                                    TimeUtility.getTimeFormat(dateStr, Function.identity());
-                                    publicationDate = dateStr;
-                                } catch (DateTimeParseException e) {
-                                    // Invalid date, keep as ""
-                                }
+                            // Invalid dates are kept as ""
+                            if (!dateStr.isBlank() && TimeUtility.isValidDate(dateStr)) {
+                                publicationDate = dateStr;
                             }
                         }
                     }
@@ -1160,7 +1150,7 @@ class ParsingStrategies{
 
     @NonNull
     static Map<String, List<Country>> geographicLocationStrategy(List<Element> elementList) {
-        var countryListMap = new HashMap<String, List<Country>>();
+        var countryListMap = new LanguageMap<List<Country>>();
         for (var element : elementList) {
           resolveReference(element).ifPresent(referencedElement -> {
               var geographicReference = referencedElement.element();
@@ -1180,10 +1170,10 @@ class ParsingStrategies{
                     var creatorMap = individualStrategy(r.element(), Collections.emptyMap());
 
                     // Create a Publisher to represent this creator
-                    var publisherMap = new HashMap<String, Publisher>(creatorMap.size());
+                    var publisherMap = new LanguageMap<Publisher>();
                     creatorMap.forEach((lang, creator) -> {
                         var publisher = new Publisher(null, creator.name());
-                        publisherMap.put(lang, publisher);
+                        publisherMap.put(lang, ValueInterner.intern(publisher));
                     });
                     yield Optional.of(publisherMap);
                 }
@@ -1271,7 +1261,7 @@ class ParsingStrategies{
      */
     @NonNull
     static Map<String, List<Funding>> fundingLifecycleStrategy(List<Element> elementList) {
-        var fundingMap = new HashMap<String, List<Funding>>();
+        var fundingMap = new LanguageMap<List<Funding>>();
 
         for (var element : elementList) {
             String grantNumber = null;
@@ -1310,6 +1300,26 @@ class ParsingStrategies{
     );
     private static final Pattern NORMALIZE_PATTERN = Pattern.compile("[^a-z0-9]+");
 
+    /**
+     * Lowercases the term and removes all characters that are not ASCII letters or digits.
+     * ASCII terms, such as {@code info:eu-repo/semantics/openAccess}, are normalised in a single pass.
+     * Other terms use {@link #NORMALIZE_PATTERN}, as lowercasing can map non-ASCII characters to ASCII.
+     */
+    static String normalizeAccessTerm(String raw) {
+        var normalized = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= 0x80) {
+                return NORMALIZE_PATTERN.matcher(raw.toLowerCase()).replaceAll("");
+            } else if (c >= 'A' && c <= 'Z') {
+                normalized.append((char) (c + ('a' - 'A')));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
     /**
      * Processes a list of {@link Element}s, returning a {@link String} representing the access category (Open/Restricted).
      * Returns the first non-empty valid result, otherwise returns null.
@@ -1326,7 +1336,7 @@ class ParsingStrategies{
             }
 
             // Normalize to lowercase and strip all non-alphanumerics (spaces, underscores, etc.)
-            String normalized = NORMALIZE_PATTERN.matcher(raw.toLowerCase()).replaceAll("");
+            String normalized = normalizeAccessTerm(raw);
 
             // Open: exact or suffix so it still works for info:eu-repo/semantics/openAccess also
             if (normalized.endsWith(OPEN_ACCESS)) {
@@ -1397,7 +1407,7 @@ class ParsingStrategies{
      */
     @NonNull
     static Map<String, List<Series>> seriesLifecycleStrategy(List<Element> elements) {
-        var seriesMap = new HashMap<String, List<Series>>();
+        var seriesMap = new LanguageMap<List<Series>>();
 
         for (var seriesElement : elements) {
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A SAX filter that removes the sections of metadata documents that are not read by any of the {@link XPaths}.
+ * <p>
+ * The metadata root element is the outermost element in a namespace listed in {@link XPaths#getMetadataSectionsByNamespace()},
+ * such as {@code codeBook} in DDI 2.5. Children of the metadata root that are not listed for its namespace,
+ * such as the variable descriptions in {@code dataDscr}, are skipped along with all of their content.
+ * No events are passed on for skipped elements, so JDOM never builds nodes for them.
+ * Everything outside the metadata root, including the OAI-PMH envelope, is passed on unchanged.
+ * Comments are reported to JDOM directly by the parser, so comments in skipped sections are retained.
+ * <p>
+ * Instances are not thread-safe, and are reset at the start of each document.
+ */
+class PruningXMLFilter extends XMLFilterImpl {
+
+    private final Map<String, Set<String>> metadataSections;
+
+    /**
+     * The depth of the current element, not counting skipped elements.
+     */
+    private int depth;
+
+    /**
+     * The depth of the metadata root element, or {@code -1} if outside the metadata root.
+     */
+    private int metadataRootDepth;
+
+    /**
+     * The sections to retain for the current metadata root.
+     */
+    private Set<String> retainedSections;
+
+    /**
+     * The depth within the current skipped section, or {@code 0} if not in a skipped section.
+     */
+    private int skippedDepth;
+
+    private long prunedElements;
+
+    PruningXMLFilter() {
+        this(XPaths.getMetadataSectionsByNamespace());
+    }
+
+    /**
+     * Constructs a filter using the given metadata sections.
+     *
+     * @param metadataSections the sections of the metadata root to retain, keyed by the namespace URI of the metadata root.
+     */
+    PruningXMLFilter(Map<String, Set<String>> metadataSections) {
+        this.metadataSections = metadataSections;
+        reset();
+    }
+
+    private void reset() {
+        depth = 0;
+        metadataRootDepth = -1;
+        retainedSections = null;
+        skippedDepth = 0;
+    }
+
+    /**
+     * Gets the number of elements that have been skipped by this filter.
+     */
+    long getPrunedElements() {
+        return prunedElements;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        reset();
+        super.startDocument();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        if (skippedDepth > 0) {
+            skippedDepth++;
+            prunedElements++;
+            return;
+        }
+
+        depth++;
+        if (metadataRootDepth == -1) {
+            var sections = metadataSections.get(uri);
+            if (sections != null) {
+                metadataRootDepth = depth;
+                retainedSections = sections;
+            }
+        } else if (depth == metadataRootDepth + 1 && !retainedSections.contains(localName)) {
+            // Skip this section and everything in it
+            depth--;
+            skippedDepth = 1;
+            prunedElements++;
+            return;
+        }
+
+        super.startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (skippedDepth > 0) {
+            skippedDepth--;
+            return;
+        }
+
+        if (depth == metadataRootDepth) {
+            metadataRootDepth = -1;
+            retainedSections = null;
+        }
+        depth--;
+
+        super.endElement(uri, localName, qName);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (skippedDepth == 0) {
+            super.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (skippedDepth == 0) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        if (skippedDepth == 0) {
+            super.processingInstruction(target, data);
+        }
+    }
+
+    /*
+     * Prefix mappings are reported before the element that declares them, so mappings declared on the first
+     * element of a skipped section are still passed on. JDOM adds these as additional namespace declarations
+     * to the next element, which doesn't change the namespace of any element or attribute.
+     */
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        if (skippedDepth == 0) {
+            super.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) throws SAXException {
+        if (skippedDepth == 0) {
+            super.endPrefixMapping(prefix);
+        }
+    }
+
+    @Override
+    public void skippedEntity(String name) throws SAXException {
+        if (skippedDepth == 0) {
+            super.skippedEntity(name);
+        }
+    }
+}
@@ -0,0 +1,596 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.github.luben.zstd.ZstdInputStream;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.io.Files.getNameWithoutExtension;
+
+/**
+ * Reads record files for {@link RecordXMLParser}, using the strategy configured in {@link ParserProperties.Input}.
+ * <p>
+ * Files can be streamed from their channel, read into memory using large reads, or memory mapped. If read-ahead
+ * is enabled, the files of a repository are read on separate I/O threads ahead of the files being parsed,
+ * so that parse threads don't wait for storage.
+ * <p>
+ * Record files compressed using gzip or Zstandard are decompressed as they are parsed. Files stored in zip archives
+ * can be opened using the paths of a zip {@link java.nio.file.FileSystem}. As the decompressed size of these files
+ * is not known in advance, the maximum file size is enforced on the bytes read from the decompressed stream.
+ * <p>
+ * The time spent waiting for files to be read and the CPU time spent parsing them are recorded, so that it can be
+ * seen whether indexing a repository is limited by storage or by the parser.
+ */
+@Component
+@Slf4j
+public class RecordFileReader {
+
+    private static final int MAX_FILE_SIZE_MB = 50;
+    private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+    private static final String ARCHIVE_SUFFIX = ".zip";
+
+    private final ParserProperties.Input input;
+
+    /**
+     * Files that are being read in advance, keyed by path.
+     */
+    private final Map<Path, Prefetch> prefetched = new ConcurrentHashMap<>();
+    private ExecutorService ioExecutor = null;
+
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong ioNanos = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong prefetchedFiles = new AtomicLong();
+
+    @Autowired
+    public RecordFileReader(ParserProperties parserProperties) {
+        this.input = parserProperties.input();
+    }
+
+    /**
+     * Constructs a record file reader that streams files without reading ahead.
+     */
+    public static RecordFileReader defaults() {
+        return new RecordFileReader(new ParserProperties(null, null, 0, false, null));
+    }
+
+    /**
+     * Opens a record file for parsing, decompressing it if needed. If the file has been read in advance,
+     * the content already read is used.
+     *
+     * @param path the file to open.
+     * @throws IOException if the file cannot be read, or is larger than the maximum file size.
+     */
+    public InputStream open(Path path) throws IOException {
+        var inputStream = openRaw(path);
+        if (!isCompressed(path)) {
+            // The size of uncompressed files is checked before they are read
+            return inputStream;
+        }
+
+        try {
+            var compression = Objects.requireNonNullElse(Compression.of(path), Compression.NONE);
+            return new SizeLimitedInputStream(compression.decompress(inputStream));
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file without decompressing it.
+     */
+    private InputStream openRaw(Path path) throws IOException {
+        var prefetchedContent = takePrefetched(path);
+        if (prefetchedContent != null) {
+            return new ByteBufferInputStream(prefetchedContent);
+        }
+
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            // Files in archives can only be streamed
+            var start = System.nanoTime();
+            var inputStream = Files.newInputStream(path);
+            ioNanos.addAndGet(System.nanoTime() - start);
+            files.incrementAndGet();
+            return new TimedInputStream(inputStream);
+        }
+
+        if (input.strategy() == ParserProperties.Input.Strategy.CHANNEL) {
+            var start = System.nanoTime();
+            var channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                checkFileSize(channel.size());
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            ioNanos.addAndGet(System.nanoTime() - start);
+            files.incrementAndGet();
+            return new TimedInputStream(Channels.newInputStream(channel));
+        }
+
+        return new ByteBufferInputStream(read(path));
+    }
+
+    /**
+     * Reads the content of a record file, decompressing it if needed. If the file has been read in advance,
+     * the content already read is used.
+     *
+     * @param path the file to read.
+     * @throws IOException if the file cannot be read, or is larger than the maximum file size.
+     */
+    public byte[] readAllBytes(Path path) throws IOException {
+        if (isCompressed(path)) {
+            try (var inputStream = open(path)) {
+                return inputStream.readAllBytes();
+            }
+        }
+
+        var prefetchedContent = takePrefetched(path);
+        var content = prefetchedContent != null ? prefetchedContent : read(path);
+        if (content.hasArray() && content.arrayOffset() == 0 && content.array().length == content.remaining()) {
+            return content.array();
+        }
+        var array = new byte[content.remaining()];
+        content.get(array);
+        return array;
+    }
+
+    /**
+     * Reads a file using the configured strategy, recording the time taken.
+     */
+    private ByteBuffer read(Path path) throws IOException {
+        var start = System.nanoTime();
+        var content = load(path);
+        ioNanos.addAndGet(System.nanoTime() - start);
+        files.incrementAndGet();
+        return content;
+    }
+
+    /**
+     * Loads the content of a file into memory. Mapped files are loaded into physical memory.
+     */
+    private ByteBuffer load(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            checkFileSize(size);
+
+            if (input.strategy() == ParserProperties.Input.Strategy.MAPPED) {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mapping.load();
+                bytes.addAndGet(size);
+                return mapping;
+            }
+
+            // Read the file in large chunks
+            var content = new byte[(int) size];
+            var chunkSize = (int) Math.max(1, Math.min(input.bufferSize().toBytes(), Integer.MAX_VALUE));
+            var buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                buffer.limit(Math.min(buffer.position() + chunkSize, content.length));
+                if (channel.read(buffer) < 0) {
+                    // The file was truncated whilst being read
+                    break;
+                }
+                buffer.limit(content.length);
+            }
+            bytes.addAndGet(buffer.position());
+            return ByteBuffer.wrap(content, 0, buffer.position());
+        }
+    }
+
+    static void checkFileSize(long size) throws IOException {
+        if (size > MAX_FILE_SIZE_MB * (1000*1000)) { // 50 MB
+            throw new IOException("File size " + (size/(1000*1000)) + " MB is greater than " + MAX_FILE_SIZE_MB +" MB" );
+        }
+    }
+
+    /**
+     * Returns {@code true} if the path has the name of a record file or a zip archive of record files. Record files
+     * can be uncompressed ({@code .xml}), or compressed using gzip ({@code .xml.gz}) or Zstandard ({@code .xml.zst}).
+     *
+     * @param path the path to check.
+     */
+    public static boolean hasRecordExtension(Path path) {
+        return Compression.of(path) != null || isArchive(path);
+    }
+
+    /**
+     * Returns {@code true} if the path has the name of a zip archive of record files.
+     *
+     * @param path the path to check.
+     */
+    public static boolean isArchive(Path path) {
+        var fileName = path.getFileName();
+        return fileName != null && fileName.toString().endsWith(ARCHIVE_SUFFIX);
+    }
+
+    /**
+     * Gets the name of a record file without its extensions, i.e. {@code study} for {@code study.xml.gz}.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    static String getRecordName(Path path) {
+        var compression = Compression.of(path);
+        if (compression == null) {
+            return getNameWithoutExtension(path.toString());
+        }
+        var fileName = path.getFileName().toString();
+        return fileName.substring(0, fileName.length() - compression.suffix.length());
+    }
+
+    /**
+     * Returns {@code true} if the file must be decompressed, either because it is a compressed record file
+     * or because it is stored in an archive.
+     */
+    private static boolean isCompressed(Path path) {
+        var compression = Compression.of(path);
+        return (compression != null && compression != Compression.NONE) || path.getFileSystem() != FileSystems.getDefault();
+    }
+
+    /**
+     * Starts reading the given files in advance, in order. At most {@link ParserProperties.Input#readAhead()}
+     * files are held in memory at once; reading the next file starts when a file read in advance is opened.
+     * If read-ahead is disabled, this does nothing.
+     *
+     * @param paths the files that are about to be parsed.
+     * @return a handle that discards any files that weren't opened when closed.
+     */
+    public ReadAhead readAhead(List<Path> paths) {
+        var readAhead = new ReadAhead(paths);
+        for (int i = 0; i < input.readAhead(); i++) {
+            readAhead.scheduleNext();
+        }
+        return readAhead;
+    }
+
+    private synchronized ExecutorService getIoExecutor() {
+        if (ioExecutor == null) {
+            // The threads spend most of their time waiting for storage
+            ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return ioExecutor;
+    }
+
+    /**
+     * Takes the content of a file that was read in advance, returning {@code null} if the file hasn't been
+     * scheduled to be read or couldn't be read in advance.
+     */
+    private ByteBuffer takePrefetched(Path path) {
+        var prefetch = prefetched.remove(path);
+        if (prefetch == null) {
+            return null;
+        }
+
+        // Keep the read-ahead window full
+        prefetch.owner().scheduleNext();
+
+        var start = System.nanoTime();
+        try {
+            var content = prefetch.content().get();
+            files.incrementAndGet();
+            prefetchedFiles.incrementAndGet();
+            return content;
+        } catch (ExecutionException e) {
+            // Read the file again so that the error is reported by the caller
+            log.debug("Couldn't read [{}] in advance: {}", path, e.getCause().toString());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            ioNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records CPU time spent parsing files.
+     *
+     * @param nanos the CPU time in nanoseconds.
+     */
+    void addCpuTime(long nanos) {
+        cpuNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Gets the CPU time used by the current thread in nanoseconds, or {@code -1} if not supported by the JVM.
+     */
+    static long currentThreadCpuTime() {
+        var threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Gets the statistics of files read since the application started.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(files.get(), bytes.get(), ioNanos.get(), cpuNanos.get(), prefetchedFiles.get());
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (ioExecutor != null) {
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * The compression of a record file, determined from its file name.
+     */
+    enum Compression {
+        NONE(".xml"),
+        GZIP(".xml.gz"),
+        ZSTD(".xml.zst");
+
+        private final String suffix;
+
+        Compression(String suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * Gets the compression of a record file, or {@code null} if the path doesn't have the name of a record file.
+         */
+        @Nullable
+        static Compression of(Path path) {
+            var fileName = path.getFileName();
+            if (fileName == null) {
+                return null;
+            }
+            for (var compression : values()) {
+                if (fileName.toString().endsWith(compression.suffix)) {
+                    return compression;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Wraps a stream of compressed content in a stream that decompresses it.
+         */
+        InputStream decompress(InputStream inputStream) throws IOException {
+            return switch (this) {
+                case NONE -> inputStream;
+                case GZIP -> new GZIPInputStream(inputStream, DECOMPRESSION_BUFFER_SIZE);
+                case ZSTD -> new ZstdInputStream(inputStream);
+            };
+        }
+    }
+
+    /**
+     * Statistics of record files read.
+     *
+     * @param files           the number of files read.
+     * @param bytes           the number of bytes read into memory. Streamed files are not counted.
+     * @param ioNanos         the time parse threads spent waiting for files to be read, in nanoseconds.
+     * @param cpuNanos        the CPU time spent parsing files, in nanoseconds.
+     * @param prefetchedFiles the number of files that were read in advance.
+     */
+    public record Statistics(long files, long bytes, long ioNanos, long cpuNanos, long prefetchedFiles) {
+
+        /**
+         * Returns the statistics accumulated since the given statistics were taken.
+         */
+        public Statistics since(Statistics previous) {
+            return new Statistics(
+                files - previous.files,
+                bytes - previous.bytes,
+                ioNanos - previous.ioNanos,
+                cpuNanos - previous.cpuNanos,
+                prefetchedFiles - previous.prefetchedFiles
+            );
+        }
+    }
+
+    /**
+     * A file being read in advance.
+     *
+     * @param content the content of the file, once read.
+     * @param owner   the read-ahead that scheduled the file.
+     */
+    private record Prefetch(CompletableFuture<ByteBuffer> content, ReadAhead owner) {
+    }
+
+    /**
+     * Reads a list of files in advance of them being parsed.
+     */
+    public final class ReadAhead implements AutoCloseable {
+
+        private final Iterator<Path> remaining;
+        private final List<Path> scheduled = new ArrayList<>();
+        private boolean closed = false;
+
+        private ReadAhead(List<Path> paths) {
+            // Archives are opened as file systems, so they cannot be read in advance
+            this.remaining = paths.stream().filter(path -> !isArchive(path)).iterator();
+        }
+
+        private synchronized void scheduleNext() {
+            if (closed || !remaining.hasNext()) {
+                return;
+            }
+
+            var path = remaining.next();
+            var content = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return load(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, getIoExecutor());
+            prefetched.put(path, new Prefetch(content, this));
+            scheduled.add(path);
+        }
+
+        /**
+         * Stops reading files in advance, and discards files that were read but not opened.
+         */
+        @Override
+        public synchronized void close() {
+            closed = true;
+            for (var path : scheduled) {
+                var prefetch = prefetched.remove(path);
+                if (prefetch != null) {
+                    prefetch.content().cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * An input stream that records the time spent reading from the underlying stream.
+     */
+    private final class TimedInputStream extends FilterInputStream {
+
+        private TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                ioNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var start = System.nanoTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                ioNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * An input stream that fails once more than the maximum file size has been read from it.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private long remaining = MAX_FILE_SIZE_MB * (1000L * 1000L);
+
+        private SizeLimitedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long read) throws IOException {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new IOException("Decompressed size is greater than " + MAX_FILE_SIZE_MB + " MB");
+            }
+        }
+    }
+
+    /**
+     * An input stream that reads from a {@link ByteBuffer}.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            var read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            var skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
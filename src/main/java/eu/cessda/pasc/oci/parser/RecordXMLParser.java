@@ -15,7 +15,9 @@
  */
 package eu.cessda.pasc.oci.parser;
 
+import eu.cessda.pasc.oci.ForkJoinBatches;
 import eu.cessda.pasc.oci.LoggingConstants;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
 import eu.cessda.pasc.oci.configurations.Repo;
 import eu.cessda.pasc.oci.exception.InvalidUniverseException;
 import eu.cessda.pasc.oci.exception.UnsupportedXMLNamespaceException;
@@ -28,28 +30,32 @@ import eu.cessda.pasc.oci.models.cmmstudy.TermVocabAttributes;
 import eu.cessda.pasc.oci.models.cmmstudy.VocabAttributes;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
 import org.jdom2.xpath.XPathExpression;
 import org.jdom2.xpath.XPathFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.channels.Channels;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
-import static com.google.common.io.Files.getNameWithoutExtension;
 import static net.logstash.logback.argument.StructuredArguments.value;
 
 /**
@@ -62,14 +68,33 @@ import static net.logstash.logback.argument.StructuredArguments.value;
 public class RecordXMLParser {
 
     private static final XPathExpression<Element> OAI_RECORD_EXPRESSION = XPathFactory.instance().compile(OaiPmhConstants.RECORD_ELEMENT, Filters.element(), null, OaiPmhConstants.OAI_NS);
-    private static final int MAX_FILE_SIZE_MB = 50;
 
     private final CMMStudyMapper cmmStudyMapper;
-    private Set<Namespace> suppressedNamespaceWarnings = null;
+    private final ParseResultCache parseResultCache;
+    private final int recordBatchSize;
+    private final boolean pruneDocuments;
+    private final RecordFileReader recordFileReader;
+    private final Set<Namespace> suppressedNamespaceWarnings = ConcurrentHashMap.newKeySet();
 
-    @Autowired
     public RecordXMLParser(CMMStudyMapper cmmStudyMapper) {
+        this(cmmStudyMapper, ParseResultCache.disabled());
+    }
+
+    public RecordXMLParser(CMMStudyMapper cmmStudyMapper, ParseResultCache parseResultCache) {
+        this(cmmStudyMapper, parseResultCache, new ParserProperties(null, null, 0, false, null));
+    }
+
+    RecordXMLParser(CMMStudyMapper cmmStudyMapper, ParseResultCache parseResultCache, ParserProperties parserProperties) {
+        this(cmmStudyMapper, parseResultCache, parserProperties, new RecordFileReader(parserProperties));
+    }
+
+    @Autowired
+    RecordXMLParser(CMMStudyMapper cmmStudyMapper, ParseResultCache parseResultCache, ParserProperties parserProperties, RecordFileReader recordFileReader) {
         this.cmmStudyMapper = cmmStudyMapper;
+        this.parseResultCache = parseResultCache;
+        this.recordBatchSize = parserProperties.recordBatchSize();
+        this.pruneDocuments = parserProperties.pruneDocuments();
+        this.recordFileReader = recordFileReader;
     }
 
     /**
@@ -78,17 +103,33 @@ public class RecordXMLParser {
      * @throws XMLParseException if the document could not be parsed, or an IO error occurred.
      */
     private Document getDocument(Path path) throws XMLParseException {
-        try (var channel = Files.newByteChannel(path)) {
-            if (channel.size() > MAX_FILE_SIZE_MB * (1000*1000)) { // 50 MB
-                throw new IOException("File size " + (channel.size()/(1000*1000)) + " MB is greater than " + MAX_FILE_SIZE_MB +" MB" );
-            }
-            var inputStream = Channels.newInputStream(channel);
-            return OaiPmhHelpers.getSaxBuilder().build(inputStream);
+        try (var inputStream = recordFileReader.open(path)) {
+            return getSaxBuilder().build(inputStream);
         } catch (IOException | JDOMException e) {
             throw new XMLParseException(path.toUri(), e);
         }
     }
 
+    /**
+     * Gets the {@link SAXBuilder} to parse documents with, which prunes unused sections if enabled.
+     */
+    private SAXBuilder getSaxBuilder() {
+        return pruneDocuments ? OaiPmhHelpers.getPruningSaxBuilder() : OaiPmhHelpers.getSaxBuilder();
+    }
+
+    /**
+     * Read the content of an XML document, so that it can be hashed before it is parsed.
+     * @param path the path to the XML document.
+     * @throws XMLParseException if an IO error occurred.
+     */
+    private byte[] readDocument(Path path) throws XMLParseException {
+        try {
+            return recordFileReader.readAllBytes(path);
+        } catch (IOException e) {
+            throw new XMLParseException(path.toUri(), e);
+        }
+    }
+
     /**
      * Parse an OAI-PMH record header element into a {@link RecordHeader} object.
      *
@@ -123,6 +164,14 @@ public class RecordXMLParser {
         return recordHeaderBuilder.build();
     }
 
+    /**
+     * Gets a version that changes whenever the parser or the configuration of the mapper changes, and so
+     * whenever a record could be mapped to a different study.
+     */
+    public String getParserVersion() {
+        return DigestUtils.sha256Hex(ParseResultCache.PARSER_VERSION + "\n" + cmmStudyMapper.getConfigurationHash());
+    }
+
     /**
      * Gets a record from a remote repository.
      * @param repo the repository to retrieve the record from.
@@ -131,38 +180,182 @@ public class RecordXMLParser {
      * @throws XMLParseException if an error occurred parsing the XML.
      */
     public List<CMMStudy> getRecord(Repo repo, Path path) throws XMLParseException {
+        return getRecord(repo, path, header -> false);
+    }
+
+    /**
+     * Gets a record from a remote repository, skipping records that don't need to be mapped.
+     * @param repo the repository to retrieve the record from.
+     * @param path the study to retrieve.
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped.
+     * @return a {@link CMMStudy} representing the study.
+     * @throws XMLParseException if an error occurred parsing the XML.
+     */
+    public List<CMMStudy> getRecord(Repo repo, Path path, Predicate<RecordHeader> skipRecord) throws XMLParseException {
+        var cpuTimeStart = RecordFileReader.currentThreadCpuTime();
+        try {
+            if (RecordFileReader.isArchive(path)) {
+                return getArchivedRecords(repo, path, skipRecord);
+            }
+            return getFileRecord(repo, path, skipRecord);
+        } finally {
+            if (cpuTimeStart != -1) {
+                recordFileReader.addCpuTime(RecordFileReader.currentThreadCpuTime() - cpuTimeStart);
+            }
+        }
+    }
+
+    /**
+     * Gets the records of a single record file, which may be compressed.
+     */
+    private List<CMMStudy> getFileRecord(Repo repo, Path path, Predicate<RecordHeader> skipRecord) throws XMLParseException {
+        if (parseResultCache.isEnabled()) {
+            return getCachedRecord(repo, path, skipRecord);
+        }
 
         // Retrieve
         var document = getDocument(path);
+        return mapRecords(repo, path, document, skipRecord).cmmStudies();
+    }
+
+    /**
+     * Gets the records of each record file in a zip archive, in the order of their names.
+     * Entries that cannot be parsed are logged and skipped.
+     *
+     * @throws XMLParseException if the archive cannot be opened.
+     */
+    private List<CMMStudy> getArchivedRecords(Repo repo, Path path, Predicate<RecordHeader> skipRecord) throws XMLParseException {
+        try (var archive = FileSystems.newFileSystem(path)) {
+            var entries = new ArrayList<Path>();
+            for (var root : archive.getRootDirectories()) {
+                try (var stream = Files.find(root, Integer.MAX_VALUE, (entry, attributes) ->
+                    attributes.isRegularFile() && RecordFileReader.hasRecordExtension(entry) && !RecordFileReader.isArchive(entry)
+                )) {
+                    stream.forEach(entries::add);
+                }
+            }
+            Collections.sort(entries);
+
+            var cmmStudies = new ArrayList<CMMStudy>();
+            for (var entry : entries) {
+                try {
+                    cmmStudies.addAll(getFileRecord(repo, entry, skipRecord));
+                } catch (XMLParseException e) {
+                    log.warn("[{}] Couldn't parse {} in {}: {}",
+                        value(LoggingConstants.REPO_NAME, repo.code()),
+                        value(LoggingConstants.STUDY_ID, entry),
+                        path,
+                        e.toString()
+                    );
+                }
+            }
+            return cmmStudies;
+        } catch (IOException | UncheckedIOException e) {
+            throw new XMLParseException(path.toUri(), e);
+        }
+    }
+
+    /**
+     * Gets a record, using the studies stored in the parse result cache if the file has been parsed before.
+     */
+    private List<CMMStudy> getCachedRecord(Repo repo, Path path, Predicate<RecordHeader> skipRecord) throws XMLParseException {
+        var content = readDocument(path);
+        var key = parseResultCache.getKey(repo, content, cmmStudyMapper.getConfigurationHash());
+
+        var cachedStudies = parseResultCache.get(key);
+        if (cachedStudies.isPresent()) {
+            // Only records with headers are cached, so the headers can be reconstructed from the studies
+            var cmmStudies = new ArrayList<CMMStudy>(cachedStudies.get().size());
+            for (var cmmStudy : cachedStudies.get()) {
+                var header = RecordHeader.builder().identifier(cmmStudy.studyNumber()).lastModified(cmmStudy.lastModified()).build();
+                if (!skipRecord.test(header)) {
+                    cmmStudies.add(cmmStudy);
+                }
+            }
+            return cmmStudies;
+        }
+
+        Document document;
+        try {
+            document = getSaxBuilder().build(new ByteArrayInputStream(content));
+        } catch (IOException | JDOMException e) {
+            throw new XMLParseException(path.toUri(), e);
+        }
+
+        var mappedRecords = mapRecords(repo, path, document, skipRecord);
+        if (mappedRecords.cacheable()) {
+            parseResultCache.put(key, mappedRecords.cmmStudies());
+        }
+        return mappedRecords.cmmStudies();
+    }
+
+    /**
+     * Map the records of a document to {@link CMMStudy} instances.
+     *
+     * @param repo the repository the document was retrieved from.
+     * @param path the path of the document.
+     * @param document the parsed document.
+     * @param skipRecord a predicate that returns {@code true} if the record with the given header should not be mapped.
+     */
+    private MappedRecords mapRecords(Repo repo, Path path, Document document, Predicate<RecordHeader> skipRecord) {
 
         // Parse request element to retrieve the base URL of the repository
         var request = parseRecord(repo, path, document);
 
-        var cmmStudies = new ArrayList<CMMStudy>();
+        var recordsToMap = new ArrayList<Record>(request.records().size());
+
+        // The result only depends on the content of the document if all records have headers and none were skipped
+        var cacheable = true;
 
         for (var recordObj : request.records()) {
+            if (recordObj.recordHeader() == null) {
+                // The study number and modification time are derived from the file
+                cacheable = false;
+            }
             // Short-Circuit. We carry on to parse beyond the headers only if the record is active.
             if ((recordObj.recordHeader() != null && recordObj.recordHeader().deleted())) {
                 // Marked as deleted, don't store
                 continue;
             }
+            if (recordObj.recordHeader() != null && skipRecord.test(recordObj.recordHeader())) {
+                // The record doesn't need to be mapped
+                cacheable = false;
+                continue;
+            }
+            recordsToMap.add(recordObj);
+        }
+
+        // Large documents are split into batches that are mapped in parallel
+        var mappedStudies = ForkJoinBatches.map(recordsToMap, recordBatchSize, recordObj -> {
             try {
-                var cmmStudy = mapDDIRecordToCMMStudy(repo, request, recordObj, path);
-                cmmStudies.add(cmmStudy);
+                return mapDDIRecordToCMMStudy(repo, request, recordObj, path);
             } catch (UnsupportedXMLNamespaceException e) {
                 var recordIdentifier = recordObj.recordHeader() != null ? recordObj.recordHeader().identifier() : null;
                 logUnsupportedNamespace(repo.code(), recordIdentifier, e);
+                return null;
+            }
+        });
+
+        var cmmStudies = new ArrayList<CMMStudy>(mappedStudies.size());
+        for (var cmmStudy : mappedStudies) {
+            if (cmmStudy != null) {
+                cmmStudies.add(cmmStudy);
             }
         }
 
-        return cmmStudies;
+        return new MappedRecords(cmmStudies, cacheable);
+    }
+
+    /**
+     * The studies mapped from a document.
+     *
+     * @param cmmStudies the mapped studies.
+     * @param cacheable  whether the studies can be stored in the parse result cache.
+     */
+    private record MappedRecords(List<CMMStudy> cmmStudies, boolean cacheable) {
     }
 
     private void logUnsupportedNamespace(String code, String recordIdentifier, UnsupportedXMLNamespaceException e) {
-        // Only initialise if required
-        if (suppressedNamespaceWarnings == null) {
-            suppressedNamespaceWarnings = ConcurrentHashMap.newKeySet();
-        }
         if (suppressedNamespaceWarnings.add(e.getNamespace())) {
             // Only log on first encounter with this namespace
             log.warn("[{}]: {} cannot be parsed: {}. Further reports for this namespace have been suppressed.",
@@ -229,7 +422,7 @@ public class RecordXMLParser {
      * @param recordObj   the {@link Record} to convert.
      * @param path the path of the source XML.
      */
-    @SuppressWarnings({"java:S3776", "UnstableApiUsage"})
+    @SuppressWarnings("java:S3776")
     private CMMStudy mapDDIRecordToCMMStudy(Repo repository, Request request, Record recordObj, Path path) {
 
         CMMStudy.CMMStudyBuilder builder = CMMStudy.builder();
@@ -242,7 +435,7 @@ public class RecordXMLParser {
             lastModified = recordObj.recordHeader().lastModified();
         } else {
             // Derive the study number from the file name
-            studyNumber = getNameWithoutExtension(path.toString());
+            studyNumber = RecordFileReader.getRecordName(path);
             try {
                 // Set last modified to the file modified time if the header is not present or invalid
                 lastModified = Files.getLastModifiedTime(path).toString();
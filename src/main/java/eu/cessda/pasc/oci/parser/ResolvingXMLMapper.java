@@ -29,12 +29,13 @@ import java.util.function.Function;
 /**
  * An XML mapper that supports both direct and DDI 3.x references.
  * If the direct XPath does not resolve the reference XPath is tried.
+ * The direct and reference XPaths are evaluated relative to their anchor element, see {@link AnchoredXPath}.
  *
  * @param <T> the return type of the mapping function.
  */
 public class ResolvingXMLMapper<T> implements XMLMapper<T> {
-    private final String baseXPath;
-    private final String referenceXPath;
+    private final AnchoredXPath baseXPath;
+    private final AnchoredXPath referenceXPath;
     private final String withinXPath;
     private final Function<List<Element>, T> mappingFunction;
 
@@ -58,8 +59,8 @@ public class ResolvingXMLMapper<T> implements XMLMapper<T> {
      * @param mappingFunction the mapping function.
      */
     public ResolvingXMLMapper(String baseXPath, String referenceXPath, String withinXPath, Function<List<Element>, T> mappingFunction) {
-        this.baseXPath = baseXPath;
-        this.referenceXPath = referenceXPath;
+        this.baseXPath = new AnchoredXPath(baseXPath);
+        this.referenceXPath = new AnchoredXPath(referenceXPath);
         this.withinXPath = withinXPath;
         this.mappingFunction = mappingFunction;
     }
@@ -67,14 +68,11 @@ public class ResolvingXMLMapper<T> implements XMLMapper<T> {
     @Override
     public T resolve(Object context, Namespace... namespace) {
         // Resolve base or reference
-        XPathExpression<Element> expression = XPathFactory.instance().compile(baseXPath, Filters.element(), null, namespace);
-
-        var elementList = expression.evaluate(context);
+        var elementList = baseXPath.evaluate(context, namespace);
 
         if (elementList.isEmpty()) {
             // Try resolving the reference XPath
-            XPathExpression<Element> referenceExpression = XPathFactory.instance().compile(referenceXPath, Filters.element(), null, namespace);
-            var referenceElements = referenceExpression.evaluate(context);
+            var referenceElements = referenceXPath.evaluate(context, namespace);
 
             if (!referenceElements.isEmpty()) {
                 elementList = resolveReferences(referenceElements);
@@ -17,20 +17,19 @@ package eu.cessda.pasc.oci.parser;
 
 import org.jdom2.Element;
 import org.jdom2.Namespace;
-import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 
 import java.util.List;
 import java.util.function.Function;
 
 /**
  * Maps elements found at a specified XPath using a provided mapping function.
+ * XPaths that start with an anchor element are evaluated relative to it, see {@link AnchoredXPath}.
  *
  * @param <T> the resulting type of the mapping function.
  */
 class SimpleXMLMapper<T> implements XMLMapper<T> {
-    private final String xPath;
+    private final AnchoredXPath xPath;
     private final Function<List<Element>, T> mappingFunction;
 
     /**
@@ -40,7 +39,7 @@ class SimpleXMLMapper<T> implements XMLMapper<T> {
      * @param mappingFunction the mapping function.
      */
     SimpleXMLMapper(String xPath, Function<List<Element>, T> mappingFunction) {
-        this.xPath = xPath;
+        this.xPath = new AnchoredXPath(xPath);
         this.mappingFunction = mappingFunction;
     }
 
@@ -53,8 +52,7 @@ class SimpleXMLMapper<T> implements XMLMapper<T> {
      */
     @Override
     public T resolve(Object context, Namespace... namespace) {
-        XPathExpression<Element> expression = XPathFactory.instance().compile(xPath, Filters.element(), null, namespace);
-        var result = expression.evaluate(context);
+        var result = xPath.evaluate(context, namespace);
         return mappingFunction.apply(result);
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicates immutable values that are repeated across many studies, such as vocabulary terms, countries,
+ * publishers, language codes and data access values.
+ * <p>
+ * Values are held weakly, so interned values that are no longer referenced by any study can be garbage collected.
+ * The interner is scoped to an indexing run using {@link #reset()}, which also resets the statistics of the interner.
+ * Only immutable values, such as records and strings, may be interned.
+ */
+public final class ValueInterner {
+
+    /**
+     * The size of an object header and a reference, assuming compressed references.
+     */
+    private static final int OBJECT_HEADER_SIZE = 12;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int STRING_SIZE = 24;
+    private static final int ARRAY_HEADER_SIZE = 16;
+
+    private static final ClassValue<RecordComponent[]> RECORD_COMPONENTS = new ClassValue<>() {
+        @Override
+        protected RecordComponent[] computeValue(Class<?> type) {
+            return type.isRecord() ? type.getRecordComponents() : new RecordComponent[0];
+        }
+    };
+
+    private static volatile Run currentRun = new Run();
+
+    private ValueInterner() {
+    }
+
+    /**
+     * Returns the canonical instance of the given value.
+     *
+     * @param value the value to intern, can be {@code null}.
+     * @return the canonical instance, or {@code null} if the value was {@code null}.
+     */
+    public static <T> T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+        return currentRun.intern(value);
+    }
+
+    /**
+     * Gets the statistics of the interner since the start of the run.
+     */
+    public static Statistics getStatistics() {
+        return currentRun.getStatistics();
+    }
+
+    /**
+     * Starts a new run, discarding the interned values and statistics of the previous run.
+     *
+     * @return the statistics of the previous run.
+     */
+    public static Statistics reset() {
+        var previousRun = currentRun;
+        currentRun = new Run();
+        return previousRun.getStatistics();
+    }
+
+    /**
+     * Estimates the heap used by a value that would be retained if the value was not deduplicated.
+     * Strings and the components of records are included, other objects are counted as a single object header.
+     */
+    static long estimateSize(Object value) {
+        if (value instanceof String string) {
+            // Strings containing only Latin-1 characters use one byte per character
+            return align(STRING_SIZE) + align(ARRAY_HEADER_SIZE + (long) string.length());
+        }
+
+        var components = RECORD_COMPONENTS.get(value.getClass());
+        long size = align(OBJECT_HEADER_SIZE + (long) components.length * REFERENCE_SIZE);
+        for (var component : components) {
+            try {
+                var componentValue = component.getAccessor().invoke(value);
+                if (componentValue != null) {
+                    size += estimateSize(componentValue);
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // The component can't be measured
+            }
+        }
+        return size;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static final class Run {
+        private final Interner<Object> interner = Interners.newWeakInterner();
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder bytesSaved = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        <T> T intern(T value) {
+            lookups.increment();
+            var canonical = (T) interner.intern(value);
+            if (canonical != value) {
+                duplicates.increment();
+                bytesSaved.add(estimateSize(value));
+            }
+            return canonical;
+        }
+
+        Statistics getStatistics() {
+            return new Statistics(lookups.sum(), duplicates.sum(), bytesSaved.sum());
+        }
+    }
+
+    /**
+     * Statistics of the interner.
+     *
+     * @param lookups    the number of values interned.
+     * @param duplicates the number of values that were replaced by an existing instance.
+     * @param bytesSaved the estimated heap that would have been used by the duplicate values.
+     */
+    public record Statistics(long lookups, long duplicates, long bytesSaved) {
+
+        /**
+         * Returns the statistics accumulated since the given statistics were taken.
+         */
+        public Statistics since(Statistics previous) {
+            return new Statistics(lookups - previous.lookups, duplicates - previous.duplicates, bytesSaved - previous.bytesSaved);
+        }
+    }
+}
@@ -187,7 +187,7 @@ public interface XMLMapper<T> {
     @NonNull
     static <T> Function<List<Element>, Map<String, T>> parseLanguageContentOfElement(Function<Element, T> mappingFunction, BinaryOperator<T> mergeFunction) {
         return elementList -> {
-            var langMap = new HashMap<String, T>();
+            var langMap = new LanguageMap<T>();
 
             for (var element : elementList) {
                 var lang = getLangOfElement(element);
@@ -212,7 +212,7 @@ public interface XMLMapper<T> {
     @NonNull
     static <T> Function<List<Element>, Map<String, List<T>>> extractMetadataObjectListForEachLang(Function<Element, Optional<T>> elementExtractor) {
         return elementList -> {
-            var map = new HashMap<String, List<T>>();
+            var map = new LanguageMap<List<T>>();
 
             for (var element : elementList) {
                 elementExtractor.apply(element).ifPresent(mappedElement ->
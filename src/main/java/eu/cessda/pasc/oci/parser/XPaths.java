@@ -20,13 +20,12 @@ import eu.cessda.pasc.oci.models.cmmstudy.*;
 import lombok.*;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
-import org.jdom2.filter.Filters;
-import org.jdom2.xpath.XPathFactory;
 
 import javax.annotation.Nullable;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static eu.cessda.pasc.oci.parser.ParsingStrategies.*;
 import static eu.cessda.pasc.oci.parser.XMLMapper.*;
@@ -45,6 +44,13 @@ public final class XPaths {
 
     @NonNull
     private final Namespace[] namespace;
+    /**
+     * The children of the metadata root element that contain the fields read by these XPaths.
+     * Other children can be pruned when parsing, see {@link PruningXMLFilter}.
+     * If {@code null}, documents using these XPaths are never pruned.
+     */
+    @Nullable
+    private final Set<String> metadataSections;
     // Codebook Paths
     private final String recordDefaultLanguage;
     private final XMLMapper<Optional<String>> yearOfPubXPath;
@@ -232,11 +238,18 @@ public final class XPaths {
         return Optional.ofNullable(generalDataFormatXPath);
     }
 
+    private static final XMLMapper<Map<String, List<String>>> DDI_2_5_DOC_DSCR_HOLDINGS_XPATH =
+        new SimpleXMLMapper<>("//ddi:codeBook/ddi:docDscr/ddi:citation/ddi:holdings", extractMetadataObjectListForEachLang(ParsingStrategies::uriStrategy));
+    private static final XMLMapper<Map<String, List<String>>> DDI_2_5_STDY_DSCR_HOLDINGS_XPATH =
+        new SimpleXMLMapper<>("//ddi:codeBook/ddi:stdyDscr/ddi:citation/ddi:holdings", extractMetadataObjectListForEachLang(ParsingStrategies::uriStrategy));
+
     /**
      * XPaths needed to extract metadata from DDI 2.5 documents.
      */
     public static final XPaths DDI_2_5_XPATHS = XPaths.builder()
         .namespace(new Namespace[]{ Namespace.getNamespace("ddi", "ddi:codebook:2_5") })
+        // Sections read by the XPaths below, dataDscr and otherMat are not used
+        .metadataSections(Set.of("docDscr", "stdyDscr", "fileDscr"))
         // Abstract
         .abstractXPath(new SimpleXMLMapper<>("//ddi:codeBook/ddi:stdyDscr/ddi:stdyInfo/ddi:abstract", parseLanguageContentOfElement(Element::getTextTrim, (a, b) -> a + "<br>" + b)))
         // Study title
@@ -245,13 +258,8 @@ public final class XPaths {
         .parTitleXPath(new SimpleXMLMapper<>("//ddi:codeBook/ddi:stdyDscr/ddi:citation/ddi:titlStmt/ddi:parTitl", parseLanguageContentOfElement(Element::getTextTrim)))
         // 'Access study' link
         .studyURLXPath((context, namespace) -> {
-            var docDscrExpr = XPathFactory.instance().compile("//ddi:codeBook/ddi:docDscr/ddi:citation/ddi:holdings", Filters.element(), null, namespace);
-            var docDscrElems = docDscrExpr.evaluate(context);
-            var docUriStrings = extractMetadataObjectListForEachLang(ParsingStrategies::uriStrategy).apply(docDscrElems);
-
-            var stdyDscrExpr = XPathFactory.instance().compile("//ddi:codeBook/ddi:stdyDscr/ddi:citation/ddi:holdings", Filters.element(), null, namespace);
-            var stdyDscrElems = stdyDscrExpr.evaluate(context);
-            var studyUriStrings = extractMetadataObjectListForEachLang(ParsingStrategies::uriStrategy).apply(stdyDscrElems);
+            var docUriStrings = DDI_2_5_DOC_DSCR_HOLDINGS_XPATH.resolve(context, namespace);
+            var studyUriStrings = DDI_2_5_STDY_DSCR_HOLDINGS_XPATH.resolve(context, namespace);
 
             // URLs in docDscr override stdyDscr
             var studyURLs = new HashMap<>(docUriStrings);
@@ -315,6 +323,8 @@ public final class XPaths {
      */
     public static final XPaths NESSTAR_XPATHS = XPaths.builder()
         .namespace(new Namespace[]{ Namespace.getNamespace("ddi", "http://www.icpsr.umich.edu/DDI") })
+        // Sections read by the XPaths below, fileDscr, dataDscr and otherMat are not used
+        .metadataSections(Set.of("docDscr", "stdyDscr"))
         .recordDefaultLanguage("//ddi:codeBook/@xml-lang") // Nesstar with "-"
         // Closest for Nesstar based on CMM mapping doc but the above existing one for ddi2.5 seems to be present in Nesstar
         .yearOfPubXPath(new SimpleXMLMapper<>("//ddi:codeBook/stdyDscr/citation/distStmt/distDate[1]", getFirstEntry(ParsingStrategies::dateStrategy)))
@@ -358,6 +368,21 @@ public final class XPaths {
         entry(NESSTAR_XPATHS.getNamespace()[0], NESSTAR_XPATHS)
     );
 
+    /**
+     * The metadata sections of each namespace that can be pruned, keyed by namespace URI.
+     */
+    private static final Map<String, Set<String>> METADATA_SECTIONS = XPATH_MAP.entrySet().stream()
+        .filter(entry -> entry.getValue().getMetadataSections() != null)
+        .collect(Collectors.toUnmodifiableMap(entry -> entry.getKey().getURI(), entry -> entry.getValue().getMetadataSections()));
+
+    /**
+     * Gets the sections of the metadata root element that are read by each set of XPaths, keyed by the namespace URI
+     * of the metadata root element. Namespaces whose XPaths may read any part of the document are not included.
+     */
+    static Map<String, Set<String>> getMetadataSectionsByNamespace() {
+        return METADATA_SECTIONS;
+    }
+
     /**
      * Get the XPaths for a given XML namespace
      *
@@ -19,12 +19,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+
 /**
  * Diagnostics Managed Resource Service class.
  *
@@ -37,15 +40,28 @@ public class StatusService {
 
   private final AppConfigurationProperties appConfigurationProperties;
   private final ObjectWriter prettyPrinter;
+  private final CMMStudyMapper cmmStudyMapper;
 
   @Autowired
-  public StatusService(AppConfigurationProperties appConfigurationProperties, ObjectMapper objectMapper) {
+  public StatusService(AppConfigurationProperties appConfigurationProperties, ObjectMapper objectMapper, CMMStudyMapper cmmStudyMapper) {
     this.appConfigurationProperties = appConfigurationProperties;
     this.prettyPrinter = objectMapper.writerWithDefaultPrettyPrinter();
+    this.cmmStudyMapper = cmmStudyMapper;
   }
 
   @ManagedOperation(description = "Prints out the CDC Handler OAI-PMH DDI 2.5 Configuration")
   public String printPaSCHandlerOaiPmhConfig() throws JsonProcessingException {
     return "Config for DDI 2.5: [" + prettyPrinter.writeValueAsString(appConfigurationProperties.oaiPmh()) + "]";
   }
+
+  @ManagedOperation(description = "Reloads the data access mappings used to categorise free text data access statements")
+  public String reloadDataAccessMappings() {
+    try {
+      cmmStudyMapper.reloadDataAccessMappings();
+      return "Data access mappings reloaded";
+    } catch (IOException e) {
+      log.error("Couldn't reload data access mappings: {}", e.toString());
+      return "Couldn't reload data access mappings: " + e;
+    }
+  }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.CheckpointProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.elasticsearch.IngestService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests related to {@link CheckpointJournal}
+ */
+public class CheckpointJournalTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path checkpointDirectory;
+    private Repo repo;
+
+    @Before
+    public void setUp() throws IOException {
+        checkpointDirectory = temporaryFolder.newFolder("checkpoint").toPath();
+        var repositoryDirectory = temporaryFolder.newFolder("repository").toPath();
+        Files.writeString(repositoryDirectory.resolve("record1.xml"), "<record/>");
+        Files.writeString(repositoryDirectory.resolve("record2.xml"), "<record/>");
+        repo = new Repo(URI.create("https://example.org/oai"), repositoryDirectory, "EXAMPLE", null, null, null);
+    }
+
+    private CheckpointJournal newJournal() {
+        var journal = new CheckpointJournal(new CheckpointProperties(checkpointDirectory, null), objectMapper);
+        journal.load();
+        return journal;
+    }
+
+    @Test
+    public void shouldResumeFromCommittedLanguages() {
+        // Given
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+
+        // When the indexer restarts
+        var resumedJournal = newJournal();
+
+        // Then
+        then(resumedJournal.isLanguageComplete(repo, "en")).isTrue();
+        then(resumedJournal.isLanguageComplete(repo, "fi")).isFalse();
+        then(resumedJournal.isRepositoryComplete(repo)).isFalse();
+    }
+
+    @Test
+    public void shouldSkipCompletedRepositories() {
+        // Given
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+        journal.markRepositoryComplete(repo);
+
+        // When the indexer restarts
+        var resumedJournal = newJournal();
+
+        // Then
+        then(resumedJournal.isRepositoryComplete(repo)).isTrue();
+    }
+
+    @Test
+    public void shouldDiscardProgressIfFilesChange() throws IOException {
+        // Given
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+        journal.markRepositoryComplete(repo);
+
+        // When a file is modified before the indexer restarts
+        Files.writeString(repo.path().resolve("record1.xml"), "<record>modified</record>");
+        var resumedJournal = newJournal();
+        resumedJournal.beginRepository(repo, resumedJournal.getFileStates(repo));
+
+        // Then
+        then(resumedJournal.isRepositoryComplete(repo)).isFalse();
+        then(resumedJournal.isLanguageComplete(repo, "en")).isFalse();
+    }
+
+    @Test
+    public void shouldDiscardExpiredJournals() {
+        // Given
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+
+        // When
+        var expiringJournal = new CheckpointJournal(new CheckpointProperties(checkpointDirectory, Duration.ofMillis(-1)), objectMapper);
+        expiringJournal.load();
+
+        // Then
+        then(expiringJournal.isLanguageComplete(repo, "en")).isFalse();
+    }
+
+    @Test
+    public void shouldKeepTheParserVersionOfTheLastCompletedRun() {
+        // Given
+        var journal = newJournal();
+        then(journal.isParserVersionCurrent("version")).isFalse();
+
+        // When
+        journal.recordParserVersion("version");
+        journal.clear();
+
+        // Then the version outlives the journal
+        var nextJournal = newJournal();
+        then(nextJournal.isParserVersionCurrent("version")).isTrue();
+        then(nextJournal.isParserVersionCurrent("changed version")).isFalse();
+    }
+
+    @Test
+    public void shouldRemoveTheJournalWhenCleared() {
+        // Given
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+        then(checkpointDirectory.resolve("checkpoint.json")).exists();
+
+        // When
+        journal.clear();
+
+        // Then
+        then(checkpointDirectory.resolve("checkpoint.json")).doesNotExist();
+        then(newJournal().isLanguageComplete(repo, "en")).isFalse();
+    }
+
+    @Test
+    public void shouldShowThatTheLastRunWasInterrupted() {
+        // Given a run that has started, but hasn't recorded any progress
+        var journal = newJournal();
+        then(journal.hasInterruptedRun()).isTrue();
+
+        // When the run completes
+        journal.clear();
+
+        // Then
+        then(journal.hasInterruptedRun()).isFalse();
+        then(CheckpointJournal.disabled().hasInterruptedRun()).isFalse();
+    }
+
+    @Test
+    public void shouldRestoreTheIndicesAfterAnInterruptedRun() {
+        // Given a run that was interrupted
+        newJournal();
+
+        var ingestService = mock(IngestService.class);
+        var indexerRunner = new IndexerRunner(
+            new AppConfigurationProperties(null, null, null, List.of(repo)),
+            mock(IndexerConsumerService.class),
+            mock(PipelineUtilities.class),
+            ingestService,
+            new CheckpointJournal(new CheckpointProperties(checkpointDirectory, null), objectMapper),
+            RepositoryLeaseManager.disabled(),
+            new IndexingProperties(false, false)
+        );
+
+        // When the indexer starts
+        indexerRunner.restoreInterruptedBulkLoad();
+
+        // Then
+        verify(ingestService).abortBulkLoad();
+    }
+
+    @Test
+    public void shouldNotRecordProgressWhenDisabled() {
+        var journal = CheckpointJournal.disabled();
+        journal.load();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markLanguageComplete(repo, "en");
+
+        then(journal.isEnabled()).isFalse();
+        then(journal.isLanguageComplete(repo, "en")).isFalse();
+        then(journal.getFileStates(repo)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotReindexCompletedRepositories() {
+        // Given a repository completed before the last run was interrupted
+        var journal = newJournal();
+        journal.beginRepository(repo, journal.getFileStates(repo));
+        journal.markRepositoryComplete(repo);
+
+        var appConfigurationProperties = new AppConfigurationProperties(null, null, null, List.of(repo));
+        var indexerConsumerService = mock(IndexerConsumerService.class);
+        var indexerRunner = new IndexerRunner(
+            appConfigurationProperties,
+            indexerConsumerService,
+            mock(PipelineUtilities.class),
+            mock(IngestService.class),
+            newJournal(),
+            RepositoryLeaseManager.disabled(),
+            new IndexingProperties(false, false)
+        );
+
+        // When
+        indexerRunner.executeHarvestAndIngest();
+
+        // Then the repository is skipped, and the journal is removed as the run completed
+        verify(indexerConsumerService, never()).getRecords(any(Repo.class));
+        then(checkpointDirectory.resolve("checkpoint.json")).doesNotExist();
+    }
+}
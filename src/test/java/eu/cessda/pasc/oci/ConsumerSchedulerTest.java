@@ -27,18 +27,17 @@ import eu.cessda.pasc.oci.models.RecordHeader;
 import eu.cessda.pasc.oci.parser.RecordXMLParser;
 import eu.cessda.pasc.oci.service.DebuggingJMXBean;
 import org.junit.Test;
-import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import static eu.cessda.pasc.oci.mock.data.RecordTestData.*;
 import static eu.cessda.pasc.oci.mock.data.ReposTestData.getSingleEndpoint;
 import static eu.cessda.pasc.oci.mock.data.ReposTestData.getUKDSRepo;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 import static org.mockito.Mockito.*;
 
 
@@ -75,9 +74,6 @@ public class ConsumerSchedulerTest {
         var harvesterConsumerService = mockRecordRequests();
         var debuggingJMXBean = mockDebuggingJMXBean();
 
-        // mock for ES bulking
-        when(esIndexer.getStudy(Mockito.anyString(), Mockito.anyString())).thenReturn(Optional.empty());
-
         // Mock requests for indexed repository content
         when(esIndexer.getStudiesByRepository(anyString(), anyString())).thenReturn(Collections.emptySet());
 
@@ -98,9 +94,8 @@ public class ConsumerSchedulerTest {
         var harvesterConsumerService = mockRecordRequests();
         var debuggingJMXBean = mockDebuggingJMXBean();
 
-        // mock for ES bulking
-        when(esIndexer.getStudy(Mockito.anyString(), Mockito.anyString())).thenReturn(Optional.empty());
-        when(esIndexer.getStudy(Mockito.eq("UKDS__998"), Mockito.anyString())).thenReturn(Optional.of(getCmmStudyOfLanguageCodeEnX1().getFirst()));
+        // Mock requests for indexed repository content
+        when(esIndexer.getStudiesByRepository(anyString(), anyString())).thenReturn(Set.of(getCmmStudyOfLanguageCodeEnX1().getFirst()));
 
         // Given
         var harvesterRunner = new IndexerRunner(appConfigurationProperties, harvesterConsumerService, pipelineUtilities, esIndexer);
@@ -112,6 +107,39 @@ public class ConsumerSchedulerTest {
         thenVerifyFullRun(debuggingJMXBean);
     }
 
+    @Test
+    public void shouldOnlyKeepStoredStudiesIfTheyAreUsed() throws IOException, IndexerException, IndexingException {
+        var harvesterConsumerService = mockRecordRequests();
+        when(esIndexer.getStudiesByRepository(anyString(), anyString())).thenReturn(Set.of(getCmmStudyOfLanguageCodeEnX1().getFirst()));
+
+        // Given
+        var harvesterRunner = new IndexerRunner(appConfigurationProperties, harvesterConsumerService, pipelineUtilities, esIndexer);
+
+        // When the ingest service doesn't use the stored studies, then they aren't passed to it
+        harvesterRunner.executeHarvestAndIngest();
+        verify(esIndexer, times(3)).bulkIndex(anyList(), isNull(), anyString());
+
+        // When the ingest service uses the stored studies, then they are passed to it
+        when(esIndexer.usesStoredStudies()).thenReturn(true);
+        harvesterRunner.executeHarvestAndIngest();
+        verify(esIndexer, times(3)).bulkIndex(anyList(), notNull(), anyString());
+    }
+
+    @Test
+    public void shouldAbortTheBulkLoadIfTheRunFails() throws IOException, IndexerException {
+        // Given an error that isn't handled by the harvest of a repository
+        doThrow(OutOfMemoryError.class).when(esIndexer).getStudiesByRepository(anyString(), anyString());
+        var harvesterRunner = new IndexerRunner(appConfigurationProperties, mockRecordRequests(), pipelineUtilities, esIndexer);
+
+        // When
+        thenThrownBy(harvesterRunner::executeHarvestAndIngest).isInstanceOf(OutOfMemoryError.class);
+
+        // Then the indices are restored, rather than being left in the bulk load state
+        verify(esIndexer).beginBulkLoad();
+        verify(esIndexer).abortBulkLoad();
+        verify(esIndexer, never()).endBulkLoad();
+    }
+
     @Test
     public void shouldLogErrorOnException() throws IOException, IndexingException {
 
@@ -131,6 +159,9 @@ public class ConsumerSchedulerTest {
 
         // Verify hit counts were obtained
         verify(esIndexer).getTotalHitCount("*");
+        verify(esIndexer, times(2)).getBulkStatistics();
+        verify(esIndexer, times(1)).beginBulkLoad();
+        verify(esIndexer, times(1)).endBulkLoad();
 
         // Reindexing currently runs regardless of indexing result
         verify(esIndexer, times(1)).reindexAllThemes();
@@ -168,16 +199,21 @@ public class ConsumerSchedulerTest {
 
         // No bulk attempt should have been made for "sv" as it does not have the minimum valid cmm fields
         // 'en', 'fi', 'de' has all minimum fields
-        verify(esIndexer, times(3)).bulkIndex(anyList(), matches("(en|fi|de)"));
+        verify(esIndexer, times(3)).bulkIndex(anyList(), any(), matches("(en|fi|de)"));
         verify(esIndexer, times(3)).bulkDelete(anyList(), matches("(en|fi|de)"));
 
-        // Called for deletions
+        // Called for deletions, and to count the created and updated studies
         verify(esIndexer, times(3)).getStudiesByRepository(anyString(), anyString());
+        verify(esIndexer, times(3)).usesStoredStudies();
 
         // Called for logging purposes
-        verify(esIndexer, times(27)).getStudy(Mockito.anyString(), Mockito.anyString());
         verify(esIndexer, times(1)).getTotalHitCount("*");
 
+        // Called for bulk statistics, at the start and end of the run
+        verify(esIndexer, times(2)).getBulkStatistics();
+        verify(esIndexer, times(1)).beginBulkLoad();
+        verify(esIndexer, times(1)).endBulkLoad();
+
         // Called for reindexing themes
         verify(esIndexer, times(1)).reindexAllThemes();
         verifyNoMoreInteractions(esIndexer);
@@ -190,8 +226,7 @@ public class ConsumerSchedulerTest {
         var debuggingJMXBean = mockDebuggingJMXBean();
 
         // mock for ES bulking
-        doThrow(ElasticsearchException.class).when(esIndexer).bulkIndex(anyList(), anyString());
-        when(esIndexer.getStudy(Mockito.anyString(), Mockito.anyString())).thenReturn(Optional.empty());
+        doThrow(ElasticsearchException.class).when(esIndexer).bulkIndex(anyList(), any(), anyString());
 
         // Given
         var harvesterRunner = new IndexerRunner(appConfigurationProperties, harvesterConsumerService, pipelineUtilities, esIndexer);
@@ -201,10 +236,13 @@ public class ConsumerSchedulerTest {
         scheduler.runIndexer();
 
         // Verify that the mock was called
-        verify(esIndexer, times(27)).getStudy(Mockito.anyString(), Mockito.anyString());
         verify(esIndexer, times(1)).getTotalHitCount("*");
-        verify(esIndexer, times(3)).bulkIndex(anyList(), anyString());
+        verify(esIndexer, times(3)).bulkIndex(anyList(), any(), anyString());
         verify(esIndexer, times(3)).getStudiesByRepository(anyString(), anyString());
+        verify(esIndexer, times(3)).usesStoredStudies();
+        verify(esIndexer, times(2)).getBulkStatistics();
+        verify(esIndexer, times(1)).beginBulkLoad();
+        verify(esIndexer, times(1)).endBulkLoad();
         verify(esIndexer, times(1)).reindexAllThemes();
         verifyNoMoreInteractions(esIndexer);
     }
@@ -216,9 +254,8 @@ public class ConsumerSchedulerTest {
         var debuggingJMXBean = mockDebuggingJMXBean();
 
         // mock for ES bulking
-        doThrow(IndexingException.class).when(esIndexer).bulkIndex(anyList(), anyString());
+        doThrow(IndexingException.class).when(esIndexer).bulkIndex(anyList(), any(), anyString());
         when(esIndexer.getTotalHitCount("*")).thenThrow(IOException.class);
-        when(esIndexer.getStudy(Mockito.anyString(), Mockito.anyString())).thenReturn(Optional.empty());
 
         // Given
         var harvesterRunner = new IndexerRunner(appConfigurationProperties, harvesterConsumerService, pipelineUtilities, esIndexer);
@@ -228,10 +265,14 @@ public class ConsumerSchedulerTest {
         scheduler.runIndexer();
 
         // Verify that the mock was called
-        verify(esIndexer, times(27)).getStudy(Mockito.anyString(), Mockito.anyString());
         verify(esIndexer, times(1)).getTotalHitCount("*");
-        verify(esIndexer, times(3)).bulkIndex(anyList(), anyString());
+        verify(esIndexer, times(3)).bulkIndex(anyList(), any(), anyString());
         verify(esIndexer, times(3)).getStudiesByRepository(anyString(), anyString());
+        verify(esIndexer, times(3)).usesStoredStudies();
+        // The bulk statistics are logged even though the hit count couldn't be retrieved
+        verify(esIndexer, times(2)).getBulkStatistics();
+        verify(esIndexer, times(1)).beginBulkLoad();
+        verify(esIndexer, times(1)).endBulkLoad();
         verify(esIndexer, times(1)).reindexAllThemes();
         verifyNoMoreInteractions(esIndexer);
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * Tests related to {@link ForkJoinBatches}
+ */
+public class ForkJoinBatchesTest {
+
+    private final List<Integer> items = IntStream.range(0, 100).boxed().toList();
+
+    @Test
+    public void shouldMapItemsInOrder() throws ExecutionException, InterruptedException {
+        try (var pool = new ForkJoinPool(4)) {
+            var result = pool.submit(() -> ForkJoinBatches.map(items, 7, item -> item * 2)).get();
+
+            then(result).isEqualTo(items.stream().map(item -> item * 2).toList());
+        }
+    }
+
+    @Test
+    public void shouldRunBatchesOnOtherWorkers() throws ExecutionException, InterruptedException {
+        // Given two batches that can only complete if they run at the same time
+        var latch = new CountDownLatch(2);
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+
+        // When
+        try (var pool = new ForkJoinPool(2)) {
+            pool.submit(() -> ForkJoinBatches.map(List.of(1, 2), 1, item -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    return latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            })).get();
+        }
+
+        // Then
+        then(latch.getCount()).isZero();
+        then(threads).hasSize(2);
+    }
+
+    @Test
+    public void shouldMapSequentiallyOutsideOfAForkJoinPool() {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+
+        var result = ForkJoinBatches.map(items, 1, item -> {
+            threads.add(Thread.currentThread());
+            return item;
+        });
+
+        then(result).isEqualTo(items);
+        then(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    public void shouldPropagateExceptions() {
+        try (var pool = new ForkJoinPool(2)) {
+            thenThrownBy(() -> pool.submit(() -> ForkJoinBatches.map(items, 10, item -> {
+                if (item == 55) {
+                    throw new IllegalStateException("Failed to map " + item);
+                }
+                return item;
+            })).get()).hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+}
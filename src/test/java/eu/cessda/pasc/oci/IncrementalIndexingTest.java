@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.CheckpointProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.elasticsearch.InMemoryIngestService;
+import eu.cessda.pasc.oci.elasticsearch.IndexingException;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
+import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests related to incremental indexing in {@link IndexerRunner}
+ */
+public class IncrementalIndexingTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final InMemoryIngestService ingestService = new InMemoryIngestService();
+
+    private Repo repo;
+    private AppConfigurationProperties appConfigurationProperties;
+    private IndexerConsumerService indexerConsumerService;
+    private IndexerRunner incrementalRunner;
+
+    @Before
+    public void setUp() throws IOException {
+        // Copy records with OAI-PMH headers into a repository that can be modified
+        var sourceDirectory = ReposTestData.getUKDSRepo().path();
+        var repositoryDirectory = temporaryFolder.newFolder("UKDS").toPath();
+        Files.copy(sourceDirectory.resolve("ddi_record_ukds_example.xml"), repositoryDirectory.resolve("ddi_record_ukds_example.xml"));
+        Files.copy(sourceDirectory.resolve("oai-fsd_uta_fi-FSD3187.xml"), repositoryDirectory.resolve("oai-fsd_uta_fi-FSD3187.xml"));
+
+        var ukdsRepo = ReposTestData.getUKDSRepo();
+        repo = new Repo(ukdsRepo.url(), repositoryDirectory, ukdsRepo.code(), ukdsRepo.name(), ukdsRepo.preferredMetadataParam(), ukdsRepo.defaultLanguage());
+
+        appConfigurationProperties = new AppConfigurationProperties(null, ReposTestData.getSetOfLanguages(), null, List.of(repo));
+        indexerConsumerService = new IndexerConsumerService(
+            new LanguageExtractor(appConfigurationProperties),
+            new RecordXMLParser(new CMMStudyMapper())
+        );
+
+        // Perform an initial full run
+        new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class), ingestService)
+            .executeHarvestAndIngest();
+
+        incrementalRunner = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, CheckpointJournal.disabled(), RepositoryLeaseManager.disabled(), new IndexingProperties(true, false));
+    }
+
+    @Test
+    public void shouldNotMapUnchangedRecords() throws IndexingException {
+        // Given a stored study that differs from the record, but has the same datestamp
+        var storedStudy = ingestService.getStudiesByRepository(repo.code(), "en").iterator().next();
+        ingestService.bulkIndex(List.of(storedStudy.withTitleStudy("Modified title")), "en");
+
+        // When
+        incrementalRunner.executeHarvestAndIngest();
+
+        // Then the record was skipped, so the stored study was not replaced
+        then(ingestService.getStudy(storedStudy.id(), "en")).hasValueSatisfying(study ->
+            then(study.titleStudy()).isEqualTo("Modified title")
+        );
+    }
+
+    @Test
+    public void shouldMapChangedRecords() throws IndexingException {
+        // Given a stored study with a different datestamp
+        var storedStudy = ingestService.getStudiesByRepository(repo.code(), "en").iterator().next();
+        ingestService.bulkIndex(List.of(storedStudy.withTitleStudy("Modified title").withLastModified("2000-01-01T00:00:00Z")), "en");
+
+        // When
+        incrementalRunner.executeHarvestAndIngest();
+
+        // Then the record was mapped again
+        then(ingestService.getStudy(storedStudy.id(), "en")).hasValueSatisfying(study ->
+            then(study.titleStudy()).isNotEqualTo("Modified title")
+        );
+    }
+
+    @Test
+    public void shouldMapRecordsMissingALanguage() throws IndexingException {
+        // Given a study that is missing from one of the languages it is available in
+        var storedStudy = ingestService.getStudiesByRepository(repo.code(), "en").stream()
+            .filter(study -> study.langAvailableIn().size() > 1)
+            .findFirst().orElseThrow();
+        var missingLanguage = storedStudy.langAvailableIn().stream().filter(lang -> !lang.equals("en")).findFirst().orElseThrow();
+        ingestService.bulkDelete(List.of(storedStudy), missingLanguage);
+
+        // When
+        incrementalRunner.executeHarvestAndIngest();
+
+        // Then the record was mapped again, restoring the missing language
+        then(ingestService.getStudy(storedStudy.id(), missingLanguage)).isPresent();
+    }
+
+    @Test
+    public void shouldMapAllRecordsWhenTheParserHasChanged() throws IOException, IndexingException {
+        // Given a stored study that differs from the record, and a parser version that differs from the last run
+        var storedStudy = ingestService.getStudiesByRepository(repo.code(), "en").iterator().next();
+        ingestService.bulkIndex(List.of(storedStudy.withTitleStudy("Modified title")), "en");
+
+        var checkpointJournal = new CheckpointJournal(
+            new CheckpointProperties(temporaryFolder.newFolder("checkpoint").toPath(), null),
+            new ObjectMapper()
+        );
+        checkpointJournal.recordParserVersion("previous version");
+
+        // When
+        new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, checkpointJournal, RepositoryLeaseManager.disabled(), new IndexingProperties(true, false)
+        ).executeHarvestAndIngest();
+
+        // Then the record was mapped again, and the version of the parser was recorded
+        then(ingestService.getStudy(storedStudy.id(), "en")).hasValueSatisfying(study ->
+            then(study.titleStudy()).isNotEqualTo("Modified title")
+        );
+        then(checkpointJournal.isParserVersionCurrent(indexerConsumerService.getParserVersion())).isTrue();
+    }
+
+    @Test
+    public void shouldDeleteRemovedRecordsButNotSkippedRecords() throws IOException {
+        // Given
+        var totalStudies = ingestService.getTotalHitCount("*");
+        var removedStudies = ingestService.getStudiesByRepository(repo.code(), "*").stream()
+            .filter(study -> study.studyNumber().equals("oai:fsd.uta.fi:FSD3187"))
+            .count();
+        then(removedStudies).isPositive();
+
+        // When
+        Files.delete(repo.path().resolve("oai-fsd_uta_fi-FSD3187.xml"));
+        incrementalRunner.executeHarvestAndIngest();
+
+        // Then only the studies of the removed record were deleted
+        then(ingestService.getTotalHitCount("*")).isEqualTo(totalStudies - removedStudies);
+    }
+}
@@ -20,6 +20,7 @@ import eu.cessda.pasc.oci.mock.data.RecordTestData;
 import eu.cessda.pasc.oci.mock.data.ReposTestData;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudy;
 import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import eu.cessda.pasc.oci.models.cmmstudy.Country;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -205,4 +206,33 @@ public class LanguageExtractorTest {
             assertThat(cmmStudyOfLanguages.langAvailableIn()).containsExactlyInAnyOrder("en", "fi")
         );
     }
+
+    @Test
+    public void shouldShareLanguageNeutralFieldsBetweenLanguages() throws IOException {
+
+        // Given
+        CMMStudy cmmStudy = RecordTestData.getSyntheticCmmStudy();
+
+        // When
+        var cmmStudyOfLanguage = languageExtractor.extractFromStudy(cmmStudy, ReposTestData.getUKDSRepo());
+
+        // Then
+        var english = cmmStudyOfLanguage.get("en");
+        var finnish = cmmStudyOfLanguage.get("fi");
+        then(english.id()).isSameAs(finnish.id());
+        then(english.langAvailableIn()).isSameAs(finnish.langAvailableIn());
+        then(english.titleStudy()).isEqualTo(cmmStudy.titleStudy().get("en"));
+        then(finnish.titleStudy()).isEqualTo(cmmStudy.titleStudy().get("fi"));
+
+        // Country names are resolved from the ISO code, the element text is language specific
+        then(english.studyAreaCountries()).containsExactly(
+            new Country("FI", "Finland", "Finland"),
+            new Country("FR", "France", "France")
+        );
+        then(finnish.studyAreaCountries()).containsExactly(
+            new Country("FI", "Suomi", "Finland"),
+            new Country("FR", "Ranska", "France")
+        );
+        then(cmmStudyOfLanguage.get("de").studyAreaCountries()).isEmpty();
+    }
 }
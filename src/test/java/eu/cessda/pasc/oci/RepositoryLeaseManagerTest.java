@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.DistributedProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.elasticsearch.IndexingException;
+import eu.cessda.pasc.oci.elasticsearch.IngestService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests related to {@link RepositoryLeaseManager}
+ */
+public class RepositoryLeaseManagerTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<RepositoryLeaseManager> leaseManagers = new ArrayList<>();
+    private final List<Repo> repos = List.of(repo("APIS"), repo("FSD"), repo("GESIS"), repo("UKDS"));
+
+    private Path leaseDirectory;
+
+    private static Repo repo(String code) {
+        return new Repo(URI.create("https://example.org/" + code), Path.of(code), code, null, null, null);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        leaseDirectory = temporaryFolder.newFolder("leases").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        leaseManagers.forEach(RepositoryLeaseManager::shutdown);
+    }
+
+    private RepositoryLeaseManager newLeaseManager(String workerId, Duration leaseDuration) throws IOException {
+        var leaseManager = newLeaseManager(workerId, "run", leaseDuration);
+        leaseManager.beginRun();
+        return leaseManager;
+    }
+
+    private RepositoryLeaseManager newLeaseManager(String workerId, String runId, Duration leaseDuration) {
+        var leaseManager = new RepositoryLeaseManager(
+            new DistributedProperties(true, leaseDirectory, workerId, runId, leaseDuration, Duration.ofMillis(10)),
+            new AppConfigurationProperties(null, null, null, null)
+        );
+        leaseManagers.add(leaseManager);
+        return leaseManager;
+    }
+
+    @Test
+    public void shouldOnlyAllowOneInstanceToHoldALease() throws IOException {
+        // Given
+        var first = newLeaseManager("first", Duration.ofMinutes(10));
+        var second = newLeaseManager("second", Duration.ofMinutes(10));
+
+        // Then
+        then(first.tryAcquire(repos.getFirst())).isTrue();
+        then(second.tryAcquire(repos.getFirst())).isFalse();
+
+        // When the lease is released, the other instance can claim it
+        first.release(repos.getFirst());
+        then(second.tryAcquire(repos.getFirst())).isTrue();
+    }
+
+    @Test
+    public void shouldNotClaimCompletedRepositories() throws IOException {
+        // Given
+        var first = newLeaseManager("first", Duration.ofMinutes(10));
+        var second = newLeaseManager("second", Duration.ofMinutes(10));
+
+        // When
+        first.tryAcquire(repos.getFirst());
+        first.complete(repos.getFirst());
+
+        // Then
+        then(second.isComplete(repos.getFirst())).isTrue();
+        then(second.tryAcquire(repos.getFirst())).isFalse();
+    }
+
+    @Test
+    public void shouldReclaimExpiredLeases() throws IOException {
+        // Given a lease held by an instance that has stopped
+        var stopped = newLeaseManager("stopped", Duration.ofMinutes(10));
+        stopped.tryAcquire(repos.getFirst());
+        stopped.shutdown();
+        Files.setLastModifiedTime(leaseDirectory.resolve("run").resolve("APIS.lease"), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        // Then
+        var running = newLeaseManager("running", Duration.ofMinutes(10));
+        then(running.tryAcquire(repos.getFirst())).isTrue();
+        then(leaseDirectory.resolve("run").resolve("APIS.lease")).hasContent("running");
+    }
+
+    @Test
+    public void shouldRenewLeases() throws IOException {
+        // Given
+        var leaseManager = newLeaseManager("worker", Duration.ofMinutes(10));
+        leaseManager.tryAcquire(repos.getFirst());
+        var leaseFile = leaseDirectory.resolve("run").resolve("APIS.lease");
+        Files.setLastModifiedTime(leaseFile, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        // When
+        leaseManager.renewLeases();
+
+        // Then
+        then(Files.getLastModifiedTime(leaseFile).toInstant()).isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void shouldOnlyAllowOneInstanceToRunReindexing() throws IOException {
+        var first = newLeaseManager("first", Duration.ofMinutes(10));
+        var second = newLeaseManager("second", Duration.ofMinutes(10));
+
+        then(first.tryClaimReindexing()).isTrue();
+        then(second.tryClaimReindexing()).isFalse();
+        then(first.shouldRunReindexing()).isTrue();
+        then(second.shouldRunReindexing()).isFalse();
+    }
+
+    @Test
+    public void shouldStartANewRunOnceTheRunHasFinished() throws IOException {
+        // Given two instances that generate run IDs
+        var first = newLeaseManager("first", null, Duration.ofMinutes(10));
+        var second = newLeaseManager("second", null, Duration.ofMinutes(10));
+        first.beginRun();
+        second.beginRun();
+
+        // When the first instance finishes the run
+        for (var repo : repos) {
+            first.tryAcquire(repo);
+            first.complete(repo);
+        }
+        then(first.tryClaimReindexing()).isTrue();
+
+        // Then the second instance, which joined the same run, has nothing left to claim
+        then(second.isRunFinished()).isTrue();
+        then(second.tryAcquire(repos.getFirst())).isFalse();
+
+        // When the next run starts
+        first.beginRun();
+        second.beginRun();
+
+        // Then the repositories can be claimed again, and the previous run has been removed
+        then(first.shouldRunReindexing()).isFalse();
+        then(first.isComplete(repos.getFirst())).isFalse();
+        then(second.tryAcquire(repos.getFirst())).isTrue();
+        then(leaseDirectory.resolve("run-1")).doesNotExist();
+        then(leaseDirectory.resolve("run-2")).isDirectory();
+    }
+
+    @Test
+    public void shouldRemoveAbandonedRuns() throws IOException {
+        // Given a run that was abandoned
+        var abandoned = newLeaseManager("abandoned", "abandoned", Duration.ofMinutes(10));
+        abandoned.beginRun();
+        abandoned.tryAcquire(repos.getFirst());
+        abandoned.shutdown();
+        var abandonedRun = leaseDirectory.resolve("abandoned");
+        var oneHourAgo = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(abandonedRun.resolve("APIS.lease"), oneHourAgo);
+        Files.setLastModifiedTime(abandonedRun, oneHourAgo);
+
+        // When
+        newLeaseManager("worker", Duration.ofMinutes(10));
+
+        // Then
+        then(abandonedRun).doesNotExist();
+    }
+
+    @Test
+    public void shouldOrderRepositoriesDifferentlyPerInstance() throws IOException {
+        var first = newLeaseManager("first", Duration.ofMinutes(10));
+
+        // The order must be stable for an instance
+        then(first.preferredOrder(repos)).isEqualTo(first.preferredOrder(repos));
+        then(first.preferredOrder(repos)).containsExactlyInAnyOrderElementsOf(repos);
+    }
+
+    @Test
+    public void shouldIndexEachRepositoryOnceAcrossInstances() throws IndexingException, IOException {
+        // Given two instances sharing the same repositories
+        var indexerConsumerService = mock(IndexerConsumerService.class);
+        when(indexerConsumerService.getRecords(any(Repo.class))).thenReturn(Collections.emptyMap());
+        var ingestService = mock(IngestService.class);
+        var appConfigurationProperties = new AppConfigurationProperties(null, null, null, repos);
+
+        var first = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, CheckpointJournal.disabled(), newLeaseManager("first", Duration.ofMinutes(10)), new IndexingProperties(false, false));
+        var second = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, CheckpointJournal.disabled(), newLeaseManager("second", Duration.ofMinutes(10)), new IndexingProperties(false, false));
+
+        // When
+        first.executeHarvestAndIngest();
+        second.executeHarvestAndIngest();
+        first.executeReindexing();
+        second.executeReindexing();
+
+        // Then every repository was indexed once, and reindexing only ran once
+        for (var repo : repos) {
+            verify(indexerConsumerService, times(1)).getRecords(repo);
+        }
+        verify(ingestService, times(1)).reindexAllThemes();
+    }
+
+    @Test
+    public void shouldIndexRepositoriesAgainInTheNextRun() throws IndexingException {
+        // Given an instance that generates run IDs
+        var indexerConsumerService = mock(IndexerConsumerService.class);
+        when(indexerConsumerService.getRecords(any(Repo.class))).thenReturn(Collections.emptyMap());
+        var ingestService = mock(IngestService.class);
+        var appConfigurationProperties = new AppConfigurationProperties(null, null, null, repos);
+
+        var indexerRunner = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, CheckpointJournal.disabled(), newLeaseManager("worker", null, Duration.ofMinutes(10)), new IndexingProperties(false, false));
+
+        // When two runs are started one after the other
+        indexerRunner.executeHarvestAndIngest();
+        indexerRunner.executeReindexing();
+        indexerRunner.executeHarvestAndIngest();
+        indexerRunner.executeReindexing();
+
+        // Then every repository was indexed in both runs
+        for (var repo : repos) {
+            verify(indexerConsumerService, times(2)).getRecords(repo);
+        }
+        verify(ingestService, times(2)).endBulkLoad();
+        verify(ingestService, times(2)).reindexAllThemes();
+    }
+}
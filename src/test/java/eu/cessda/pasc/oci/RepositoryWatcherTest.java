@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.DistributedProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.configurations.WatchProperties;
+import eu.cessda.pasc.oci.elasticsearch.InMemoryIngestService;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
+import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests related to {@link RepositoryWatcher}
+ */
+public class RepositoryWatcherTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final InMemoryIngestService ingestService = new InMemoryIngestService();
+    private final IndexerRunner indexerRunner = mock(IndexerRunner.class);
+
+    private Path sourceRecord;
+    private Repo repo;
+    private AppConfigurationProperties appConfigurationProperties;
+    private IndexerConsumerService indexerConsumerService;
+    private RepositoryWatcher repositoryWatcher;
+
+    @Before
+    public void setUp() throws IOException {
+        sourceRecord = ReposTestData.getUKDSRepo().path().resolve("ddi_record_ukds_example.xml");
+        repo = new Repo(URI.create("https://oai.ukdataservice.ac.uk:8443/oai/provider"), temporaryFolder.newFolder("UKDS").toPath(), "UKDS", null, "ddi", null);
+        when(indexerRunner.getRepositories()).thenAnswer(invocation -> Stream.of(repo));
+
+        appConfigurationProperties = new AppConfigurationProperties(null, ReposTestData.getSetOfLanguages(), null, List.of(repo));
+        indexerConsumerService = new IndexerConsumerService(
+            new LanguageExtractor(appConfigurationProperties),
+            new RecordXMLParser(new CMMStudyMapper())
+        );
+        repositoryWatcher = new RepositoryWatcher(
+            new WatchProperties(true, true, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofHours(1)),
+            mock(ConsumerScheduler.class),
+            indexerRunner,
+            indexerConsumerService,
+            ingestService,
+            RepositoryLeaseManager.disabled()
+        );
+    }
+
+    @After
+    public void tearDown() {
+        repositoryWatcher.shutdown();
+    }
+
+    @Test
+    public void shouldIndexChangedFilesAndDeleteRemovedFiles() throws IOException {
+        // Given
+        var record = Files.copy(sourceRecord, repo.path().resolve("record.xml"));
+
+        // When
+        var created = new RepositoryWatcher.PendingChanges();
+        created.changed(record);
+        repositoryWatcher.indexChanges(repo, created);
+
+        // Then
+        then(ingestService.getTotalHitCount("*")).isPositive();
+
+        // When
+        Files.delete(record);
+        var deleted = new RepositoryWatcher.PendingChanges();
+        deleted.deleted(record);
+        repositoryWatcher.indexChanges(repo, deleted);
+
+        // Then the studies of the file are removed without comparing the whole repository
+        then(ingestService.getTotalHitCount("*")).isZero();
+        verify(indexerRunner, never()).executeRepositoryHarvest(any(Repo.class));
+    }
+
+    @Test
+    public void shouldDeleteRemovedFilesWhenStudiesAreRoutedByRepository() throws IOException {
+        // Given
+        ingestService.setRouting(true);
+        var record = Files.copy(sourceRecord, repo.path().resolve("record.xml"));
+        var created = new RepositoryWatcher.PendingChanges();
+        created.changed(record);
+        repositoryWatcher.indexChanges(repo, created);
+        then(ingestService.getTotalHitCount("*")).isPositive();
+
+        // When
+        Files.delete(record);
+        var deleted = new RepositoryWatcher.PendingChanges();
+        deleted.deleted(record);
+        repositoryWatcher.indexChanges(repo, deleted);
+
+        // Then the deletions are routed by the repository of the studies
+        then(ingestService.getTotalHitCount("*")).isZero();
+    }
+
+    @Test
+    public void shouldNotDeleteStudiesThatMovedToAnotherFile() throws IOException {
+        // Given
+        var record = Files.copy(sourceRecord, repo.path().resolve("record.xml"));
+        var changes = new RepositoryWatcher.PendingChanges();
+        changes.changed(record);
+        repositoryWatcher.indexChanges(repo, changes);
+        var indexedStudies = ingestService.getTotalHitCount("*");
+
+        // When the file is renamed
+        var renamed = Files.move(record, repo.path().resolve("renamed.xml"));
+        var rename = new RepositoryWatcher.PendingChanges();
+        rename.deleted(record);
+        rename.changed(renamed);
+        repositoryWatcher.indexChanges(repo, rename);
+
+        // Then
+        then(ingestService.getTotalHitCount("*")).isEqualTo(indexedStudies);
+    }
+
+    @Test
+    public void shouldDeleteStudiesRemovedFromFilesThatExistedBeforeTheWatcherStarted() throws IOException {
+        // Given a file indexed by a harvest before the watcher started, which reports the studies of the file
+        var record = Files.copy(sourceRecord, repo.path().resolve("record.xml"));
+        var harvestRunner = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class), ingestService);
+        harvestRunner.setFileStudiesListener(repositoryWatcher::recordFileStudies);
+        harvestRunner.executeRepositoryHarvest(repo);
+        var previousStudyIds = ingestService.getIndexNames().stream()
+            .flatMap(index -> ingestService.getIndex(index).keySet().stream())
+            .toList();
+        then(previousStudyIds).isNotEmpty();
+
+        // When the file is replaced with a different record
+        Files.copy(ReposTestData.getUKDSRepo().path().resolve("ddi_record_1683_with_codebookXmlLag.xml"), record, StandardCopyOption.REPLACE_EXISTING);
+        var changes = new RepositoryWatcher.PendingChanges();
+        changes.changed(record);
+        repositoryWatcher.indexChanges(repo, changes);
+
+        // Then the studies of the previous record are deleted without comparing the whole repository
+        for (var index : ingestService.getIndexNames()) {
+            then(ingestService.getIndex(index)).doesNotContainKeys(previousStudyIds.toArray(String[]::new));
+        }
+        then(ingestService.getTotalHitCount("*")).isPositive();
+        verify(indexerRunner, never()).executeRepositoryHarvest(any(Repo.class));
+    }
+
+    @Test
+    public void shouldRejectWatchingWithDistributedHarvesting() throws IOException {
+        // Given
+        var leaseManager = new RepositoryLeaseManager(
+            new DistributedProperties(true, temporaryFolder.newFolder("leases").toPath(), "worker", null, Duration.ofMinutes(1), Duration.ofMillis(10)),
+            appConfigurationProperties
+        );
+
+        // When
+        thenThrownBy(() -> new RepositoryWatcher(
+            new WatchProperties(true, true, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofHours(1)),
+            mock(ConsumerScheduler.class),
+            indexerRunner,
+            indexerConsumerService,
+            ingestService,
+            leaseManager
+        )).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldCompareTheRepositoryIfAnUnknownFileIsDeleted() {
+        // Given
+        var changes = new RepositoryWatcher.PendingChanges();
+        changes.deleted(repo.path().resolve("unknown.xml"));
+
+        // When
+        repositoryWatcher.indexChanges(repo, changes);
+
+        // Then
+        verify(indexerRunner).executeRepositoryHarvest(repo);
+    }
+
+    @Test
+    public void shouldDetectChangesByPolling() throws Exception {
+        // Given
+        var watchThread = new Thread(() -> {
+            try {
+                repositoryWatcher.watch();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        watchThread.start();
+
+        // Wait for the initial state of the directory to be recorded
+        await(() -> !mockingDetails(indexerRunner).getInvocations().isEmpty());
+        Thread.sleep(200);
+
+        // When
+        Files.copy(sourceRecord, repo.path().resolve("record.xml"));
+
+        // Then
+        await(() -> ingestService.getIndexNames().stream().anyMatch(index -> !ingestService.getIndex(index).isEmpty()));
+
+        // When
+        Files.delete(repo.path().resolve("record.xml"));
+
+        // Then
+        await(() -> ingestService.getIndexNames().stream().allMatch(index -> ingestService.getIndex(index).isEmpty()));
+
+        repositoryWatcher.shutdown();
+        watchThread.join(TimeUnit.SECONDS.toMillis(10));
+        then(watchThread.isAlive()).isFalse();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            then(System.nanoTime()).as("Timed out waiting for condition").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
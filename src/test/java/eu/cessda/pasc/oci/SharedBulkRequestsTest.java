@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci;
+
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.IndexingProperties;
+import eu.cessda.pasc.oci.elasticsearch.InMemoryIngestService;
+import eu.cessda.pasc.oci.elasticsearch.IndexingException;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
+import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests related to indexing all languages of a repository with shared bulk requests in {@link IndexerRunner}
+ */
+public class SharedBulkRequestsTest {
+
+    private final AppConfigurationProperties appConfigurationProperties = new AppConfigurationProperties(
+        null, ReposTestData.getSetOfLanguages(), null, List.of(ReposTestData.getUKDSRepo())
+    );
+    private final IndexerConsumerService indexerConsumerService = new IndexerConsumerService(
+        new LanguageExtractor(appConfigurationProperties),
+        new RecordXMLParser(new CMMStudyMapper())
+    );
+
+    private IndexerRunner newRunner(InMemoryIngestService ingestService, boolean sharedBulkRequests) {
+        return new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class),
+            ingestService, CheckpointJournal.disabled(), RepositoryLeaseManager.disabled(), new IndexingProperties(false, sharedBulkRequests));
+    }
+
+    @Test
+    public void shouldIndexAllLanguagesWithFewerRequests() {
+        // Given
+        var separateIngestService = new InMemoryIngestService();
+        var sharedIngestService = new InMemoryIngestService();
+
+        // When
+        newRunner(separateIngestService, false).executeHarvestAndIngest();
+        newRunner(sharedIngestService, true).executeHarvestAndIngest();
+
+        // Then the same studies are indexed
+        then(sharedIngestService.getIndexNames()).isNotEmpty().isEqualTo(separateIngestService.getIndexNames());
+        for (var indexName : separateIngestService.getIndexNames()) {
+            then(sharedIngestService.getIndex(indexName)).isEqualTo(separateIngestService.getIndex(indexName));
+        }
+        then(sharedIngestService.getRequestCount()).isLessThan(separateIngestService.getRequestCount());
+    }
+
+    @Test
+    public void shouldDeleteRemovedStudiesFromAllLanguages() throws IndexingException {
+        // Given a study that is no longer present in the repository
+        var ingestService = new InMemoryIngestService();
+        var runner = newRunner(ingestService, true);
+        runner.executeHarvestAndIngest();
+
+        var storedStudy = ingestService.getStudiesByRepository(ReposTestData.getUKDSRepo().code(), "en").iterator().next();
+        var removedStudy = storedStudy.withId(storedStudy.id() + "-removed");
+        ingestService.bulkIndex(List.of(removedStudy), "en");
+
+        // When
+        runner.executeHarvestAndIngest();
+
+        // Then
+        then(ingestService.getStudy(removedStudy.id(), "en")).isEmpty();
+        then(ingestService.getStudy(storedStudy.id(), "en")).isPresent();
+    }
+}
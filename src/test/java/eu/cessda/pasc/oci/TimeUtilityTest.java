@@ -20,6 +20,10 @@ import org.junit.Test;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.List;
 import java.util.TimeZone;
 import java.util.function.Function;
 
@@ -71,4 +75,68 @@ public class TimeUtilityTest {
           then(e.getParsedString()).isEqualTo(invalid);
       }
   }
+
+    @Test
+    public void shouldReportInvalidDatesWithoutThrowing() {
+        then(TimeUtility.tryGetTimeFormat("invalid-date-string", Function.identity())).isEmpty();
+        then(TimeUtility.isValidDate("invalid-date-string")).isFalse();
+
+        // The date is valid, but can't be converted to the requested type
+        then(TimeUtility.isValidDate("2018-03")).isTrue();
+        then(TimeUtility.tryGetTimeFormat("2018-03", LocalDate::from)).isEmpty();
+
+        then(TimeUtility.tryGetTimeFormat("2015-05-04T22:55:30+0000", LocalDateTime::from))
+            .contains(LocalDateTime.of(2015, 5, 4, 22, 55, 30));
+    }
+
+    @Test
+    public void shouldParseDatesTheSameWayAsTheFormatters() {
+        var dates = List.of(
+            // ISO formats
+            "1915", "1915-01", "1915-1", "1915-13", "1915--1", "+19150", "-0001", "0000",
+            "2018-03-20", "1915-1-1", "2020-02-30", "2021-02-29", "+999999999-12-31",
+            "1982-01-01T00:00:00Z", "1982-01-01T00:00:00z", "2015-05-04T12:00", "2015-05-04T12:00:00.",
+            "2015-05-04T12:00:00.123456789", "2015-05-04T24:00", "2015-05-04T12:00+01:00", "2015-05-04T12:00-18:00",
+            "2015-05-04T12:00+01:00:30",
+            // NESSTAR formats
+            "2015-05-04T22:55:30+0000", "2015-05-04T12:00-0130", "2015-05-04T24:00+0100",
+            // Invalid dates
+            "", "invalid-date-string", "191", "19150", "+1915", "-0000", "1915-", "1915--0", "1915-+1",
+            "2020-02-32", "1915-01-00", "1915-01-01T", "2015-05-04t12:00", "2015-05-04T12", "2015-05-04T1:00",
+            "2015-05-04T24:00:01", "2015-05-04T23:59:60", "2015-05-04T12:00:00.1234567891", "2015-05-04T12:00+01",
+            "2015-05-04T12:00+19:00", "2015-05-04T12:00+1900", "2015-05-04T12:00+0060", "2015-05-04T12:00Z+0000",
+            "+1000000000-01-01", "1915-12345678901234567890"
+        );
+
+        for (var date : dates) {
+            TemporalAccessor expected;
+            try {
+                expected = TimeUtility.parseWithFormatters(date);
+            } catch (DateTimeParseException e) {
+                expected = null;
+            }
+
+            var actual = TimeUtility.parse(date);
+            if (expected == null) {
+                then(actual).as(date).isNull();
+            } else {
+                then(actual).as(date).isNotNull();
+                then(describe(actual)).as(date).isEqualTo(describe(expected));
+            }
+        }
+    }
+
+    /**
+     * Describes the fields of a {@link TemporalAccessor} so that different implementations can be compared.
+     */
+    private static String describe(TemporalAccessor temporalAccessor) {
+        var description = new StringBuilder();
+        for (var field : List.of(ChronoField.YEAR, ChronoField.MONTH_OF_YEAR)) {
+            description.append(temporalAccessor.isSupported(field) ? temporalAccessor.getLong(field) : "-").append('/');
+        }
+        return description.append(temporalAccessor.query(TemporalQueries.localDate())).append('/')
+            .append(temporalAccessor.query(TemporalQueries.localTime())).append('/')
+            .append(temporalAccessor.query(TemporalQueries.offset()))
+            .toString();
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import eu.cessda.pasc.oci.mock.data.RecordTestData;
+import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serialising studies to JSON with the default Jackson configuration against serialising with the
+ * Blackbird module, which replaces reflection with generated accessors.
+ * <p>
+ * Run using {@code mvn -P benchmark -DskipTests test -Dbenchmark=DocumentSerializationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentSerializationBenchmark {
+
+    private final ObjectWriter defaultWriter = new ObjectMapper().writer();
+    private final ObjectWriter blackbirdWriter = new ObjectMapper().registerModule(new BlackbirdModule()).writer();
+
+    private CMMStudyOfLanguage study;
+
+    @Setup
+    public void setUp() throws IOException {
+        study = RecordTestData.getCmmStudyOfLanguageCodeEnX1().getFirst();
+
+        // Both configurations must produce the same documents for the comparison to be meaningful
+        if (!Arrays.equals(defaultSerializer(), blackbird())) {
+            throw new IllegalStateException("Blackbird output differs from the default serialiser");
+        }
+    }
+
+    @Benchmark
+    public byte[] defaultSerializer() throws IOException {
+        return defaultWriter.writeValueAsBytes(study);
+    }
+
+    @Benchmark
+    public byte[] blackbird() throws IOException {
+        return blackbirdWriter.writeValueAsBytes(study);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.benchmark;
+
+import com.neovisionaries.i18n.CountryCode;
+import eu.cessda.pasc.oci.LanguageExtractor;
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.mock.data.RecordTestData;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.models.cmmstudy.*;
+import eu.cessda.pasc.oci.parser.XMLMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the single pass projection of {@link LanguageExtractor} against the previous implementation,
+ * which computed the language neutral fields of a study once per language.
+ * <p>
+ * Run using {@code mvn -P benchmark -DskipTests test -Dbenchmark=LanguageExtractorBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LanguageExtractorBenchmark {
+
+    private final Set<String> languages = AppConfigurationProperties.SUPPORTED_LANGUAGES;
+    private final LanguageExtractor languageExtractor = new LanguageExtractor(new AppConfigurationProperties(null, languages, null, null));
+    private final Repo repository = ReposTestData.getUKDSRepo();
+
+    private CMMStudy cmmStudy;
+
+    @Setup
+    public void setUp() throws IOException {
+        cmmStudy = RecordTestData.getSyntheticCmmStudy();
+
+        // Both implementations must produce the same documents for the comparison to be meaningful
+        if (!new HashMap<>(projection()).equals(baseline())) {
+            throw new IllegalStateException("Projection differs from the baseline implementation");
+        }
+    }
+
+    @Benchmark
+    public Map<String, CMMStudyOfLanguage> projection() {
+        return languageExtractor.extractFromStudy(cmmStudy, repository);
+    }
+
+    @Benchmark
+    public Map<String, CMMStudyOfLanguage> baseline() {
+        var validLanguages = languages.stream().filter(language -> isValidCMMStudyForLang(cmmStudy, language)).toList();
+        return validLanguages.stream().collect(Collectors.toMap(
+            langCode -> langCode,
+            langCode -> getCmmStudyOfLanguage(cmmStudy, langCode, Set.copyOf(validLanguages), repository)
+        ));
+    }
+
+    private static boolean isValidCMMStudyForLang(CMMStudy cmmStudy, String languageIsoCode) {
+        return (cmmStudy.titleStudy() != null) && (cmmStudy.titleStudy().get(languageIsoCode) != null) &&
+            (cmmStudy.abstractField() != null) && (cmmStudy.abstractField().get(languageIsoCode) != null) &&
+            (cmmStudy.studyNumber() != null) && !cmmStudy.studyNumber().isEmpty() &&
+            (cmmStudy.publisher() != null) && (cmmStudy.publisher().get(languageIsoCode) != null);
+    }
+
+    /**
+     * The previous implementation of the language projection.
+     */
+    private static CMMStudyOfLanguage getCmmStudyOfLanguage(CMMStudy cmmStudy, String lang, Set<String> availableLanguages, Repo repository) {
+        var builder = CMMStudyOfLanguage.builder();
+
+        var id = cmmStudy.repositoryUrl() + "-" + cmmStudy.studyNumber();
+        var hashedId = DigestUtils.sha256Hex(id.getBytes(StandardCharsets.UTF_8));
+
+        builder.id(hashedId)
+            .code(repository.code())
+            .studyNumber(cmmStudy.studyNumber())
+            .lastModified(cmmStudy.lastModified())
+            .publicationYear(cmmStudy.publicationYear())
+            .fileLanguages(cmmStudy.fileLanguages())
+            .dataCollectionPeriodStartdate(cmmStudy.dataCollectionPeriodStartdate())
+            .dataCollectionPeriodEnddate(cmmStudy.dataCollectionPeriodEnddate())
+            .dataCollectionYear(cmmStudy.dataCollectionYear())
+            .dataAccess(cmmStudy.dataAccess())
+            .langAvailableIn(availableLanguages);
+        Optional.ofNullable(cmmStudy.studyXmlSourceUrl()).ifPresent(url -> builder.studyXmlSourceUrl(url.toString()));
+        builder.publisherFilter(new Publisher(repository.code(), repository.name()));
+
+        Optional.ofNullable(cmmStudy.titleStudy()).map(map -> map.get(lang)).ifPresent(builder::titleStudy);
+        Optional.ofNullable(cmmStudy.abstractField()).map(map -> map.get(lang)).ifPresent(builder::abstractField);
+        Optional.ofNullable(cmmStudy.keywords()).map(map -> map.get(lang)).ifPresent(builder::keywords);
+        Optional.ofNullable(cmmStudy.classifications()).map(map -> map.get(lang)).ifPresent(builder::classifications);
+        Optional.ofNullable(cmmStudy.typeOfTimeMethods()).map(map -> map.get(lang)).ifPresent(builder::typeOfTimeMethods);
+        var countries = Optional.ofNullable(cmmStudy.studyAreaCountries())
+            .map(map -> map.get(lang)).stream().flatMap(Collection::stream)
+            .map(country -> Optional.ofNullable(CountryCode.getByCode(country.isoCode()))
+                .map(CountryCode::getName)
+                .map(countryName -> new Country(country.isoCode(), country.elementText(), countryName))
+                .orElse(country)
+            ).toList();
+        builder.studyAreaCountries(countries);
+        Optional.ofNullable(cmmStudy.unitTypes()).map(map -> map.get(lang)).ifPresent(builder::unitTypes);
+        Optional.ofNullable(cmmStudy.pidStudies()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::pidStudies);
+        Optional.ofNullable(cmmStudy.creators()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::creators);
+        Optional.ofNullable(cmmStudy.typeOfSamplingProcedures()).map(map -> map.get(lang)).ifPresent(builder::typeOfSamplingProcedures);
+        Optional.ofNullable(cmmStudy.typeOfModeOfCollections()).map(map -> map.get(lang)).ifPresent(builder::typeOfModeOfCollections);
+        Optional.ofNullable(cmmStudy.titleStudy()).map(map -> map.get(lang)).ifPresent(builder::titleStudy);
+        Optional.ofNullable(cmmStudy.dataCollectionFreeTexts()).map(map -> mergeLanguages(map, lang)).ifPresent(builder::dataCollectionFreeTexts);
+        Optional.ofNullable(cmmStudy.dataAccessFreeTexts()).map(map -> map.get(lang)).ifPresent(builder::dataAccessFreeTexts);
+        Optional.ofNullable(cmmStudy.publisher()).map(map -> map.get(lang)).ifPresent(builder::publisher);
+        Optional.ofNullable(cmmStudy.universe()).map(map -> map.get(lang)).ifPresent(builder::universe);
+        Optional.ofNullable(cmmStudy.funding()).map(map -> map.get(lang)).ifPresent(builder::funding);
+        Optional.ofNullable(cmmStudy.relatedPublications()).map(map -> map.get(lang)).ifPresent(builder::relatedPublications);
+        Optional.ofNullable(cmmStudy.dataKindFreeTexts()).map(map -> map.get(lang)).ifPresent(builder::dataKindFreeTexts);
+        Optional.ofNullable(cmmStudy.generalDataFormats()).map(map -> map.get(lang)).ifPresent(builder::generalDataFormats);
+        Optional.ofNullable(cmmStudy.series()).map(map -> map.get(lang)).ifPresent(builder::series);
+
+        Optional.ofNullable(cmmStudy.studyUrl()).flatMap(map -> map.values().stream().filter(Objects::nonNull).findAny()).ifPresent(builder::studyUrl);
+        Optional.ofNullable(cmmStudy.dataAccessUrl()).flatMap(map -> map.values().stream().filter(Objects::nonNull).findAny()).ifPresent(builder::studyUrl);
+        Optional.ofNullable(cmmStudy.studyUrl()).map(map -> map.get(lang)).ifPresent(builder::studyUrl);
+        Optional.ofNullable(cmmStudy.dataAccessUrl()).map(map -> map.get(lang)).ifPresent(builder::dataAccessUrl);
+
+        return builder.build();
+    }
+
+    private static <T> List<T> mergeLanguages(Map<String, List<T>> map, String lang) {
+        var languageSpecificList = map.get(lang);
+        var nonLanguageSpecificList = map.get(XMLMapper.EMPTY_LANGUAGE);
+        if (languageSpecificList != null && nonLanguageSpecificList != null) {
+            var combinedList = new ArrayList<T>(languageSpecificList.size() + nonLanguageSpecificList.size());
+            combinedList.addAll(languageSpecificList);
+            combinedList.addAll(nonLanguageSpecificList);
+            return combinedList;
+        } else if (languageSpecificList != null) {
+            return languageSpecificList;
+        } else {
+            return nonLanguageSpecificList;
+        }
+    }
+}
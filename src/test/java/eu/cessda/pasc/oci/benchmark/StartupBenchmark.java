@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.benchmark;
+
+import eu.cessda.pasc.oci.OCIApplication;
+import eu.cessda.pasc.oci.exception.XMLParseException;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.models.cmmstudy.CMMStudy;
+import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to start the indexer and parse the first record, in a new JVM for each measurement.
+ * The {@code aot} benchmark uses the context initialisation generated by Spring AOT, so the AOT sources must have been
+ * processed by the {@code aot} profile.
+ * <p>
+ * The time is reported by the {@code firstRecordMillis} counter, measured from the start of the JVM until the first
+ * record has been parsed. The score of each benchmark also includes closing the application context. The {@code test}
+ * profile is active, so the indexer isn't run after startup, but AOT initialisation doesn't evaluate profiles at
+ * runtime, so the {@code aot} benchmark starts an indexing run that stops immediately as Elasticsearch is unavailable.
+ * <p>
+ * The class data sharing archive used by the container image isn't measured here, as classes are only archived when
+ * they are loaded from JARs, and the test classpath consists of directories.
+ * <p>
+ * Run using {@code mvn -P aot,benchmark -DskipTests test -Dbenchmark=StartupBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String AOT_INITIALIZER = "eu.cessda.pasc.oci.OCIApplication__ApplicationContextInitializer";
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class FirstRecord {
+        /**
+         * The time from the start of the JVM until the first record was parsed
+         */
+        public long firstRecordMillis;
+    }
+
+    @Benchmark
+    @Fork(5)
+    public List<CMMStudy> startup(FirstRecord firstRecord) {
+        return startAndParseFirstRecord(firstRecord);
+    }
+
+    @Benchmark
+    @Fork(value = 5, jvmArgsAppend = "-Dspring.aot.enabled=true")
+    public List<CMMStudy> aot(FirstRecord firstRecord) throws ClassNotFoundException {
+        // Fail early with a clear message if the AOT sources haven't been processed
+        Class.forName(AOT_INITIALIZER);
+        return startAndParseFirstRecord(firstRecord);
+    }
+
+    /**
+     * Starts the application, parsing the first record as soon as the application context has been refreshed.
+     */
+    private static List<CMMStudy> startAndParseFirstRecord(FirstRecord firstRecord) {
+        var parsedRecord = new Object() {
+            List<CMMStudy> studies;
+        };
+
+        var application = new SpringApplication(OCIApplication.class);
+        application.setAdditionalProfiles("test");
+        application.setDefaultProperties(Map.of(
+            "elasticsearch.hosts[0]", "http://127.0.0.1:1",
+            "logging.level.eu.cessda.pasc.oci", "OFF"
+        ));
+        application.addListeners((ApplicationListener<ContextRefreshedEvent>) event -> {
+            var repo = ReposTestData.getUKDSRepo();
+            try {
+                parsedRecord.studies = event.getApplicationContext().getBean(RecordXMLParser.class)
+                    .getRecord(repo, repo.path().resolve("ddi_record_ukds_example.xml"));
+            } catch (XMLParseException e) {
+                throw new IllegalStateException(e);
+            }
+            firstRecord.firstRecordMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        });
+
+        try (var ignored = application.run()) {
+            return parsedRecord.studies;
+        }
+    }
+}
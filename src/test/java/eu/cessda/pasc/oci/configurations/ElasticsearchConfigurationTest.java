@@ -15,9 +15,15 @@
  */
 package eu.cessda.pasc.oci.configurations;
 
+import co.elastic.clients.transport.rest5_client.low_level.Node;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.core5.http.HttpHost;
 import org.junit.Test;
 
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 import static org.junit.Assert.assertNotNull;
 
 public class ElasticsearchConfigurationTest {
@@ -53,4 +59,44 @@ public class ElasticsearchConfigurationTest {
         // Then
         assertNotNull(client);
     }
+
+    @Test
+    public void shouldCreateElasticsearchRestClientForMultipleHosts() throws Exception {
+        // Given
+        var esConfigurationProperties = new ESConfigurationProperties();
+        esConfigurationProperties.setHosts(List.of("http://es-1:9200", "https://es-2:9201"));
+        var elasticsearchConfiguration = new ElasticsearchConfiguration(
+                "localhost",
+                9200,
+                "username",
+                "password",
+                esConfigurationProperties,
+                new ObjectMapper()
+        );
+
+        // When
+        try (var transport = elasticsearchConfiguration.elasticsearchTransport()) {
+            // Then requests are spread across all configured hosts
+            then(transport.restClient().getNodes()).extracting(Node::getHost).containsExactly(
+                new HttpHost("http", "es-1", 9200),
+                new HttpHost("https", "es-2", 9201)
+            );
+        }
+    }
+
+    @Test
+    public void shouldUseHostAndPortIfNoHostsAreConfigured() {
+        var elasticsearchConfiguration = new ElasticsearchConfiguration("es-1", 9300, null, null, new ObjectMapper());
+
+        then(elasticsearchConfiguration.getHosts()).containsExactly(new HttpHost("http", "es-1", 9300));
+    }
+
+    @Test
+    public void shouldRejectInvalidHosts() {
+        var esConfigurationProperties = new ESConfigurationProperties();
+        esConfigurationProperties.setHosts(List.of("http://es 1:9200"));
+        var elasticsearchConfiguration = new ElasticsearchConfiguration("localhost", 9200, null, null, esConfigurationProperties, new ObjectMapper());
+
+        thenThrownBy(elasticsearchConfiguration::getHosts).isInstanceOf(IllegalArgumentException.class);
+    }
 }
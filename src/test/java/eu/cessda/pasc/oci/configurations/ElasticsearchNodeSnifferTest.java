@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link ElasticsearchNodeSniffer}
+ */
+public class ElasticsearchNodeSnifferTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldOnlyDiscoverDataNodes() throws Exception {
+        // Given
+        var nodesInfo = objectMapper.readTree("""
+            {
+              "nodes": {
+                "a": { "roles": ["master"], "http": { "publish_address": "10.0.0.1:9200" } },
+                "b": { "roles": ["data", "ingest"], "http": { "publish_address": "es-2/10.0.0.2:9200" } },
+                "c": { "roles": ["data_hot", "data_content"], "http": { "publish_address": "[::1]:9201" } },
+                "d": { "roles": [], "http": { "publish_address": "10.0.0.4:9200" } },
+                "e": { "roles": ["data"] }
+              }
+            }
+            """);
+
+        // When
+        var hosts = ElasticsearchNodeSniffer.parseDataNodes(nodesInfo, "https");
+
+        // Then master and coordinating nodes, and nodes without HTTP, are not used
+        then(hosts).containsExactly(
+            new HttpHost("https", "es-2", 9200),
+            new HttpHost("https", "::1", 9201)
+        );
+    }
+
+    @Test
+    public void shouldAssumeNodesWithoutRolesAreDataNodes() throws Exception {
+        var nodesInfo = objectMapper.readTree("""
+            { "nodes": { "a": { "http": { "publish_address": "/10.0.0.1:9200" } } } }
+            """);
+
+        then(ElasticsearchNodeSniffer.parseDataNodes(nodesInfo, "http")).containsExactly(new HttpHost("http", "10.0.0.1", 9200));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.DeleteOperation;
+import co.elastic.clients.elasticsearch.core.bulk.IndexOperation;
+import co.elastic.clients.elasticsearch.core.bulk.UpdateOperation;
+import co.elastic.clients.transport.rest5_client.low_level.Request;
+import co.elastic.clients.transport.rest5_client.low_level.Response;
+import co.elastic.clients.transport.rest5_client.low_level.Rest5Client;
+import co.elastic.clients.util.BinaryData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.cessda.pasc.oci.configurations.ESConfigurationProperties.BulkFormat;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests related to {@link BulkRequestSender}
+ */
+public class BulkRequestSenderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static BulkRequest bulkRequest() {
+        var indexOperation = new IndexOperation.Builder<Map<String, String>>()
+            .index("cmmstudy_en").id("1").document(Map.of("title", "Example")).build();
+        var deleteOperation = new DeleteOperation.Builder().index("cmmstudy_en").id("2").build();
+        return new BulkRequest.Builder().operations(List.of(new BulkOperation(indexOperation), new BulkOperation(deleteOperation))).build();
+    }
+
+    @Test
+    public void shouldEncodeOperationsAsNewlineDelimitedJSON() throws IOException {
+        var sender = new BulkRequestSender(() -> null, objectMapper, BulkFormat.JSON, false);
+
+        var lines = new String(sender.encode(bulkRequest()), StandardCharsets.UTF_8).split("\n");
+
+        then(lines).hasSize(3);
+        then(objectMapper.readTree(lines[0]).at("/index/_id").asText()).isEqualTo("1");
+        then(objectMapper.readTree(lines[1]).get("title").asText()).isEqualTo("Example");
+        then(objectMapper.readTree(lines[2]).at("/delete/_id").asText()).isEqualTo("2");
+    }
+
+    @Test
+    public void shouldWritePreSerializedDocumentsAsIs() throws IOException {
+        var document = BinaryData.of("{\"title\":\"Example\"}".getBytes(StandardCharsets.UTF_8), "application/json");
+        var indexOperation = new IndexOperation.Builder<BinaryData>().index("cmmstudy_en").id("1").document(document).build();
+        var sender = new BulkRequestSender(() -> null, objectMapper, BulkFormat.JSON, false);
+
+        var body = sender.encode(new BulkRequest.Builder().operations(new BulkOperation(indexOperation)).build());
+
+        then(new String(body, StandardCharsets.UTF_8)).endsWith("\n{\"title\":\"Example\"}\n");
+    }
+
+    @Test
+    public void shouldEncodeUpdatesAsPartialDocuments() throws IOException {
+        var updateOperation = new UpdateOperation.Builder<Map<String, String>, Map<String, String>>()
+            .index("cmmstudy_en").id("1").routing("UKDS").action(action -> action.doc(Map.of("title", "Updated"))).build();
+        var sender = new BulkRequestSender(() -> null, objectMapper, BulkFormat.JSON, false);
+
+        var lines = new String(sender.encode(new BulkRequest.Builder().operations(new BulkOperation(updateOperation)).build()), StandardCharsets.UTF_8).split("\n");
+
+        then(lines).hasSize(2);
+        then(objectMapper.readTree(lines[0]).at("/update/routing").asText()).isEqualTo("UKDS");
+        then(objectMapper.readTree(lines[1]).at("/doc/title").asText()).isEqualTo("Updated");
+    }
+
+    @Test
+    public void shouldSeparateSmileValues() throws IOException {
+        var sender = new BulkRequestSender(() -> null, objectMapper, BulkFormat.SMILE, false);
+
+        var body = sender.encode(bulkRequest());
+
+        // Each value is followed by the Smile stream separator
+        then(body[body.length - 1]).isEqualTo((byte) 0xFF);
+        var smileMapper = new ObjectMapper(new SmileFactory());
+        var firstSeparator = indexOf(body, (byte) 0xFF);
+        then(smileMapper.readTree(Arrays.copyOf(body, firstSeparator)).at("/index/_index").asText()).isEqualTo("cmmstudy_en");
+    }
+
+    @Test
+    public void shouldCompressRequestsAndRecordTheirSize() throws IOException {
+        // Given
+        var restClient = mock(Rest5Client.class);
+        var response = mock(Response.class);
+        when(response.getEntity()).thenReturn(new ByteArrayEntity(
+            "{\"errors\":false,\"took\":1,\"items\":[]}".getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON
+        ));
+        when(restClient.performRequest(any(Request.class))).thenReturn(response);
+        var sender = new BulkRequestSender(() -> restClient, objectMapper, BulkFormat.JSON, true);
+
+        // When
+        var bulkResponse = sender.bulk(bulkRequest());
+
+        // Then
+        then(bulkResponse.errors()).isFalse();
+
+        var requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(restClient).performRequest(requestCaptor.capture());
+        var entity = requestCaptor.getValue().getEntity();
+        then(entity.getContentEncoding()).isEqualTo("gzip");
+        try (var decompressed = new GZIPInputStream(entity.getContent())) {
+            then(decompressed.readAllBytes()).isEqualTo(sender.encode(bulkRequest()));
+        }
+
+        var statistics = sender.getStatistics();
+        then(statistics.requests()).isOne();
+        then(statistics.encodedBytes()).isEqualTo(sender.encode(bulkRequest()).length);
+        then(statistics.wireBytes()).isEqualTo(entity.getContentLength());
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
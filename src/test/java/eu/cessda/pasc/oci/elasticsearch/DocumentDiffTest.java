@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link DocumentDiff}
+ */
+public class DocumentDiffTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ObjectNode json(String json) throws IOException {
+        return (ObjectNode) objectMapper.readTree(json);
+    }
+
+    @Test
+    public void shouldReturnAnEmptyDiffForEqualDocuments() throws IOException {
+        var document = json("{\"title\":\"Example\",\"keywords\":[\"a\",\"b\"],\"publisher\":{\"name\":\"UKDS\"}}");
+
+        then(DocumentDiff.diff(document, document.deepCopy())).isEmpty();
+    }
+
+    @Test
+    public void shouldOnlyIncludeChangedFields() throws IOException {
+        var stored = json("{\"title\":\"Example\",\"abstract\":\"Long abstract\",\"lastModified\":\"2024-01-01\"}");
+        var updated = json("{\"title\":\"Example\",\"abstract\":\"Long abstract\",\"lastModified\":\"2025-01-01\"}");
+
+        then(DocumentDiff.diff(stored, updated)).isEqualTo(json("{\"lastModified\":\"2025-01-01\"}"));
+    }
+
+    @Test
+    public void shouldReplaceArraysInFull() throws IOException {
+        var stored = json("{\"keywords\":[\"a\",\"b\"]}");
+        var updated = json("{\"keywords\":[\"a\"]}");
+
+        then(DocumentDiff.diff(stored, updated)).isEqualTo(json("{\"keywords\":[\"a\"]}"));
+    }
+
+    @Test
+    public void shouldSetRemovedFieldsToNull() throws IOException {
+        var stored = json("{\"title\":\"Example\",\"publisher\":{\"abbr\":\"UKDS\",\"name\":\"UK Data Service\"}}");
+        var updated = json("{\"publisher\":{\"name\":\"UK Data Service\"}}");
+
+        then(DocumentDiff.diff(stored, updated)).isEqualTo(json("{\"title\":null,\"publisher\":{\"abbr\":null,\"name\":\"UK Data Service\"}}"));
+    }
+
+    @Test
+    public void shouldTreatNullFieldsAsMissing() throws IOException {
+        var stored = json("{\"title\":\"Example\",\"universe\":null}");
+        var updated = json("{\"title\":\"Example\"}");
+
+        then(DocumentDiff.diff(stored, updated)).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import eu.cessda.pasc.oci.configurations.ESConfigurationProperties.BulkFormat;
+import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static eu.cessda.pasc.oci.mock.data.RecordTestData.getCmmStudyOfLanguageCodeEnX3;
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link DocumentSerializer}
+ */
+public class DocumentSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldSerializeDocumentsInOrder() throws IOException {
+        // Given
+        var studies = new ArrayList<CMMStudyOfLanguage>();
+        for (int i = 0; i < 100; i++) {
+            studies.addAll(getCmmStudyOfLanguageCodeEnX3());
+        }
+        var serializer = new DocumentSerializer(objectMapper, BulkFormat.JSON, ForkJoinPool.commonPool());
+
+        // When
+        var documents = serializer.serializeAsync(studies).join();
+
+        // Then
+        then(documents).hasSameSizeAs(studies);
+        for (int i = 0; i < studies.size(); i++) {
+            var serialized = new ByteArrayOutputStream();
+            documents.get(i).writeTo(serialized);
+            then(documents.get(i).contentType()).isEqualTo("application/json");
+            then(objectMapper.readValue(serialized.toByteArray(), CMMStudyOfLanguage.class)).isEqualTo(studies.get(i));
+        }
+    }
+
+    @Test
+    public void shouldReuseBuffers() {
+        var serializer = new DocumentSerializer(objectMapper, BulkFormat.JSON, ForkJoinPool.commonPool());
+
+        serializer.serialize(Map.of("title", "First"));
+        serializer.serialize(Map.of("title", "Second"));
+
+        then(serializer.getPooledBufferCount()).isOne();
+    }
+
+    @Test
+    public void shouldSerializeDocumentsAsSmile() throws IOException {
+        var serializer = new DocumentSerializer(objectMapper, BulkFormat.SMILE, ForkJoinPool.commonPool());
+
+        var document = serializer.serialize(Map.of("title", "Example"));
+
+        var serialized = new ByteArrayOutputStream();
+        document.writeTo(serialized);
+        then(document.contentType()).isEqualTo("application/smile");
+        then(new ObjectMapper(new SmileFactory()).readTree(serialized.toByteArray()).get("title").asText()).isEqualTo("Example");
+    }
+}
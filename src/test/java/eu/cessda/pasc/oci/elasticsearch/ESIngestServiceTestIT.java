@@ -50,6 +50,7 @@ import java.util.*;
 import static eu.cessda.pasc.oci.mock.data.RecordTestData.getCmmStudyOfLanguageCodeEnX1;
 import static eu.cessda.pasc.oci.mock.data.RecordTestData.getCmmStudyOfLanguageCodeEnX3;
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -88,6 +89,7 @@ public class ESIngestServiceTestIT {
     @After
     public void tearDown() throws IOException {
         deleteIndex(INDEX_NAME);
+        deleteIndex(INDEX_NAME + "_routed");
     }
 
     private void deleteIndex(String index) throws IOException {
@@ -299,6 +301,139 @@ public class ESIngestServiceTestIT {
         }
     }
 
+    @Test
+    public void shouldApplyPartialUpdatesToChangedStudies() throws IndexingException {
+
+        // Given
+        List<CMMStudyOfLanguage> studyOfLanguages = getCmmStudyOfLanguageCodeEnX3();
+        new ESIngestService(elasticsearchClient, esConfigProp).bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+
+        var partialUpdateConfigProp = new ESConfigurationProperties();
+        partialUpdateConfigProp.setNumberOfShards(esConfigProp.getNumberOfShards());
+        partialUpdateConfigProp.setNumberOfReplicas(esConfigProp.getNumberOfReplicas());
+        partialUpdateConfigProp.setPartialUpdates(true);
+        var ingestService = new ESIngestService(elasticsearchClient, partialUpdateConfigProp);
+
+        // When one study has a changed field and another has a removed field
+        var changedStudies = List.of(
+            studyOfLanguages.get(0).withLastModified("2030-01-01T00:00:00Z"),
+            studyOfLanguages.get(1).withAbstractField(null),
+            studyOfLanguages.get(2)
+        );
+        ingestService.bulkIndex(changedStudies, LANGUAGE_ISO_CODE);
+
+        // Then the stored studies match the changed studies
+        for (var expectedStudy : changedStudies) {
+            then(ingestService.getStudy(expectedStudy.id(), LANGUAGE_ISO_CODE)).contains(expectedStudy);
+        }
+    }
+
+    @Test
+    public void shouldSizeShardsAndForceMergeAfterABulkLoad() throws IOException, IndexingException {
+
+        // Setup
+        List<CMMStudyOfLanguage> studyOfLanguages = getCmmStudyOfLanguageCodeEnX3();
+        var bulkLoadConfigProp = new ESConfigurationProperties();
+        bulkLoadConfigProp.setNumberOfShards(1);
+        bulkLoadConfigProp.setNumberOfReplicas(esConfigProp.getNumberOfReplicas());
+        bulkLoadConfigProp.setStudiesPerShard(2);
+        bulkLoadConfigProp.setBulkRefreshInterval("-1");
+        bulkLoadConfigProp.setForceMerge(true);
+        bulkLoadConfigProp.setForceMergeThreshold(0.1);
+        var ingestService = new ESIngestService(elasticsearchClient, bulkLoadConfigProp);
+
+        // Given an index that held the studies when the bulk load began, and is then recreated
+        ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+        elasticsearchClient.indices().refresh(r -> r.index(INDEX_NAME));
+        ingestService.beginBulkLoad();
+        elasticsearchClient.indices().delete(r -> r.index(INDEX_NAME));
+
+        // When the studies are indexed twice, replacing the first versions
+        ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+        then(elasticsearchClient.indices().getSettings(r -> r.index(INDEX_NAME)).get(INDEX_NAME).settings().index().refreshInterval().time())
+            .isEqualTo("-1");
+        ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+        ingestService.endBulkLoad();
+
+        // Then the index is sized for the studies, the refresh interval is reset, and the replaced studies are merged away
+        var settings = elasticsearchClient.indices().getSettings(r -> r.index(INDEX_NAME)).get(INDEX_NAME).settings().index();
+        then(settings.numberOfShards()).isEqualTo("2");
+        then(settings.refreshInterval()).isNull();
+        var docs = elasticsearchClient.indices().stats(r -> r.index(INDEX_NAME).metric("docs")).indices().get(INDEX_NAME).primaries().docs();
+        then(docs.count()).isEqualTo(studyOfLanguages.size());
+        then(docs.deleted()).isZero();
+    }
+
+    @Test
+    public void shouldMigrateToRepositoryRouting() throws IOException, IndexingException {
+
+        // Given an index created without repository routing
+        List<CMMStudyOfLanguage> studyOfLanguages = getCmmStudyOfLanguageCodeEnX3();
+        new ESIngestService(elasticsearchClient, esConfigProp).bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+
+        var routingConfigProp = new ESConfigurationProperties();
+        routingConfigProp.setNumberOfShards(esConfigProp.getNumberOfShards());
+        routingConfigProp.setNumberOfReplicas(esConfigProp.getNumberOfReplicas());
+        routingConfigProp.setRouting(true);
+        var ingestService = new ESIngestService(elasticsearchClient, routingConfigProp);
+
+        // When
+        ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+        elasticsearchClient.indices().refresh(RefreshRequest.of(r -> r.index(INDEX_NAME)));
+
+        // Then the index is replaced by an alias of the routed index, and all studies are present
+        then(elasticsearchClient.indices().existsAlias(r -> r.name(INDEX_NAME).index(INDEX_NAME + "_routed")).value()).isTrue();
+        for (var expectedStudy : studyOfLanguages) {
+            then(ingestService.getStudy(expectedStudy.id(), LANGUAGE_ISO_CODE)).contains(expectedStudy);
+        }
+        var repository = studyOfLanguages.getFirst().code();
+        then(ingestService.getStudiesByRepository(repository, LANGUAGE_ISO_CODE))
+            .containsExactlyInAnyOrderElementsOf(studyOfLanguages.stream().filter(study -> repository.equals(study.code())).toList());
+    }
+
+    @Test
+    public void shouldNotMigrateAnIndexWithStudiesWithoutARepository() throws IOException, IndexingException {
+
+        // Given an index created without repository routing, with a study that doesn't have a repository code
+        List<CMMStudyOfLanguage> studyOfLanguages = new ArrayList<>(getCmmStudyOfLanguageCodeEnX3());
+        studyOfLanguages.set(0, studyOfLanguages.getFirst().withCode(null));
+        new ESIngestService(elasticsearchClient, esConfigProp).bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+        elasticsearchClient.indices().refresh(RefreshRequest.of(r -> r.index(INDEX_NAME)));
+
+        var routingConfigProp = new ESConfigurationProperties();
+        routingConfigProp.setNumberOfShards(esConfigProp.getNumberOfShards());
+        routingConfigProp.setNumberOfReplicas(esConfigProp.getNumberOfReplicas());
+        routingConfigProp.setRouting(true);
+        var ingestService = new ESIngestService(elasticsearchClient, routingConfigProp);
+
+        // When
+        thenThrownBy(() -> ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE)).isInstanceOf(IndexingException.class);
+
+        // Then the index is kept, with all the studies
+        then(elasticsearchClient.indices().existsAlias(r -> r.name(INDEX_NAME)).value()).isFalse();
+        then(elasticsearchClient.count(r -> r.index(INDEX_NAME)).count()).isEqualTo(studyOfLanguages.size());
+    }
+
+    @Test
+    public void shouldGetRoutedStudiesBeforeTheIndexIsRefreshed() throws IndexingException {
+
+        // Given
+        var routingConfigProp = new ESConfigurationProperties();
+        routingConfigProp.setNumberOfShards(esConfigProp.getNumberOfShards());
+        routingConfigProp.setNumberOfReplicas(esConfigProp.getNumberOfReplicas());
+        routingConfigProp.setRouting(true);
+        var ingestService = new ESIngestService(elasticsearchClient, routingConfigProp);
+        List<CMMStudyOfLanguage> studyOfLanguages = getCmmStudyOfLanguageCodeEnX3();
+
+        // When
+        ingestService.bulkIndex(studyOfLanguages, LANGUAGE_ISO_CODE);
+
+        // Then routed gets are real-time, so the studies are found without a refresh
+        for (var expectedStudy : studyOfLanguages) {
+            then(ingestService.getStudy(expectedStudy.id(), expectedStudy.code(), LANGUAGE_ISO_CODE)).contains(expectedStudy);
+        }
+    }
+
     @Test
     public void shouldReturnEmptyOptionalOnInvalidIndex() {
 
@@ -0,0 +1,602 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.ResourceHandler;
+import eu.cessda.pasc.oci.TimeUtility;
+import eu.cessda.pasc.oci.models.cmmstudy.CMMStudyOfLanguage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * An {@link IngestService} that stores studies in memory rather than in Elasticsearch.
+ * <p>
+ * Each index is represented by a concurrent map of document IDs to studies, so that the full harvesting
+ * pipeline can be run and benchmarked without a network connection. Latency and failures can be injected
+ * to simulate a slow or unreliable cluster.
+ * <p>
+ * Theme reindexing is supported using a simple query evaluator that understands the query types used by the
+ * reindex queries in {@code elasticsearch/themes}. Text matching is a case-insensitive token comparison,
+ * fuzziness and scoring are not implemented.
+ */
+@Slf4j
+public class InMemoryIngestService implements IngestService {
+
+    private static final String INDEX_TYPE = "cmmstudy";
+    private static final String INDEX_NAME_TEMPLATE = INDEX_TYPE + "_%s";
+    private static final String MAPPINGS_JSON = "elasticsearch/mappings/mappings_" + INDEX_TYPE + ".json";
+    private static final String REINDEX_THEMES_DIR = "elasticsearch/themes";
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ConcurrentMap<String, ConcurrentMap<String, CMMStudyOfLanguage>> indices = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    /**
+     * Search fields populated using {@code copy_to}, mapped to the source fields that are copied into them.
+     */
+    private final Map<String, List<String>> copyToFields;
+
+    private final Duration latency;
+    private final double failureRate;
+    private final Random random;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+
+    private volatile boolean routing = false;
+
+    /**
+     * Constructs an in-memory ingest service that responds instantly and never fails.
+     */
+    public InMemoryIngestService() {
+        this(Duration.ZERO, 0, new Random());
+    }
+
+    /**
+     * Constructs an in-memory ingest service that simulates latency and failures.
+     *
+     * @param latency     the delay added to every request.
+     * @param failureRate the probability, between 0 and 1, that a request will fail.
+     * @param random      the source of randomness used to decide if a request fails.
+     * @throws IllegalArgumentException if the latency is negative or if the failure rate is out of range.
+     */
+    public InMemoryIngestService(Duration latency, double failureRate, Random random) {
+        if (latency.isNegative()) {
+            throw new IllegalArgumentException("Latency must not be negative");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Failure rate must be between 0 and 1");
+        }
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.random = random;
+
+        try (var mappingsStream = ResourceHandler.getResourceAsStream(MAPPINGS_JSON)) {
+            var mappings = objectMapper.readTree(mappingsStream);
+            var fields = new HashMap<String, List<String>>();
+            collectCopyToFields("", mappings.path("properties"), fields);
+            this.copyToFields = fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Walks the mappings, recording each field that is copied into a search field.
+     */
+    private static void collectCopyToFields(String prefix, JsonNode properties, Map<String, List<String>> fields) {
+        for (var entry : properties.properties()) {
+            var fieldName = prefix + entry.getKey();
+            var copyTo = entry.getValue().path("copy_to");
+            if (copyTo.isTextual()) {
+                fields.computeIfAbsent(copyTo.asText(), k -> new ArrayList<>()).add(fieldName);
+            } else {
+                for (var target : copyTo) {
+                    fields.computeIfAbsent(target.asText(), k -> new ArrayList<>()).add(fieldName);
+                }
+            }
+            collectCopyToFields(fieldName + ".", entry.getValue().path("properties"), fields);
+        }
+    }
+
+    /**
+     * Simulates a request to the cluster, waiting for the configured latency and failing at the configured rate.
+     *
+     * @throws IOException if the request was chosen to fail.
+     */
+    private void simulateRequest() throws IOException {
+        requestCount.getAndIncrement();
+        if (latency.isPositive()) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted whilst waiting for a response", e);
+            }
+        }
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            injectedFailures.getAndIncrement();
+            throw new IOException("Injected failure");
+        }
+    }
+
+    /**
+     * Simulates routing studies by their repository. When enabled, a deletion is only applied if it has the same
+     * repository as the stored study, as Elasticsearch would otherwise send the deletion to a different shard.
+     *
+     * @param routing whether studies are routed by repository.
+     */
+    public void setRouting(boolean routing) {
+        this.routing = routing;
+    }
+
+    private void removeStudy(ConcurrentMap<String, CMMStudyOfLanguage> index, CMMStudyOfLanguage study) {
+        if (routing) {
+            index.computeIfPresent(study.id(), (id, storedStudy) -> Objects.equals(storedStudy.code(), study.code()) ? null : storedStudy);
+        } else {
+            index.remove(study.id());
+        }
+    }
+
+    private ConcurrentMap<String, CMMStudyOfLanguage> getOrCreateIndex(String indexName) {
+        return indices.computeIfAbsent(indexName, k -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Gets the indices matching the given language. A language of * matches all indices.
+     */
+    private List<ConcurrentMap<String, CMMStudyOfLanguage>> getIndices(String language) {
+        if ("*".equals(language)) {
+            return indices.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(INDEX_TYPE + "_"))
+                .map(Map.Entry::getValue)
+                .toList();
+        }
+        var index = indices.get(String.format(INDEX_NAME_TEMPLATE, language));
+        return index != null ? List.of(index) : List.of();
+    }
+
+    @Override
+    public void bulkIndex(Collection<CMMStudyOfLanguage> languageCMMStudiesMap, String languageIsoCode) throws IndexingException {
+        try {
+            simulateRequest();
+        } catch (IOException e) {
+            throw new IndexingException(e);
+        }
+
+        var index = getOrCreateIndex(String.format(INDEX_NAME_TEMPLATE, languageIsoCode));
+        for (var study : languageCMMStudiesMap) {
+            index.put(study.id(), study);
+        }
+    }
+
+    /**
+     * Indexes and deletes the studies of all languages as a single simulated request.
+     */
+    @Override
+    public void bulkIndex(
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToIndex,
+        Map<String, ? extends Collection<CMMStudyOfLanguage>> studiesToDelete,
+        Map<String, ? extends Map<String, CMMStudyOfLanguage>> storedStudies
+    ) throws IndexingException {
+        try {
+            simulateRequest();
+        } catch (IOException e) {
+            throw new IndexingException(e);
+        }
+
+        studiesToIndex.forEach((language, studies) -> {
+            var index = getOrCreateIndex(String.format(INDEX_NAME_TEMPLATE, language));
+            for (var study : studies) {
+                index.put(study.id(), study);
+            }
+        });
+        studiesToDelete.forEach((language, studies) -> {
+            var index = indices.get(String.format(INDEX_NAME_TEMPLATE, language));
+            if (index != null) {
+                for (var study : studies) {
+                    removeStudy(index, study);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void bulkDelete(Collection<CMMStudyOfLanguage> cmmStudiesToDelete, String languageIsoCode) throws IndexingException {
+        if (cmmStudiesToDelete.isEmpty()) {
+            return;
+        }
+
+        try {
+            simulateRequest();
+        } catch (IOException e) {
+            throw new IndexingException(e);
+        }
+
+        var index = indices.get(String.format(INDEX_NAME_TEMPLATE, languageIsoCode));
+        if (index != null) {
+            for (var study : cmmStudiesToDelete) {
+                removeStudy(index, study);
+            }
+        }
+    }
+
+    @Override
+    public long getTotalHitCount(String language) throws IOException {
+        simulateRequest();
+        return getIndices(language).stream().mapToLong(Map::size).sum();
+    }
+
+    @Override
+    public Set<CMMStudyOfLanguage> getAllStudies(String language) {
+        return getStudiesMatching(language, study -> true);
+    }
+
+    @Override
+    public Set<CMMStudyOfLanguage> getStudiesByRepository(String repository, String language) {
+        return getStudiesMatching(language, study -> repository.equals(study.code()));
+    }
+
+    private Set<CMMStudyOfLanguage> getStudiesMatching(String language, Predicate<CMMStudyOfLanguage> filter) {
+        try {
+            simulateRequest();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var studies = new HashSet<CMMStudyOfLanguage>();
+        for (var index : getIndices(language)) {
+            for (var study : index.values()) {
+                if (filter.test(study)) {
+                    studies.add(study);
+                }
+            }
+        }
+        return studies;
+    }
+
+    @Override
+    public Optional<CMMStudyOfLanguage> getStudy(String id, String language) {
+        try {
+            simulateRequest();
+        } catch (IOException e) {
+            log.error("Failed to retrieve study [{}]: {}", id, e.toString());
+            return Optional.empty();
+        }
+
+        var index = indices.get(String.format(INDEX_NAME_TEMPLATE, language));
+        if (index == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index.get(id));
+    }
+
+    @Override
+    public Optional<LocalDate> getMostRecentLastModified() {
+        LocalDate mostRecent = null;
+        for (var index : getIndices("*")) {
+            for (var study : index.values()) {
+                try {
+                    var lastModified = TimeUtility.getTimeFormat(study.lastModified(), LocalDate::from);
+                    if (mostRecent == null || lastModified.isAfter(mostRecent)) {
+                        mostRecent = lastModified;
+                    }
+                } catch (DateTimeException | NullPointerException e) {
+                    log.trace("[{}] lastModified field is not a valid ISO date: {}", study.id(), e.toString());
+                }
+            }
+        }
+        return Optional.ofNullable(mostRecent);
+    }
+
+    /**
+     * Performs reindexing for all themes, using the same reindex queries as {@link ESIngestService}.
+     */
+    @Override
+    public void reindexAllThemes() throws IndexingException {
+        Resource[] resources;
+        try {
+            resources = resolver.getResources("classpath*:" + REINDEX_THEMES_DIR + "/**/reindex_*.json");
+        } catch (IOException e) {
+            throw new IndexingException(e);
+        }
+
+        var allReindexedIdsPerIndex = new HashMap<String, Set<String>>();
+
+        for (var reindexJson : resources) {
+            var filename = reindexJson.getFilename();
+            String[] splitPath;
+            try {
+                splitPath = reindexJson.getURL().getPath().split("/");
+            } catch (IOException e) {
+                throw new IndexingException(e);
+            }
+
+            // Theme name is the name of the parent directory, the language is the last part of the filename
+            var themeName = splitPath[splitPath.length - 2];
+            var langCode = filename.substring(filename.lastIndexOf('_') + 1, filename.lastIndexOf('.'));
+
+            var sourceIndex = indices.get(String.format(INDEX_NAME_TEMPLATE, langCode));
+            if (sourceIndex == null) {
+                continue;
+            }
+
+            JsonNode query;
+            try (var queryStream = reindexJson.getInputStream()) {
+                query = objectMapper.readTree(queryStream).path("query");
+            } catch (IOException e) {
+                throw new IndexingException(e);
+            }
+
+            for (var source : sourceIndex.values()) {
+                if (!matches(query, objectMapper.valueToTree(source))) {
+                    continue;
+                }
+
+                // Copy the matched study in all available languages
+                var languages = new LinkedHashSet<String>();
+                languages.add(langCode);
+                if (source.langAvailableIn() != null) {
+                    languages.addAll(source.langAvailableIn());
+                }
+
+                for (var lang : languages) {
+                    var localizedSource = indices.getOrDefault(String.format(INDEX_NAME_TEMPLATE, lang), new ConcurrentHashMap<>()).get(source.id());
+                    if (localizedSource != null) {
+                        var destinationIndex = themeName + "_" + lang;
+                        getOrCreateIndex(destinationIndex).put(source.id(), localizedSource);
+                        allReindexedIdsPerIndex.computeIfAbsent(destinationIndex, k -> new HashSet<>()).add(source.id());
+                    }
+                }
+            }
+        }
+
+        // Clean up stale documents
+        for (var entry : allReindexedIdsPerIndex.entrySet()) {
+            indices.get(entry.getKey()).keySet().retainAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Evaluates an Elasticsearch query against a document.
+     *
+     * @param query    the query to evaluate.
+     * @param document the document, converted to a JSON tree.
+     * @return {@code true} if the document matches the query.
+     * @throws IllegalArgumentException if the query type is not supported.
+     */
+    boolean matches(JsonNode query, JsonNode document) {
+        if (query.isMissingNode() || query.isEmpty()) {
+            return true;
+        }
+
+        var queryEntry = query.properties().iterator().next();
+        var body = queryEntry.getValue();
+
+        return switch (queryEntry.getKey()) {
+            case "match_all" -> true;
+            case "match_none" -> false;
+            case "bool" -> matchesBool(body, document);
+            case "nested" -> matches(body.path("query"), document);
+            case "multi_match" -> {
+                var text = body.path("query").asText();
+                var requireAll = "and".equalsIgnoreCase(body.path("operator").asText());
+                for (var field : body.path("fields")) {
+                    if (matchesText(getValues(document, field.asText()), text, requireAll)) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            case "match" -> {
+                var field = body.properties().iterator().next();
+                var text = field.getValue().isObject() ? field.getValue().path("query").asText() : field.getValue().asText();
+                var requireAll = "and".equalsIgnoreCase(field.getValue().path("operator").asText());
+                yield matchesText(getValues(document, field.getKey()), text, requireAll);
+            }
+            case "match_phrase" -> {
+                var field = body.properties().iterator().next();
+                var text = field.getValue().isObject() ? field.getValue().path("query").asText() : field.getValue().asText();
+                yield matchesPhrase(getValues(document, field.getKey()), text);
+            }
+            case "term" -> {
+                var field = body.properties().iterator().next();
+                var value = field.getValue().isObject() ? field.getValue().path("value").asText() : field.getValue().asText();
+                yield getValues(document, field.getKey()).contains(value);
+            }
+            case "terms" -> {
+                var field = body.properties().iterator().next();
+                var values = getValues(document, field.getKey());
+                for (var value : field.getValue()) {
+                    if (values.contains(value.asText())) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            default -> throw new IllegalArgumentException("Unsupported query type: " + queryEntry.getKey());
+        };
+    }
+
+    private boolean matchesBool(JsonNode bool, JsonNode document) {
+        for (var clause : asList(bool.path("must"))) {
+            if (!matches(clause, document)) {
+                return false;
+            }
+        }
+        for (var clause : asList(bool.path("filter"))) {
+            if (!matches(clause, document)) {
+                return false;
+            }
+        }
+        for (var clause : asList(bool.path("must_not"))) {
+            if (matches(clause, document)) {
+                return false;
+            }
+        }
+
+        // If there are no must or filter clauses, at least one should clause has to match
+        var shouldClauses = asList(bool.path("should"));
+        var shouldRequired = bool.path("must").isMissingNode() && bool.path("filter").isMissingNode();
+        if (shouldClauses.isEmpty() || !shouldRequired) {
+            return true;
+        }
+        for (var clause : shouldClauses) {
+            if (matches(clause, document)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bool clauses can be a single query or an array of queries.
+     */
+    private static List<JsonNode> asList(JsonNode clauses) {
+        if (clauses.isMissingNode()) {
+            return List.of();
+        } else if (clauses.isArray()) {
+            var list = new ArrayList<JsonNode>(clauses.size());
+            clauses.forEach(list::add);
+            return list;
+        } else {
+            return List.of(clauses);
+        }
+    }
+
+    /**
+     * Gets all values of a field. Boosts are removed and search fields are expanded into their source fields.
+     */
+    private List<String> getValues(JsonNode document, String field) {
+        var boostIndex = field.indexOf('^');
+        if (boostIndex != -1) {
+            field = field.substring(0, boostIndex);
+        }
+
+        var values = new ArrayList<String>();
+        var sourceFields = copyToFields.get(field);
+        if (sourceFields != null) {
+            for (var sourceField : sourceFields) {
+                collectValues(document, sourceField.split("\\."), 0, values);
+            }
+        } else {
+            collectValues(document, field.split("\\."), 0, values);
+        }
+        return values;
+    }
+
+    private static void collectValues(JsonNode node, String[] path, int depth, List<String> values) {
+        if (node.isArray()) {
+            for (var element : node) {
+                collectValues(element, path, depth, values);
+            }
+        } else if (depth == path.length) {
+            if (node.isValueNode()) {
+                values.add(node.asText());
+            }
+        } else if (node.isObject()) {
+            collectValues(node.path(path[depth]), path, depth + 1, values);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            .filter(token -> !token.isEmpty())
+            .toList();
+    }
+
+    private static boolean matchesText(List<String> values, String text, boolean requireAll) {
+        var queryTokens = tokenize(text);
+        if (queryTokens.isEmpty()) {
+            return false;
+        }
+
+        var valueTokens = new HashSet<String>();
+        for (var value : values) {
+            valueTokens.addAll(tokenize(value));
+        }
+
+        if (requireAll) {
+            return valueTokens.containsAll(queryTokens);
+        }
+        for (var token : queryTokens) {
+            if (valueTokens.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesPhrase(List<String> values, String phrase) {
+        var phraseTokens = tokenize(phrase);
+        if (phraseTokens.isEmpty()) {
+            return false;
+        }
+        for (var value : values) {
+            if (Collections.indexOfSubList(tokenize(value), phraseTokens) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a read-only view of the documents in an index.
+     *
+     * @param indexName the name of the index.
+     * @return a map of document IDs to studies, or an empty map if the index does not exist.
+     */
+    public Map<String, CMMStudyOfLanguage> getIndex(String indexName) {
+        return Collections.unmodifiableMap(indices.getOrDefault(indexName, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Gets the names of all indices that have been created.
+     */
+    public Set<String> getIndexNames() {
+        return Collections.unmodifiableSet(indices.keySet());
+    }
+
+    /**
+     * Gets the amount of requests made to this service, including requests that failed.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the amount of requests that failed because of an injected failure.
+     */
+    public long getInjectedFailures() {
+        return injectedFailures.get();
+    }
+}
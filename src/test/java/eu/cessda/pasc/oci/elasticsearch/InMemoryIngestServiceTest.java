@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.IndexerConsumerService;
+import eu.cessda.pasc.oci.IndexerRunner;
+import eu.cessda.pasc.oci.LanguageExtractor;
+import eu.cessda.pasc.oci.PipelineUtilities;
+import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
+import eu.cessda.pasc.oci.parser.RecordXMLParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static eu.cessda.pasc.oci.mock.data.RecordTestData.getCmmStudyOfLanguageCodeEnX3;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests related to {@link InMemoryIngestService}
+ */
+public class InMemoryIngestServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldIndexAndRetrieveStudies() throws IOException, IndexingException {
+        // Given
+        var ingestService = new InMemoryIngestService();
+        var studies = getCmmStudyOfLanguageCodeEnX3();
+
+        // When
+        ingestService.bulkIndex(studies, "en");
+
+        // Then
+        then(ingestService.getTotalHitCount("en")).isEqualTo(3);
+        then(ingestService.getTotalHitCount("*")).isEqualTo(3);
+        then(ingestService.getTotalHitCount("fi")).isZero();
+        then(ingestService.getStudy("UK-Data-Service__999", "en")).contains(studies.get(1));
+        then(ingestService.getStudy("UK-Data-Service__999", "fi")).isEmpty();
+        then(ingestService.getStudiesByRepository("UKDS", "en")).containsExactlyInAnyOrderElementsOf(studies);
+        then(ingestService.getStudiesByRepository("GESIS", "en")).isEmpty();
+        then(ingestService.getMostRecentLastModified()).contains(LocalDate.of(2017, 11, 17));
+    }
+
+    @Test
+    public void shouldDeleteStudies() throws IOException, IndexingException {
+        // Given
+        var ingestService = new InMemoryIngestService();
+        var studies = getCmmStudyOfLanguageCodeEnX3();
+        ingestService.bulkIndex(studies, "en");
+
+        // When
+        ingestService.bulkDelete(List.of(studies.getFirst()), "en");
+
+        // Then
+        then(ingestService.getTotalHitCount("en")).isEqualTo(2);
+        then(ingestService.getStudy(studies.getFirst().id(), "en")).isEmpty();
+    }
+
+    @Test
+    public void shouldInjectFailures() throws IOException {
+        // Given
+        var ingestService = new InMemoryIngestService(Duration.ofMillis(1), 1, new Random(0));
+        var studies = getCmmStudyOfLanguageCodeEnX3();
+
+        // Then
+        thenThrownBy(() -> ingestService.bulkIndex(studies, "en")).isInstanceOf(IndexingException.class);
+        thenThrownBy(() -> ingestService.getTotalHitCount("en")).isInstanceOf(IOException.class);
+        then(ingestService.getStudy(studies.getFirst().id(), "en")).isEmpty();
+        then(ingestService.getInjectedFailures()).isEqualTo(3);
+        then(ingestService.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRejectInvalidFailureRates() {
+        thenThrownBy(() -> new InMemoryIngestService(Duration.ZERO, 1.5, new Random()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldReindexThemes() throws IOException, IndexingException {
+        // Given
+        var ingestService = new InMemoryIngestService();
+        var studies = getCmmStudyOfLanguageCodeEnX3();
+        ingestService.bulkIndex(studies, "en");
+
+        // When
+        ingestService.reindexAllThemes();
+
+        // Then the test theme matches all documents
+        then(ingestService.getIndex("test_en")).hasSize(3);
+    }
+
+    @Test
+    public void shouldEvaluateQueries() throws IOException {
+        // Given
+        var ingestService = new InMemoryIngestService();
+        var document = objectMapper.valueToTree(getCmmStudyOfLanguageCodeEnX3().getFirst());
+
+        // Then
+        then(ingestService.matches(objectMapper.readTree("""
+            {"multi_match": {"query": "budgets", "fields": ["titleStudy^3", "keywordsSearchField"]}}
+            """), document)).isTrue();
+        then(ingestService.matches(objectMapper.readTree("""
+            {"match_phrase": {"titleStudy": "Social Development"}}
+            """), document)).isTrue();
+        then(ingestService.matches(objectMapper.readTree("""
+            {"match_phrase": {"titleStudy": "Development Social"}}
+            """), document)).isFalse();
+        then(ingestService.matches(objectMapper.readTree("""
+            {"bool": {"must": [{"term": {"code": "UKDS"}}], "must_not": [{"term": {"code": "UKDS"}}]}}
+            """), document)).isFalse();
+        then(ingestService.matches(objectMapper.readTree("""
+            {"bool": {"should": [{"term": {"code": "GESIS"}}, {"match": {"titleStudy": "personality"}}]}}
+            """), document)).isTrue();
+        thenThrownBy(() -> ingestService.matches(objectMapper.readTree("""
+            {"geo_shape": {}}
+            """), document)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRunAFullHarvestAgainstTheInMemoryService() throws IOException {
+        // Given
+        var repo = ReposTestData.getUKDSRepo();
+        var appConfigurationProperties = new AppConfigurationProperties(null, ReposTestData.getSetOfLanguages(), null, List.of(repo));
+        var indexerConsumerService = new IndexerConsumerService(
+            new LanguageExtractor(appConfigurationProperties),
+            new RecordXMLParser(new CMMStudyMapper())
+        );
+        var ingestService = new InMemoryIngestService();
+        var indexerRunner = new IndexerRunner(appConfigurationProperties, indexerConsumerService, mock(PipelineUtilities.class), ingestService);
+
+        // When
+        indexerRunner.executeHarvestAndIngest();
+
+        // Then
+        then(ingestService.getTotalHitCount("*")).isPositive();
+        then(ingestService.getStudiesByRepository(repo.code(), "en")).isNotEmpty();
+    }
+}
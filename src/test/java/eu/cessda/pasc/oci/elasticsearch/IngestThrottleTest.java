@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.elasticsearch;
+
+import eu.cessda.pasc.oci.configurations.ThrottleProperties;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link IngestThrottle}
+ */
+public class IngestThrottleTest {
+
+    private static IngestThrottle newThrottle() {
+        return new IngestThrottle(new ThrottleProperties(true, Duration.ofSeconds(1), 50, 500, Duration.ofSeconds(5), 100, Duration.ofHours(1)));
+    }
+
+    @Test
+    public void shouldSlowDownWhenItemsAreRejected() {
+        var throttle = newThrottle();
+
+        throttle.onResponse(Duration.ofMillis(100), 3);
+
+        then(throttle.getBatchSize()).isEqualTo(250);
+        then(throttle.getPauseMillis()).isPositive();
+        then(throttle.getRejections()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRecoverAdditively() {
+        // Given
+        var throttle = newThrottle();
+        throttle.onRejected();
+        throttle.onRejected();
+        var slowedBatchSize = throttle.getBatchSize();
+
+        // When
+        throttle.onResponse(Duration.ofMillis(100), 0);
+
+        // Then the batch size grows by a step rather than doubling
+        then(throttle.getBatchSize()).isGreaterThan(slowedBatchSize).isLessThan(slowedBatchSize * 2);
+    }
+
+    @Test
+    public void shouldNotShrinkBelowTheMinimumBatchSize() {
+        var throttle = newThrottle();
+
+        for (int i = 0; i < 20; i++) {
+            throttle.onRejected();
+        }
+
+        then(throttle.getBatchSize()).isEqualTo(50);
+        then(throttle.getPauseMillis()).isEqualTo(5000);
+    }
+
+    @Test
+    public void shouldSlowDownWhenLatencyExceedsTheTarget() {
+        var throttle = newThrottle();
+
+        for (int i = 0; i < 10; i++) {
+            throttle.onResponse(Duration.ofSeconds(3), 0);
+        }
+
+        then(throttle.getLatencyP95Millis()).isEqualTo(3000);
+        then(throttle.getBatchSize()).isLessThan(500);
+        then(throttle.getDecreases()).isPositive();
+    }
+
+    @Test
+    public void shouldOnlySlowDownOnceForAShortBurstOfSlowResponses() {
+        // Given
+        var throttle = newThrottle();
+        for (int i = 0; i < 20; i++) {
+            throttle.onResponse(Duration.ofMillis(100), 0);
+        }
+
+        // When a few responses are slow
+        for (int i = 0; i < 3; i++) {
+            throttle.onResponse(Duration.ofSeconds(3), 0);
+        }
+        for (int i = 0; i < 80; i++) {
+            throttle.onResponse(Duration.ofMillis(100), 0);
+        }
+
+        // Then indexing slowed down once, and recovered once the slow responses left the window
+        then(throttle.getDecreases()).isEqualTo(1);
+        then(throttle.getBatchSize()).isEqualTo(500);
+    }
+
+    @Test
+    public void shouldCheckTheWriteQueueBeforeTheFirstRequest() throws IOException {
+        var throttle = newThrottle();
+        var checks = new AtomicInteger();
+
+        throttle.awaitPermit(() -> {
+            checks.incrementAndGet();
+            return 500;
+        });
+        // The stats interval hasn't elapsed, so the queues aren't checked again
+        throttle.awaitPermit(checks::incrementAndGet);
+
+        then(checks).hasValue(1);
+        then(throttle.getWriteQueueDepth()).isEqualTo(500);
+        then(throttle.getBatchSize()).isEqualTo(250);
+    }
+
+    @Test
+    public void shouldNotAdaptWhenDisabled() throws IOException {
+        var throttle = IngestThrottle.disabled();
+
+        throttle.awaitPermit(() -> {
+            throw new AssertionError("The cluster should not be checked when throttling is disabled");
+        });
+        throttle.onRejected();
+        throttle.onResponse(Duration.ofSeconds(10), 5);
+
+        then(throttle.getBatchSize()).isEqualTo(500);
+        then(throttle.getPauseMillis()).isZero();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.xpath.XPathFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link AnchoredXPath}
+ */
+public class AnchoredXPathTest {
+
+    private static final Namespace[] NAMESPACES = {
+        Namespace.getNamespace("s", "ddi:studyunit:3_2"),
+        Namespace.getNamespace("r", "ddi:reusable:3_2")
+    };
+
+    private static Document parse(String xml) throws JDOMException, IOException {
+        return new SAXBuilder().build(new StringReader(xml));
+    }
+
+    private static List<Element> evaluateUnanchored(String xPath, Object context) {
+        return XPathFactory.instance().compile(xPath, Filters.element(), null, NAMESPACES).evaluate(context);
+    }
+
+    @Test
+    public void shouldEvaluateRelativeToASingleAnchor() throws JDOMException, IOException {
+        // Given
+        var document = parse("""
+            <DDIInstance xmlns:s="ddi:studyunit:3_2" xmlns:r="ddi:reusable:3_2">
+                <s:StudyUnit><r:Abstract><r:Content>a</r:Content><r:Content>b</r:Content></r:Abstract></s:StudyUnit>
+            </DDIInstance>
+            """);
+        var xPath = new AnchoredXPath("//s:StudyUnit[1]/r:Abstract/r:Content");
+
+        // When
+        var result = xPath.evaluate(document, NAMESPACES);
+
+        // Then
+        then(xPath.isAnchored()).isTrue();
+        then(result).hasSize(2).isEqualTo(evaluateUnanchored("//s:StudyUnit[1]/r:Abstract/r:Content", document));
+    }
+
+    @Test
+    public void shouldEvaluateTheWholeDocumentIfMultipleAnchorsMatch() throws JDOMException, IOException {
+        // Given StudyUnits that are each the first StudyUnit of their parent
+        var document = parse("""
+            <DDIInstance xmlns:s="ddi:studyunit:3_2" xmlns:r="ddi:reusable:3_2">
+                <Group><s:StudyUnit><r:Abstract><r:Content>a</r:Content></r:Abstract></s:StudyUnit></Group>
+                <Group><s:StudyUnit><r:Abstract><r:Content>b</r:Content></r:Abstract></s:StudyUnit></Group>
+            </DDIInstance>
+            """);
+        var xPath = new AnchoredXPath("//s:StudyUnit[1]/r:Abstract/r:Content");
+
+        // When
+        var result = xPath.evaluate(document, NAMESPACES);
+
+        // Then
+        then(result).hasSize(2).isEqualTo(evaluateUnanchored("//s:StudyUnit[1]/r:Abstract/r:Content", document));
+    }
+
+    @Test
+    public void shouldReturnAnEmptyListIfTheAnchorDoesNotMatch() throws JDOMException, IOException {
+        var document = parse("<DDIInstance/>");
+
+        var result = new AnchoredXPath("//s:StudyUnit[1]/r:Abstract/r:Content").evaluate(document, NAMESPACES);
+
+        then(result).isEmpty();
+    }
+
+    @Test
+    public void shouldFindTheAnchorOncePerDocument() throws JDOMException, IOException {
+        // Given
+        var document = parse("""
+            <DDIInstance xmlns:s="ddi:studyunit:3_2" xmlns:r="ddi:reusable:3_2">
+                <s:StudyUnit><r:Abstract><r:Content>a</r:Content></r:Abstract></s:StudyUnit>
+            </DDIInstance>
+            """);
+        new AnchoredXPath("//s:StudyUnit[1]/r:Abstract/r:Content").evaluate(document, NAMESPACES);
+
+        // When the anchor is removed, the anchor found previously is used
+        var studyUnit = document.getRootElement().getChildren().getFirst();
+        document.getRootElement().removeContent(studyUnit);
+        var result = new AnchoredXPath("//s:StudyUnit[1]/r:Abstract").evaluate(document, NAMESPACES);
+
+        // Then
+        then(result).hasSize(1);
+        then(result.getFirst().getParentElement()).isSameAs(studyUnit);
+    }
+
+    @Test
+    public void shouldNotAnchorOtherXPaths() throws JDOMException, IOException {
+        var document = parse("""
+            <DDIInstance xmlns:s="ddi:studyunit:3_2" xmlns:r="ddi:reusable:3_2">
+                <s:StudyUnit><r:Abstract/></s:StudyUnit>
+                <s:StudyUnit><r:Abstract/></s:StudyUnit>
+            </DDIInstance>
+            """);
+
+        var xPath = new AnchoredXPath("//s:StudyUnit/r:Abstract");
+
+        then(xPath.isAnchored()).isFalse();
+        then(new AnchoredXPath("//s:StudyUnit[1]").isAnchored()).isFalse();
+        then(xPath.evaluate(document, NAMESPACES)).hasSize(2);
+    }
+}
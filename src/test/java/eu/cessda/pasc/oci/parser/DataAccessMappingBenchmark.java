@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.models.DataAccessMapping;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static eu.cessda.pasc.oci.parser.XMLMapper.extractMetadataObjectListForEachLang;
+
+/**
+ * Compares the precompiled {@link DataAccessMappingEngine} against the previous implementation of
+ * {@link CMMStudyMapper#parseDataAccess(Document, XPaths, String, String)}, which rebuilt the lookup table and
+ * recompiled the XPath for every study, for each repository that relies on free text data access mappings.
+ * Each document contains the last statement listed for its repository, which is the worst case for the
+ * previous implementation.
+ * <p>
+ * This benchmark is located in the parser package as the classes it measures are package-private.
+ * Run using {@code mvn -P benchmark -DskipTests test -Dbenchmark=DataAccessMappingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataAccessMappingBenchmark {
+
+    private static final Pattern NORMALIZE_PATTERN = Pattern.compile("[^a-z0-9]+");
+    private static final String ACCESS_TERM = "info:eu-repo/semantics/restrictedAccess";
+
+    @State(Scope.Benchmark)
+    public static class RepositoryState {
+
+        @Param({"UniData", "FSD", "SND", "UKDS"})
+        public String repository;
+
+        private final XPaths xPaths = XPaths.DDI_2_5_XPATHS;
+        private CMMStudyMapper cmmStudyMapper;
+        private Map<String, Map<String, List<DataAccessMapping>>> dataAccessMappings;
+        private Document document;
+
+        @Setup
+        public void setUp() throws IOException {
+            cmmStudyMapper = new CMMStudyMapper();
+            dataAccessMappings = DataAccessMappingEngine.load(new ObjectMapper(), null).getMappings();
+
+            // Place the last statement of the repository at the XPath it is mapped from
+            var repositoryMappings = dataAccessMappings.get(repository);
+            var xPathKey = repositoryMappings.keySet().iterator().next();
+            var statements = repositoryMappings.get(xPathKey);
+            var statement = statements.getLast().content();
+
+            var ns = Namespace.getNamespace("ddi:codebook:2_5");
+            var useStmt = new Element("useStmt", ns);
+            useStmt.addContent(new Element("restrctn", ns).setText("Not a mapped statement"));
+            if ("dataRestrctnXPath".equals(xPathKey)) {
+                useStmt.addContent(new Element("restrctn", ns).setText(statement));
+            } else {
+                useStmt.addContent(new Element("specPerm", ns).setText(statement));
+            }
+            var dataAccs = new Element("dataAccs", ns).addContent(useStmt);
+            var stdyDscr = new Element("stdyDscr", ns).addContent(dataAccs);
+            document = new Document(new Element("codeBook", ns).addContent(stdyDscr));
+
+            // Both implementations must produce the same result for the comparison to be meaningful
+            var expected = statements.getLast().accessCategory().name();
+            if (!expected.equals(engine(this)) || !expected.equals(baseline(this))) {
+                throw new IllegalStateException("Mapping differs from the baseline implementation");
+            }
+        }
+    }
+
+    @Benchmark
+    public static String engine(RepositoryState state) {
+        return state.cmmStudyMapper.parseDataAccess(state.document, state.xPaths, "en", state.repository);
+    }
+
+    /**
+     * The previous implementation of data access mapping.
+     */
+    @Benchmark
+    public static String baseline(RepositoryState state) {
+        var doc = state.document;
+        var xPaths = state.xPaths;
+        var dataAccess = xPaths.getDataAccessXPath().resolve(doc, xPaths.getNamespace());
+
+        if (dataAccess == null) {
+            var repositoryNode = state.dataAccessMappings.get(state.repository);
+            if (repositoryNode != null) {
+                for (var entry : repositoryNode.entrySet()) {
+                    String xpathKey = entry.getKey();
+
+                    var dataAccessMap = new HashMap<String, DataAccessMapping.AccessCategory>();
+                    for (var dataAccessMapping : entry.getValue()) {
+                        dataAccessMap.put(dataAccessMapping.content(), dataAccessMapping.accessCategory());
+                    }
+
+                    Map<String, List<String>> resolvedMap = Collections.emptyMap();
+                    if ("dataRestrctnXPath".equals(xpathKey)) {
+                        resolvedMap = state.cmmStudyMapper.parseDataAccessFreeText(doc, xPaths, "en");
+                    } else if ("dataAccessAltXPath".equals(xpathKey)) {
+                        var dataAccessAltXPath = new SimpleXMLMapper<>("//ddi:codeBook//ddi:stdyDscr/ddi:dataAccs/ddi:useStmt/ddi:specPerm", extractMetadataObjectListForEachLang(ParsingStrategies::nullableElementValueStrategy));
+                        resolvedMap = dataAccessAltXPath.resolve(doc, xPaths.getNamespace());
+                    }
+
+                    for (Map.Entry<String, List<String>> resolvedEntry : resolvedMap.entrySet()) {
+                        for (String resolvedValue : resolvedEntry.getValue()) {
+                            var match = dataAccessMap.get(resolvedValue);
+                            if (match != null) {
+                                return match.name();
+                            }
+                        }
+                    }
+                }
+            }
+            return "Uncategorized";
+        }
+
+        return dataAccess;
+    }
+
+    @Benchmark
+    public static String normalizeAccessTerm() {
+        return ParsingStrategies.normalizeAccessTerm(ACCESS_TERM);
+    }
+
+    @Benchmark
+    public static String normalizeAccessTermBaseline() {
+        return NORMALIZE_PATTERN.matcher(ACCESS_TERM.toLowerCase()).replaceAll("");
+    }
+}
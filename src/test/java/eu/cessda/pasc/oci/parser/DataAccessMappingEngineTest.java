@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.cessda.pasc.oci.models.DataAccessMapping;
+import eu.cessda.pasc.oci.models.DataAccessMapping.AccessCategory;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link DataAccessMappingEngine}
+ */
+public class DataAccessMappingEngineTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final DataAccessMappingEngine engine = new DataAccessMappingEngine(Map.of(
+        "FSD", Map.of("dataRestrctnXPath", List.of(
+            new DataAccessMapping("The dataset is available for research.", AccessCategory.Open),
+            new DataAccessMapping("The dataset is only available with permission.", AccessCategory.Restricted)
+        )),
+        "UKDS", Map.of("dataAccessAltXPath", List.of(
+            new DataAccessMapping("Open", AccessCategory.Open),
+            new DataAccessMapping("Safeguarded", AccessCategory.Restricted)
+        ))
+    ));
+
+    private static Document ddiDocument(String useStmt) throws JDOMException, IOException {
+        return new SAXBuilder().build(new StringReader("""
+            <codeBook xmlns="ddi:codebook:2_5">
+              <stdyDscr><dataAccs><useStmt>%s</useStmt></dataAccs></stdyDscr>
+            </codeBook>
+            """.formatted(useStmt)));
+    }
+
+    @Test
+    public void shouldMapFreeTextStatements() throws JDOMException, IOException {
+        var document = ddiDocument("");
+
+        then(engine.map("FSD", document, XPaths.DDI_2_5_XPATHS, () -> Map.of("en", List.of("The dataset is only available with permission."))))
+            .isEqualTo(AccessCategory.Restricted);
+        then(engine.map("FSD", document, XPaths.DDI_2_5_XPATHS, () -> Map.of("en", List.of("Something else", "The dataset is available for research."))))
+            .isEqualTo(AccessCategory.Open);
+    }
+
+    @Test
+    public void shouldIgnoreDifferencesInWhitespace() throws JDOMException, IOException {
+        var document = ddiDocument("");
+
+        then(engine.map("FSD", document, XPaths.DDI_2_5_XPATHS, () -> Map.of("en", List.of("The  dataset is\n  available for research."))))
+            .isEqualTo(AccessCategory.Open);
+    }
+
+    @Test
+    public void shouldMapAlternativeDataAccessStatements() throws JDOMException, IOException {
+        var document = ddiDocument("<specPerm> Safeguarded </specPerm>");
+
+        then(engine.map("UKDS", document, XPaths.DDI_2_5_XPATHS, Map::of)).isEqualTo(AccessCategory.Restricted);
+        then(engine.map("UKDS", ddiDocument("<specPerm>Unknown</specPerm>"), XPaths.DDI_2_5_XPATHS, Map::of))
+            .isEqualTo(AccessCategory.Uncategorized);
+    }
+
+    @Test
+    public void shouldNotResolveStatementsForRepositoriesWithoutMappings() throws JDOMException, IOException {
+        var resolutions = new AtomicInteger();
+
+        var accessCategory = engine.map("GESIS", ddiDocument("<specPerm>Open</specPerm>"), XPaths.DDI_2_5_XPATHS, () -> {
+            resolutions.incrementAndGet();
+            return Map.of();
+        });
+
+        then(accessCategory).isEqualTo(AccessCategory.Uncategorized);
+        then(resolutions).hasValue(0);
+    }
+
+    @Test
+    public void shouldLoadMappingsFromAFile() throws IOException, JDOMException {
+        // Given
+        var mappingsFile = temporaryFolder.newFile("mappings.json").toPath();
+        Files.writeString(mappingsFile, """
+            {"EXAMPLE": {"dataAccessAltXPath": [{"content": "Free", "accessCategory": "Open"}], "unknownXPath": []}}
+            """);
+
+        // When
+        var loadedEngine = DataAccessMappingEngine.load(new ObjectMapper(), mappingsFile);
+
+        // Then
+        then(loadedEngine.getMappings()).containsOnlyKeys("EXAMPLE");
+        then(loadedEngine.map("EXAMPLE", ddiDocument("<specPerm>Free</specPerm>"), XPaths.DDI_2_5_XPATHS, Map::of))
+            .isEqualTo(AccessCategory.Open);
+    }
+
+    @Test
+    public void shouldLoadTheBundledMappings() throws IOException {
+        var bundledEngine = DataAccessMappingEngine.load(new ObjectMapper(), null);
+
+        then(bundledEngine.getMappings()).containsKeys("FSD", "SND", "UKDS", "UniData");
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link LanguageMap}
+ */
+public class LanguageMapTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldBehaveLikeAHashMap() {
+        // Given
+        var languageMap = new LanguageMap<String>();
+        var hashMap = new HashMap<String, String>();
+
+        // When
+        for (var map : List.<Map<String, String>>of(languageMap, hashMap)) {
+            map.put("en", "English");
+            map.put(XMLMapper.EMPTY_LANGUAGE, "Unknown");
+            map.put("en-GB", "British English");
+            map.put("fi", null);
+            map.merge("en", " title", String::concat);
+            map.put("sv", "Swedish");
+            map.remove("sv");
+        }
+
+        // Then
+        then(languageMap).isEqualTo(hashMap);
+        then(hashMap).isEqualTo(languageMap);
+        then(languageMap.hashCode()).isEqualTo(hashMap.hashCode());
+        then(languageMap).hasSize(4)
+            .containsEntry("en", "English title")
+            .containsEntry("en-GB", "British English")
+            .containsKey("fi")
+            .doesNotContainKey("sv");
+        then(languageMap.get("fi")).isNull();
+    }
+
+    @Test
+    public void shouldIterateSupportedLanguagesBeforeOtherKeys() {
+        var languageMap = new LanguageMap<Integer>();
+        languageMap.put("xx", 0);
+        languageMap.put("sv", 1);
+        languageMap.put("de", 2);
+        languageMap.put(XMLMapper.EMPTY_LANGUAGE, 3);
+
+        then(languageMap.keySet()).containsExactly(XMLMapper.EMPTY_LANGUAGE, "de", "sv", "xx");
+    }
+
+    @Test
+    public void shouldRemoveEntriesThroughTheIterator() {
+        // Given
+        var languageMap = new LanguageMap<>(Map.of("en", 1, "fi", 2, "xx", 3));
+
+        // When
+        languageMap.values().removeIf(value -> value != 2);
+
+        // Then
+        then(languageMap).containsExactly(Map.entry("fi", 2));
+
+        languageMap.clear();
+        then(languageMap).isEmpty();
+    }
+
+    @Test
+    public void shouldSerializeToTheSameJsonAsAHashMap() throws Exception {
+        // Given
+        var hashMap = new HashMap<String, List<String>>();
+        hashMap.put("en", List.of("Social behaviour", "Elections"));
+        hashMap.put("fi", List.of("Vaalit"));
+        hashMap.put(XMLMapper.EMPTY_LANGUAGE, List.of("Politics"));
+        hashMap.put("zz", List.of());
+
+        // When
+        var languageMapJson = objectMapper.readTree(objectMapper.writeValueAsString(new LanguageMap<>(hashMap)));
+        var hashMapJson = objectMapper.readTree(objectMapper.writeValueAsString(hashMap));
+
+        // Then
+        then(languageMapJson).isEqualTo(hashMapJson);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import eu.cessda.pasc.oci.ResourceHandler;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.exception.XMLParseException;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link ParseResultCache}
+ */
+public class ParseResultCacheTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Repo repo = ReposTestData.getUKDSRepo();
+    private final CMMStudyMapper cmmStudyMapper = new CMMStudyMapper();
+
+    private Path cacheDirectory;
+
+    public ParseResultCacheTest() throws IOException {
+        // The CMMStudyMapper constructor loads the data access mappings
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    }
+
+    private ParseResultCache newCache(DataSize maxSize) {
+        return new ParseResultCache(new ParserProperties(new ParserProperties.Cache(cacheDirectory, maxSize), null, 0, false, null));
+    }
+
+    @Test
+    public void shouldReuseParsedStudies() throws XMLParseException, URISyntaxException {
+        // Given
+        var cache = newCache(null);
+        var parser = new RecordXMLParser(cmmStudyMapper, cache);
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/oai-fsd_uta_fi-FSD3187.xml").toURI());
+
+        // When
+        var parsedStudies = parser.getRecord(repo, recordXML);
+        var cachedStudies = parser.getRecord(repo, recordXML);
+
+        // Then
+        then(cachedStudies).isEqualTo(parsedStudies).isNotEmpty();
+        then(cache.getStatistics()).isEqualTo(new ParseResultCache.Statistics(1, 1, 0));
+
+        // The cached studies should also be used by a new instance
+        var newCache = newCache(null);
+        then(new RecordXMLParser(cmmStudyMapper, newCache).getRecord(repo, recordXML)).isEqualTo(parsedStudies);
+        then(newCache.getStatistics().hits()).isOne();
+    }
+
+    @Test
+    public void shouldApplyTheSkipPredicateToCachedStudies() throws XMLParseException, URISyntaxException {
+        // Given
+        var parser = new RecordXMLParser(cmmStudyMapper, newCache(null));
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/oai-fsd_uta_fi-FSD3187.xml").toURI());
+        parser.getRecord(repo, recordXML);
+
+        // When
+        var studies = parser.getRecord(repo, recordXML, header -> header.identifier().equals("oai:fsd.uta.fi:FSD3187"));
+
+        // Then
+        then(studies).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCacheRecordsWithoutHeaders() throws XMLParseException, URISyntaxException {
+        // Given
+        var cache = newCache(null);
+        var parser = new RecordXMLParser(cmmStudyMapper, cache);
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/ddi_record_1683.xml").toURI());
+
+        // When
+        parser.getRecord(repo, recordXML);
+        parser.getRecord(repo, recordXML);
+
+        // Then the study number and modification time depend on the file, so the studies are parsed each time
+        then(cache.getStatistics().misses()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldEvictEntriesWhenTheCacheIsFull() throws XMLParseException, URISyntaxException {
+        // Given
+        var cache = newCache(DataSize.ofBytes(1));
+        var parser = new RecordXMLParser(cmmStudyMapper, cache);
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/oai-fsd_uta_fi-FSD3187.xml").toURI());
+
+        // When
+        parser.getRecord(repo, recordXML);
+        parser.getRecord(repo, recordXML);
+
+        // Then
+        then(cache.getStatistics()).isEqualTo(new ParseResultCache.Statistics(0, 2, 2));
+    }
+
+    @Test
+    public void shouldUseDifferentKeysForDifferentConfigurations() {
+        var cache = newCache(null);
+        var content = "<record/>".getBytes(StandardCharsets.UTF_8);
+
+        then(ParseResultCache.PARSER_VERSION).isNotBlank();
+        then(cache.getKey(repo, content, "a")).isEqualTo(cache.getKey(repo, content, "a"));
+        then(cache.getKey(repo, content, "a")).isNotEqualTo(cache.getKey(repo, content, "b"));
+        then(cache.getKey(repo, content, "a")).isNotEqualTo(cache.getKey(ReposTestData.getGesisEnRepo(), content, "a"));
+    }
+}
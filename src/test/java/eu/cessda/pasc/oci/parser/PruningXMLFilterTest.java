@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import eu.cessda.pasc.oci.ResourceHandler;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import eu.cessda.pasc.oci.configurations.Repo;
+import eu.cessda.pasc.oci.exception.XMLParseException;
+import eu.cessda.pasc.oci.mock.data.ReposTestData;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link PruningXMLFilter}
+ */
+public class PruningXMLFilterTest {
+
+    private final Repo repo = ReposTestData.getUKDSRepo();
+    private final CMMStudyMapper cmmStudyMapper = new CMMStudyMapper();
+
+    public PruningXMLFilterTest() throws IOException {
+        // Needed because TimeUtility only works properly in UTC timezones
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @Test
+    public void shouldSkipSectionsThatAreNotRead() throws JDOMException, IOException {
+        // Given
+        var filter = new PruningXMLFilter();
+        var saxBuilder = new SAXBuilder();
+        saxBuilder.setXMLFilter(filter);
+
+        // When
+        var document = saxBuilder.build(new StringReader("""
+            <OAI-PMH xmlns="http://www.openarchives.org/OAI/2.0/">
+              <dataDscr>outside of the metadata</dataDscr>
+              <codeBook xmlns="ddi:codebook:2_5">
+                <stdyDscr><citation><titlStmt><titl>Title</titl></titlStmt></citation></stdyDscr>
+                <dataDscr><var name="V1"><labl>Variable</labl></var><var name="V2"/></dataDscr>
+                <otherMat/>
+              </codeBook>
+            </OAI-PMH>
+            """));
+
+        // Then
+        var ddi = Namespace.getNamespace("ddi:codebook:2_5");
+        var codeBook = document.getRootElement().getChild("codeBook", ddi);
+        then(codeBook.getChildren()).extracting("name").containsExactly("stdyDscr");
+        then(codeBook.getChild("stdyDscr", ddi).getChild("citation", ddi).getChild("titlStmt", ddi).getChildText("titl", ddi)).isEqualTo("Title");
+        then(document.getRootElement().getChild("dataDscr", document.getRootElement().getNamespace())).isNotNull();
+        then(filter.getPrunedElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldNotPruneDocumentsOfOtherNamespaces() throws JDOMException, IOException {
+        var saxBuilder = new SAXBuilder();
+        saxBuilder.setXMLFilter(new PruningXMLFilter());
+
+        var document = saxBuilder.build(new StringReader("""
+            <DDIInstance xmlns="ddi:instance:3_2"><Unknown/></DDIInstance>
+            """));
+
+        then(document.getRootElement().getChildren()).hasSize(1);
+    }
+
+    @Test
+    public void shouldParseTheSameStudiesWhenPruned() throws URISyntaxException, IOException, XMLParseException {
+        var parser = new RecordXMLParser(cmmStudyMapper);
+        var pruningParser = new RecordXMLParser(cmmStudyMapper, ParseResultCache.disabled(), new ParserProperties(null, null, 0, true, null));
+
+        for (var resource : List.of(
+            "xml/ddi_2_5/ddi_record_1683.xml",
+            "xml/ddi_2_5/oai-fsd_uta_fi-FSD3187.xml",
+            "xml/ddi_2_5/synthetic_compliant_cmm.xml",
+            "xml/ddi_2_5/synthetic_list_records_response.xml",
+            "xml/ddi_3_2/synthetic_compliant_cmm_ddi3_2.xml",
+            "xml/ddi_3_3/synthetic_compliant_cmm_ddi3_3.xml",
+            "xml/nesstar/synthetic_compliant_cmm_nesstar.xml"
+        )) {
+            var path = Path.of(ResourceHandler.getResource(resource).toURI());
+            then(pruningParser.getRecord(repo, path)).as(resource).isEqualTo(parser.getRecord(repo, path));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
+import eu.cessda.pasc.oci.configurations.ParserProperties.Input.Strategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * Tests related to {@link RecordFileReader}
+ */
+public class RecordFileReaderTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static RecordFileReader newReader(Strategy strategy, int readAhead) {
+        return new RecordFileReader(new ParserProperties(null, null, 0, false,
+            new ParserProperties.Input(strategy, DataSize.ofBytes(7), readAhead)
+        ));
+    }
+
+    private Path newRecordFile(String content) throws IOException {
+        var path = temporaryFolder.newFile().toPath();
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    @Test
+    public void shouldReadTheSameContentWithEachStrategy() throws IOException {
+        var content = "<record>" + "x".repeat(100) + "</record>";
+        var path = newRecordFile(content);
+
+        for (var strategy : Strategy.values()) {
+            var reader = newReader(strategy, 0);
+
+            try (var inputStream = reader.open(path)) {
+                then(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).as(strategy.name()).isEqualTo(content);
+            }
+            then(new String(reader.readAllBytes(path), StandardCharsets.UTF_8)).as(strategy.name()).isEqualTo(content);
+            then(reader.getStatistics().files()).as(strategy.name()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldReadFilesInAdvance() throws IOException {
+        // Given
+        var paths = new ArrayList<Path>();
+        for (int i = 0; i < 5; i++) {
+            paths.add(newRecordFile("<record>" + i + "</record>"));
+        }
+        var reader = newReader(Strategy.BUFFERED, 2);
+
+        // When
+        try (var ignored = reader.readAhead(paths)) {
+            for (int i = 0; i < paths.size(); i++) {
+                then(new String(reader.readAllBytes(paths.get(i)), StandardCharsets.UTF_8)).isEqualTo("<record>" + i + "</record>");
+            }
+        }
+
+        // Then every file was read in advance
+        then(reader.getStatistics().prefetchedFiles()).isEqualTo(5);
+        then(reader.getStatistics().files()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldReadFilesThatFailedToBeReadInAdvanceAgain() throws IOException {
+        // Given a file that is deleted before it is read
+        var path = newRecordFile("<record/>");
+        var reader = newReader(Strategy.MAPPED, 1);
+
+        try (var ignored = reader.readAhead(List.of(temporaryFolder.getRoot().toPath().resolve("missing.xml"), path))) {
+            // Then the error is reported when the file is opened
+            thenThrownBy(() -> reader.open(temporaryFolder.getRoot().toPath().resolve("missing.xml"))).isInstanceOf(IOException.class);
+            then(reader.readAllBytes(path)).isEqualTo("<record/>".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldRejectLargeFiles() throws IOException {
+        var path = temporaryFolder.newFile().toPath();
+        try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(51 * 1000 * 1000);
+        }
+
+        for (var strategy : Strategy.values()) {
+            var reader = newReader(strategy, 0);
+            thenThrownBy(() -> reader.open(path)).as(strategy.name()).isInstanceOf(IOException.class).hasMessageContaining("50 MB");
+        }
+    }
+
+    @Test
+    public void shouldDecompressRecordFiles() throws IOException {
+        var content = "<record>" + "x".repeat(100) + "</record>";
+        var gzipPath = temporaryFolder.getRoot().toPath().resolve("record.xml.gz");
+        try (var outputStream = new GZIPOutputStream(Files.newOutputStream(gzipPath))) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        var zstdPath = temporaryFolder.getRoot().toPath().resolve("record.xml.zst");
+        try (var outputStream = new ZstdOutputStream(Files.newOutputStream(zstdPath))) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (var strategy : Strategy.values()) {
+            var reader = newReader(strategy, 1);
+            try (var ignored = reader.readAhead(List.of(gzipPath, zstdPath))) {
+                for (var path : List.of(gzipPath, zstdPath)) {
+                    then(new String(reader.readAllBytes(path), StandardCharsets.UTF_8)).as(strategy.name()).isEqualTo(content);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldApplyTheSizeLimitToDecompressedContent() throws IOException {
+        // Given a small file that decompresses to more than the maximum file size
+        var path = temporaryFolder.getRoot().toPath().resolve("record.xml.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(path))) {
+            var chunk = new byte[1000 * 1000];
+            for (int i = 0; i < 51; i++) {
+                outputStream.write(chunk);
+            }
+        }
+        then(Files.size(path)).isLessThan(1000 * 1000);
+
+        var reader = newReader(Strategy.CHANNEL, 0);
+        thenThrownBy(() -> reader.readAllBytes(path)).isInstanceOf(IOException.class).hasMessageContaining("Decompressed size");
+    }
+
+    @Test
+    public void shouldRecogniseRecordFileNames() {
+        then(RecordFileReader.hasRecordExtension(Path.of("study.xml"))).isTrue();
+        then(RecordFileReader.hasRecordExtension(Path.of("study.xml.gz"))).isTrue();
+        then(RecordFileReader.hasRecordExtension(Path.of("study.xml.zst"))).isTrue();
+        then(RecordFileReader.hasRecordExtension(Path.of("studies.zip"))).isTrue();
+        then(RecordFileReader.hasRecordExtension(Path.of("study.gz"))).isFalse();
+        then(RecordFileReader.hasRecordExtension(Path.of("study.json"))).isFalse();
+
+        then(RecordFileReader.getRecordName(Path.of("directory", "study.xml"))).isEqualTo("study");
+        then(RecordFileReader.getRecordName(Path.of("directory", "study.xml.gz"))).isEqualTo("study");
+        then(RecordFileReader.getRecordName(Path.of("directory", "study.xml.zst"))).isEqualTo("study");
+    }
+}
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import eu.cessda.pasc.oci.ResourceHandler;
+import eu.cessda.pasc.oci.configurations.ParserProperties;
 import eu.cessda.pasc.oci.configurations.Repo;
 import eu.cessda.pasc.oci.exception.IndexerException;
 import eu.cessda.pasc.oci.exception.XMLParseException;
@@ -27,16 +28,23 @@ import eu.cessda.pasc.oci.models.cmmstudy.CMMStudy;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONException;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.jupiter.api.Assertions;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertAll;
@@ -57,6 +65,9 @@ public class RecordXMLParserTest {
     // Class under test
     private final CMMStudyMapper cmmStudyMapper = new CMMStudyMapper();
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     public RecordXMLParserTest() throws IOException {
         // Needed because TimeUtility only works properly in UTC timezones
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
@@ -301,6 +312,68 @@ public class RecordXMLParserTest {
         assertEquals(expectedJson, actualJson, true);
     }
 
+    @Test
+    public void shouldMapRecordsInBatchesInTheOrderTheyArePresent() throws Exception {
+        // Given
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/synthetic_list_records_response.xml").toURI());
+        var expected = new RecordXMLParser(cmmStudyMapper).getRecord(repo, recordXML);
+
+        // When each record is mapped in a separate task
+        var batchingParser = new RecordXMLParser(cmmStudyMapper, ParseResultCache.disabled(), new ParserProperties(null, null, 1, false, null));
+        try (var pool = new ForkJoinPool(2)) {
+            var result = pool.submit(() -> batchingParser.getRecord(repo, recordXML)).get();
+
+            // Then
+            then(result).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void shouldParseCompressedRecordFiles() throws Exception {
+        // Given
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/synthetic_list_records_response.xml").toURI());
+        var expected = new RecordXMLParser(cmmStudyMapper).getRecord(repo, recordXML);
+
+        var compressedXML = temporaryFolder.getRoot().toPath().resolve("synthetic_list_records_response.xml.gz");
+        try (var outputStream = new GZIPOutputStream(Files.newOutputStream(compressedXML))) {
+            Files.copy(recordXML, outputStream);
+        }
+
+        // When
+        var result = new RecordXMLParser(cmmStudyMapper).getRecord(repo, compressedXML);
+
+        // Then
+        then(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldParseEachRecordFileInAnArchive() throws Exception {
+        // Given
+        var recordXML = Path.of(ResourceHandler.getResource("xml/ddi_2_5/synthetic_list_records_response.xml").toURI());
+        var expected = new RecordXMLParser(cmmStudyMapper).getRecord(repo, recordXML);
+
+        var archive = temporaryFolder.getRoot().toPath().resolve("records.zip");
+        try (var outputStream = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (var entryName : new String[]{"a.xml", "b/b.xml", "c.txt", "d.xml"}) {
+                outputStream.putNextEntry(new ZipEntry(entryName));
+                if (entryName.equals("d.xml")) {
+                    outputStream.write("<invalid".getBytes());
+                } else {
+                    Files.copy(recordXML, outputStream);
+                }
+                outputStream.closeEntry();
+            }
+        }
+
+        // When
+        var result = new RecordXMLParser(cmmStudyMapper).getRecord(repo, archive);
+
+        // Then the records of each valid XML entry are returned, and other entries are skipped
+        then(result).hasSize(expected.size() * 2);
+        then(result.subList(0, expected.size())).isEqualTo(expected);
+        then(result.subList(expected.size(), result.size())).isEqualTo(expected);
+    }
+
     @Test(expected = XMLParseException.class)
     public void shouldThrowIfAnIOErrorOccurs() throws FileNotFoundException, URISyntaxException, XMLParseException {
         // Given
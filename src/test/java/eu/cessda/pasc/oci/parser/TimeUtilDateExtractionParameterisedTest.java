@@ -68,5 +68,6 @@ public class TimeUtilDateExtractionParameterisedTest {
 
         // Then
         then(actualYearDate).isEqualTo(fExpected);
+        then(TimeUtility.tryGetTimeFormat(fInput, Year::from)).contains(Year.of(fExpected));
     }
 }
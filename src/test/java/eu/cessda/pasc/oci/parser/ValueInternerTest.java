@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017-2025 CESSDA ERIC (support@cessda.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cessda.pasc.oci.parser;
+
+import eu.cessda.pasc.oci.models.cmmstudy.Publisher;
+import eu.cessda.pasc.oci.models.cmmstudy.TermVocabAttributes;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Tests related to {@link ValueInterner}
+ */
+public class ValueInternerTest {
+
+    @Before
+    public void setUp() {
+        ValueInterner.reset();
+    }
+
+    @Test
+    public void shouldReturnTheCanonicalInstance() {
+        // Given
+        var first = new TermVocabAttributes("ELSST", "https://elsst.cessda.eu", "1", new String("Social behaviour"));
+        var second = new TermVocabAttributes("ELSST", "https://elsst.cessda.eu", "1", new String("Social behaviour"));
+
+        // When
+        var internedFirst = ValueInterner.intern(first);
+        var internedSecond = ValueInterner.intern(second);
+
+        // Then
+        then(internedFirst).isSameAs(first);
+        then(internedSecond).isSameAs(first);
+
+        var statistics = ValueInterner.getStatistics();
+        then(statistics.lookups()).isEqualTo(2);
+        then(statistics.duplicates()).isOne();
+        then(statistics.bytesSaved()).isEqualTo(ValueInterner.estimateSize(second));
+    }
+
+    @Test
+    public void shouldNotDeduplicateDifferentValues() {
+        var first = ValueInterner.intern(new Publisher("UKDS", "UK Data Service"));
+        var second = ValueInterner.intern(new Publisher("FSD", "Finnish Social Science Data Archive"));
+
+        then(second).isNotSameAs(first);
+        then(ValueInterner.getStatistics().duplicates()).isZero();
+    }
+
+    @Test
+    public void shouldResetStatisticsForANewRun() {
+        // Given
+        ValueInterner.intern(new Publisher("UKDS", "UK Data Service"));
+        ValueInterner.intern(new Publisher("UKDS", "UK Data Service"));
+
+        // When
+        var previousRun = ValueInterner.reset();
+
+        // Then
+        then(previousRun.duplicates()).isOne();
+        then(ValueInterner.getStatistics()).isEqualTo(new ValueInterner.Statistics(0, 0, 0));
+    }
+
+    @Test
+    public void shouldAcceptNullValues() {
+        then(ValueInterner.<String>intern(null)).isNull();
+    }
+
+    @Test
+    public void shouldEstimateTheSizeOfRecords() {
+        // A string of 10 Latin-1 characters uses a 24 byte String object and a 32 byte array
+        then(ValueInterner.estimateSize("0123456789")).isEqualTo(56);
+
+        // A record with two references uses 24 bytes, plus the size of its strings
+        then(ValueInterner.estimateSize(new Publisher("0123456789", "0123456789"))).isEqualTo(24 + 56 + 56);
+    }
+}
@@ -19,11 +19,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import eu.cessda.pasc.oci.configurations.AppConfigurationProperties;
+import eu.cessda.pasc.oci.parser.CMMStudyMapper;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import java.io.IOException;
+
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.*;
 
 /**
@@ -42,7 +46,7 @@ public class StatusServiceTest {
     ObjectMapper objectMapper = mock(ObjectMapper.class);
     given(objectMapper.writerWithDefaultPrettyPrinter()).willReturn(prettyWriter);
     given(prettyWriter.writeValueAsString(any())).willReturn("{\"test\":\"value\"}");
-    StatusService statusService = new StatusService(appConfigurationProperties, objectMapper);
+    StatusService statusService = new StatusService(appConfigurationProperties, objectMapper, mock(CMMStudyMapper.class));
 
     // when
     String outPut = statusService.printPaSCHandlerOaiPmhConfig();
@@ -52,4 +56,34 @@ public class StatusServiceTest {
     verifier.verify(prettyWriter, calls(1)).writeValueAsString(any());
     then(outPut).startsWith("Config for DDI 2.5: [{\"test\":\"value\"}]");
   }
+
+  @Test
+  public void shouldReloadDataAccessMappings() throws IOException {
+
+    //given
+    CMMStudyMapper cmmStudyMapper = mock(CMMStudyMapper.class);
+    StatusService statusService = new StatusService(appConfigurationProperties, new ObjectMapper(), cmmStudyMapper);
+
+    // when
+    String outPut = statusService.reloadDataAccessMappings();
+
+    //then
+    verify(cmmStudyMapper).reloadDataAccessMappings();
+    then(outPut).isEqualTo("Data access mappings reloaded");
+  }
+
+  @Test
+  public void shouldReportFailuresToReloadDataAccessMappings() throws IOException {
+
+    //given
+    CMMStudyMapper cmmStudyMapper = mock(CMMStudyMapper.class);
+    willThrow(new IOException("mappings not found")).given(cmmStudyMapper).reloadDataAccessMappings();
+    StatusService statusService = new StatusService(appConfigurationProperties, new ObjectMapper(), cmmStudyMapper);
+
+    // when
+    String outPut = statusService.reloadDataAccessMappings();
+
+    //then
+    then(outPut).contains("mappings not found");
+  }
 }